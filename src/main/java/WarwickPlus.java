@@ -4,7 +4,21 @@ import java.awt.GridBagLayout;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.MouseEvent;
+import java.io.BufferedReader;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.swing.BorderFactory;
 import javax.swing.ImageIcon;
@@ -15,22 +29,51 @@ import javax.swing.JProgressBar;
 import javax.swing.JTextArea;
 import javax.swing.JTextField;
 import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 import javax.swing.event.MouseInputAdapter;
 import javax.swing.plaf.InsetsUIResource;
 
 import org.apache.commons.cli.*;
 
+import batch.BatchRunner;
+import batch.ChannelSink;
+import batch.ResultWriter;
 import interfaces.*;
 import screen.*;
+import cache.CachedStores;
+import durable.Durability;
+import durable.DurableStores;
+import ingest.IngestMetrics;
+import ingest.RatingIngester;
+import ingest.RatingSource;
+import lazy.LazyTextStores;
+import ranking.RankedStores;
+import recommend.Recommender;
+import server.StoreServer;
+import stores.ConcurrentStores;
 import stores.Stores;
 import utils.Constants;
 import utils.DisplayImage;
 import utils.LoadData;
 import utils.LoadData.DataLoadException;
+import utils.LoadProgressListener;
 
 public class WarwickPlus {
     // private static AbstractStores stores = new Stores();
 
+    // Set with --ingest: where new ratings are read from once the data has loaded
+    private static String ingestSource = null;
+    private static RatingIngester ingester = null;
+    private static final AtomicBoolean ratingsIngested = new AtomicBoolean(false);
+    private static Timer refreshTimer = null;
+
+    // Set with --watch: apply changes to the csv files to the stores as they are made
+    private static boolean watchFiles = false;
+
+    // Set with --data-dir: the layer that logs changes to the stores there
+    private static DurableStores durable = null;
+    private static LazyTextStores lazyStores = null;
+
     public static int getHSize() {
         return Constants.hSize;
     }
@@ -58,6 +101,30 @@ public class WarwickPlus {
         options.addOption(Option.builder("n").argName("number of movies").hasArg()
                                 .desc("The number of movies to load in (and thereby loading in less of the other files too)")
                                 .build());
+        options.addOption(Option.builder().longOpt("serve").argName("port").hasArg().optionalArg(true)
+                                .desc("Run without the UI, serving the stores as JSON over HTTP (on port " + StoreServer.DEFAULT_PORT + " unless given)")
+                                .build());
+        options.addOption(Option.builder().longOpt("batch").argName("commands file").hasArg().optionalArg(true)
+                                .desc("Run without the UI, reading query commands (one per line) from the file, or stdin if none is given, and writing the results to stdout")
+                                .build());
+        options.addOption(Option.builder().longOpt("format").argName(String.join("|", ResultWriter.FORMATS)).hasArg()
+                                .desc("The output format for --batch (tsv unless given)")
+                                .build());
+        options.addOption(Option.builder().longOpt("ingest").argName("file, pipe or tcp:port").hasArg()
+                                .desc("After loading, keep adding ratings (in the ratings csv format) as they are appended to the file, written to the named pipe, or sent to the local port")
+                                .build());
+        options.addOption(Option.builder().longOpt("watch")
+                                .desc("After loading, keep checking the csv files and apply only the records that changed when they are modified")
+                                .build());
+        options.addOption(Option.builder().longOpt("data-dir").argName("directory").hasArg()
+                                .desc("Keep changes to the stores in this directory (a log and a snapshot) so they survive a restart")
+                                .build());
+        options.addOption(Option.builder().longOpt("durability").argName("buffered|flush|group|fsync").hasArg()
+                                .desc("How soon a change is on disk with --data-dir: buffered (every " + DurableStores.FLUSH_MILLIS + "ms), flush (to the OS), group (synced, sharing syncs between writers) or fsync (synced one at a time). group unless given")
+                                .build());
+        options.addOption(Option.builder().longOpt("lazy-text")
+                                .desc("Keep films' overviews, taglines, homepages and collection paths in a temporary file rather than in memory, reading them back when shown")
+                                .build());
         options.addOption("h","help", false, "Show this help message");
 
         // Handle input data files.
@@ -67,6 +134,13 @@ public class WarwickPlus {
         String movieMetadataPath = Constants.defaultMovieMetadataPath;
         String ratingsPath       = Constants.defaultRatingsPath;
         Integer numMovies        = null;
+        Integer servePort        = null;
+        boolean batch            = false;
+        boolean lazyText         = false;
+        String batchPath         = null;
+        String batchFormat       = "tsv";
+        Path dataDir             = null;
+        Durability durability    = Durability.GROUP_FSYNC;
 
         CommandLineParser cliParser = new DefaultParser();
         try{
@@ -74,6 +148,9 @@ public class WarwickPlus {
             if (line.hasOption("help")){
                 HelpFormatter helpFormatter = new HelpFormatter();
                 helpFormatter.printHelp("WarwickPlus", options);
+                System.out.println("\nBatch commands:");
+                for (String[] command : BatchRunner.COMMANDS)
+                    System.out.println("  " + command[0] + "  ->  " + command[1]);
                 return;
             }
             
@@ -97,17 +174,256 @@ public class WarwickPlus {
                 }
 
             }
+            if (line.hasOption("serve"))
+            {
+                String optionString = line.getOptionValue("serve");
+                try{
+                    servePort = optionString == null ? StoreServer.DEFAULT_PORT : Integer.parseInt(optionString);
+                }
+                catch (NumberFormatException e){
+                    System.out.println("Unable to parse \"" + optionString + "\" as a port number");
+                    return;
+                }
+                if (servePort < 0 || servePort > 65535){
+                    System.out.println("serve port must be between 0 and 65535");
+                    return;
+                }
+            }
+            if (line.hasOption("batch")) { batch = true; batchPath = line.getOptionValue("batch"); }
+            if (line.hasOption("format")) { batchFormat = line.getOptionValue("format"); }
+            if (line.hasOption("ingest")) { ingestSource = line.getOptionValue("ingest"); }
+            if (line.hasOption("watch")) { watchFiles = true; }
+            if (line.hasOption("lazy-text")) { lazyText = true; }
+            if (line.hasOption("data-dir")) { dataDir = Paths.get(line.getOptionValue("data-dir")); }
+            if (line.hasOption("durability"))
+            {
+                String optionString = line.getOptionValue("durability");
+                durability = Durability.named(optionString);
+                if (durability == null){
+                    System.out.println("Unknown durability \"" + optionString + "\", expected buffered, flush, group or fsync");
+                    return;
+                }
+            }
         }
         catch (ParseException e){
             System.err.println("Exception in parsing command line arguments: \n" + e.getMessage());
             return;
         }
 
-        AbstractStores stores = new Stores();
+        // Ingested (and reloaded) records are written while the screens (or server) read, so that needs the thread-safe stores
+        AbstractStores base = ingestSource == null && !watchFiles ? new Stores() : new ConcurrentStores();
+        if (lazyText){
+            try {
+                lazyStores = new LazyTextStores(base);
+                base = lazyStores;
+            } catch (IOException e) {
+                System.err.println("Unable to create a file for the films' text: " + e.getMessage());
+                return;
+            }
+        }
+        if (dataDir != null){
+            durable = new DurableStores(base, dataDir, durability);
+            base = durable;
+        }
+        AbstractStores stores = new RankedStores(new CachedStores(base));
         
+        if (batch){
+            int errors = batch(stores, creditsPath, keywordsPath, movieMetadataPath, ratingsPath, numMovies, batchPath, batchFormat);
+            System.exit(errors == 0 ? 0 : 1);
+        }
+        if (servePort != null){
+            serve(stores, creditsPath, keywordsPath, movieMetadataPath, ratingsPath, numMovies, servePort);
+            return;
+        }
         start(stores, creditsPath, keywordsPath, movieMetadataPath, ratingsPath, numMovies);
     }
 
+    // Loads the stores without a UI and runs the commands in commandsPath (stdin if null or "-")
+    // against them, streaming the results to stdout. Everything else that would go to stdout,
+    // such as loading progress, goes to stderr instead.
+    // Returns the number of commands that failed (or -1 if nothing could be run).
+    static public int batch(AbstractStores stores, String creditsPath, String keywordsPath, String movieMetadataPath, String ratingsPath, Integer numMovies, String commandsPath, String format) {
+        PrintStream stdout = System.out;
+        System.setOut(System.err);
+        FileChannel channel = new FileOutputStream(FileDescriptor.out).getChannel();
+        ResultWriter out = ResultWriter.forFormat(format, new ChannelSink(channel));
+        if (out == null){
+            System.err.println("Unknown format \"" + format + "\", expected one of " + String.join(", ", ResultWriter.FORMATS));
+            return -1;
+        }
+
+        try{
+            LoadData loading = new LoadData(null, watchFiles && numMovies == null, creditsPath, keywordsPath, movieMetadataPath, ratingsPath);
+            populate(loading, stores, numMovies);
+
+            BufferedReader commands = commandsPath == null || commandsPath.equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : Files.newBufferedReader(Paths.get(commandsPath), StandardCharsets.UTF_8);
+            try (commands){
+                return new BatchRunner(stores, out).run(commands);
+            }
+        }
+        catch (DataLoadException e){
+            System.err.println(e.getMessage());
+            return -1;
+        }
+        catch (IOException e){
+            System.err.println("Unable to read commands: " + e.getMessage());
+            return -1;
+        }
+        finally {
+            System.setOut(stdout);
+        }
+    }
+
+    // Fills the stores from the CSVs. With --data-dir, the snapshot stands in for the CSVs once
+    // one has been written, and the changes logged since are replayed on top.
+    private static void populate(LoadData loading, AbstractStores stores, Integer numMovies) throws DataLoadException {
+        if (durable != null){
+            durable.setBase(loading.fingerprint(numMovies));
+        }
+        if (durable == null || !durable.hasSnapshot()){
+            if (numMovies == null){
+                loading.populate(stores);
+            }
+            else {
+                loading.populate(stores, 0, numMovies);
+            }
+        }
+        if (watchFiles){
+            watch(loading, stores, numMovies);
+        }
+        if (durable == null){
+            return;
+        }
+        try{
+            long replayed = durable.recover(stores);
+            System.out.println("\nReplayed " + replayed + " logged changes, logging with " + durable.getDurability());
+        }
+        catch (IOException e){
+            throw loading.new DataLoadException("Unable to recover the saved changes: " + e.getMessage());
+        }
+        DurableStores closing = durable;
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try{
+                closing.close();
+            }
+            catch (IOException e){
+                System.err.println("Unable to save the last changes: " + e.getMessage());
+            }
+        }));
+    }
+
+    // Checks the csv files every so often and, once they have been modified, reloads just the
+    // records that changed
+    private static void watch(LoadData loading, AbstractStores stores, Integer numMovies) {
+        if (numMovies != null){
+            System.err.println("Not watching the csv files: reloading needs the whole dataset loaded, not -n " + numMovies);
+            return;
+        }
+        ScheduledExecutorService watcher = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "csv-watcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        watcher.scheduleWithFixedDelay(() -> {
+            if (!loading.filesModified()){
+                return;
+            }
+            try{
+                LoadData.ReloadResult result = loading.reload(stores);
+                System.out.println("\nReloaded the csv files:\n" + result);
+                if (result.ratings.total() > 0){
+                    ratingsIngested.set(true);
+                }
+                if (result.total() > 0){
+                    Recommender.ratingsChanged(stores);
+                    if (lazyStores != null){
+                        // Changed films were added again, leaving their old text behind in the file
+                        lazyStores.compact();
+                    }
+                    if (durable != null){
+                        // The log holds the reload, so a snapshot over the new files takes its place
+                        durable.rebase(loading.fingerprint(numMovies));
+                    }
+                }
+            }
+            catch (DataLoadException e){
+                // Most likely still being written; tried again once it changes
+                System.err.println("Unable to reload the csv files: " + e.getMessage());
+            }
+            catch (IOException e){
+                System.err.println("Unable to compact after reloading: " + e.getMessage());
+            }
+        }, Constants.reloadPollSeconds, Constants.reloadPollSeconds, TimeUnit.SECONDS);
+        System.out.println("Watching the csv files for changes");
+    }
+
+    // Starts adding ratings from the source as they arrive, printing the ingest metrics
+    // every so often while they do. Returns null if there is no source or it can't be opened.
+    private static RatingIngester startIngest(AbstractStores stores, String spec) {
+        if (spec == null){
+            return null;
+        }
+        RatingSource source;
+        try{
+            source = RatingIngester.sourceFor(spec);
+        }
+        catch (IOException e){
+            System.err.println("Unable to open \"" + spec + "\" to ingest ratings from: " + e.getMessage());
+            return null;
+        }
+        if (source == null){
+            System.err.println("Unable to ingest ratings from \"" + spec + "\": expected a file, a named pipe or tcp:port");
+            return null;
+        }
+
+        RatingIngester started = new RatingIngester(stores.getRatings());
+        started.addListener(movieIDs -> {
+            ratingsIngested.set(true);
+            Recommender.ratingsChanged(stores);
+        });
+        started.start();
+        started.addSource(source);
+        System.out.println("Ingesting ratings, " + source);
+
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "ingest-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long[] lastReceived = {0};
+        reporter.scheduleAtFixedRate(() -> {
+            IngestMetrics metrics = started.getMetrics();
+            if (metrics.getReceived() != lastReceived[0]){
+                lastReceived[0] = metrics.getReceived();
+                System.out.println(metrics);
+            }
+        }, Constants.ingestReportSeconds, Constants.ingestReportSeconds, TimeUnit.SECONDS);
+        return started;
+    }
+
+    // Loads the stores without a UI and serves them over HTTP until the process is stopped
+    static public void serve(AbstractStores stores, String creditsPath, String keywordsPath, String movieMetadataPath, String ratingsPath, Integer numMovies, int port) {
+        try{
+            LoadData loading = new LoadData(null, watchFiles && numMovies == null, creditsPath, keywordsPath, movieMetadataPath, ratingsPath);
+            populate(loading, stores, numMovies);
+            System.out.println("\nFinished Loading...");
+
+            ingester = startIngest(stores, ingestSource);
+            StoreServer server = new StoreServer(stores, port);
+            server.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+            System.out.println("Serving on http://localhost:" + server.getPort() + "/");
+        }
+        catch (DataLoadException e){
+            System.err.println(e.getMessage());
+        }
+        catch (IOException e){
+            System.err.println("Unable to start the server: " + e.getMessage());
+        }
+    }
+
     static public void start(AbstractStores stores){
         start(stores, Constants.defaultCreditsPath, Constants.defaultKeywordsPath, Constants.defaultMovieMetadataPath, Constants.defaultRatingsPath, null);
     }
@@ -160,16 +476,13 @@ public class WarwickPlus {
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
 
         try{
-            LoadData loading = new LoadData(loadingBar, loadingText, creditsPath, keywordsPath, movieMetadataPath, ratingsPath);
+            LoadData loading = new LoadData(loadProgress(loadingBar, loadingText), watchFiles && numMovies == null, creditsPath, keywordsPath, movieMetadataPath, ratingsPath);
             //Populate the student stores
-            if (numMovies == null){
-                loading.populate(stores);
-            }
-            else {
-                loading.populate(stores, 0, numMovies);
-            }
+            populate(loading, stores, numMovies);
 
             System.out.println("\nFinished Loading...");
+            Recommender.forStores(stores); // Start precomputing recommendations in the background
+            ingester = startIngest(stores, ingestSource);
             setHomescreen(frame.getContentPane(), stores);
         }
         catch (DataLoadException e){
@@ -187,12 +500,48 @@ public class WarwickPlus {
         
     }
 
+    // Shows LoadData's progress on the loading screen. Events come from the loading
+    // thread, so each is handed to the event thread (they are already throttled).
+    private static LoadProgressListener loadProgress(JProgressBar loadingBar, JLabel loadingText) {
+        return (file, records, fraction) -> {
+            String loadingString = "[1/2] Loading Data into backend: ";
+            switch (file) {
+                case CREDITS: loadingString += "Credits...";
+                    break;
+                case KEYWORDS: loadingString += "Keywords...";
+                    break;
+                case METADATA: loadingString += "Film Metadata...";
+                    break;
+                case RATINGS: loadingString += "Ratings...";
+                    break;
+            }
+            String text = loadingString + " (" + records + " records)";
+            SwingUtilities.invokeLater(() -> {
+                loadingBar.setValue((int) (fraction * loadingBar.getMaximum()));
+                loadingText.setText(text);
+            });
+        };
+    }
+
     private static void setHomescreen(Container frame, AbstractStores stores) {
         System.out.println("Home screen");
         frame.setVisible(false);
         frame.removeAll();
 
         JPanel content = new JPanel();
+
+        if (ingester != null || watchFiles){
+            // Redraw the Ratings screen now and then while new ratings are arriving
+            if (refreshTimer != null){
+                refreshTimer.stop();
+            }
+            refreshTimer = new Timer(Constants.ingestRefreshMillis, e -> {
+                if (ratingsIngested.getAndSet(false) && RatingsScreen.isShowing(content)){
+                    RatingsScreen.createPanel(content, stores);
+                }
+            });
+            refreshTimer.start();
+        }
         JTextField searchBox = new JTextField("Search...");
 
         content.setBounds((int) (Constants.hSize * 0.15), (int) (Constants.vSize * 0.07), (int) (Constants.hSize * 0.85), (int) (Constants.vSize * 0.88));
@@ -326,25 +675,11 @@ public class WarwickPlus {
         }
 
         //Build stat block
-        String statString = " Films: " + stores.getMovies().size() + " movies\n Film Credits: " + stores.getCredits().size() + " movies\n     Unique Cast: ";
-        if (stores.getCredits().getUniqueCast() == null ) {
-            statString += "???";
-        } else {
-            statString += stores.getCredits().getUniqueCast().length;
-        }
-        statString += "\n     Unique Crew: ";
-        if (stores.getCredits().getUniqueCrew() == null) {
-            statString += "???";
-        } else {
-            statString += stores.getCredits().getUniqueCrew().length;
-        }
-        statString += "\n Ratings: " + stores.getRatings().size() + " ratings \n Keywords: " + stores.getKeywords().size() + " movies\n     (";
-        if (stores.getKeywords().getUnique() == null) {
-            statString += "???";
-        } else {
-            statString += stores.getKeywords().getUnique().length;
-        }
-        statString += " unique keywords)";
+        String statString = " Films: " + stores.getMovies().size() + " movies\n Film Credits: " + stores.getCredits().size() + " movies\n     Unique Cast: "
+            + stores.getCredits().getNumUniqueCast()
+            + "\n     Unique Crew: " + stores.getCredits().getNumUniqueCrew()
+            + "\n Ratings: " + stores.getRatings().size() + " ratings \n Keywords: " + stores.getKeywords().size() + " movies\n     ("
+            + stores.getKeywords().getNumUnique() + " unique keywords)";
 
         JTextArea stats = new JTextArea(statString);
         stats.setForeground(Constants.getFontColor());
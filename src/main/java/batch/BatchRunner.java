@@ -0,0 +1,342 @@
+package batch;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+
+import interfaces.AbstractStores;
+import interfaces.ICredits;
+import interfaces.IKeywords;
+import interfaces.IMovies;
+import interfaces.IRatings;
+import ranking.RankedStores;
+import ranking.Scorer;
+import ranking.Scorers;
+import stores.CastCredit;
+import stores.CrewCredit;
+import stores.Keyword;
+import stores.Person;
+import utils.Constants;
+
+// Runs query commands against the stores without a UI (--batch), one command
+// per line, e.g.
+//   top-rated 100
+//   cast-films 31
+//   find-films "Star"
+// Arguments are separated by spaces; double quotes keep spaces in one argument.
+// Blank lines and lines starting with # are skipped. A command that can't be run
+// is reported through the ResultWriter and the rest still run.
+public class BatchRunner {
+    // Every command with its arguments ([] for optional ones) and the columns of its rows
+    public static final String[][] COMMANDS = {
+        {"top-rated N [mean|bayesian|wilson|blended]", "id, title, average, count"},
+        {"most-rated N", "id, title, average, count"},
+        {"trending N [days]", "id, title, average, count"},
+        {"movie ID", "id, title, release, runtime, average, count"},
+        {"find-films TERM [limit]", "id, title"},
+        {"cast-films ID", "id, title"},
+        {"crew-films ID", "id, title"},
+        {"film-cast ID", "id, name, character"},
+        {"film-crew ID", "id, name, job"},
+        {"film-keywords ID", "id, name"},
+        {"keyword-films ID", "id, title"},
+        {"user-ratings ID", "movie, rating"},
+        {"find-cast TERM [limit]", "id, name"},
+        {"find-keywords TERM", "id, name"},
+    };
+
+    private static final String[] MOVIE_STATS = {"id", "title", "average", "count"};
+    private static final String[] MOVIE_TITLES = {"id", "title"};
+    private static final String[] NAMES = {"id", "name"};
+
+    private final AbstractStores stores;
+    private final IMovies movies;
+    private final IRatings ratings;
+    private final ICredits credits;
+    private final IKeywords keywords;
+    private final ResultWriter out;
+    private int errors = 0;
+
+    public BatchRunner(AbstractStores stores, ResultWriter out) {
+        this.stores = stores;
+        this.movies = stores.getMovies();
+        this.ratings = stores.getRatings();
+        this.credits = stores.getCredits();
+        this.keywords = stores.getKeywords();
+        this.out = out;
+    }
+
+    // Runs every line of the input, flushing the output at the end.
+    // The output is also flushed whenever no more input is waiting, so someone
+    // typing commands (or a program waiting on each answer) sees the results of
+    // one before sending the next; a file or a fast pipe still gets large writes.
+    // Returns the number of commands that couldn't be run.
+    public int run(BufferedReader in) throws IOException {
+        String text;
+        int line = 0;
+        while ((text = in.readLine()) != null) {
+            execute(++line, text);
+            if (!in.ready())
+                out.flush();
+        }
+        out.flush();
+        return errors;
+    }
+
+    // Runs one line of input (line is its number, for the output).
+    // Returns false if it couldn't be run.
+    public boolean execute(int line, String text) {
+        String trimmed = text.trim();
+        if (trimmed.isEmpty() || trimmed.startsWith("#"))
+            return true;
+
+        String[] args = tokenize(trimmed);
+        if (args == null)
+            return fail(line, trimmed, "Unclosed quote");
+        try {
+            if (!run(line, trimmed, args))
+                return fail(line, trimmed, "Unknown command " + args[0]);
+            return true;
+        } catch (BadArguments e) {
+            return fail(line, trimmed, e.getMessage());
+        }
+    }
+
+    public int getErrors() {
+        return errors;
+    }
+
+    private boolean run(int line, String text, String[] args) {
+        switch (args[0]) {
+            case "top-rated": {
+                int n = intArg(args, 1, -1);
+                String name = args.length > 2 ? args[2] : "mean";
+                Scorer scorer = Scorers.named(name);
+                if (scorer == null)
+                    throw new BadArguments("Unknown scorer " + name);
+                int[] ids;
+                if (stores instanceof RankedStores)
+                    ids = ((RankedStores) stores).getRanking().getTop(scorer, n);
+                else if (scorer == Scorers.MEAN)
+                    ids = ratings.getTopAverageRatedMovies(n);
+                else
+                    throw new BadArguments("Only the mean scorer is available on these stores");
+                writeMovieStats(line, text, ids);
+                return true;
+            }
+            case "most-rated":
+                writeMovieStats(line, text, ratings.getMostRatedMovies(intArg(args, 1, -1)));
+                return true;
+            case "trending": {
+                int n = intArg(args, 1, -1);
+                int days = intArg(args, 2, Constants.trendingDays);
+                LocalDateTime latest = ratings.getLatestTimestamp();
+                writeMovieStats(line, text, latest == null ? new int[0] : ratings.getTrendingMovies(latest, days, n));
+                return true;
+            }
+            case "movie": {
+                int id = intArg(args, 1, -1);
+                out.begin(line, text, new String[] {"id", "title", "release", "runtime", "average", "count"});
+                String title = movies.getTitle(id);
+                if (title != null) {
+                    LocalDate release = movies.getRelease(id);
+                    out.value(id);
+                    out.value(title);
+                    out.value(release == null ? null : release.toString());
+                    out.value((float) movies.getRuntime(id));
+                    out.value(ratings.getMovieAverageRating(id));
+                    out.value(Math.max(0, ratings.getNumRatings(id)));
+                    out.endRow();
+                }
+                out.end();
+                return true;
+            }
+            case "find-films":
+                writeTitles(line, text, movies.findFilms(stringArg(args, 1), 0, intArg(args, 2, Integer.MAX_VALUE)));
+                return true;
+            case "cast-films":
+                writeTitles(line, text, credits.getCastFilms(intArg(args, 1, -1)));
+                return true;
+            case "crew-films":
+                writeTitles(line, text, credits.getCrewFilms(intArg(args, 1, -1)));
+                return true;
+            case "keyword-films":
+                writeTitles(line, text, keywords.getFilmsWithKeyword(intArg(args, 1, -1)));
+                return true;
+            case "film-cast": {
+                CastCredit[] cast = credits.getFilmCast(intArg(args, 1, -1));
+                out.begin(line, text, new String[] {"id", "name", "character"});
+                for (CastCredit credit : cast) {
+                    out.value(credit.getID());
+                    out.value(credit.getName());
+                    out.value(credit.getCharacter());
+                    out.endRow();
+                }
+                out.end();
+                return true;
+            }
+            case "film-crew": {
+                CrewCredit[] crew = credits.getFilmCrew(intArg(args, 1, -1));
+                out.begin(line, text, new String[] {"id", "name", "job"});
+                for (CrewCredit credit : crew) {
+                    out.value(credit.getID());
+                    out.value(credit.getName());
+                    out.value(credit.getJob());
+                    out.endRow();
+                }
+                out.end();
+                return true;
+            }
+            case "film-keywords": {
+                Keyword[] found = keywords.getKeywordsForFilm(intArg(args, 1, -1));
+                out.begin(line, text, NAMES);
+                for (int i = 0; found != null && i < found.length; i++) {
+                    out.value(found[i].getID());
+                    out.value(found[i].getName());
+                    out.endRow();
+                }
+                out.end();
+                return true;
+            }
+            case "user-ratings": {
+                int id = intArg(args, 1, -1);
+                int[] rated = ratings.getUserMovies(id);
+                float[] given = ratings.getUserRatings(id);
+                out.begin(line, text, new String[] {"movie", "rating"});
+                for (int i = 0; i < rated.length && i < given.length; i++) {
+                    out.value(rated[i]);
+                    out.value(given[i]);
+                    out.endRow();
+                }
+                out.end();
+                return true;
+            }
+            case "find-cast": {
+                Person[] found = credits.findCast(stringArg(args, 1), 0, intArg(args, 2, Integer.MAX_VALUE));
+                out.begin(line, text, NAMES);
+                for (Person person : found) {
+                    out.value(person.getID());
+                    out.value(person.getName());
+                    out.endRow();
+                }
+                out.end();
+                return true;
+            }
+            case "find-keywords": {
+                Keyword[] found = keywords.findKeywords(stringArg(args, 1));
+                out.begin(line, text, NAMES);
+                for (Keyword keyword : found) {
+                    out.value(keyword.getID());
+                    out.value(keyword.getName());
+                    out.endRow();
+                }
+                out.end();
+                return true;
+            }
+            default:
+                return false;
+        }
+    }
+
+    private void writeMovieStats(int line, String text, int[] ids) {
+        String[] titles = movies.getTitles(ids);
+        float[] averages = ratings.getMovieAverageRatings(ids);
+        int[] counts = ratings.getNumRatings(ids);
+        out.begin(line, text, MOVIE_STATS);
+        for (int i = 0; i < ids.length; i++) {
+            out.value(ids[i]);
+            out.value(titles[i]);
+            out.value(averages[i]);
+            out.value(counts[i]);
+            out.endRow();
+        }
+        out.end();
+    }
+
+    private void writeTitles(int line, String text, int[] ids) {
+        String[] titles = movies.getTitles(ids);
+        out.begin(line, text, MOVIE_TITLES);
+        for (int i = 0; i < ids.length; i++) {
+            out.value(ids[i]);
+            out.value(titles[i]);
+            out.endRow();
+        }
+        out.end();
+    }
+
+    private boolean fail(int line, String text, String message) {
+        errors++;
+        out.error(line, text, message);
+        return false;
+    }
+
+    // The argument at index i as a non-negative whole number (missing if it isn't
+    // there, or an error if missing is -1)
+    private static int intArg(String[] args, int i, int missing) {
+        if (i >= args.length) {
+            if (missing < 0)
+                throw new BadArguments(args[0] + " expects " + usageOf(args[0]));
+            return missing;
+        }
+        try {
+            int value = Integer.parseInt(args[i]);
+            if (value < 0)
+                throw new BadArguments("Expected a non-negative number, got " + args[i]);
+            return value;
+        } catch (NumberFormatException e) {
+            throw new BadArguments("Expected a number, got " + args[i]);
+        }
+    }
+
+    private static String stringArg(String[] args, int i) {
+        if (i >= args.length)
+            throw new BadArguments(args[0] + " expects " + usageOf(args[0]));
+        return args[i];
+    }
+
+    private static String usageOf(String command) {
+        for (String[] usage : COMMANDS) {
+            if (usage[0].startsWith(command + " "))
+                return usage[0];
+        }
+        return command;
+    }
+
+    // Splits a command line into arguments, honouring double quotes (null if a quote isn't closed)
+    static String[] tokenize(String text) {
+        ArrayList<String> args = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false, inArg = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+                inArg = true;
+            } else if (Character.isWhitespace(c) && !quoted) {
+                if (inArg)
+                    args.add(current.toString());
+                current.setLength(0);
+                inArg = false;
+            } else {
+                current.append(c);
+                inArg = true;
+            }
+        }
+        if (quoted)
+            return null;
+        if (inArg)
+            args.add(current.toString());
+        return args.toArray(new String[0]);
+    }
+
+    // Arguments a command can't run with
+    private static final class BadArguments extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        BadArguments(String message) {
+            super(message);
+        }
+    }
+}
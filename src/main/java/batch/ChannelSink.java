@@ -0,0 +1,109 @@
+package batch;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+
+// Collects text and writes it to a channel as UTF-8 in large blocks, so a run of
+// many small results costs a handful of system calls rather than one per line.
+// Nothing reaches the channel until the buffer fills or flush is called (BatchRunner
+// also flushes whenever its input has nothing more waiting).
+public final class ChannelSink {
+    static final int BUFFER_CHARS = 32 * 1024;
+
+    private final WritableByteChannel channel;
+    private final StringBuilder pending = new StringBuilder(BUFFER_CHARS + 1024);
+    private final char[] chars = new char[BUFFER_CHARS + 1024];
+    private final ByteBuffer bytes = ByteBuffer.allocateDirect(BUFFER_CHARS * 3);
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    private long written = 0;
+
+    public ChannelSink(WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    public ChannelSink append(String s) {
+        pending.append(s);
+        return full();
+    }
+
+    public ChannelSink append(char c) {
+        pending.append(c);
+        return full();
+    }
+
+    public ChannelSink append(int i) {
+        pending.append(i);
+        return full();
+    }
+
+    public ChannelSink append(long l) {
+        pending.append(l);
+        return full();
+    }
+
+    public ChannelSink append(float f) {
+        pending.append(f);
+        return full();
+    }
+
+    public ChannelSink append(double d) {
+        pending.append(d);
+        return full();
+    }
+
+    // Writes out everything appended so far
+    public void flush() {
+        int length = pending.length();
+        int from = 0;
+        while (from < length) { // Usually once; more only if one append was huge
+            int to = Math.min(length, from + chars.length);
+            if (to < length && Character.isHighSurrogate(pending.charAt(to - 1)))
+                to--; // Keep surrogate pairs together
+            pending.getChars(from, to, chars, 0);
+            encode(CharBuffer.wrap(chars, 0, to - from), to == length);
+            from = to;
+        }
+        pending.setLength(0);
+    }
+
+    // Bytes written to the channel so far
+    public long getBytesWritten() {
+        return written;
+    }
+
+    private ChannelSink full() {
+        if (pending.length() >= BUFFER_CHARS)
+            flush();
+        return this;
+    }
+
+    private void encode(CharBuffer in, boolean last) {
+        while (true) {
+            CoderResult result = encoder.encode(in, bytes, last);
+            if (last && result.isUnderflow())
+                result = encoder.flush(bytes);
+            drain();
+            if (result.isUnderflow())
+                break;
+        }
+        if (last)
+            encoder.reset();
+    }
+
+    private void drain() {
+        bytes.flip();
+        try {
+            while (bytes.hasRemaining())
+                written += channel.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        bytes.clear();
+    }
+}
@@ -0,0 +1,73 @@
+package batch;
+
+import org.json.JSONObject;
+
+// One JSON object per command, each on its own line:
+//   {"line":3,"command":"top-rated 10","results":[{"id":1,"title":"..."},...]}
+// A command that couldn't be run has "error" in place of "results".
+final class JsonResultWriter extends ResultWriter {
+    private String[] columns;
+    private int column = 0; // Of the next value in the row
+    private boolean firstRow;
+
+    JsonResultWriter(ChannelSink out) {
+        super(out);
+    }
+
+    @Override
+    void begin(int line, String command, String[] columns) {
+        this.columns = columns;
+        firstRow = true;
+        out.append("{\"line\":").append(line)
+            .append(",\"command\":").append(JSONObject.quote(command))
+            .append(",\"results\":[");
+    }
+
+    @Override
+    void value(int v) {
+        key().append(v);
+    }
+
+    @Override
+    void value(float v) {
+        if (Float.isNaN(v) || Float.isInfinite(v))
+            key().append("null");
+        else
+            key().append(v);
+    }
+
+    @Override
+    void value(String v) {
+        key().append(v == null ? "null" : JSONObject.quote(v));
+    }
+
+    @Override
+    void endRow() {
+        out.append('}');
+        column = 0;
+    }
+
+    @Override
+    void end() {
+        out.append("]}\n");
+    }
+
+    @Override
+    void error(int line, String command, String message) {
+        out.append("{\"line\":").append(line)
+            .append(",\"command\":").append(JSONObject.quote(command))
+            .append(",\"error\":").append(JSONObject.quote(message))
+            .append("}\n");
+    }
+
+    // Opens the row if this is its first value, then writes the value's key
+    private ChannelSink key() {
+        if (column == 0) {
+            out.append(firstRow ? "{" : ",{");
+            firstRow = false;
+        } else {
+            out.append(',');
+        }
+        return out.append(JSONObject.quote(columns[column++])).append(':');
+    }
+}
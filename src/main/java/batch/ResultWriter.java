@@ -0,0 +1,42 @@
+package batch;
+
+// Formats the results of batch commands. Each command's results are a run of
+// rows, every row holding one value per column, between begin and end.
+public abstract class ResultWriter {
+    public static final String[] FORMATS = {"tsv", "json"};
+
+    final ChannelSink out;
+
+    ResultWriter(ChannelSink out) {
+        this.out = out;
+    }
+
+    // The writer for a format named in FORMATS, or null if there is no such format
+    public static ResultWriter forFormat(String format, ChannelSink out) {
+        switch (format) {
+            case "tsv": return new TsvResultWriter(out);
+            case "json": return new JsonResultWriter(out);
+            default: return null;
+        }
+    }
+
+    // Starts the results of the command on the given line of input
+    abstract void begin(int line, String command, String[] columns);
+
+    abstract void value(int v);
+
+    abstract void value(float v);
+
+    abstract void value(String v);
+
+    abstract void endRow();
+
+    abstract void end();
+
+    // Reports a command that couldn't be run
+    abstract void error(int line, String command, String message);
+
+    public void flush() {
+        out.flush();
+    }
+}
@@ -0,0 +1,65 @@
+package batch;
+
+// One line per result row: the input line number of the command, then the
+// row's values, separated by tabs. Tabs and line breaks inside text become
+// spaces. Errors go to stderr, so the output only ever holds rows.
+final class TsvResultWriter extends ResultWriter {
+    private int line;
+    private boolean rowStarted = false;
+
+    TsvResultWriter(ChannelSink out) {
+        super(out);
+    }
+
+    @Override
+    void begin(int line, String command, String[] columns) {
+        this.line = line;
+    }
+
+    @Override
+    void value(int v) {
+        start().append(v);
+    }
+
+    @Override
+    void value(float v) {
+        start().append(v);
+    }
+
+    @Override
+    void value(String v) {
+        start();
+        if (v == null)
+            return;
+        boolean clean = true;
+        for (int i = 0; i < v.length() && clean; i++) {
+            char c = v.charAt(i);
+            clean = c != '\t' && c != '\n' && c != '\r';
+        }
+        out.append(clean ? v : v.replaceAll("[\t\r\n]", " "));
+    }
+
+    @Override
+    void endRow() {
+        out.append('\n');
+        rowStarted = false;
+    }
+
+    @Override
+    void end() {
+    }
+
+    @Override
+    void error(int line, String command, String message) {
+        System.err.println("Line " + line + " (" + command + "): " + message);
+    }
+
+    // Writes the line number at the start of a row, then the separator before the value
+    private ChannelSink start() {
+        if (!rowStarted) {
+            out.append(line);
+            rowStarted = true;
+        }
+        return out.append('\t');
+    }
+}
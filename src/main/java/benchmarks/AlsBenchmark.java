@@ -0,0 +1,112 @@
+package benchmarks;
+
+import java.util.Arrays;
+
+import interfaces.IRatings;
+import recommend.AlsModel;
+import recommend.AlsTrainer;
+import stores.Stores;
+import structures.LongHashSet;
+import utils.LoadData;
+import utils.LoadData.DataLoadException;
+
+// Times the ALS trainer and checks it is learning something: trains on 90% of the
+// ratings, reports the RMSE on the other 10% (against just predicting the mean),
+// then times "top movies for this user" queries.
+// Run with: gradle alsBenchmark
+public class AlsBenchmark {
+    private static final int HOLDOUT_EVERY = 10;
+    private static final int TIMED_RUNS = 3;
+
+    public static void main(String[] args) throws DataLoadException {
+        Stores stores = new Stores();
+        new LoadData().populate(stores);
+        IRatings all = stores.getRatings();
+
+        // Every tenth rating of each movie is held out
+        IRatings train = new Stores().getRatings();
+        int[] heldUsers = new int[all.size()];
+        int[] heldMovies = new int[all.size()];
+        float[] heldRatings = new float[all.size()];
+        int held = 0;
+        for (int movie : all.getRatedMovies()) {
+            int[] raters = all.getMovieRaters(movie);
+            float[] values = all.getMovieRatings(movie);
+            int[] movies = new int[raters.length];
+            Arrays.fill(movies, movie);
+            long[] times = new long[raters.length];
+            int kept = 0;
+            for (int k = 0; k < raters.length; k++) {
+                if (k % HOLDOUT_EVERY == HOLDOUT_EVERY - 1) {
+                    heldUsers[held] = raters[k];
+                    heldMovies[held] = movie;
+                    heldRatings[held++] = values[k];
+                } else {
+                    raters[kept] = raters[k];
+                    values[kept++] = values[k];
+                }
+            }
+            train.addBatch(Arrays.copyOf(raters, kept), Arrays.copyOf(movies, kept), Arrays.copyOf(values, kept), Arrays.copyOf(times, kept));
+        }
+
+        // Training time
+        AlsTrainer trainer = new AlsTrainer();
+        AlsModel model = trainer.train(train);
+        long[] trainTimes = new long[TIMED_RUNS];
+        for (int i = 0; i < TIMED_RUNS; i++) {
+            long start = System.nanoTime();
+            model = trainer.train(train);
+            trainTimes[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(trainTimes);
+        System.out.println("Train: " + model.getNumUsers() + " users, " + model.getNumMovies() + " movies, rank " + model.getRank()
+            + ", " + AlsTrainer.DEFAULT_ITERATIONS + " iterations");
+        System.out.printf("  median %.1fms, best %.1fms%n", trainTimes[TIMED_RUNS / 2] / 1e6, trainTimes[0] / 1e6);
+
+        // Held out error, skipping ratings whose user or movie was never seen in training
+        double sum = 0;
+        for (int movie : train.getRatedMovies()) {
+            for (float v : train.getMovieRatings(movie))
+                sum += v;
+        }
+        double mean = sum / train.size();
+        double error = 0, baseline = 0;
+        int scored = 0;
+        for (int k = 0; k < held; k++) {
+            float predicted = model.predict(heldUsers[k], heldMovies[k]);
+            if (predicted < 0)
+                continue;
+            predicted = Math.max(0.5f, Math.min(5.0f, predicted));
+            error += (predicted - heldRatings[k]) * (predicted - heldRatings[k]);
+            baseline += (mean - heldRatings[k]) * (mean - heldRatings[k]);
+            scored++;
+        }
+        System.out.println("Held out: " + scored + " of " + held + " ratings scored");
+        System.out.printf("  RMSE %.3f (predicting the mean: %.3f)%n", Math.sqrt(error / scored), Math.sqrt(baseline / scored));
+
+        // Query latency, over every user (a few passes so the JIT settles)
+        LongHashSet seen = new LongHashSet();
+        int[] users = new int[held];
+        int numUsers = 0;
+        for (int k = 0; k < held; k++) {
+            if (model.hasUser(heldUsers[k]) && seen.add(heldUsers[k]))
+                users[numUsers++] = heldUsers[k];
+        }
+        long[] queryTimes = new long[numUsers];
+        long checksum = 0;
+        for (int pass = 0; pass < 5; pass++) {
+            for (int i = 0; i < numUsers; i++) {
+                long start = System.nanoTime();
+                int[] top = model.topMovies(users[i], 10, train.getUserMovies(users[i]));
+                queryTimes[i] = System.nanoTime() - start;
+                checksum += top.length;
+            }
+        }
+        Arrays.sort(queryTimes);
+        System.out.println("Query: " + numUsers + " users (checksum " + checksum + ")");
+        System.out.printf("  p50 %.2fus, p99 %.2fus, max %.2fus%n",
+            queryTimes[numUsers / 2] / 1e3,
+            queryTimes[(int) (numUsers * 0.99)] / 1e3,
+            queryTimes[numUsers - 1] / 1e3);
+    }
+}
@@ -0,0 +1,86 @@
+package benchmarks;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Random;
+
+import batch.BatchRunner;
+import batch.ChannelSink;
+import batch.ResultWriter;
+import ranking.RankedStores;
+import stores.Stores;
+import utils.LoadData;
+import utils.LoadData.DataLoadException;
+
+// Throughput of the batch command mode: a mix of COMMANDS commands run through
+// each output format into a channel that throws the bytes away, so the time is
+// the queries, formatting and encoding rather than the terminal.
+// Run with: gradle batchBenchmark
+public class BatchBenchmark {
+    private static final int COMMANDS = 200000;
+
+    public static void main(String[] args) throws DataLoadException, IOException {
+        RankedStores stores = new RankedStores(new Stores());
+        new LoadData().populate(stores);
+
+        int[] movies = stores.getMovies().getAllIDs();
+        int[] people = stores.getCredits().getCastFilms(31).length > 0 ? new int[] {31} : new int[] {0};
+        int[] users = stores.getRatings().getMostRatedUsers(100);
+        Random random = new Random(42);
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < COMMANDS; i++) {
+            int movie = movies[random.nextInt(movies.length)];
+            switch (random.nextInt(8)) {
+                case 0: input.append("top-rated 20 bayesian"); break;
+                case 1: input.append("film-cast ").append(movie); break;
+                case 2: input.append("cast-films ").append(people[0]); break;
+                case 3: input.append("find-films \"the\" 10"); break;
+                case 4: input.append("user-ratings ").append(users[random.nextInt(users.length)]); break;
+                case 5: input.append("film-keywords ").append(movie); break;
+                default: input.append("movie ").append(movie); break;
+            }
+            input.append('\n');
+        }
+
+        for (String format : ResultWriter.FORMATS) {
+            for (int pass = 0; pass < 2; pass++) { // The first pass warms up the JIT
+                NullChannel channel = new NullChannel();
+                BatchRunner runner = new BatchRunner(stores, ResultWriter.forFormat(format, new ChannelSink(channel)));
+                long start = System.nanoTime();
+                int errors = runner.run(new BufferedReader(new StringReader(input.toString())));
+                double seconds = (System.nanoTime() - start) / 1e9;
+                if (pass == 1) {
+                    System.out.printf("%s: %d commands in %.0fms, %.0f commands/s, %.1f MB/s out (%d writes, %d errors)%n",
+                        format, COMMANDS, seconds * 1000, COMMANDS / seconds, channel.bytes / 1e6 / seconds, channel.writes, errors);
+                }
+            }
+        }
+    }
+
+    // Counts what is written and drops it
+    private static final class NullChannel implements WritableByteChannel {
+        long bytes = 0;
+        long writes = 0;
+
+        @Override
+        public int write(ByteBuffer src) {
+            int n = src.remaining();
+            src.position(src.limit());
+            bytes += n;
+            writes++;
+            return n;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
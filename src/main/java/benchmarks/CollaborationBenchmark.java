@@ -0,0 +1,61 @@
+package benchmarks;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import interfaces.IPerson;
+import stores.Stores;
+import utils.LoadData;
+import utils.LoadData.DataLoadException;
+
+// Times the collaboration graph kept by Credits: how long the first query takes
+// (folding in every film added while loading), then top-collaborator and
+// degrees-of-separation queries between random pairs of cast members.
+// Run with: gradle collaborationBenchmark
+public class CollaborationBenchmark {
+    private static final int NUM_QUERIES = 2000;
+
+    public static void main(String[] args) throws DataLoadException {
+        Stores stores = new Stores();
+        new LoadData().populate(stores);
+        IPerson[] cast = stores.getCredits().getUniqueCast();
+
+        long start = System.nanoTime();
+        stores.getCredits().getTopCollaborators(cast[0].getID(), 1);
+        System.out.println("First query (builds the rows): " + (System.nanoTime() - start) / 1000000 + "ms");
+
+        Random random = new Random(126);
+        long[] topTimes = new long[NUM_QUERIES];
+        long[] pathTimes = new long[NUM_QUERIES];
+        int[] degrees = new int[8];
+        int unconnected = 0;
+        for (int pass = 0; pass < 2; pass++) { // The first pass warms up the JIT
+            Arrays.fill(degrees, 0);
+            unconnected = 0;
+            for (int i = 0; i < NUM_QUERIES; i++) {
+                int a = cast[random.nextInt(cast.length)].getID();
+                int b = cast[random.nextInt(cast.length)].getID();
+
+                long t = System.nanoTime();
+                stores.getCredits().getTopCollaborators(a, 10);
+                topTimes[i] = System.nanoTime() - t;
+
+                t = System.nanoTime();
+                int d = stores.getCredits().getDegreesOfSeparation(a, b);
+                pathTimes[i] = System.nanoTime() - t;
+                if (d < 0)
+                    unconnected++;
+                else
+                    degrees[Math.min(d, degrees.length - 1)]++;
+            }
+        }
+        Arrays.sort(topTimes);
+        Arrays.sort(pathTimes);
+        System.out.println(cast.length + " cast members; degrees of separation for " + NUM_QUERIES + " random pairs:");
+        for (int d = 0; d < degrees.length; d++)
+            System.out.println("  " + d + (d == degrees.length - 1 ? "+" : "") + ": " + degrees[d]);
+        System.out.println("  not connected: " + unconnected);
+        System.out.printf("Top collaborators: p50 %.2fus, p99 %.2fus%n", topTimes[NUM_QUERIES / 2] / 1e3, topTimes[(int) (NUM_QUERIES * 0.99)] / 1e3);
+        System.out.printf("Shortest path:     p50 %.2fus, p99 %.2fus%n", pathTimes[NUM_QUERIES / 2] / 1e3, pathTimes[(int) (NUM_QUERIES * 0.99)] / 1e3);
+    }
+}
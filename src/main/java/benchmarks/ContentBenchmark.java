@@ -0,0 +1,61 @@
+package benchmarks;
+
+import java.util.Arrays;
+
+import recommend.ContentSimilarity;
+import stores.Stores;
+import structures.LongHashSet;
+import utils.LoadData;
+import utils.LoadData.DataLoadException;
+
+// Compares the LSH "more like this" query against the exact Jaccard scan: how long
+// the index takes to build, how much of the exact top 10 the buckets find (recall),
+// how much of what they return is in the exact top 10 (precision), and query latency.
+// Run with: gradle contentBenchmark
+public class ContentBenchmark {
+    private static final int NUM_RESULTS = 10;
+    private static final int[][] SETTINGS = {{16, 2}, {32, 2}, {64, 2}, {32, 1}, {16, 4}}; // {bands, rows}
+
+    public static void main(String[] args) throws DataLoadException {
+        Stores stores = new Stores();
+        new LoadData().populate(stores);
+        int[] films = stores.getMovies().getAllIDs();
+
+        for (int[] setting : SETTINGS) {
+            long start = System.nanoTime();
+            ContentSimilarity similarity = new ContentSimilarity(stores, setting[0], setting[1], ContentSimilarity.DEFAULT_TOP_CAST, 126);
+            long build = System.nanoTime() - start;
+
+            long[] lshTimes = new long[films.length];
+            long[] scanTimes = new long[films.length];
+            long found = 0, expected = 0, returned = 0;
+            for (int pass = 0; pass < 2; pass++) { // The first pass warms up the JIT
+                found = expected = returned = 0;
+                for (int i = 0; i < films.length; i++) {
+                    long t = System.nanoTime();
+                    int[] approximate = similarity.moreLikeThis(films[i], NUM_RESULTS);
+                    lshTimes[i] = System.nanoTime() - t;
+                    t = System.nanoTime();
+                    int[] exact = similarity.moreLikeThisExact(films[i], NUM_RESULTS);
+                    scanTimes[i] = System.nanoTime() - t;
+
+                    LongHashSet truth = new LongHashSet();
+                    for (int id : exact)
+                        truth.add(id);
+                    for (int id : approximate) {
+                        if (truth.contains(id))
+                            found++;
+                    }
+                    expected += exact.length;
+                    returned += approximate.length;
+                }
+            }
+            Arrays.sort(lshTimes);
+            Arrays.sort(scanTimes);
+            System.out.println(setting[0] + " bands x " + setting[1] + " rows: built in " + build / 1000000 + "ms");
+            System.out.printf("  recall %.3f, precision %.3f%n", (double) found / expected, returned == 0 ? 0 : (double) found / returned);
+            System.out.printf("  LSH  p50 %.2fus, p99 %.2fus%n", lshTimes[films.length / 2] / 1e3, lshTimes[(int) (films.length * 0.99)] / 1e3);
+            System.out.printf("  scan p50 %.2fus, p99 %.2fus%n", scanTimes[films.length / 2] / 1e3, scanTimes[(int) (films.length * 0.99)] / 1e3);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import durable.Durability;
+import durable.DurableStores;
+import interfaces.IRatings;
+import stores.ConcurrentStores;
+
+// Write throughput of DurableStores under each durability mode, with one
+// writer and with several, each adding ratings as fast as it can for a couple
+// of seconds. Also times replaying the log that leaves behind.
+// The syncing modes depend entirely on the disk the temporary directory is on.
+// Run with: gradle durabilityBenchmark
+public class DurabilityBenchmark {
+    private static final long MILLIS = 2000;
+    private static final int[] WRITERS = {1, 8};
+    private static final LocalDateTime TIME = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        for (Durability durability : Durability.values()) {
+            for (int writers : WRITERS) {
+                Path dir = Files.createTempDirectory("durability");
+                try {
+                    run(dir, durability, writers);
+                } finally {
+                    try (Stream<Path> files = Files.walk(dir)) {
+                        files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+                    }
+                }
+            }
+        }
+    }
+
+    private static void run(Path dir, Durability durability, int numWriters) throws IOException, InterruptedException {
+        DurableStores stores = new DurableStores(new ConcurrentStores(), dir, durability, Long.MAX_VALUE);
+        stores.recover(stores);
+        IRatings ratings = stores.getRatings();
+
+        long[][] latencies = new long[numWriters][];
+        int[] counts = new int[numWriters];
+        Thread[] threads = new Thread[numWriters];
+        long deadline = System.nanoTime() + MILLIS * 1000000;
+        for (int t = 0; t < numWriters; t++) {
+            int writer = t;
+            threads[t] = new Thread(() -> {
+                long[] times = new long[1 << 16];
+                int n = 0;
+                while (System.nanoTime() < deadline) {
+                    long start = System.nanoTime();
+                    ratings.add(n, writer, 1 + n % 5, TIME); // Each writer rates its own movie
+                    if (n == times.length)
+                        times = Arrays.copyOf(times, n * 2);
+                    times[n++] = System.nanoTime() - start;
+                }
+                latencies[writer] = Arrays.copyOf(times, n);
+                counts[writer] = n;
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+        long logBytes = stores.getLogSize();
+        stores.close();
+
+        int total = Arrays.stream(counts).sum();
+        long[] all = new long[total];
+        int at = 0;
+        for (long[] times : latencies) {
+            System.arraycopy(times, 0, all, at, times.length);
+            at += times.length;
+        }
+        Arrays.sort(all);
+
+        DurableStores replay = new DurableStores(new ConcurrentStores(), dir, durability);
+        long start = System.nanoTime();
+        long replayed = replay.recover(replay);
+        double replayMillis = (System.nanoTime() - start) / 1e6;
+        replay.close();
+
+        System.out.printf("%-11s %d writer(s): %9.0f writes/s, p50 %7.1fus, p99 %8.1fus, %.1f bytes/write; replayed %d in %.0fms%n",
+            durability, numWriters, total / (MILLIS / 1000.0), all[total / 2] / 1e3, all[(int) (total * 0.99)] / 1e3,
+            (double) logBytes / total, replayed, replayMillis);
+    }
+}
@@ -0,0 +1,79 @@
+package benchmarks;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import interfaces.IMovies;
+import query.Facet;
+import query.FacetFilter;
+import query.FacetIndex;
+import stores.Genre;
+import stores.Stores;
+import utils.LoadData;
+import utils.LoadData.DataLoadException;
+
+// Times faceted filtering: building the bitmaps, answering a filter, and computing
+// genre counts, against the same filter done as a scan over every film.
+// Run with: gradle facetBenchmark
+public class FacetBenchmark {
+    private static final int RUNS = 2000;
+
+    public static void main(String[] args) throws DataLoadException {
+        Stores stores = new Stores();
+        new LoadData().populate(stores);
+
+        long start = System.nanoTime();
+        FacetIndex index = new FacetIndex(stores);
+        System.out.println("Built for " + index.size() + " films in " + (System.nanoTime() - start) / 1000000 + "ms, "
+            + index.sizeInBytes() / 1024 + "KB of bitmaps");
+
+        FacetFilter filter = new FacetFilter().genres("Action", "Thriller").languages("en").years(1990, 2009).runtime(90, 150).minRating(3.0f);
+        long[] filterTimes = new long[RUNS];
+        long[] countTimes = new long[RUNS];
+        long[] scanTimes = new long[RUNS / 10];
+        int matches = 0, scanned = 0;
+        for (int pass = 0; pass < 2; pass++) { // The first pass warms up the JIT
+            for (int i = 0; i < RUNS; i++) {
+                long t = System.nanoTime();
+                matches = index.filter(filter).length;
+                filterTimes[i] = System.nanoTime() - t;
+                t = System.nanoTime();
+                index.getCounts(Facet.GENRE, filter);
+                countTimes[i] = System.nanoTime() - t;
+            }
+            for (int i = 0; i < scanTimes.length; i++) {
+                long t = System.nanoTime();
+                scanned = scan(stores).length;
+                scanTimes[i] = System.nanoTime() - t;
+            }
+        }
+        Arrays.sort(filterTimes);
+        Arrays.sort(countTimes);
+        Arrays.sort(scanTimes);
+        System.out.println("Filter: " + matches + " matches (scan found " + scanned + ")");
+        System.out.printf("  bitmaps p50 %.2fus, p99 %.2fus%n", filterTimes[RUNS / 2] / 1e3, filterTimes[(int) (RUNS * 0.99)] / 1e3);
+        System.out.printf("  scan    p50 %.2fus, p99 %.2fus%n", scanTimes[scanTimes.length / 2] / 1e3, scanTimes[(int) (scanTimes.length * 0.99)] / 1e3);
+        System.out.printf("Genre counts: p50 %.2fus, p99 %.2fus%n", countTimes[RUNS / 2] / 1e3, countTimes[(int) (RUNS * 0.99)] / 1e3);
+    }
+
+    // The same filter, checking each film's fields in turn
+    private static int[] scan(Stores stores) {
+        IMovies movies = stores.getMovies();
+        int[] ids = movies.getAllIDs();
+        int[] result = new int[ids.length];
+        int n = 0;
+        for (int id : ids) {
+            boolean genre = false;
+            for (Genre g : movies.getGenres(id))
+                genre |= g.getName().equals("Action") || g.getName().equals("Thriller");
+            LocalDate release = movies.getRelease(id);
+            double runtime = movies.getRuntime(id);
+            if (genre && "en".equals(movies.getOriginalLanguage(id))
+                    && release != null && release.getYear() >= 1990 && release.getYear() <= 2009
+                    && (int) runtime >= 90 && (int) runtime <= 150
+                    && stores.getRatings().getNumRatings(id) > 0 && stores.getRatings().getMovieAverageRating(id) >= 3.0f)
+                result[n++] = id;
+        }
+        return Arrays.copyOf(result, n);
+    }
+}
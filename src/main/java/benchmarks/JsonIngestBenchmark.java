@@ -0,0 +1,143 @@
+package benchmarks;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import stores.CastCredit;
+import stores.CrewCredit;
+import utils.Constants;
+import utils.JsonReader;
+
+// Decoding the cast and crew cells of the credits csv: building an org.json
+// JSONArray / JSONObject per cell and reading fields from it (as LoadData used
+// to), against pulling the fields straight out with JsonReader (as it does now).
+// The cells are read into memory first, so only the json decoding is timed.
+// Run with: gradle jsonIngestBenchmark
+public class JsonIngestBenchmark {
+    private static final int PASSES = 10; // Over the cells, per round
+    private static final int ROUNDS = 5;
+    private static final String[] CAST_KEYS = {"cast_id", "character", "credit_id", "id", "name", "order", "profile_path"};
+    private static final String[] CREW_KEYS = {"credit_id", "department", "id", "job", "name", "profile_path"};
+
+    public static void main(String[] args) throws IOException {
+        ArrayList<String> casts = new ArrayList<>();
+        ArrayList<String> crews = new ArrayList<>();
+        long chars = 0;
+        CSVFormat csvFormat = CSVFormat.DEFAULT.builder().setHeader().setSkipHeaderRecord(true).build();
+        try (Reader reader = new FileReader(Constants.defaultCreditsPath, StandardCharsets.UTF_8); CSVParser parser = csvFormat.parse(reader)) {
+            for (CSVRecord csvRecord : parser) {
+                casts.add(csvRecord.get("cast"));
+                crews.add(csvRecord.get("crew"));
+                chars += csvRecord.get("cast").length() + csvRecord.get("crew").length();
+            }
+        }
+        double mb = PASSES * chars / (1024.0 * 1024.0);
+        System.out.printf("%d films, %.1fMB of json per round%n", casts.size(), mb);
+
+        JsonReader json = new JsonReader();
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            long domCredits = 0;
+            for (int pass = 0; pass < PASSES; pass++) {
+                for (int i = 0; i < casts.size(); i++)
+                    domCredits += readWithDom(casts.get(i), crews.get(i));
+            }
+            double domSeconds = (System.nanoTime() - start) / 1e9;
+
+            start = System.nanoTime();
+            long streamedCredits = 0;
+            for (int pass = 0; pass < PASSES; pass++) {
+                for (int i = 0; i < casts.size(); i++)
+                    streamedCredits += readWithJsonReader(json, casts.get(i), crews.get(i));
+            }
+            double streamSeconds = (System.nanoTime() - start) / 1e9;
+
+            if (domCredits != streamedCredits)
+                throw new IllegalStateException("Decoders disagree");
+            System.out.printf("Round %d: org.json %.0fMB/s, JsonReader %.0fMB/s (%d credits)%n",
+                round + 1, mb / domSeconds, mb / streamSeconds, domCredits / PASSES);
+        }
+    }
+
+    private static int readWithDom(String cast, String crew) {
+        JSONArray castArray = new JSONArray(cast);
+        ArrayList<CastCredit> credits = new ArrayList<>();
+        for (int i = 0; i < castArray.length(); i++) {
+            JSONObject object = castArray.getJSONObject(i);
+            object.getInt("gender");
+            credits.add(new CastCredit(object.getInt("cast_id"), object.getString("character"), object.getString("credit_id"),
+                object.getInt("id"), object.getString("name"), object.getInt("order"), object.getString("profile_path")));
+        }
+        JSONArray crewArray = new JSONArray(crew);
+        ArrayList<CrewCredit> crewCredits = new ArrayList<>();
+        for (int i = 0; i < crewArray.length(); i++) {
+            JSONObject object = crewArray.getJSONObject(i);
+            object.getInt("gender");
+            crewCredits.add(new CrewCredit(object.getString("credit_id"), object.getString("department"), object.getInt("id"),
+                object.getString("job"), object.getString("name"), object.getString("profile_path")));
+        }
+        return credits.size() + crewCredits.size();
+    }
+
+    private static int readWithJsonReader(JsonReader json, String cast, String crew) {
+        ArrayList<CastCredit> credits = new ArrayList<>();
+        json.reset(cast).beginArray();
+        while (json.hasNext()) {
+            int[] ints = new int[3];
+            String[] strings = new String[4];
+            int seen = 0;
+            json.beginObject();
+            while (json.hasNext()) {
+                int key = json.nextName(CAST_KEYS);
+                if (key < 0) {
+                    json.skipValue();
+                    continue;
+                }
+                // cast_id, id and order are the ints; key / 2 numbers each kind from 0
+                if (key == 0 || key == 3 || key == 5)
+                    ints[key / 2] = json.nextInt();
+                else
+                    strings[key / 2] = json.nextString();
+                seen |= 1 << key;
+            }
+            json.endObject();
+            json.requireAll(seen, CAST_KEYS);
+            credits.add(new CastCredit(ints[0], strings[0], strings[1], ints[1], strings[2], ints[2], strings[3]));
+        }
+        json.endArray();
+
+        ArrayList<CrewCredit> crewCredits = new ArrayList<>();
+        json.reset(crew).beginArray();
+        while (json.hasNext()) {
+            int id = 0;
+            String[] strings = new String[6];
+            int seen = 0;
+            json.beginObject();
+            while (json.hasNext()) {
+                int key = json.nextName(CREW_KEYS);
+                if (key < 0)
+                    json.skipValue();
+                else if (key == 2)
+                    id = json.nextInt();
+                else
+                    strings[key] = json.nextString();
+                if (key >= 0)
+                    seen |= 1 << key;
+            }
+            json.endObject();
+            json.requireAll(seen, CREW_KEYS);
+            crewCredits.add(new CrewCredit(strings[0], strings[1], id, strings[3], strings[4], strings[5]));
+        }
+        json.endArray();
+        return credits.size() + crewCredits.size();
+    }
+}
@@ -0,0 +1,109 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.util.Random;
+
+import interfaces.AbstractStores;
+import interfaces.IMovies;
+import stores.Genre;
+import lazy.LazyTextStores;
+import stores.Stores;
+import utils.LoadData;
+import utils.LoadData.DataLoadException;
+
+// Heap held by the loaded stores with the films' text in memory, against with
+// it in a TextBlobs file; then the cost of reading it back: every overview
+// once (mostly LRU misses), the same film's again and again (hits), and a
+// findFilms search over the overviews.
+// The sample data has little text, so the heap is also measured for a
+// synthetic set the size of the full dataset, with text of typical length.
+// Run with: gradle lazyTextBenchmark
+public class LazyTextBenchmark {
+    private static final int ROUNDS = 5;
+    private static final int REPEATS = 100000;
+    private static final int FILMS = 45000; // About the full dataset
+    private static final String[] WORDS = {"a", "the", "young", "man", "woman", "family", "war", "love", "city",
+        "secret", "must", "find", "after", "their", "journey", "world", "life", "lost", "home", "story"};
+
+    public static void main(String[] args) throws DataLoadException, IOException {
+        long before = usedHeap();
+        Stores plain = new Stores();
+        new LoadData().populate(plain);
+        long plainBytes = usedHeap() - before;
+
+        before = usedHeap();
+        LazyTextStores lazy = new LazyTextStores(new Stores());
+        new LoadData().populate(lazy);
+        long lazyBytes = usedHeap() - before;
+        System.out.printf("Stores on the heap: %.1fMB with the text, %.1fMB without (%.1fMB of text in %s)%n",
+            plainBytes / 1e6, lazyBytes / 1e6, lazy.getBlobs().size() / 1e6, lazy.getBlobs().getPath());
+
+        before = usedHeap();
+        Stores synthetic = synthetic(new Stores());
+        long syntheticPlain = usedHeap() - before;
+        before = usedHeap();
+        LazyTextStores syntheticLazy = synthetic(new LazyTextStores(new Stores()));
+        long syntheticLazyBytes = usedHeap() - before;
+        System.out.printf("%d synthetic films: %.1fMB with the text, %.1fMB without (%.1fMB of text)%n",
+            FILMS, syntheticPlain / 1e6, syntheticLazyBytes / 1e6, syntheticLazy.getBlobs().size() / 1e6);
+        if (synthetic.getMovies().size() == 0) // Keeps the stores reachable until here
+            System.out.println();
+        syntheticLazy.close();
+
+        for (int round = 0; round < ROUNDS; round++)
+            System.out.printf("Round %d: %s | %s%n", round + 1, time(plain), time(lazy));
+        if (plain.getMovies().size() == 0) // Keeps the stores reachable until here
+            System.out.println();
+        lazy.close();
+    }
+
+    private static String time(AbstractStores stores) {
+        IMovies movies = stores.getMovies();
+        int[] ids = movies.getAllIDs();
+        long chars = 0;
+        long start = System.nanoTime();
+        for (int id : ids) {
+            String overview = movies.getOverview(id);
+            chars += overview == null ? 0 : overview.length();
+        }
+        double allMicros = (System.nanoTime() - start) / 1e3 / ids.length;
+
+        start = System.nanoTime();
+        for (int i = 0; i < REPEATS; i++)
+            chars += movies.getOverview(ids[i % 10]).length();
+        double repeatMicros = (System.nanoTime() - start) / 1e3 / REPEATS;
+
+        start = System.nanoTime();
+        int found = movies.findFilms("love").length;
+        double searchMillis = (System.nanoTime() - start) / 1e6;
+        return String.format("%s: %.2fus per overview, %.3fus repeated, search %.1fms (%d found, %d chars)",
+            stores instanceof LazyTextStores ? "lazy" : "in memory", allMicros, repeatMicros, searchMillis, found, chars);
+    }
+
+    // Adds FILMS films with an overview of about 300 characters, a tagline of about
+    // 60 and a homepage of about 40, each made for the film so none are shared
+    private static <S extends AbstractStores> S synthetic(S stores) {
+        Random random = new Random(42);
+        IMovies movies = stores.getMovies();
+        for (int id = 1; id <= FILMS; id++) {
+            movies.add(id, "Film " + id, "Film " + id, words(random, 300), words(random, 60), "Released", new Genre[0],
+                null, 0, 0, new String[0], "en", 90, "https://www.example.com/films/" + id + "/home", false, false,
+                "/poster" + id + ".jpg");
+        }
+        return stores;
+    }
+
+    private static String words(Random random, int length) {
+        StringBuilder text = new StringBuilder(length + 10);
+        while (text.length() < length)
+            text.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+        return text.toString().trim();
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++)
+            System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,178 @@
+package benchmarks;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import interfaces.ICredits;
+import interfaces.IKeywords;
+import stores.Person;
+import stores.Stores;
+import structures.IntPostings;
+import structures.PostingsTable;
+import utils.LoadData;
+import utils.LoadData.DataLoadException;
+
+// The film lists of every keyword and cast member, and the list of every film
+// (as FacetIndex keeps it), as plain sorted int[]s, as one IntPostings each and as
+// a PostingsTable (as the stores keep them): bytes held, then the time to intersect and union the
+// lists of the most used keywords in pairs (postings skip blocks by their first
+// values; the arrays are merged) and to look up one person's films.
+// The sample data's lists are short, so the same is done for made-up lists of
+// the full dataset's size: one film list as long as a common keyword's there,
+// intersected with many short ones.
+// Run with: gradle postingsBenchmark
+public class PostingsBenchmark {
+    private static final int ROUNDS = 5;
+    private static final int TOP_KEYWORDS = 200; // Pairs of these are intersected and unioned
+    private static final int LOOKUPS = 100000;
+    private static final int FULL_FILMS = 45000; // Films in the full dataset
+    private static final int SHORT_LISTS = 2000;
+
+    public static void main(String[] args) throws DataLoadException {
+        Stores stores = new Stores();
+        new LoadData().populate(stores);
+        IKeywords keywords = stores.getKeywords();
+        ICredits credits = stores.getCredits();
+
+        int[] keywordIDs = keywords.getKeywordIDs();
+        int[][] keywordFilms = new int[keywordIDs.length][];
+        for (int k = 0; k < keywordIDs.length; k++)
+            keywordFilms[k] = keywords.getFilmsWithKeyword(keywordIDs[k]);
+        Person[] cast = credits.getUniqueCast();
+        int[][] castFilms = new int[cast.length][];
+        for (int c = 0; c < cast.length; c++)
+            castFilms[c] = credits.getCastFilms(cast[c].getID());
+        System.out.printf("Keywords: %s%nCast: %s%nAll films: %s%n", sizes(keywordFilms), sizes(castFilms),
+            sizes(new int[][] { stores.getMovies().getAllIDs() }));
+
+        // The longest keyword lists, where set operations cost the most
+        Arrays.sort(keywordFilms, (a, b) -> b.length - a.length);
+        int top = Math.min(TOP_KEYWORDS, keywordFilms.length);
+        IntPostings[] postings = new IntPostings[top];
+        for (int k = 0; k < top; k++)
+            postings[k] = IntPostings.of(keywordFilms[k]);
+
+        for (int round = 0; round < ROUNDS; round++) {
+            long found = 0;
+            long start = System.nanoTime();
+            for (int x = 0; x < top; x++)
+                for (int y = x + 1; y < top; y++)
+                    found += IntPostings.andCardinality(postings[x], postings[y]);
+            double postingsAnd = (System.nanoTime() - start) / 1e6;
+
+            start = System.nanoTime();
+            for (int x = 0; x < top; x++)
+                for (int y = x + 1; y < top; y++)
+                    found -= intersect(keywordFilms[x], keywordFilms[y]);
+            double arrayAnd = (System.nanoTime() - start) / 1e6;
+
+            start = System.nanoTime();
+            for (int x = 0; x < top; x++)
+                found += IntPostings.or(postings[x], postings[(x + 1) % top]).size();
+            double postingsOr = (System.nanoTime() - start) / 1e6;
+
+            start = System.nanoTime();
+            for (int x = 0; x < top; x++)
+                found -= union(keywordFilms[x], keywordFilms[(x + 1) % top]).length;
+            double arrayOr = (System.nanoTime() - start) / 1e6;
+
+            long films = 0;
+            start = System.nanoTime();
+            for (int i = 0; i < LOOKUPS; i++)
+                films += credits.getCastFilms(cast[i % cast.length].getID()).length;
+            double lookupMicros = (System.nanoTime() - start) / 1e3 / LOOKUPS;
+
+            System.out.printf("Round %d: AND %.1fms postings / %.1fms arrays, OR %.1fms / %.1fms, getCastFilms %.2fus (%d films)%s%n",
+                round + 1, postingsAnd, arrayAnd, postingsOr, arrayOr, lookupMicros, films, found == 0 ? "" : " (mismatch!)");
+        }
+        fullSize();
+    }
+
+    private static void fullSize() {
+        Random random = new Random(50);
+        int[] ids = new int[FULL_FILMS];
+        for (int i = 0; i < FULL_FILMS; i++)
+            ids[i] = 2 + i * 10 + random.nextInt(10); // Spread out as TMDB IDs are
+        int[] common = sample(ids, FULL_FILMS / 4, random);
+        int[][] rare = new int[SHORT_LISTS][];
+        for (int k = 0; k < SHORT_LISTS; k++)
+            rare[k] = sample(ids, 5 + random.nextInt(50), random);
+        IntPostings commonPostings = IntPostings.of(common);
+        IntPostings[] rarePostings = new IntPostings[SHORT_LISTS];
+        for (int k = 0; k < SHORT_LISTS; k++)
+            rarePostings[k] = IntPostings.of(rare[k]);
+        System.out.printf("Full size: common list %s%n  short lists %s%n", sizes(new int[][] { common }), sizes(rare));
+
+        for (int round = 0; round < ROUNDS; round++) {
+            long found = 0;
+            long start = System.nanoTime();
+            for (IntPostings p : rarePostings)
+                found += IntPostings.andCardinality(commonPostings, p);
+            double postingsAnd = (System.nanoTime() - start) / 1e6;
+
+            start = System.nanoTime();
+            for (int[] a : rare)
+                found -= intersect(common, a);
+            double arrayAnd = (System.nanoTime() - start) / 1e6;
+            System.out.printf("Round %d: AND with the common list %.2fms postings / %.2fms arrays%s%n",
+                round + 1, postingsAnd, arrayAnd, found == 0 ? "" : " (mismatch!)");
+        }
+    }
+
+    // n of the ids, ascending
+    private static int[] sample(int[] ids, int n, Random random) {
+        int[] result = new int[n];
+        for (int i = 0; i < n; i++)
+            result[i] = ids[random.nextInt(ids.length)];
+        Arrays.sort(result);
+        return Arrays.stream(result).distinct().toArray();
+    }
+
+    private static String sizes(int[][] lists) {
+        long values = 0, arrayBytes = 0, postingsBytes = 0;
+        PostingsTable table = new PostingsTable();
+        for (int[] films : lists) {
+            values += films.length;
+            arrayBytes += 16 + 4L * films.length; // Array header and ints
+            postingsBytes += IntPostings.of(films).sizeInBytes();
+            int slot = table.addSlot();
+            for (int film : films)
+                table.add(slot, film);
+        }
+        return String.format("%d lists of %d films, %.3fMB as int[], %.3fMB as postings, %.3fMB as a table",
+            lists.length, values, arrayBytes / 1e6, postingsBytes / 1e6, table.copy().sizeInBytes() / 1e6);
+    }
+
+    // Size of the intersection of two ascending arrays, merged
+    private static int intersect(int[] a, int[] b) {
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j])
+                i++;
+            else if (a[i] > b[j])
+                j++;
+            else {
+                n++;
+                i++;
+                j++;
+            }
+        }
+        return n;
+    }
+
+    private static int[] union(int[] a, int[] b) {
+        int[] out = new int[a.length + b.length];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length || j < b.length) {
+            if (j == b.length || (i < a.length && a[i] < b[j]))
+                out[n++] = a[i++];
+            else if (i == a.length || a[i] > b[j])
+                out[n++] = b[j++];
+            else {
+                out[n++] = a[i++];
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+}
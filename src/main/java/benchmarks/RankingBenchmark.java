@@ -0,0 +1,67 @@
+package benchmarks;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Random;
+
+import ranking.RankedStores;
+import ranking.Ranking;
+import ranking.Scorer;
+import ranking.Scorers;
+import stores.Stores;
+import utils.LoadData;
+import utils.LoadData.DataLoadException;
+
+// Times the top-rated list under each scorer while ratings keep arriving: one
+// rating is added between reads, so every read follows an incremental update.
+// The store's own getTopAverageRatedMovies (a full pass) is timed for comparison.
+// Run with: gradle rankingBenchmark
+public class RankingBenchmark {
+    private static final int RUNS = 2000;
+    private static final int TOP = 100;
+
+    public static void main(String[] args) throws DataLoadException {
+        RankedStores stores = new RankedStores(new Stores());
+        long start = System.nanoTime();
+        new LoadData().populate(stores);
+        System.out.println("Loaded (ranking kept up to date) in " + (System.nanoTime() - start) / 1000000 + "ms");
+
+        Ranking ranking = stores.getRanking();
+        int[] movies = stores.getMovies().getAllIDs();
+        Random random = new Random(126);
+        int nextUser = 1 << 24; // Above every real user ID, so every add lands
+        Scorer[] scorers = { Scorers.MEAN, Scorers.BAYESIAN, Scorers.WILSON, Scorers.BLENDED };
+
+        for (Scorer scorer : scorers) {
+            long[] updateTimes = new long[RUNS];
+            long[] readTimes = new long[RUNS];
+            for (int pass = 0; pass < 2; pass++) { // The first pass warms up the JIT
+                for (int i = 0; i < RUNS; i++) {
+                    int movie = movies[random.nextInt(movies.length)];
+                    long t = System.nanoTime();
+                    stores.getRatings().add(nextUser++, movie, (1 + random.nextInt(10)) / 2.0f, LocalDateTime.now());
+                    updateTimes[i] = System.nanoTime() - t;
+                    t = System.nanoTime();
+                    ranking.getTop(scorer, TOP);
+                    readTimes[i] = System.nanoTime() - t;
+                }
+            }
+            Arrays.sort(updateTimes);
+            Arrays.sort(readTimes);
+            System.out.printf("%s: top %d p50 %.2fus, p99 %.2fus (add p50 %.2fus)%n", scorer, TOP,
+                readTimes[RUNS / 2] / 1e3, readTimes[(int) (RUNS * 0.99)] / 1e3, updateTimes[RUNS / 2] / 1e3);
+        }
+
+        long[] scanTimes = new long[RUNS / 10];
+        for (int pass = 0; pass < 2; pass++) {
+            for (int i = 0; i < scanTimes.length; i++) {
+                long t = System.nanoTime();
+                stores.getRatings().getTopAverageRatedMovies(TOP);
+                scanTimes[i] = System.nanoTime() - t;
+            }
+        }
+        Arrays.sort(scanTimes);
+        System.out.printf("getTopAverageRatedMovies (full pass): p50 %.2fus, p99 %.2fus%n",
+            scanTimes[scanTimes.length / 2] / 1e3, scanTimes[(int) (scanTimes.length * 0.99)] / 1e3);
+    }
+}
@@ -0,0 +1,81 @@
+package benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+
+import utils.RatingsReader;
+
+// Throughput reading a synthetic ratings csv of ROWS lines: commons-csv (a
+// CSVRecord and Strings per line, then the number parsers, as LoadData used to)
+// against RatingsReader on one thread and on every core.
+// Run with: gradle ratingsReaderBenchmark
+public class RatingsReaderBenchmark {
+    private static final int ROWS = 5_000_000;
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) throws IOException {
+        Path dir = Files.createTempDirectory("ratings");
+        Path file = dir.resolve("ratings.csv");
+        Random random = new Random(42);
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("userId,movieLensId,tmdbId,rating,timestamp\n");
+            for (int i = 0; i < ROWS; i++) {
+                writer.write((i / 100) + "," + random.nextInt(200000) + "," + random.nextInt(500000) + ","
+                    + (random.nextInt(10) + 1) / 2.0 + "," + (800000000L + random.nextInt(700000000)) + "\n");
+            }
+        }
+        double mb = Files.size(file) / (1024.0 * 1024.0);
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.printf("%,d ratings, %.0fMB, %d cores%n", ROWS, mb, cores);
+
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            long sum = readWithCommonsCsv(file);
+            double csvSeconds = (System.nanoTime() - start) / 1e9;
+
+            start = System.nanoTime();
+            RatingsReader.Columns single = RatingsReader.read(file, 1);
+            double singleSeconds = (System.nanoTime() - start) / 1e9;
+
+            start = System.nanoTime();
+            RatingsReader.Columns parallel = RatingsReader.read(file, cores);
+            double parallelSeconds = (System.nanoTime() - start) / 1e9;
+
+            if (single.size != ROWS || parallel.size != ROWS || sum != checksum(parallel))
+                throw new IllegalStateException("Readers disagree");
+            System.out.printf("Round %d: commons-csv %.0fMB/s, RatingsReader %.0fMB/s (1 thread), %.0fMB/s (%d threads)%n",
+                round + 1, mb / csvSeconds, mb / singleSeconds, mb / parallelSeconds, cores);
+        }
+        Files.delete(file);
+        Files.delete(dir);
+    }
+
+    private static long readWithCommonsCsv(Path file) throws IOException {
+        CSVFormat csvFormat = CSVFormat.DEFAULT.builder().setHeader().setSkipHeaderRecord(true).build();
+        long sum = 0;
+        try (Reader reader = new FileReader(file.toFile(), StandardCharsets.UTF_8); CSVParser parser = csvFormat.parse(reader)) {
+            for (CSVRecord csvRecord : parser) {
+                sum += Integer.parseInt(csvRecord.get(0)) + Integer.parseInt(csvRecord.get(2))
+                    + (long) (Float.parseFloat(csvRecord.get(3)) * 2) + Long.parseLong(csvRecord.get(4));
+            }
+        }
+        return sum;
+    }
+
+    private static long checksum(RatingsReader.Columns columns) {
+        long sum = 0;
+        for (int i = 0; i < columns.size; i++)
+            sum += columns.userIds[i] + columns.movieIds[i] + (long) (columns.ratings[i] * 2) + columns.timestamps[i];
+        return sum;
+    }
+}
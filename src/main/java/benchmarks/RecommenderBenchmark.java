@@ -0,0 +1,56 @@
+package benchmarks;
+
+import java.util.Arrays;
+
+import recommend.ItemNeighbours;
+import recommend.ItemSimilarity;
+import recommend.Recommender;
+import stores.Stores;
+import utils.LoadData;
+import utils.LoadData.DataLoadException;
+
+// Times the recommender: how long the neighbour table takes to precompute, and
+// how long a "because you watched" lookup takes once it is built.
+// Run with: gradle recommenderBenchmark
+public class RecommenderBenchmark {
+    private static final int WARMUP_RUNS = 3;
+    private static final int TIMED_RUNS = 5;
+
+    public static void main(String[] args) throws DataLoadException {
+        Stores stores = new Stores();
+        new LoadData().populate(stores);
+
+        // Precompute time
+        for (int i = 0; i < WARMUP_RUNS; i++)
+            ItemSimilarity.compute(stores.getRatings(), Recommender.NUM_NEIGHBOURS, Recommender.MIN_COMMON_RATERS);
+        long[] buildTimes = new long[TIMED_RUNS];
+        ItemNeighbours table = null;
+        for (int i = 0; i < TIMED_RUNS; i++) {
+            long start = System.nanoTime();
+            table = ItemSimilarity.compute(stores.getRatings(), Recommender.NUM_NEIGHBOURS, Recommender.MIN_COMMON_RATERS);
+            buildTimes[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(buildTimes);
+        System.out.println("Precompute: " + table.size() + " movies, " + table.numEntries() + " neighbour entries");
+        System.out.printf("  median %.1fms, best %.1fms%n", buildTimes[TIMED_RUNS / 2] / 1e6, buildTimes[0] / 1e6);
+
+        // Query latency, over every movie in the table (a few passes so the JIT settles)
+        int[] movies = stores.getRatings().getRatedMovies();
+        long[] queryTimes = new long[movies.length];
+        long checksum = 0;
+        for (int pass = 0; pass < 5; pass++) {
+            for (int i = 0; i < movies.length; i++) {
+                long start = System.nanoTime();
+                int[] similar = table.getNeighbours(movies[i], 10);
+                queryTimes[i] = System.nanoTime() - start;
+                checksum += similar.length;
+            }
+        }
+        Arrays.sort(queryTimes);
+        System.out.println("Query: " + movies.length + " movies (checksum " + checksum + ")");
+        System.out.printf("  p50 %.2fus, p99 %.2fus, max %.2fus%n",
+            queryTimes[queryTimes.length / 2] / 1e3,
+            queryTimes[(int) (queryTimes.length * 0.99)] / 1e3,
+            queryTimes[queryTimes.length - 1] / 1e3);
+    }
+}
@@ -0,0 +1,62 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import stores.Stores;
+import utils.Constants;
+import utils.LoadData;
+import utils.LoadData.DataLoadException;
+
+// Time to pick up a small change to the csv files: loading everything again
+// into new stores, against reloading just the changed records into the live
+// ones. The change rewrites CHANGED_RATINGS ratings and deletes a few.
+// Run with: gradle reloadBenchmark
+public class ReloadBenchmark {
+    private static final int CHANGED_RATINGS = 100;
+    private static final int DELETED_RATINGS = 10;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws DataLoadException, IOException {
+        Path dir = Files.createTempDirectory("reload");
+        Path ratingsPath = dir.resolve("ratings.csv");
+        List<String> ratings = Files.readAllLines(Paths.get(Constants.defaultRatingsPath), StandardCharsets.UTF_8);
+        Files.write(ratingsPath, ratings, StandardCharsets.UTF_8);
+
+        LoadData loading = new LoadData(null, true, Constants.defaultCreditsPath, Constants.defaultKeywordsPath,
+            Constants.defaultMovieMetadataPath, ratingsPath.toString());
+        Stores stores = new Stores();
+        loading.populate(stores);
+
+        for (int round = 0; round < ROUNDS; round++) {
+            // Rewrite some ratings' timestamps, and drop a few lines off the end
+            for (int i = 1; i <= CHANGED_RATINGS; i++) {
+                int line = 1 + (int) ((long) i * 7919 * (round + 1) % (ratings.size() - 1 - DELETED_RATINGS));
+                String[] fields = ratings.get(line).split(",");
+                fields[4] = Long.toString(Long.parseLong(fields[4]) + 1);
+                ratings.set(line, String.join(",", fields));
+            }
+            ratings = ratings.subList(0, ratings.size() - DELETED_RATINGS);
+            Files.write(ratingsPath, ratings, StandardCharsets.UTF_8);
+
+            long start = System.nanoTime();
+            LoadData.ReloadResult result = loading.reload(stores);
+            double reloadMillis = (System.nanoTime() - start) / 1e6;
+
+            start = System.nanoTime();
+            LoadData full = new LoadData(Constants.defaultCreditsPath, Constants.defaultKeywordsPath,
+                Constants.defaultMovieMetadataPath, ratingsPath.toString());
+            full.populate(new Stores());
+            double fullMillis = (System.nanoTime() - start) / 1e6;
+
+            System.out.printf("Round %d: reload %.0fms (%d records changed) against a full load %.0fms%n",
+                round + 1, reloadMillis, result.total(), fullMillis);
+        }
+        Files.delete(ratingsPath);
+        Files.delete(dir);
+    }
+}
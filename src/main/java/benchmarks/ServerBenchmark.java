@@ -0,0 +1,115 @@
+package benchmarks;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import cache.CachedStores;
+import interfaces.AbstractStores;
+import ranking.RankedStores;
+import server.StoreServer;
+import stores.Stores;
+import utils.LoadData;
+
+// Load test for the HTTP server: CLIENTS threads each send a mix of requests
+// over their own keep-alive connection, revalidating with If-None-Match when
+// they have seen a URL before (as a browser would), and the latency of every
+// request after the warm up is recorded.
+// Run with: gradle serverBenchmark
+public class ServerBenchmark {
+    private static final int CLIENTS = 16;
+    private static final int WARMUP = 500; // Requests per client before timing
+    private static final int REQUESTS = 2000; // Timed requests per client
+
+    public static void main(String[] args) throws Exception {
+        AbstractStores stores = new RankedStores(new CachedStores(new Stores()));
+        new LoadData().populate(stores);
+        int[] movies = stores.getMovies().getAllIDs();
+        int[] users = stores.getRatings().getMostRatedUsers(200);
+
+        StoreServer server = new StoreServer(stores, 0);
+        server.start();
+        String base = "http://localhost:" + server.getPort();
+        System.out.println("Serving " + movies.length + " movies on " + base);
+
+        long[][] latencies = new long[CLIENTS][REQUESTS];
+        AtomicLong notModified = new AtomicLong();
+        AtomicLong failures = new AtomicLong();
+        AtomicLong bytes = new AtomicLong();
+        Thread[] clients = new Thread[CLIENTS];
+        long[] timedStart = new long[CLIENTS];
+        for (int c = 0; c < CLIENTS; c++) {
+            int client = c;
+            clients[c] = new Thread(() -> {
+                HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+                HashMap<String, String> etags = new HashMap<>();
+                Random random = new Random(41 + client);
+                for (int i = 0; i < WARMUP + REQUESTS; i++) {
+                    if (i == WARMUP)
+                        timedStart[client] = System.nanoTime();
+                    String url = base + pick(random, movies, users);
+                    HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url));
+                    String etag = etags.get(url);
+                    if (etag != null)
+                        request.header("If-None-Match", etag);
+                    long t = System.nanoTime();
+                    try {
+                        HttpResponse<byte[]> response = http.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+                        long took = System.nanoTime() - t;
+                        if (i < WARMUP)
+                            continue;
+                        latencies[client][i - WARMUP] = took;
+                        bytes.addAndGet(response.body().length);
+                        if (response.statusCode() == 304)
+                            notModified.incrementAndGet();
+                        else if (response.statusCode() != 200)
+                            failures.incrementAndGet();
+                        response.headers().firstValue("ETag").ifPresent(tag -> etags.put(url, tag));
+                    } catch (Exception e) {
+                        failures.incrementAndGet();
+                    }
+                }
+            });
+        }
+
+        long start = System.nanoTime();
+        for (Thread client : clients)
+            client.start();
+        for (Thread client : clients)
+            client.join();
+        long end = System.nanoTime();
+        server.stop();
+
+        long timedFrom = Arrays.stream(timedStart).min().getAsLong();
+        long[] all = new long[CLIENTS * REQUESTS];
+        for (int c = 0; c < CLIENTS; c++)
+            System.arraycopy(latencies[c], 0, all, c * REQUESTS, REQUESTS);
+        Arrays.sort(all);
+        System.out.printf("%d clients, %d requests each (after %d warm up), in %dms%n", CLIENTS, REQUESTS, WARMUP, (end - start) / 1000000);
+        System.out.printf("Latency p50 %.3fms, p99 %.3fms, max %.3fms%n",
+            all[all.length / 2] / 1e6, all[(int) (all.length * 0.99)] / 1e6, all[all.length - 1] / 1e6);
+        System.out.printf("Throughput %.0f requests/s, %.1f MB/s%n",
+            all.length / ((end - timedFrom) / 1e9), bytes.get() / 1e6 / ((end - timedFrom) / 1e9));
+        System.out.printf("304 Not Modified: %d, failures: %d%n", notModified.get(), failures.get());
+    }
+
+    // A mix weighted towards single movie lookups, as a front end would send
+    private static String pick(Random random, int[] movies, int[] users) {
+        int movie = movies[random.nextInt(movies.length)];
+        switch (random.nextInt(10)) {
+            case 0: return "/movies/" + movie + "/ratings";
+            case 1: return "/movies/" + movie + "/cast";
+            case 2: return "/movies/search?q=the&limit=20";
+            case 3: return "/ratings/top?scorer=bayesian&n=50";
+            case 4: return "/ratings/trending";
+            case 5: return "/users/" + users[random.nextInt(users.length)] + "/ratings";
+            case 6: return "/movies?offset=" + random.nextInt(movies.length) + "&limit=50";
+            default: return "/movies/" + movie;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package cache;
+
+import interfaces.ICredits;
+import stores.CastCredit;
+import stores.CrewCredit;
+import stores.ForwardingCredits;
+import stores.Person;
+
+// Credits store that memoises getMostCastCredits until the credits change
+public class CachedCredits extends ForwardingCredits {
+    final QueryCache cache = new QueryCache("Credits");
+
+    public CachedCredits(ICredits delegate) {
+        super(delegate);
+    }
+
+    @Override
+    public boolean add(CastCredit[] cast, CrewCredit[] crew, int filmID) {
+        return invalidateIf(delegate.add(cast, crew, filmID));
+    }
+
+    @Override
+    public boolean remove(int filmID) {
+        return invalidateIf(delegate.remove(filmID));
+    }
+
+    @Override
+    public Person[] getMostCastCredits(int numResults) {
+        String key = QueryCache.key("getMostCastCredits", numResults);
+        long version = cache.getVersion();
+        Person[] result = (Person[]) cache.get(key, version);
+        if (result == null) {
+            result = delegate.getMostCastCredits(numResults);
+            cache.put(key, version, result);
+        }
+        return result.clone(); // Callers get their own copy so they can't change the cached one
+    }
+
+    private boolean invalidateIf(boolean changed) {
+        if (changed)
+            cache.invalidate();
+        return changed;
+    }
+}
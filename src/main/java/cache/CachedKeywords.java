@@ -0,0 +1,52 @@
+package cache;
+
+import interfaces.IKeywords;
+import stores.ForwardingKeywords;
+import stores.Keyword;
+
+// Keywords store that memoises getMostKeywordFilms until the keywords change
+public class CachedKeywords extends ForwardingKeywords {
+    final QueryCache cache = new QueryCache("Keywords");
+
+    public CachedKeywords(IKeywords delegate) {
+        super(delegate);
+    }
+
+    @Override
+    public boolean add(int filmID, Keyword[] keywords) {
+        return invalidateIf(delegate.add(filmID, keywords));
+    }
+
+    @Override
+    public boolean add(int filmID, Keyword keyword) {
+        return invalidateIf(delegate.add(filmID, keyword));
+    }
+
+    @Override
+    public boolean remove(int filmID) {
+        return invalidateIf(delegate.remove(filmID));
+    }
+
+    @Override
+    public boolean removeKeywordFromFilm(int filmID, int keywordID) {
+        return invalidateIf(delegate.removeKeywordFromFilm(filmID, keywordID));
+    }
+
+    @Override
+    public int[] getMostKeywordFilms(int numResults) {
+        String key = QueryCache.key("getMostKeywordFilms", numResults);
+        long version = cache.getVersion();
+        int[] result = (int[]) cache.get(key, version);
+        if (result == null) {
+            result = delegate.getMostKeywordFilms(numResults);
+            cache.put(key, version, result);
+        }
+        return result.clone(); // Callers get their own copy so they can't change the cached one
+    }
+
+    private boolean invalidateIf(boolean changed) {
+        if (changed)
+            cache.invalidate();
+        return changed;
+    }
+}
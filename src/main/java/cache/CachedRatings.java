@@ -0,0 +1,95 @@
+package cache;
+
+import java.time.LocalDateTime;
+
+import interfaces.IRatings;
+import stores.ForwardingRatings;
+
+// Ratings store that memoises the leaderboard queries until the ratings change
+public class CachedRatings extends ForwardingRatings {
+    final QueryCache cache = new QueryCache("Ratings");
+
+    public CachedRatings(IRatings delegate) {
+        super(delegate);
+    }
+
+    // ---------- Mutations (invalidate the cache when they change something) ----------
+
+    @Override
+    public boolean add(int userID, int movieID, float rating, LocalDateTime timestamp) {
+        return invalidateIf(delegate.add(userID, movieID, rating, timestamp));
+    }
+
+    @Override
+    public boolean remove(int userID, int movieID) {
+        return invalidateIf(delegate.remove(userID, movieID));
+    }
+
+    @Override
+    public boolean set(int userID, int movieID, float rating, LocalDateTime timestamp) {
+        return invalidateIf(delegate.set(userID, movieID, rating, timestamp));
+    }
+
+    @Override
+    public int addBatch(int[] userIDs, int[] movieIDs, float[] ratings, long[] timestamps, boolean[] added) {
+        int count = delegate.addBatch(userIDs, movieIDs, ratings, timestamps, added);
+        invalidateIf(count > 0);
+        return count;
+    }
+
+    // ---------- Cached queries ----------
+
+    @Override
+    public int[] getMostRatedMovies(int numResults) {
+        String key = QueryCache.key("getMostRatedMovies", numResults);
+        long version = cache.getVersion();
+        int[] result = (int[]) cache.get(key, version);
+        if (result == null) {
+            result = delegate.getMostRatedMovies(numResults);
+            cache.put(key, version, result);
+        }
+        return result.clone(); // Callers get their own copy so they can't change the cached one
+    }
+
+    @Override
+    public int[] getMostRatedUsers(int numResults) {
+        String key = QueryCache.key("getMostRatedUsers", numResults);
+        long version = cache.getVersion();
+        int[] result = (int[]) cache.get(key, version);
+        if (result == null) {
+            result = delegate.getMostRatedUsers(numResults);
+            cache.put(key, version, result);
+        }
+        return result.clone();
+    }
+
+    @Override
+    public int[] getTopAverageRatedMovies(int numResults) {
+        String key = QueryCache.key("getTopAverageRatedMovies", numResults);
+        long version = cache.getVersion();
+        int[] result = (int[]) cache.get(key, version);
+        if (result == null) {
+            result = delegate.getTopAverageRatedMovies(numResults);
+            cache.put(key, version, result);
+        }
+        return result.clone();
+    }
+
+    @Override
+    public int[] getTrendingMovies(LocalDateTime reference, int days, int numResults) {
+        String key = QueryCache.key("getTrendingMovies", reference, days, numResults);
+        long version = cache.getVersion();
+        int[] result = (int[]) cache.get(key, version);
+        if (result == null) {
+            result = delegate.getTrendingMovies(reference, days, numResults);
+            cache.put(key, version, result);
+        }
+        return result.clone();
+    }
+
+    private boolean invalidateIf(boolean changed) {
+        if (changed)
+            cache.invalidate();
+        return changed;
+    }
+}
@@ -0,0 +1,50 @@
+package cache;
+
+import interfaces.AbstractStores;
+
+// Wraps another set of stores so that the expensive leaderboard queries
+// (top average rated, most rated, most cast credits, most keywords) are only
+// recomputed when the store they read from has changed.
+// Movies has no leaderboard queries, so it is passed through unchanged.
+public class CachedStores extends AbstractStores {
+    private AbstractStores backing;
+    private CachedRatings cachedRatings;
+    private CachedCredits cachedCredits;
+    private CachedKeywords cachedKeywords;
+
+    public CachedStores(AbstractStores backing) {
+        this.backing = backing;
+        cachedRatings = new CachedRatings(backing.getRatings());
+        cachedCredits = new CachedCredits(backing.getCredits());
+        cachedKeywords = new CachedKeywords(backing.getKeywords());
+
+        movies = backing.getMovies();
+        ratings = cachedRatings;
+        credits = cachedCredits;
+        keywords = cachedKeywords;
+    }
+
+    // Snapshots get their own cache, which never needs invalidating as they can't change
+    @Override
+    public AbstractStores snapshot() {
+        return new CachedStores(backing.snapshot());
+    }
+
+    public long getHits() {
+        return cachedRatings.cache.getHits() + cachedCredits.cache.getHits() + cachedKeywords.cache.getHits();
+    }
+
+    public long getMisses() {
+        return cachedRatings.cache.getMisses() + cachedCredits.cache.getMisses() + cachedKeywords.cache.getMisses();
+    }
+
+    // Number of results kept across the three caches
+    public int getSize() {
+        return cachedRatings.cache.size() + cachedCredits.cache.size() + cachedKeywords.cache.size();
+    }
+
+    // One line of hit/miss stats per store
+    public String getCacheStats() {
+        return cachedRatings.cache + "\n" + cachedCredits.cache + "\n" + cachedKeywords.cache;
+    }
+}
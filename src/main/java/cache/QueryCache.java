@@ -0,0 +1,112 @@
+package cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Memoises query results by (method, args) for a single store.
+// Every entry remembers the store version it was computed at, and is only served
+// while the store is still at that version, so any add/set/remove invalidates it.
+// Stale entries are dropped rather than kept, and at most capacity entries are
+// kept (the least recently used go first), as keys such as getTrendingMovies'
+// take arguments from the client and a reference time that keeps moving.
+public class QueryCache {
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private final String name; // Which store this cache sits in front of (for reporting)
+    private final AtomicLong version = new AtomicLong(); // Bumped on every successful mutation
+    private final LinkedHashMap<String, Entry> entries;
+    private long hits;
+    private long misses;
+
+    public QueryCache(String name) {
+        this(name, DEFAULT_CAPACITY);
+    }
+
+    public QueryCache(String name, int capacity) {
+        this.name = name;
+        int max = Math.max(1, capacity);
+        entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > max;
+            }
+        };
+    }
+
+    // Marks every cached result as stale, and drops them. Called after the store changes.
+    public synchronized void invalidate() {
+        version.incrementAndGet();
+        entries.clear();
+    }
+
+    public long getVersion() {
+        return version.get();
+    }
+
+    // Builds the key for a query, e.g. key("getMostRatedMovies", 100)
+    public static String key(String method, int arg) {
+        return method + "(" + arg + ")";
+    }
+
+    // Builds the key for a query with several arguments, e.g. key("getTrendingMovies", time, 30, 10)
+    public static String key(String method, Object... args) {
+        StringBuilder key = new StringBuilder(method).append('(');
+        for (int i = 0; i < args.length; i++)
+            key.append(i > 0 ? ", " : "").append(args[i]);
+        return key.append(')').toString();
+    }
+
+    // Returns the cached result for key, or null if there is none for the current version.
+    // The caller must pass the version it read *before* computing, so results from a computation
+    // that raced with a mutation are never served for the newer version.
+    public synchronized Object get(String key, long atVersion) {
+        Entry e = entries.get(key);
+        if (e != null && e.version == atVersion) {
+            hits++;
+            return e.value;
+        }
+        if (e != null && e.version != version.get())
+            entries.remove(key); // Stale, so never served again
+        misses++;
+        return null;
+    }
+
+    // Keeps a result, unless the store has changed since atVersion (it would never be served)
+    public synchronized void put(String key, long atVersion, Object value) {
+        if (atVersion == version.get())
+            entries.put(key, new Entry(atVersion, value));
+    }
+
+    // Number of results kept
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    @Override
+    public synchronized String toString() {
+        long total = hits + misses;
+        double hitRate = total == 0 ? 0.0 : (100.0 * hits) / total;
+        return String.format("%s cache: %d hits, %d misses (%.1f%% hit rate), version %d",
+                name, hits, misses, hitRate, version.get());
+    }
+
+    // A computed result and the store version it is valid for
+    private static class Entry {
+        long version;
+        Object value;
+
+        Entry(long version, Object value) {
+            this.version = version;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package durable;
+
+// How hard DurableStores works to get each mutation onto disk before the call
+// that made it returns. Each step down is safer and slower.
+public enum Durability {
+    // Mutations are buffered and written out every flush interval (or once a
+    // megabyte is waiting). A crash of the process or the machine can lose the
+    // last interval's worth.
+    BUFFERED,
+    // Each mutation is written to the OS before returning. It survives the
+    // process dying, but not the machine losing power.
+    FLUSH,
+    // Each mutation is on disk before returning. Writers that arrive while a sync
+    // is in progress wait for the next one and share it, so under concurrent load
+    // one sync covers many mutations.
+    GROUP_FSYNC,
+    // Each mutation is written and synced on its own, one at a time.
+    FSYNC;
+
+    // The mode named on the command line (buffered, flush, group, fsync), or null
+    public static Durability named(String name) {
+        switch (name.toLowerCase()) {
+            case "buffered": return BUFFERED;
+            case "flush": return FLUSH;
+            case "group": case "group_fsync": return GROUP_FSYNC;
+            case "fsync": return FSYNC;
+            default: return null;
+        }
+    }
+}
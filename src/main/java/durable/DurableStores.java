@@ -0,0 +1,315 @@
+package durable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+import interfaces.AbstractStores;
+
+// Wraps another set of stores so that their mutations survive a restart.
+// Every mutation that changes something is appended to a write-ahead log in the
+// data directory (see Records for the format), and is as safe as the
+// Durability mode promises by the time the call returns. Once the log grows
+// past compactBytes the whole state is written to a snapshot and the log
+// starts again with just what was logged while the snapshot was written.
+//
+// Nothing is logged until recover is called, so loading the CSVs (which can
+// always be done again) isn't. To start up: build the stores with this layer
+// in them, setBase to a fingerprint of what is loaded (the CSVs and -n),
+// populate them from the CSVs unless hasSnapshot, then call recover with the
+// outermost stores. The log and snapshot headers keep the base, and a log
+// written over another base is refused rather than replayed onto the wrong
+// films. A snapshot stands in for the CSVs, so a different base there is only
+// warned about; rebase writes a snapshot over a new base (after a reload).
+//
+// Compaction takes a snapshot of the stores under the write lock, then writes
+// it out without the lock, so writers carry on logging meanwhile. The file is
+// synced and renamed over the old one, recording how many bytes of the log it
+// covers; the records logged after those are then carried over into a new log
+// with the snapshot's generation. A crash at any point leaves either the old
+// snapshot and its whole log, or the new snapshot and a log it covers (from a
+// generation before) or carries on from. A record torn by a crash is dropped
+// along with anything after it.
+public class DurableStores extends AbstractStores {
+    public static final String LOG_FILE = "stores.wal";
+    public static final String SNAPSHOT_FILE = "stores.snapshot";
+    public static final long DEFAULT_COMPACT_BYTES = 64L << 20;
+    public static final long FLUSH_MILLIS = 200; // How often BUFFERED writes out
+
+    private final AbstractStores backing;
+    private final Path dir;
+    private final Durability durability;
+    private final long compactBytes;
+    private final Object writeLock = new Object(); // So the log has mutations in the order they were applied
+    private final Object compactLock = new Object(); // One compaction at a time
+    private final AtomicBoolean compactionQueued = new AtomicBoolean(false);
+    private volatile WriteAheadLog log; // null until recover (and after close)
+    private ScheduledExecutorService background;
+    private long replayed = 0;
+    private long base = 0; // Fingerprint of what was loaded before recover (see setBase)
+
+    public DurableStores(AbstractStores backing, Path dir, Durability durability) {
+        this(backing, dir, durability, DEFAULT_COMPACT_BYTES);
+    }
+
+    public DurableStores(AbstractStores backing, Path dir, Durability durability, long compactBytes) {
+        this.backing = backing;
+        this.dir = dir;
+        this.durability = durability;
+        this.compactBytes = compactBytes;
+
+        movies = new LoggedMovies(backing.getMovies(), this);
+        ratings = new LoggedRatings(backing.getRatings(), this);
+        credits = new LoggedCredits(backing.getCredits(), this);
+        keywords = new LoggedKeywords(backing.getKeywords(), this);
+    }
+
+    // Snapshots are of the stores in memory, not the files
+    @Override
+    public AbstractStores snapshot() {
+        return backing.snapshot();
+    }
+
+    // The fingerprint of what the stores are loaded with before recover (such as
+    // LoadData.fingerprint), which the log is kept against. Only used by recover.
+    public void setBase(long base) {
+        synchronized (writeLock) {
+            this.base = base;
+        }
+    }
+
+    // Whether a snapshot holds the whole state, so the CSVs needn't be loaded
+    public boolean hasSnapshot() {
+        return Files.isRegularFile(dir.resolve(SNAPSHOT_FILE));
+    }
+
+    // Replays the snapshot (if there is one) and then the log into stores, and
+    // starts logging. stores should be the outermost stores around this one, so
+    // that whatever they keep derived from the data follows the replay.
+    // Returns the number of log records replayed.
+    public long recover(AbstractStores stores) throws IOException {
+        synchronized (writeLock) {
+            if (log != null)
+                return replayed;
+            Files.createDirectories(dir);
+            Path snapshotPath = dir.resolve(SNAPSHOT_FILE);
+            Path logPath = dir.resolve(LOG_FILE);
+
+            WriteAheadLog.Contents snapshot = null;
+            long generation = 0;
+            long logBase = base;
+            if (hasSnapshot()) {
+                snapshot = WriteAheadLog.read(snapshotPath, WriteAheadLog.SNAPSHOT_MAGIC, 0,
+                        payload -> Records.apply(payload, stores));
+                if (snapshot == null || snapshot.torn)
+                    throw new IOException("The snapshot " + snapshotPath + " is damaged");
+                generation = snapshot.generation;
+                logBase = snapshot.base;
+                if (snapshot.base != base)
+                    System.err.println("The snapshot in " + dir + " was made from other csv files or another -n;"
+                        + " it stands in for them, so they are ignored until the directory is moved away");
+            }
+
+            WriteAheadLog.Contents header = Files.exists(logPath) ? WriteAheadLog.readHeader(logPath, WriteAheadLog.LOG_MAGIC) : null;
+            if (header != null && snapshot == null && header.base != base) {
+                if (Files.size(logPath) > WriteAheadLog.HEADER_BYTES)
+                    throw new IOException("The changes in " + logPath + " were made over other csv files or another -n;"
+                        + " load the same files with the same -n, or move the directory away");
+                header = null; // Nothing logged, so started again over this base
+            }
+            if (header != null && header.generation >= generation) {
+                WriteAheadLog.Contents contents = WriteAheadLog.read(logPath, WriteAheadLog.LOG_MAGIC, 0,
+                        payload -> Records.apply(payload, stores));
+                if (contents.torn)
+                    System.err.println("Dropped a torn record at byte " + contents.length + " of " + logPath);
+                replayed = contents.records;
+                log = WriteAheadLog.reopen(logPath, contents, durability);
+            } else if (header != null && header.generation == generation - 1) {
+                // A crash during compaction, after the snapshot was renamed but before the log
+                // restarted: the records logged after the ones the snapshot covers still apply
+                WriteAheadLog.Contents contents = WriteAheadLog.read(logPath, WriteAheadLog.LOG_MAGIC, snapshot.covered,
+                        payload -> Records.apply(payload, stores));
+                replayed = contents.records;
+                log = restart(generation, logBase, snapshot.covered, contents.length);
+            } else {
+                // No log, or one the snapshot already covers
+                log = WriteAheadLog.create(logPath, WriteAheadLog.LOG_MAGIC, generation, logBase, 0, durability);
+                syncDirectory();
+            }
+
+            background = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "durable-stores");
+                thread.setDaemon(true);
+                return thread;
+            });
+            if (durability == Durability.BUFFERED)
+                background.scheduleWithFixedDelay(this::flushQuietly, FLUSH_MILLIS, FLUSH_MILLIS, TimeUnit.MILLISECONDS);
+            return replayed;
+        }
+    }
+
+    // Writes the whole state to a new snapshot and restarts the log
+    public void compact() throws IOException {
+        compact(false, 0);
+    }
+
+    // Compacts into a snapshot made over a new base, for once the stores have been
+    // reloaded from changed CSVs, so the next start expects the files as they are now
+    public void rebase(long newBase) throws IOException {
+        compact(true, newBase);
+    }
+
+    private void compact(boolean rebase, long newBase) throws IOException {
+        synchronized (compactLock) {
+            WriteAheadLog old;
+            AbstractStores state;
+            long generation, snapshotBase, covered;
+            synchronized (writeLock) {
+                old = log;
+                if (old == null)
+                    return;
+                state = backing.snapshot();
+                generation = old.getGeneration() + 1;
+                snapshotBase = rebase ? newBase : old.getBase();
+                covered = old.size();
+            }
+
+            Path temporary = dir.resolve(SNAPSHOT_FILE + ".tmp");
+            WriteAheadLog snapshot = WriteAheadLog.create(temporary, WriteAheadLog.SNAPSHOT_MAGIC, generation, snapshotBase,
+                    covered, Durability.BUFFERED);
+            try {
+                Records.dump(state, snapshot::append);
+            } finally {
+                snapshot.close();
+            }
+            Files.move(temporary, dir.resolve(SNAPSHOT_FILE), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            syncDirectory();
+
+            synchronized (writeLock) {
+                if (log != old)
+                    return; // Closed meanwhile; recover carries the records on
+                old.flush();
+                WriteAheadLog next = restart(generation, snapshotBase, covered, old.size());
+                old.retire();
+                log = next;
+            }
+        }
+    }
+
+    // A new log for a snapshot's generation, holding the records between bytes from and to
+    // of the current log (those logged while the snapshot was written), moved over the current log
+    private WriteAheadLog restart(long generation, long logBase, long from, long to) throws IOException {
+        Path logPath = dir.resolve(LOG_FILE);
+        Path temporary = dir.resolve(LOG_FILE + ".tmp");
+        WriteAheadLog next = WriteAheadLog.carryOver(temporary, generation, logBase, logPath, from, to, durability);
+        Files.move(temporary, logPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        syncDirectory();
+        return next;
+    }
+
+    // Writes out and syncs everything logged, and stops logging
+    public void close() throws IOException {
+        synchronized (writeLock) {
+            if (log == null)
+                return;
+            background.shutdownNow();
+            log.close();
+            log = null;
+        }
+    }
+
+    public Durability getDurability() {
+        return durability;
+    }
+
+    // Log records replayed by recover
+    public long getReplayed() {
+        return replayed;
+    }
+
+    // Bytes in the log (including anything not written out yet)
+    public long getLogSize() {
+        WriteAheadLog current = log;
+        return current == null ? 0 : current.size();
+    }
+
+    public long getGeneration() {
+        WriteAheadLog current = log;
+        return current == null ? -1 : current.getGeneration();
+    }
+
+    // Runs a mutation and, if it changed something, logs record. The two happen
+    // under one lock so the log replays in the order the mutations were applied;
+    // GROUP_FSYNC waits for the disk after letting go of it.
+    boolean logged(BooleanSupplier mutation, Supplier<byte[]> record) {
+        if (log == null)
+            return mutation.getAsBoolean();
+        WriteAheadLog target;
+        long seq;
+        try {
+            synchronized (writeLock) {
+                target = log;
+                if (!mutation.getAsBoolean())
+                    return false;
+                if (target == null)
+                    return true; // Closed meanwhile
+                seq = target.append(record.get());
+            }
+            target.commit(seq);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write to " + dir.resolve(LOG_FILE), e);
+        }
+        if (target.size() > compactBytes && compactionQueued.compareAndSet(false, true)) {
+            try {
+                background.execute(this::compactQuietly);
+            } catch (RejectedExecutionException e) {
+                compactionQueued.set(false); // Closed meanwhile
+            }
+        }
+        return true;
+    }
+
+    private void compactQuietly() {
+        try {
+            // Again if as much was logged while the snapshot was written
+            do {
+                compact();
+            } while (getLogSize() > Math.max(compactBytes, WriteAheadLog.HEADER_BYTES));
+        } catch (IOException e) {
+            System.err.println("Unable to compact " + dir + ": " + e.getMessage());
+        } finally {
+            compactionQueued.set(false);
+        }
+    }
+
+    private void flushQuietly() {
+        WriteAheadLog current = log;
+        try {
+            if (current != null)
+                current.flush();
+        } catch (IOException e) {
+            System.err.println("Unable to write to " + dir.resolve(LOG_FILE) + ": " + e.getMessage());
+        }
+    }
+
+    // Makes a rename or a new file in the data directory durable. Not every
+    // platform can open a directory; there the rename is as safe as it gets.
+    private void syncDirectory() {
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Not supported here
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package durable;
+
+import interfaces.ICredits;
+import stores.CastCredit;
+import stores.CrewCredit;
+import stores.ForwardingCredits;
+
+// Credits store that logs each mutation that changes something
+class LoggedCredits extends ForwardingCredits {
+    private final DurableStores log;
+
+    LoggedCredits(ICredits delegate, DurableStores log) {
+        super(delegate);
+        this.log = log;
+    }
+
+    @Override
+    public boolean add(CastCredit[] cast, CrewCredit[] crew, int filmID) {
+        return log.logged(() -> delegate.add(cast, crew, filmID), () -> Records.creditsAdd(cast, crew, filmID));
+    }
+
+    @Override
+    public boolean remove(int filmID) {
+        return log.logged(() -> delegate.remove(filmID), () -> Records.creditsRemove(filmID));
+    }
+}
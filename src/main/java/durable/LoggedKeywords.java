@@ -0,0 +1,35 @@
+package durable;
+
+import interfaces.IKeywords;
+import stores.ForwardingKeywords;
+import stores.Keyword;
+
+// Keywords store that logs each mutation that changes something
+class LoggedKeywords extends ForwardingKeywords {
+    private final DurableStores log;
+
+    LoggedKeywords(IKeywords delegate, DurableStores log) {
+        super(delegate);
+        this.log = log;
+    }
+
+    @Override
+    public boolean add(int filmID, Keyword[] keywords) {
+        return log.logged(() -> delegate.add(filmID, keywords), () -> Records.keywordsAdd(filmID, keywords));
+    }
+
+    @Override
+    public boolean add(int filmID, Keyword keyword) {
+        return log.logged(() -> delegate.add(filmID, keyword), () -> Records.keywordAdd(filmID, keyword));
+    }
+
+    @Override
+    public boolean remove(int filmID) {
+        return log.logged(() -> delegate.remove(filmID), () -> Records.keywordsRemove(filmID));
+    }
+
+    @Override
+    public boolean removeKeywordFromFilm(int filmID, int keywordID) {
+        return log.logged(() -> delegate.removeKeywordFromFilm(filmID, keywordID), () -> Records.keywordRemove(filmID, keywordID));
+    }
+}
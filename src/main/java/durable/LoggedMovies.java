@@ -0,0 +1,62 @@
+package durable;
+
+import java.time.LocalDate;
+
+import interfaces.IMovies;
+import stores.Company;
+import stores.ForwardingMovies;
+import stores.Genre;
+
+// Movies store that logs each mutation that changes something
+class LoggedMovies extends ForwardingMovies {
+    private final DurableStores log;
+
+    LoggedMovies(IMovies delegate, DurableStores log) {
+        super(delegate);
+        this.log = log;
+    }
+
+    @Override
+    public boolean add(int id, String title, String originalTitle, String overview, String tagline, String status, Genre[] genres, LocalDate release, long budget, long revenue, String[] languages, String originalLanguage, double runtime, String homepage, boolean adult, boolean video, String poster) {
+        return log.logged(
+            () -> delegate.add(id, title, originalTitle, overview, tagline, status, genres, release, budget, revenue, languages, originalLanguage, runtime, homepage, adult, video, poster),
+            () -> Records.movieAdd(id, title, originalTitle, overview, tagline, status, genres, release, budget, revenue, languages, originalLanguage, runtime, homepage, adult, video, poster));
+    }
+
+    @Override
+    public boolean remove(int id) {
+        return log.logged(() -> delegate.remove(id), () -> Records.movieRemove(id));
+    }
+
+    @Override
+    public boolean setVote(int id, double voteAverage, int voteCount) {
+        return log.logged(() -> delegate.setVote(id, voteAverage, voteCount), () -> Records.movieVote(id, voteAverage, voteCount));
+    }
+
+    @Override
+    public boolean addToCollection(int filmID, int collectionID, String collectionName, String collectionPosterPath, String collectionBackdropPath) {
+        return log.logged(
+            () -> delegate.addToCollection(filmID, collectionID, collectionName, collectionPosterPath, collectionBackdropPath),
+            () -> Records.movieCollection(filmID, collectionID, collectionName, collectionPosterPath, collectionBackdropPath));
+    }
+
+    @Override
+    public boolean setIMDB(int filmID, String imdbID) {
+        return log.logged(() -> delegate.setIMDB(filmID, imdbID), () -> Records.movieIMDB(filmID, imdbID));
+    }
+
+    @Override
+    public boolean setPopularity(int id, double popularity) {
+        return log.logged(() -> delegate.setPopularity(id, popularity), () -> Records.moviePopularity(id, popularity));
+    }
+
+    @Override
+    public boolean addProductionCompany(int movieId, Company company) {
+        return log.logged(() -> delegate.addProductionCompany(movieId, company), () -> Records.movieCompany(movieId, company));
+    }
+
+    @Override
+    public boolean addProductionCountry(int movieId, String country) {
+        return log.logged(() -> delegate.addProductionCountry(movieId, country), () -> Records.movieCountry(movieId, country));
+    }
+}
@@ -0,0 +1,43 @@
+package durable;
+
+import java.time.LocalDateTime;
+
+import interfaces.IRatings;
+import stores.ForwardingRatings;
+
+// Ratings store that logs each mutation that changes something
+class LoggedRatings extends ForwardingRatings {
+    private final DurableStores log;
+
+    LoggedRatings(IRatings delegate, DurableStores log) {
+        super(delegate);
+        this.log = log;
+    }
+
+    @Override
+    public boolean add(int userID, int movieID, float rating, LocalDateTime timestamp) {
+        return log.logged(() -> delegate.add(userID, movieID, rating, timestamp),
+            () -> Records.ratingAdd(userID, movieID, rating, timestamp));
+    }
+
+    @Override
+    public boolean remove(int userID, int movieID) {
+        return log.logged(() -> delegate.remove(userID, movieID), () -> Records.ratingRemove(userID, movieID));
+    }
+
+    @Override
+    public boolean set(int userID, int movieID, float rating, LocalDateTime timestamp) {
+        return log.logged(() -> delegate.set(userID, movieID, rating, timestamp),
+            () -> Records.ratingSet(userID, movieID, rating, timestamp));
+    }
+
+    // The whole batch is one record. Replaying it against the same state skips
+    // the same duplicates, so it needn't say which ones were added.
+    @Override
+    public int addBatch(int[] userIDs, int[] movieIDs, float[] ratings, long[] timestamps, boolean[] added) {
+        int[] count = new int[1];
+        log.logged(() -> (count[0] = delegate.addBatch(userIDs, movieIDs, ratings, timestamps, added)) > 0,
+            () -> Records.ratingBatch(userIDs, movieIDs, ratings, timestamps, 0, userIDs.length));
+        return count[0];
+    }
+}
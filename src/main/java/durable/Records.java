@@ -0,0 +1,429 @@
+package durable;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+import interfaces.AbstractStores;
+import interfaces.ICredits;
+import interfaces.IKeywords;
+import interfaces.IMovies;
+import interfaces.IRatings;
+import stores.CastCredit;
+import stores.Company;
+import stores.CrewCredit;
+import stores.Genre;
+import stores.Keyword;
+
+// The binary form of each store mutation, and replaying them.
+// A record is one type byte followed by the mutation's arguments: ints, longs
+// and floats big-endian, booleans as a byte, strings as an int byte count (-1
+// for null) then UTF-8, arrays as an int count then their elements.
+final class Records {
+    static final byte MOVIE_ADD = 1;
+    static final byte MOVIE_REMOVE = 2;
+    static final byte MOVIE_VOTE = 3;
+    static final byte MOVIE_COLLECTION = 4;
+    static final byte MOVIE_IMDB = 5;
+    static final byte MOVIE_POPULARITY = 6;
+    static final byte MOVIE_COMPANY = 7;
+    static final byte MOVIE_COUNTRY = 8;
+    static final byte RATING_ADD = 20;
+    static final byte RATING_REMOVE = 21;
+    static final byte RATING_SET = 22;
+    static final byte RATING_BATCH = 23;
+    static final byte CREDITS_ADD = 30;
+    static final byte CREDITS_REMOVE = 31;
+    static final byte KEYWORDS_ADD = 40;
+    static final byte KEYWORD_ADD = 41;
+    static final byte KEYWORDS_REMOVE = 42;
+    static final byte KEYWORD_REMOVE = 43;
+
+    static final int SNAPSHOT_BATCH = 4096; // Ratings per record in a snapshot
+
+    private Records() {
+    }
+
+    // Takes the records a snapshot is written as
+    interface Sink {
+        void record(byte[] payload) throws IOException;
+    }
+
+    // ---------- Encoding ----------
+
+    static byte[] movieAdd(int id, String title, String originalTitle, String overview, String tagline, String status,
+            Genre[] genres, LocalDate release, long budget, long revenue, String[] languages, String originalLanguage,
+            double runtime, String homepage, boolean adult, boolean video, String poster) {
+        Builder out = new Builder(MOVIE_ADD).putInt(id).putString(title).putString(originalTitle).putString(overview)
+                .putString(tagline).putString(status);
+        out.putInt(genres == null ? -1 : genres.length);
+        if (genres != null)
+            for (Genre genre : genres)
+                out.putInt(genre.getID()).putString(genre.getName());
+        out.putLong(release == null ? Long.MIN_VALUE : release.toEpochDay()).putLong(budget).putLong(revenue);
+        out.putInt(languages == null ? -1 : languages.length);
+        if (languages != null)
+            for (String language : languages)
+                out.putString(language);
+        return out.putString(originalLanguage).putDouble(runtime).putString(homepage).putBoolean(adult)
+                .putBoolean(video).putString(poster).build();
+    }
+
+    static byte[] movieRemove(int id) {
+        return new Builder(MOVIE_REMOVE).putInt(id).build();
+    }
+
+    static byte[] movieVote(int id, double voteAverage, int voteCount) {
+        return new Builder(MOVIE_VOTE).putInt(id).putDouble(voteAverage).putInt(voteCount).build();
+    }
+
+    static byte[] movieCollection(int filmID, int collectionID, String name, String poster, String backdrop) {
+        return new Builder(MOVIE_COLLECTION).putInt(filmID).putInt(collectionID).putString(name).putString(poster)
+                .putString(backdrop).build();
+    }
+
+    static byte[] movieIMDB(int filmID, String imdbID) {
+        return new Builder(MOVIE_IMDB).putInt(filmID).putString(imdbID).build();
+    }
+
+    static byte[] moviePopularity(int id, double popularity) {
+        return new Builder(MOVIE_POPULARITY).putInt(id).putDouble(popularity).build();
+    }
+
+    static byte[] movieCompany(int movieID, Company company) {
+        return new Builder(MOVIE_COMPANY).putInt(movieID).putInt(company.getID()).putString(company.getName()).build();
+    }
+
+    static byte[] movieCountry(int movieID, String country) {
+        return new Builder(MOVIE_COUNTRY).putInt(movieID).putString(country).build();
+    }
+
+    // Timestamps go to the second, as the ratings store keeps them
+    static byte[] ratingAdd(int userID, int movieID, float rating, LocalDateTime timestamp) {
+        return putTime(new Builder(RATING_ADD).putInt(userID).putInt(movieID).putFloat(rating), timestamp).build();
+    }
+
+    static byte[] ratingRemove(int userID, int movieID) {
+        return new Builder(RATING_REMOVE).putInt(userID).putInt(movieID).build();
+    }
+
+    static byte[] ratingSet(int userID, int movieID, float rating, LocalDateTime timestamp) {
+        return putTime(new Builder(RATING_SET).putInt(userID).putInt(movieID).putFloat(rating), timestamp).build();
+    }
+
+    static byte[] ratingBatch(int[] userIDs, int[] movieIDs, float[] ratings, long[] timestamps, int from, int to) {
+        Builder out = new Builder(RATING_BATCH).putInt(to - from);
+        for (int i = from; i < to; i++)
+            out.putInt(userIDs[i]).putInt(movieIDs[i]).putFloat(ratings[i]).putLong(timestamps[i]);
+        return out.build();
+    }
+
+    static byte[] creditsAdd(CastCredit[] cast, CrewCredit[] crew, int filmID) {
+        Builder out = new Builder(CREDITS_ADD).putInt(filmID);
+        out.putInt(cast == null ? -1 : cast.length);
+        if (cast != null)
+            for (CastCredit credit : cast)
+                out.putInt(credit.getElementID()).putString(credit.getCharacter()).putString(credit.getCreditID())
+                    .putInt(credit.getID()).putString(credit.getName()).putInt(credit.getOrder())
+                    .putString(credit.getProfilePath());
+        out.putInt(crew == null ? -1 : crew.length);
+        if (crew != null)
+            for (CrewCredit credit : crew)
+                out.putString(credit.getElementID()).putString(credit.getDepartment()).putInt(credit.getID())
+                    .putString(credit.getJob()).putString(credit.getName()).putString(credit.getProfilePath());
+        return out.build();
+    }
+
+    static byte[] creditsRemove(int filmID) {
+        return new Builder(CREDITS_REMOVE).putInt(filmID).build();
+    }
+
+    static byte[] keywordsAdd(int filmID, Keyword[] keywords) {
+        Builder out = new Builder(KEYWORDS_ADD).putInt(filmID).putInt(keywords == null ? -1 : keywords.length);
+        if (keywords != null)
+            for (Keyword keyword : keywords)
+                out.putInt(keyword.getID()).putString(keyword.getName());
+        return out.build();
+    }
+
+    static byte[] keywordAdd(int filmID, Keyword keyword) {
+        return new Builder(KEYWORD_ADD).putInt(filmID).putInt(keyword.getID()).putString(keyword.getName()).build();
+    }
+
+    static byte[] keywordsRemove(int filmID) {
+        return new Builder(KEYWORDS_REMOVE).putInt(filmID).build();
+    }
+
+    static byte[] keywordRemove(int filmID, int keywordID) {
+        return new Builder(KEYWORD_REMOVE).putInt(filmID).putInt(keywordID).build();
+    }
+
+    private static Builder putTime(Builder out, LocalDateTime time) {
+        return out.putLong(time == null ? Long.MIN_VALUE : time.toEpochSecond(ZoneOffset.UTC));
+    }
+
+    // ---------- Snapshots ----------
+
+    // Writes the whole of a set of stores as the records that would rebuild it
+    static void dump(AbstractStores stores, Sink sink) throws IOException {
+        IMovies movies = stores.getMovies();
+        for (int id : movies.getAllIDs()) {
+            sink.record(movieAdd(id, movies.getTitle(id), movies.getOriginalTitle(id), movies.getOverview(id),
+                movies.getTagline(id), movies.getStatus(id), movies.getGenres(id), movies.getRelease(id),
+                movies.getBudget(id), movies.getRevenue(id), movies.getLanguages(id), movies.getOriginalLanguage(id),
+                movies.getRuntime(id), movies.getHomepage(id), movies.getAdult(id), movies.getVideo(id),
+                movies.getPoster(id)));
+            sink.record(movieVote(id, movies.getVoteAverage(id), movies.getVoteCount(id)));
+            sink.record(moviePopularity(id, movies.getPopularity(id)));
+            int collection = movies.getCollectionID(id);
+            if (collection >= 0)
+                sink.record(movieCollection(id, collection, movies.getCollectionName(collection),
+                    movies.getCollectionPoster(collection), movies.getCollectionBackdrop(collection)));
+            String imdb = movies.getIMDB(id);
+            if (imdb != null)
+                sink.record(movieIMDB(id, imdb));
+            for (Company company : movies.getProductionCompanies(id))
+                sink.record(movieCompany(id, company));
+            for (String country : movies.getProductionCountries(id))
+                sink.record(movieCountry(id, country));
+        }
+
+        ICredits credits = stores.getCredits();
+        for (int film : credits.getFilmIDs())
+            sink.record(creditsAdd(credits.getFilmCast(film), credits.getFilmCrew(film), film));
+
+        IKeywords keywords = stores.getKeywords();
+        for (int film : keywords.getFilmIDs())
+            sink.record(keywordsAdd(film, keywords.getKeywordsForFilm(film)));
+
+        // Ratings go in batches, a movie at a time
+        IRatings ratings = stores.getRatings();
+        for (int movie : ratings.getRatedMovies()) {
+            int[] users = ratings.getMovieRaters(movie);
+            float[] values = ratings.getMovieRatings(movie);
+            long[] times = ratings.getMovieRatingTimes(movie);
+            int[] movieIDs = new int[users.length];
+            Arrays.fill(movieIDs, movie);
+            for (int from = 0; from < users.length; from += SNAPSHOT_BATCH)
+                sink.record(ratingBatch(users, movieIDs, values, times, from, Math.min(users.length, from + SNAPSHOT_BATCH)));
+        }
+    }
+
+    // ---------- Replay ----------
+
+    // Applies one record to the stores. Returns whether the mutation changed
+    // anything, as the original call did.
+    static boolean apply(byte[] payload, AbstractStores stores) throws IOException {
+        Reader in = new Reader(payload);
+        try {
+            byte type = in.getByte();
+            switch (type) {
+                case MOVIE_ADD: {
+                    int id = in.getInt();
+                    String title = in.getString(), originalTitle = in.getString(), overview = in.getString();
+                    String tagline = in.getString(), status = in.getString();
+                    int numGenres = in.getInt();
+                    Genre[] genres = numGenres < 0 ? null : new Genre[numGenres];
+                    for (int i = 0; i < numGenres; i++)
+                        genres[i] = new Genre(in.getInt(), in.getString());
+                    long day = in.getLong();
+                    LocalDate release = day == Long.MIN_VALUE ? null : LocalDate.ofEpochDay(day);
+                    long budget = in.getLong(), revenue = in.getLong();
+                    int numLanguages = in.getInt();
+                    String[] languages = numLanguages < 0 ? null : new String[numLanguages];
+                    for (int i = 0; i < numLanguages; i++)
+                        languages[i] = in.getString();
+                    return stores.getMovies().add(id, title, originalTitle, overview, tagline, status, genres, release,
+                        budget, revenue, languages, in.getString(), in.getDouble(), in.getString(), in.getBoolean(),
+                        in.getBoolean(), in.getString());
+                }
+                case MOVIE_REMOVE:
+                    return stores.getMovies().remove(in.getInt());
+                case MOVIE_VOTE:
+                    return stores.getMovies().setVote(in.getInt(), in.getDouble(), in.getInt());
+                case MOVIE_COLLECTION:
+                    return stores.getMovies().addToCollection(in.getInt(), in.getInt(), in.getString(), in.getString(),
+                        in.getString());
+                case MOVIE_IMDB:
+                    return stores.getMovies().setIMDB(in.getInt(), in.getString());
+                case MOVIE_POPULARITY:
+                    return stores.getMovies().setPopularity(in.getInt(), in.getDouble());
+                case MOVIE_COMPANY:
+                    return stores.getMovies().addProductionCompany(in.getInt(), new Company(in.getInt(), in.getString()));
+                case MOVIE_COUNTRY:
+                    return stores.getMovies().addProductionCountry(in.getInt(), in.getString());
+                case RATING_ADD:
+                    return stores.getRatings().add(in.getInt(), in.getInt(), in.getFloat(), in.getTime());
+                case RATING_REMOVE:
+                    return stores.getRatings().remove(in.getInt(), in.getInt());
+                case RATING_SET:
+                    return stores.getRatings().set(in.getInt(), in.getInt(), in.getFloat(), in.getTime());
+                case RATING_BATCH: {
+                    int n = in.getInt();
+                    int[] users = new int[n];
+                    int[] movies = new int[n];
+                    float[] values = new float[n];
+                    long[] times = new long[n];
+                    for (int i = 0; i < n; i++) {
+                        users[i] = in.getInt();
+                        movies[i] = in.getInt();
+                        values[i] = in.getFloat();
+                        times[i] = in.getLong();
+                    }
+                    return stores.getRatings().addBatch(users, movies, values, times) > 0;
+                }
+                case CREDITS_ADD: {
+                    int film = in.getInt();
+                    int numCast = in.getInt();
+                    CastCredit[] cast = numCast < 0 ? null : new CastCredit[numCast];
+                    for (int i = 0; i < numCast; i++)
+                        cast[i] = new CastCredit(in.getInt(), in.getString(), in.getString(), in.getInt(), in.getString(),
+                            in.getInt(), in.getString());
+                    int numCrew = in.getInt();
+                    CrewCredit[] crew = numCrew < 0 ? null : new CrewCredit[numCrew];
+                    for (int i = 0; i < numCrew; i++)
+                        crew[i] = new CrewCredit(in.getString(), in.getString(), in.getInt(), in.getString(),
+                            in.getString(), in.getString());
+                    return stores.getCredits().add(cast, crew, film);
+                }
+                case CREDITS_REMOVE:
+                    return stores.getCredits().remove(in.getInt());
+                case KEYWORDS_ADD: {
+                    int film = in.getInt();
+                    int n = in.getInt();
+                    Keyword[] keywords = n < 0 ? null : new Keyword[n];
+                    for (int i = 0; i < n; i++)
+                        keywords[i] = new Keyword(in.getInt(), in.getString());
+                    return stores.getKeywords().add(film, keywords);
+                }
+                case KEYWORD_ADD:
+                    return stores.getKeywords().add(in.getInt(), new Keyword(in.getInt(), in.getString()));
+                case KEYWORDS_REMOVE:
+                    return stores.getKeywords().remove(in.getInt());
+                case KEYWORD_REMOVE:
+                    return stores.getKeywords().removeKeywordFromFilm(in.getInt(), in.getInt());
+                default:
+                    throw new IOException("Unknown record type " + type);
+            }
+        } catch (BufferUnderflowException | IllegalArgumentException | NegativeArraySizeException e) {
+            throw new IOException("Malformed record", e);
+        }
+    }
+
+    // ---------- Payloads ----------
+
+    // Builds a payload in a growing array
+    static final class Builder {
+        private byte[] bytes = new byte[64];
+        private int size = 0;
+
+        Builder(byte type) {
+            putByte(type);
+        }
+
+        private void ensure(int n) {
+            if (size + n > bytes.length)
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + n));
+        }
+
+        Builder putByte(int value) {
+            ensure(1);
+            bytes[size++] = (byte) value;
+            return this;
+        }
+
+        Builder putBoolean(boolean value) {
+            return putByte(value ? 1 : 0);
+        }
+
+        Builder putInt(int value) {
+            ensure(4);
+            bytes[size++] = (byte) (value >>> 24);
+            bytes[size++] = (byte) (value >>> 16);
+            bytes[size++] = (byte) (value >>> 8);
+            bytes[size++] = (byte) value;
+            return this;
+        }
+
+        Builder putLong(long value) {
+            return putInt((int) (value >>> 32)).putInt((int) value);
+        }
+
+        Builder putFloat(float value) {
+            return putInt(Float.floatToIntBits(value));
+        }
+
+        Builder putDouble(double value) {
+            return putLong(Double.doubleToLongBits(value));
+        }
+
+        Builder putString(String value) {
+            if (value == null)
+                return putInt(-1);
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            putInt(utf8.length);
+            ensure(utf8.length);
+            System.arraycopy(utf8, 0, bytes, size, utf8.length);
+            size += utf8.length;
+            return this;
+        }
+
+        byte[] build() {
+            return Arrays.copyOf(bytes, size);
+        }
+    }
+
+    // Reads a payload back (running off the end throws BufferUnderflowException)
+    private static final class Reader {
+        private final ByteBuffer buffer;
+
+        Reader(byte[] payload) {
+            buffer = ByteBuffer.wrap(payload);
+        }
+
+        byte getByte() {
+            return buffer.get();
+        }
+
+        boolean getBoolean() {
+            return buffer.get() != 0;
+        }
+
+        int getInt() {
+            return buffer.getInt();
+        }
+
+        long getLong() {
+            return buffer.getLong();
+        }
+
+        float getFloat() {
+            return buffer.getFloat();
+        }
+
+        double getDouble() {
+            return buffer.getDouble();
+        }
+
+        String getString() {
+            int length = buffer.getInt();
+            if (length < 0)
+                return null;
+            if (length > buffer.remaining())
+                throw new BufferUnderflowException();
+            String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+            return value;
+        }
+
+        LocalDateTime getTime() {
+            long seconds = buffer.getLong();
+            return seconds == Long.MIN_VALUE ? null : LocalDateTime.ofEpochSecond(seconds, 0, ZoneOffset.UTC);
+        }
+    }
+}
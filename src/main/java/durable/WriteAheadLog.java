@@ -0,0 +1,278 @@
+package durable;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+// An append-only file of records, used for both the log and the snapshot.
+// The file starts with a header (magic number, generation, base, covered) and each record is
+// [int length][int CRC32 of the payload][payload]. A crash can leave the last
+// record half written; reading stops at the first record that is cut short or
+// fails its checksum, and reopening cuts the file back to there.
+// Records are given increasing sequence numbers as they are appended, and the
+// Durability mode decides when they are written and synced.
+// The base is a fingerprint of what the records apply on top of (see
+// DurableStores), and covered is, for a snapshot, how many bytes of the log of
+// the generation before it the snapshot already holds (0 for a log).
+final class WriteAheadLog {
+    static final int LOG_MAGIC = 0x57504C47;      // "WPLG"
+    static final int SNAPSHOT_MAGIC = 0x5750534E; // "WPSN"
+    static final int HEADER_BYTES = 28;
+    static final int FRAME_BYTES = 8;
+    static final int MAX_RECORD = 64 << 20;  // A longer length means the length itself is garbage
+    static final int MAX_PENDING = 1 << 20;  // BUFFERED writes out once this much is waiting
+
+    private final FileChannel channel;
+    private final Durability durability;
+    private final long generation;
+    private final long base;
+    private final Object io = new Object(); // Held while writing, so chunks reach the file in order
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream(8192);
+    private final DataOutputStream pendingOut = new DataOutputStream(pending);
+    private final CRC32 crc = new CRC32();
+
+    // Guarded by this
+    private long appended, written, synced; // Sequence numbers
+    private long size; // Bytes in the file once everything pending is written
+
+    private WriteAheadLog(FileChannel channel, Durability durability, long generation, long base, long size) {
+        this.channel = channel;
+        this.durability = durability;
+        this.generation = generation;
+        this.base = base;
+        this.size = size;
+    }
+
+    // What read found in a file
+    static final class Contents {
+        final long generation;
+        final long base;
+        final long covered;
+        final long records; // Records handed to the handler
+        final long length; // Where the good records end
+        final boolean torn; // Whether anything follows them
+
+        Contents(long generation, long base, long covered, long records, long length, boolean torn) {
+            this.generation = generation;
+            this.base = base;
+            this.covered = covered;
+            this.records = records;
+            this.length = length;
+            this.torn = torn;
+        }
+    }
+
+    interface RecordHandler {
+        void record(byte[] payload) throws IOException;
+    }
+
+    // A new, empty file, replacing any already at path
+    static WriteAheadLog create(Path path, int magic, long generation, long base, long covered, Durability durability) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(magic).putLong(generation).putLong(base).putLong(covered);
+        header.flip();
+        while (header.hasRemaining())
+            channel.write(header);
+        channel.force(true);
+        return new WriteAheadLog(channel, durability, generation, base, HEADER_BYTES);
+    }
+
+    // A new log at path holding the records between bytes from and to of another
+    // log's file (copied as they are), synced before it is returned
+    static WriteAheadLog carryOver(Path path, long generation, long base, Path old, long from, long to, Durability durability) throws IOException {
+        WriteAheadLog log = create(path, LOG_MAGIC, generation, base, 0, durability);
+        try (FileChannel in = FileChannel.open(old, StandardOpenOption.READ)) {
+            for (long pos = from; pos < to; )
+                pos += in.transferTo(pos, to - pos, log.channel);
+            log.size += Math.max(0, to - from);
+        }
+        log.channel.force(true);
+        return log;
+    }
+
+    // Opens a file read has been through to append to it, first cutting off anything after the good records
+    static WriteAheadLog reopen(Path path, Contents contents, Durability durability) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE);
+        if (channel.size() > contents.length) {
+            channel.truncate(contents.length);
+            channel.force(true);
+        }
+        channel.position(contents.length);
+        return new WriteAheadLog(channel, durability, contents.generation, contents.base, contents.length);
+    }
+
+    // Hands each good record starting at or after byte from to the handler, in order.
+    // Returns null if the file doesn't start with the header for magic.
+    static Contents read(Path path, int magic, long from, RecordHandler handler) throws IOException {
+        try (InputStream file = Files.newInputStream(path)) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(file, 1 << 16));
+            long generation, base, covered;
+            try {
+                if (in.readInt() != magic)
+                    return null;
+                generation = in.readLong();
+                base = in.readLong();
+                covered = in.readLong();
+            } catch (EOFException e) {
+                return null;
+            }
+
+            CRC32 check = new CRC32();
+            long records = 0;
+            long length = HEADER_BYTES;
+            while (true) {
+                int recordLength;
+                int recordCRC;
+                byte[] payload;
+                try {
+                    int first = in.read();
+                    if (first < 0)
+                        return new Contents(generation, base, covered, records, length, false);
+                    recordLength = (first << 24) | (in.readUnsignedByte() << 16) | (in.readUnsignedByte() << 8) | in.readUnsignedByte();
+                    if (recordLength < 1 || recordLength > MAX_RECORD)
+                        return new Contents(generation, base, covered, records, length, true);
+                    recordCRC = in.readInt();
+                    payload = new byte[recordLength];
+                    in.readFully(payload);
+                } catch (EOFException e) {
+                    return new Contents(generation, base, covered, records, length, true);
+                }
+                check.reset();
+                check.update(payload);
+                if ((int) check.getValue() != recordCRC)
+                    return new Contents(generation, base, covered, records, length, true);
+                if (length >= from) {
+                    handler.record(payload);
+                    records++;
+                }
+                length += FRAME_BYTES + recordLength;
+            }
+        }
+    }
+
+    // Just the header of a file (no records are read), or null if it doesn't have the header for magic
+    static Contents readHeader(Path path, int magic) throws IOException {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(path))) {
+            if (in.readInt() != magic)
+                return null;
+            return new Contents(in.readLong(), in.readLong(), in.readLong(), 0, HEADER_BYTES, false);
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    long getGeneration() {
+        return generation;
+    }
+
+    long getBase() {
+        return base;
+    }
+
+    Durability getDurability() {
+        return durability;
+    }
+
+    synchronized long size() {
+        return size;
+    }
+
+    synchronized long getAppended() {
+        return appended;
+    }
+
+    // Queues a record, returning its sequence number for commit. Under FLUSH and
+    // FSYNC it has been written (and synced) by the time this returns.
+    long append(byte[] payload) throws IOException {
+        long seq;
+        boolean full;
+        synchronized (this) {
+            crc.reset();
+            crc.update(payload);
+            pendingOut.writeInt(payload.length);
+            pendingOut.writeInt((int) crc.getValue());
+            pendingOut.write(payload);
+            seq = ++appended;
+            size += FRAME_BYTES + payload.length;
+            full = pending.size() >= MAX_PENDING;
+        }
+        if (durability == Durability.FLUSH || durability == Durability.FSYNC || full)
+            writeOut(durability == Durability.FSYNC, seq);
+        return seq;
+    }
+
+    // Waits until record seq is as safe as the mode promises. Only GROUP_FSYNC
+    // leaves anything to do after append.
+    void commit(long seq) throws IOException {
+        if (durability == Durability.GROUP_FSYNC)
+            writeOut(true, seq);
+    }
+
+    // Writes out everything appended so far
+    void flush() throws IOException {
+        writeOut(false, getAppended());
+    }
+
+    // Writes out and syncs everything appended so far
+    void sync() throws IOException {
+        writeOut(true, getAppended());
+    }
+
+    void close() throws IOException {
+        try {
+            sync();
+        } finally {
+            channel.close();
+        }
+    }
+
+    // Closes a log whose records are all safe somewhere else (in a snapshot).
+    // Anyone still waiting to commit one of them is let through.
+    void retire() throws IOException {
+        synchronized (io) {
+            synchronized (this) {
+                pending.reset();
+                written = synced = appended;
+            }
+            channel.close();
+        }
+    }
+
+    // Writes (and maybe syncs) everything pending, unless record seq already has
+    // been. Whoever holds the io lock takes all that has been appended, so the
+    // writers queued behind one sync are covered together by the next.
+    private void writeOut(boolean force, long seq) throws IOException {
+        synchronized (io) {
+            byte[] chunk;
+            long upTo;
+            synchronized (this) {
+                if (force ? synced >= seq : written >= seq)
+                    return;
+                chunk = pending.toByteArray();
+                pending.reset();
+                upTo = appended;
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(chunk);
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+            if (force)
+                channel.force(false);
+            synchronized (this) {
+                written = upTo;
+                if (force)
+                    synced = upTo;
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package ingest;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Follows an append-only file, like tail -f: whatever is appended is read as it
+// arrives, polling when there is nothing new. A line is only passed on once its
+// newline has been written. If the file shrinks it is taken to have been
+// truncated (or replaced) and is read again from the start.
+public class FileTailSource implements RatingSource {
+    public static final long DEFAULT_POLL_MILLIS = 100;
+
+    private final Path path;
+    private final boolean fromStart;
+    private final long pollMillis;
+    private volatile boolean closed = false;
+
+    // fromStart: read what is already in the file too, rather than only what is appended
+    public FileTailSource(Path path, boolean fromStart, long pollMillis) {
+        this.path = path;
+        this.fromStart = fromStart;
+        this.pollMillis = pollMillis;
+    }
+
+    @Override
+    public void run(RatingIngester ingester) throws IOException, InterruptedException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long position = fromStart ? 0 : channel.size();
+            ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+            byte[] line = new byte[256];
+            int lineLength = 0;
+
+            while (!closed) {
+                if (channel.size() < position) { // Truncated: start again
+                    position = 0;
+                    lineLength = 0;
+                }
+                buffer.clear();
+                int read = channel.read(buffer, position);
+                if (read <= 0) {
+                    Thread.sleep(pollMillis);
+                    continue;
+                }
+                position += read;
+
+                byte[] bytes = buffer.array();
+                for (int i = 0; i < read; i++) {
+                    if (bytes[i] == '\n') {
+                        int end = lineLength > 0 && line[lineLength - 1] == '\r' ? lineLength - 1 : lineLength;
+                        ingester.accept(new String(line, 0, end, StandardCharsets.UTF_8));
+                        lineLength = 0;
+                    } else {
+                        if (lineLength == line.length)
+                            line = Arrays.copyOf(line, line.length * 2);
+                        line[lineLength++] = bytes[i];
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+    }
+
+    @Override
+    public String toString() {
+        return "tailing " + path;
+    }
+}
@@ -0,0 +1,7 @@
+package ingest;
+
+// Told after each batch of ingested ratings has been applied to the store.
+// Called on the ingester's thread, so UI code should hand off to the event thread.
+public interface IngestListener {
+    void ratingsIngested(int[] movieIDs);
+}
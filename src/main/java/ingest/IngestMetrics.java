@@ -0,0 +1,93 @@
+package ingest;
+
+// A point in time reading of a RatingIngester's counters
+public final class IngestMetrics {
+    private final long received;
+    private final long malformed;
+    private final long added;
+    private final long updated;
+    private final long refused;
+    private final long batches;
+    private final int pending;
+    private final double eventsPerSecond;
+    private final double lagMillis;
+    private final double maxLagMillis;
+    private final long eventTimeLagSeconds;
+
+    IngestMetrics(long received, long malformed, long added, long updated, long refused, long batches, int pending,
+            double eventsPerSecond, double lagMillis, double maxLagMillis, long eventTimeLagSeconds) {
+        this.received = received;
+        this.malformed = malformed;
+        this.added = added;
+        this.updated = updated;
+        this.refused = refused;
+        this.batches = batches;
+        this.pending = pending;
+        this.eventsPerSecond = eventsPerSecond;
+        this.lagMillis = lagMillis;
+        this.maxLagMillis = maxLagMillis;
+        this.eventTimeLagSeconds = eventTimeLagSeconds;
+    }
+
+    // Lines read from the sources (including malformed ones)
+    public long getReceived() {
+        return received;
+    }
+
+    // Lines that weren't ratings (headers, blank lines, bad numbers)
+    public long getMalformed() {
+        return malformed;
+    }
+
+    // New ratings added
+    public long getAdded() {
+        return added;
+    }
+
+    // Ratings that replaced one already stored
+    public long getUpdated() {
+        return updated;
+    }
+
+    // Ratings the store turned down
+    public long getRefused() {
+        return refused;
+    }
+
+    public long getBatches() {
+        return batches;
+    }
+
+    // Ratings read but not applied yet
+    public int getPending() {
+        return pending;
+    }
+
+    // Ratings applied per second, over the last few seconds
+    public double getEventsPerSecond() {
+        return eventsPerSecond;
+    }
+
+    // How long the last batch's ratings waited between being read and being
+    // applied: on average, and the longest
+    public double getLagMillis() {
+        return lagMillis;
+    }
+
+    public double getMaxLagMillis() {
+        return maxLagMillis;
+    }
+
+    // How far the newest applied rating's own timestamp is behind the clock
+    // (-1 if nothing has been applied)
+    public long getEventTimeLagSeconds() {
+        return eventTimeLagSeconds;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Ingest: %d received (%d added, %d updated, %d refused, %d malformed) in %d batches, "
+                + "%.1f events/s, lag %.1fms (max %.1fms), %d pending",
+                received, added, updated, refused, malformed, batches, eventsPerSecond, lagMillis, maxLagMillis, pending);
+    }
+}
@@ -0,0 +1,55 @@
+package ingest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Reads a named pipe (FIFO). Writers can come and go: when the last one closes
+// the pipe the read ends, and the pipe is opened again to wait for the next.
+public class PipeSource implements RatingSource {
+    private final Path path;
+    private volatile boolean closed = false;
+    private volatile InputStream current;
+
+    public PipeSource(Path path) {
+        this.path = path;
+    }
+
+    @Override
+    public void run(RatingIngester ingester) throws IOException, InterruptedException {
+        while (!closed) {
+            try (InputStream in = Files.newInputStream(path)) { // Blocks until a writer opens the pipe
+                current = in;
+                BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+                String line;
+                while (!closed && (line = reader.readLine()) != null)
+                    ingester.accept(line);
+            } catch (IOException e) {
+                if (!closed)
+                    throw e;
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        InputStream in = current;
+        if (in != null) {
+            try {
+                in.close(); // Wakes a blocked read
+            } catch (IOException e) {
+                // Closing anyway
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "reading pipe " + path;
+    }
+}
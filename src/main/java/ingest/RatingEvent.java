@@ -0,0 +1,23 @@
+package ingest;
+
+// One rating read from a source, waiting to be applied
+final class RatingEvent {
+    final int userID;
+    final int movieID;
+    final float rating;
+    final long timestamp; // Epoch seconds, UTC
+    final long receivedNanos; // When it was read (System.nanoTime), for the lag metrics
+
+    RatingEvent(int userID, int movieID, float rating, long timestamp, long receivedNanos) {
+        this.userID = userID;
+        this.movieID = movieID;
+        this.rating = rating;
+        this.timestamp = timestamp;
+        this.receivedNanos = receivedNanos;
+    }
+
+    // The (user, movie) pair as one key
+    long pair() {
+        return ((long) userID << 32) | (movieID & 0xffffffffL);
+    }
+}
@@ -0,0 +1,311 @@
+package ingest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import interfaces.IRatings;
+
+// Applies ratings to a store as they arrive from one or more sources.
+// Sources hand over lines on their own threads; a single thread gathers them
+// into micro-batches (up to maxBatch ratings, waiting at most the linger time
+// for a batch to fill) and applies each batch in one go: ratings for new
+// (user, movie) pairs through IRatings.addBatch, the rest through set. Anything
+// the store keeps derived from its ratings (averages, histograms, rankings,
+// cached leaderboards) is then as current as the batch, and listeners are told
+// which movies changed.
+// A batch has the same effect as applying its ratings one by one in the order
+// they were read, so the last rating read for a pair wins.
+// The store must be safe to write from another thread while it is being read
+// (ConcurrentStores is).
+public class RatingIngester {
+    public static final int DEFAULT_MAX_BATCH = 1000;
+    public static final long DEFAULT_LINGER_MILLIS = 20;
+    static final int QUEUE_CAPACITY = 1 << 16; // Sources block once this many ratings are waiting
+    static final int RATE_WINDOW = 10; // Seconds events/s is averaged over
+
+    private final IRatings ratings;
+    private final int maxBatch;
+    private final long lingerNanos;
+    private final ArrayBlockingQueue<RatingEvent> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final CopyOnWriteArrayList<IngestListener> listeners = new CopyOnWriteArrayList<>();
+    private final ArrayList<RatingSource> sources = new ArrayList<>();
+    private volatile boolean running = false;
+    private boolean stopping = false; // Set by stop, after which accept refuses lines (guarded by this)
+    private int putting = 0; // Accepted lines not yet in the queue (guarded by this)
+    private Thread applier;
+
+    // Metrics, guarded by this
+    private long received, malformed, added, updated, refused, batches;
+    private long accepted, applied; // Ratings queued, and taken from the queue and applied
+    private double lagMillis, maxLagMillis;
+    private long newestEvent = Long.MIN_VALUE;
+    private final long[] perSecond = new long[RATE_WINDOW + 1];
+    private final long[] secondOf = new long[RATE_WINDOW + 1];
+    private final long startMillis = System.currentTimeMillis();
+
+    public RatingIngester(IRatings ratings) {
+        this(ratings, DEFAULT_MAX_BATCH, DEFAULT_LINGER_MILLIS);
+    }
+
+    public RatingIngester(IRatings ratings, int maxBatch, long lingerMillis) {
+        this.ratings = ratings;
+        this.maxBatch = Math.max(1, maxBatch);
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, lingerMillis));
+    }
+
+    // The source named by a --ingest argument: tcp:PORT listens on a local port,
+    // anything else is a path, tailed if it is a regular file and read as a named
+    // pipe otherwise. Returns null if it names neither.
+    public static RatingSource sourceFor(String spec) throws IOException {
+        if (spec.startsWith("tcp:")) {
+            try {
+                return new SocketSource(Integer.parseInt(spec.substring(4)));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        Path path = Paths.get(spec);
+        if (Files.isRegularFile(path))
+            return new FileTailSource(path, false, FileTailSource.DEFAULT_POLL_MILLIS);
+        if (Files.exists(path))
+            return new PipeSource(path);
+        return null;
+    }
+
+    public void addListener(IngestListener listener) {
+        listeners.add(listener);
+    }
+
+    // Starts applying ratings (sources can be added before or after)
+    public synchronized void start() {
+        if (running)
+            return;
+        running = true;
+        stopping = false;
+        applier = new Thread(this::applyLoop, "rating-ingester");
+        applier.setDaemon(true);
+        applier.start();
+    }
+
+    // Starts reading a source on its own thread
+    public synchronized void addSource(RatingSource source) {
+        sources.add(source);
+        Thread reader = new Thread(() -> {
+            try {
+                source.run(this);
+            } catch (IOException e) {
+                System.err.println("Stopped " + source + ": " + e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "rating-source");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    // Closes the sources, applies whatever has already been read, and stops.
+    // Lines accepted before this are all queued before the applier is told to
+    // finish, so none is left behind in the queue.
+    public void stop() throws InterruptedException {
+        Thread thread;
+        synchronized (this) {
+            stopping = true;
+            for (RatingSource source : sources)
+                source.close();
+            while (putting > 0)
+                wait();
+            running = false;
+            thread = applier;
+        }
+        if (thread != null)
+            thread.join();
+    }
+
+    // Queues one line in the ratings CSV format, blocking if the queue is full.
+    // Returns false if the line isn't a rating (counting it as malformed), or if
+    // the ingester is stopping.
+    public boolean accept(String line) throws InterruptedException {
+        RatingEvent event = parse(line, System.nanoTime());
+        synchronized (this) {
+            if (stopping)
+                return false;
+            received++;
+            if (event == null) {
+                malformed++;
+                return false;
+            }
+            accepted++;
+            putting++;
+        }
+        try {
+            queue.put(event);
+        } catch (InterruptedException e) {
+            synchronized (this) {
+                accepted--; // Never queued, so never to be applied
+            }
+            throw e;
+        } finally {
+            synchronized (this) {
+                putting--;
+                notifyAll();
+            }
+        }
+        return true;
+    }
+
+    // Waits until every rating accepted so far has been applied (false if it timed out)
+    public synchronized boolean awaitApplied(long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (applied < accepted) {
+            long wait = deadline - System.currentTimeMillis();
+            if (wait <= 0)
+                return false;
+            wait(wait);
+        }
+        return true;
+    }
+
+    public synchronized IngestMetrics getMetrics() {
+        long nowSecond = System.currentTimeMillis() / 1000;
+        long recent = 0;
+        for (int i = 0; i < perSecond.length; i++) {
+            if (secondOf[i] > nowSecond - RATE_WINDOW && secondOf[i] <= nowSecond)
+                recent += perSecond[i];
+        }
+        double seconds = Math.min(RATE_WINDOW, Math.max(1, (System.currentTimeMillis() - startMillis) / 1000.0));
+        long eventLag = newestEvent == Long.MIN_VALUE ? -1 : Math.max(0, System.currentTimeMillis() / 1000 - newestEvent);
+        return new IngestMetrics(received, malformed, added, updated, refused, batches, queue.size(),
+                recent / seconds, lagMillis, maxLagMillis, eventLag);
+    }
+
+    // A line of the ratings CSV as an event, or null if it isn't one (such as the header)
+    static RatingEvent parse(String line, long receivedNanos) {
+        String[] fields = line.trim().split(",");
+        if (fields.length != 5)
+            return null;
+        try {
+            int userID = Integer.parseInt(fields[0].trim());
+            int movieID = Integer.parseInt(fields[2].trim()); // The TMDB ID, as LoadData uses
+            float rating = Float.parseFloat(fields[3].trim());
+            long timestamp = Long.parseLong(fields[4].trim());
+            if (!(rating >= 0 && rating <= 5))
+                return null;
+            return new RatingEvent(userID, movieID, rating, timestamp, receivedNanos);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private void applyLoop() {
+        ArrayList<RatingEvent> batch = new ArrayList<>(maxBatch);
+        try {
+            while (running || !queue.isEmpty()) {
+                RatingEvent first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null)
+                    continue;
+                batch.clear();
+                batch.add(first);
+                long deadline = System.nanoTime() + lingerNanos;
+                while (batch.size() < maxBatch) {
+                    if (queue.drainTo(batch, maxBatch - batch.size()) > 0)
+                        continue;
+                    long wait = deadline - System.nanoTime();
+                    RatingEvent next = wait <= 0 ? null : queue.poll(wait, TimeUnit.NANOSECONDS);
+                    if (next == null)
+                        break;
+                    batch.add(next);
+                }
+                apply(batch);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Applies one batch, tells the listeners, then updates the metrics
+    void apply(ArrayList<RatingEvent> batch) {
+        // Only the last rating read for each pair matters
+        HashMap<Long, Integer> last = new HashMap<>();
+        for (int i = 0; i < batch.size(); i++)
+            last.put(batch.get(i).pair(), i);
+
+        HashSet<Integer> movies = new HashSet<>();
+        for (RatingEvent event : batch)
+            movies.add(event.movieID);
+
+        int numNew = 0, numSet = 0;
+        int[] users = new int[last.size()];
+        int[] movieIDs = new int[last.size()];
+        float[] values = new float[last.size()];
+        long[] times = new long[last.size()];
+        int setOK = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            RatingEvent event = batch.get(i);
+            if (last.get(event.pair()) != i)
+                continue; // Replaced later in the batch
+            if (ratings.getRating(event.userID, event.movieID) >= 0) { // Already rated
+                numSet++;
+                LocalDateTime time = LocalDateTime.ofEpochSecond(event.timestamp, 0, ZoneOffset.UTC);
+                if (ratings.set(event.userID, event.movieID, event.rating, time))
+                    setOK++;
+            } else {
+                users[numNew] = event.userID;
+                movieIDs[numNew] = event.movieID;
+                values[numNew] = event.rating;
+                times[numNew] = event.timestamp;
+                numNew++;
+            }
+        }
+        int addedOK = numNew == 0 ? 0 : ratings.addBatch(Arrays.copyOf(users, numNew), Arrays.copyOf(movieIDs, numNew),
+                Arrays.copyOf(values, numNew), Arrays.copyOf(times, numNew));
+
+        long now = System.nanoTime();
+        double lagSum = 0, lagMax = 0;
+        long newest = Long.MIN_VALUE;
+        for (RatingEvent event : batch) {
+            double lag = (now - event.receivedNanos) / 1e6;
+            lagSum += lag;
+            lagMax = Math.max(lagMax, lag);
+            newest = Math.max(newest, event.timestamp);
+        }
+        int superseded = batch.size() - last.size();
+
+        int[] changed = new int[movies.size()];
+        int n = 0;
+        for (int movie : movies)
+            changed[n++] = movie;
+        Arrays.sort(changed);
+        for (IngestListener listener : listeners)
+            listener.ratingsIngested(changed);
+
+        synchronized (this) {
+            added += addedOK;
+            updated += setOK + superseded;
+            refused += (numNew - addedOK) + (numSet - setOK);
+            batches++;
+            lagMillis = lagSum / batch.size();
+            maxLagMillis = lagMax;
+            newestEvent = Math.max(newestEvent, newest);
+            long second = System.currentTimeMillis() / 1000;
+            int slot = (int) (second % perSecond.length);
+            if (secondOf[slot] != second) {
+                secondOf[slot] = second;
+                perSecond[slot] = 0;
+            }
+            perSecond[slot] += batch.size();
+            applied += batch.size();
+            notifyAll();
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package ingest;
+
+import java.io.IOException;
+
+// Somewhere rating lines come from, in the ratings CSV format
+// (userId,movieLensId,tmdbId,rating,timestamp). Each source runs on its own thread.
+public interface RatingSource {
+    // Reads lines, passing each to the ingester, until closed
+    void run(RatingIngester ingester) throws IOException, InterruptedException;
+
+    // Stops reading (run returns soon after)
+    void close();
+}
@@ -0,0 +1,77 @@
+package ingest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Listens on a local TCP port. Any number of clients can connect at once and
+// write rating lines; each connection is read on its own thread.
+// Only the loopback interface is bound, so the port isn't reachable from outside.
+public class SocketSource implements RatingSource {
+    private final ServerSocket server;
+    private final Set<Socket> clients = ConcurrentHashMap.newKeySet();
+    private volatile boolean closed = false;
+
+    // Binds straight away (port 0 picks a free one, see getPort)
+    public SocketSource(int port) throws IOException {
+        server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+    }
+
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    @Override
+    public void run(RatingIngester ingester) throws IOException {
+        while (!closed) {
+            Socket client;
+            try {
+                client = server.accept();
+            } catch (IOException e) {
+                if (closed)
+                    return;
+                throw e;
+            }
+            clients.add(client);
+            Thread reader = new Thread(() -> read(client, ingester), "ingest-client");
+            reader.setDaemon(true);
+            reader.start();
+        }
+    }
+
+    private void read(Socket client, RatingIngester ingester) {
+        try (client) {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8));
+            String line;
+            while (!closed && (line = reader.readLine()) != null)
+                ingester.accept(line);
+        } catch (IOException | InterruptedException e) {
+            // The client went away (or we are closing)
+        } finally {
+            clients.remove(client);
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            server.close();
+            for (Socket client : clients)
+                client.close();
+        } catch (IOException e) {
+            // Closing anyway
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "listening on port " + getPort();
+    }
+}
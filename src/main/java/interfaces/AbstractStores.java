@@ -12,4 +12,8 @@ public abstract class AbstractStores {
     public IKeywords getKeywords() { return this.keywords; }
     public IMovies   getMovies()   { return this.movies; }
     public IRatings  getRatings()  { return this.ratings; }
+
+    // A read-only, point-in-time view of every store. Later changes to these stores
+    // don't show up in it, so a screen can make many calls and get consistent answers.
+    public abstract AbstractStores snapshot();
 }
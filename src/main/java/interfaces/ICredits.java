@@ -9,25 +9,48 @@ public interface ICredits{
     public boolean remove(int filmID);
     
     public CastCredit[] getFilmCast(int filmID);
+    // Every film with credits
+    public int[] getFilmIDs();
     public CrewCredit[] getFilmCrew(int filmID);
+    // Bulk variant: the cast of each film, in the same order (empty for unknown films)
+    public CastCredit[][] getFilmCasts(int[] filmIDs);
 
     public Person getCast(int castID);
     public Person getCrew(int crewID);
+    // A person's films come back in ascending ID order, not the order they were added
+    // in (ConcurrentStores gives each stripe's films in turn, each ascending).
     public int[] getCastFilms(int castID);
     public int[] getCrewFilms(int crewID);
     public int[] getCastStarsInFilms(int castID);
 
+    // Paged variants: skip the first offset results and return at most limit of the rest.
+    public int[] getCastFilms(int castID, int offset, int limit);
+    public int[] getCrewFilms(int crewID, int offset, int limit);
+    public IntIterator iterateCastFilms(int castID);
+
     public Person[] getMostCastCredits(int numResults);
     public int getNumCastCredits(int castID);
 
+    // Collaboration graph: people (cast or crew) are linked by the number of films they share.
+    public int getNumSharedFilms(int personA, int personB);
+    public int[] getTopCollaborators(int personID, int numResults);
+    public int[] getCollaborationPath(int fromPersonID, int toPersonID);
+    public int getDegreesOfSeparation(int fromPersonID, int toPersonID);
+
     public int sizeOfCast(int filmID);
     public int sizeOfCrew(int filmID);
 
     public Person[] getUniqueCast();
     public Person[] getUniqueCrew();
+    public Person[] getUniqueCast(int offset, int limit);
+    public Person[] getUniqueCrew(int offset, int limit);
+    public int getNumUniqueCast();
+    public int getNumUniqueCrew();
 
     public Person[] findCast(String searchTerm);
     public Person[] findCrew(String searchTerm);
+    public Person[] findCast(String searchTerm, int offset, int limit);
+    public Person[] findCrew(String searchTerm, int offset, int limit);
 
     public int size();
 }
\ No newline at end of file
@@ -13,10 +13,19 @@ public interface IKeywords{
     public int[] getFilmIDs();
     public int[] getKeywordIDs();
 
+    // The films with a keyword come back in ascending ID order, not the order they were
+    // added in (ConcurrentStores gives each stripe's films in turn, each ascending).
     public int[] getFilmsWithKeyword(int keywordID);
 
+    // Paged variants: skip the first offset results and return at most limit of the rest.
+    public int[] getFilmIDs(int offset, int limit);
+    public int[] getFilmsWithKeyword(int keywordID, int offset, int limit);
+    public IntIterator iterateFilmsWithKeyword(int keywordID);
+
     public Keyword[] getKeywordsForFilm(int filmID);
     public Keyword[] getUnique();
+    public Keyword[] getUnique(int offset, int limit);
+    public int getNumUnique();
 
     public int[] getMostKeywordFilms(int numResults);
 
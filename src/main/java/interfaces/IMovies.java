@@ -12,6 +12,12 @@ public interface IMovies {
     public int[] getAllIDs();
     public int[] getAllIDsReleasedInRange(LocalDate start, LocalDate end);
 
+    // Paged variants: skip the first offset results and return at most limit of the rest.
+    // The offset of the next page (offset + returned length) acts as the cursor for the following call.
+    public int[] getAllIDs(int offset, int limit);
+    public int[] getAllIDsReleasedInRange(LocalDate start, LocalDate end, int offset, int limit);
+    public IntIterator iterateAllIDs();
+
     public String getTitle(int id);
     public String getOriginalTitle(int id);
     public String getOverview(int id);
@@ -29,6 +35,9 @@ public interface IMovies {
     public boolean getVideo(int id);
     public String getPoster(int id);
 
+    // Bulk variant: one entry per ID, in the same order (null for unknown IDs)
+    public String[] getTitles(int[] ids);
+
     public boolean setVote(int id, double voteAverage, int voteCount);
     public double getVoteAverage(int id);
     public int getVoteCount(int id);
@@ -52,6 +61,7 @@ public interface IMovies {
     public String[] getProductionCountries(int movieId);
 
     public int[] findFilms(String searchTerm);
+    public int[] findFilms(String searchTerm, int offset, int limit);
 
     public int size();
 }
@@ -1,6 +1,7 @@
 package interfaces;
 
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 
 public interface IRatings {
     public boolean add(int userID, int movieID, float rating, LocalDateTime timestamp);
@@ -9,16 +10,72 @@ public interface IRatings {
 
     public boolean set(int userID, int movieID, float rating, LocalDateTime timestamp);
 
+    // Adds many ratings at once (timestamps in epoch seconds, UTC), exactly as if add
+    // had been called for each in order. Returns how many were added (duplicates are skipped).
+    public int addBatch(int[] userIDs, int[] movieIDs, float[] ratings, long[] timestamps);
+
+    // As addBatch, also setting added[i] to whether record i was added, so layers on
+    // top can follow the batch without looking each record up. added may be null;
+    // otherwise it must be as long as the batch, or nothing is added.
+    public int addBatch(int[] userIDs, int[] movieIDs, float[] ratings, long[] timestamps, boolean[] added);
+
     public float[] getMovieRatings(int movieID);
     public float[] getUserRatings(int userID);
     public float getMovieAverageRating(int movieID);
     public float getUserAverageRating(int userID);
 
+    // Paged variants: skip the first offset ratings and return at most limit of the rest.
+    public float[] getMovieRatings(int movieID, int offset, int limit);
+    public float[] getUserRatings(int userID, int offset, int limit);
+
+    // Bulk export of the rating matrix: every movie with at least one rating, for a
+    // movie the users who rated it (in the same order as getMovieRatings), and for a
+    // user the movies they rated (in the same order as getUserRatings).
+    // getMovieRatingTimes gives when each of a movie's ratings was made (epoch
+    // seconds, UTC), also in the same order as getMovieRatings.
+    public int[] getRatedMovies();
+    public int[] getMovieRaters(int movieID);
+    public long[] getMovieRatingTimes(int movieID);
+    public int[] getUserMovies(int userID);
+    // The rating a user gave a movie, or -1 if they haven't rated it
+    public float getRating(int userID, int movieID);
+
     public int[] getMostRatedMovies(int numResults);
     public int[] getMostRatedUsers(int numResults);
     public int getNumRatings(int movieID);
 
+    // Bulk variants: one entry per movie, in the same order, with the same values as
+    // getMovieAverageRating and getNumRatings would give for each
+    public float[] getMovieAverageRatings(int[] movieIDs);
+    public int[] getNumRatings(int[] movieIDs);
+
     public int[] getTopAverageRatedMovies(int numResults);
 
+    // Time-window queries over the rating timestamps (taken as UTC; ratings without
+    // one are left out). Trending movies are the ones rated most often in the days
+    // before reference (up to and including it), ties going to the higher average
+    // and then the lower ID.
+    public int[] getTrendingMovies(LocalDateTime reference, int days, int numResults);
+    // Number of ratings of a movie in each month from from to to (inclusive)
+    public int[] getMonthlyRatingCounts(int movieID, YearMonth from, YearMonth to);
+    // How a user's ratings have moved over time, in stars per year (the slope of
+    // a least squares fit; 0 if there are too few ratings to tell)
+    public float getUserRatingDrift(int userID);
+    // When the latest rating was made (null if there are none)
+    public LocalDateTime getLatestTimestamp();
+
+    // Rating distributions, kept up to date as ratings change so these never copy
+    // the ratings out. Histograms have 10 buckets, one per half star from 0.5 to 5.0
+    // (ratings are rounded to the nearest half star). Percentiles are nearest rank:
+    // the lowest rating that at least percentile% of the ratings are at or below,
+    // for percentile in [0, 100]; -1 if there are no ratings or it is out of range.
+    public int[] getMovieRatingHistogram(int movieID);
+    public int[] getUserRatingHistogram(int userID);
+    public float getMovieMedianRating(int movieID);
+    public float getMovieRatingPercentile(int movieID, double percentile);
+    public float getUserRatingPercentile(int userID, double percentile);
+    // Over every rating in the store, with exact (not rounded) values
+    public float getRatingPercentile(double percentile);
+
     public int size();
 }
@@ -0,0 +1,8 @@
+package interfaces;
+
+// Iterator over primitive ints, so store results can be walked without boxing or copying them.
+// Iterators read the live store, so they reflect any changes made while they are being walked.
+public interface IntIterator {
+    public boolean hasNext();
+    public int next();
+}
@@ -0,0 +1,245 @@
+package lazy;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import interfaces.IMovies;
+import interfaces.IntIterator;
+import stores.ForwardingMovies;
+import stores.Genre;
+import structures.IntIntMap;
+
+// Keeps the bulky text of each film (overview, tagline, homepage and collection
+// poster and backdrop paths) in a TextBlobs file rather than in the movies store
+// it wraps, which is given nulls for them. Only a handle per field is kept in
+// memory, and the text is read back when asked for. findFilms searches the
+// overviews in the file without reading them back as Strings.
+// Text is only written once the wrapped store has taken the film, so a refused
+// add leaves nothing in the file. A blob that can't be written makes add /
+// addToCollection return false (undoing the add); one that can't be read back
+// comes back as null.
+// The text of removed and replaced films stays in the file until compact moves
+// what is still used to a new one.
+public class LazyMovies extends ForwardingMovies {
+    static final int OVERVIEW = 0, TAGLINE = 1, HOMEPAGE = 2, COLLECTION_POSTER = 3, COLLECTION_BACKDROP = 4;
+    private static final int FIELDS = 5;
+
+    private TextBlobs blobs; // Replaced by compact, so read together with a handle
+    // Each film's FIELDS handles start at the index slots maps its ID to.
+    // A removed film keeps its slot (with no text) for if it is added again.
+    private final IntIntMap slots;
+    private long[] handles;
+    private int numSlots;
+    private int unused; // Handles dropped (by removes and replacements) since the file was last compacted
+
+    public LazyMovies(IMovies delegate, TextBlobs blobs) {
+        super(delegate);
+        this.blobs = blobs;
+        slots = new IntIntMap();
+        handles = new long[FIELDS * 64];
+    }
+
+    // A copy of the handles for a snapshot of the store (the file is only ever
+    // appended to, and compact leaves it to the snapshot, so the handles stay valid)
+    private LazyMovies(IMovies delegate, LazyMovies source) {
+        super(delegate);
+        synchronized (source) {
+            blobs = source.blobs;
+            slots = source.slots.copy();
+            handles = Arrays.copyOf(source.handles, source.handles.length);
+            numSlots = source.numSlots;
+        }
+    }
+
+    LazyMovies copy(IMovies delegate) {
+        return new LazyMovies(delegate, this);
+    }
+
+    public synchronized TextBlobs getBlobs() {
+        return blobs;
+    }
+
+    @Override
+    public synchronized boolean add(int id, String title, String originalTitle, String overview, String tagline, String status, Genre[] genres, LocalDate release, long budget, long revenue, String[] languages, String originalLanguage, double runtime, String homepage, boolean adult, boolean video, String poster) {
+        if (!delegate.add(id, title, originalTitle, null, null, status, genres, release, budget, revenue, languages, originalLanguage, runtime, null, adult, video, poster))
+            return false;
+        long overviewHandle, taglineHandle, homepageHandle;
+        try {
+            overviewHandle = blobs.append(overview);
+            taglineHandle = blobs.append(tagline);
+            homepageHandle = blobs.append(homepage);
+        } catch (IOException e) {
+            delegate.remove(id);
+            return false;
+        }
+        int slot = slotFor(id);
+        drop(slot, 0, FIELDS);
+        handles[slot + OVERVIEW] = overviewHandle;
+        handles[slot + TAGLINE] = taglineHandle;
+        handles[slot + HOMEPAGE] = homepageHandle;
+        return true;
+    }
+
+    @Override
+    public synchronized boolean remove(int id) {
+        if (!delegate.remove(id))
+            return false;
+        int slot = slots.get(id, -1);
+        if (slot >= 0)
+            drop(slot, 0, FIELDS);
+        return true;
+    }
+
+    // Moves the text still in use to a new file, leaving behind that of removed and
+    // replaced films (a reload replaces every film that changed, so the file would
+    // otherwise only grow). Snapshots keep reading the old file, which is closed
+    // once the last of them has gone. Holds up the store while it copies.
+    // Returns false if there was nothing to leave behind.
+    public synchronized boolean compact() throws IOException {
+        if (unused == 0)
+            return false;
+        long[] moved = Arrays.copyOf(handles, handles.length);
+        blobs = blobs.copy(moved, FIELDS * numSlots);
+        handles = moved;
+        unused = 0;
+        return true;
+    }
+
+    @Override
+    public String getOverview(int id) {
+        return text(id, OVERVIEW);
+    }
+
+    @Override
+    public String getTagline(int id) {
+        return text(id, TAGLINE);
+    }
+
+    @Override
+    public String getHomepage(int id) {
+        return text(id, HOMEPAGE);
+    }
+
+    // If the paths can't be written the film stays in the collection, without them
+    @Override
+    public synchronized boolean addToCollection(int filmID, int collectionID, String collectionName, String collectionPosterPath, String collectionBackdropPath) {
+        if (!delegate.addToCollection(filmID, collectionID, collectionName, null, null))
+            return false;
+        int slot = slotFor(filmID);
+        drop(slot, COLLECTION_POSTER, 2);
+        try {
+            handles[slot + COLLECTION_POSTER] = blobs.append(collectionPosterPath);
+            handles[slot + COLLECTION_BACKDROP] = blobs.append(collectionBackdropPath);
+        } catch (IOException e) {
+            return false;
+        }
+        return true;
+    }
+
+    // A collection's paths are those given with the first film in it, as in Movies
+    @Override
+    public String getCollectionPoster(int collectionID) {
+        int[] films = delegate.getFilmsInCollection(collectionID);
+        return films.length == 0 ? null : text(films[0], COLLECTION_POSTER);
+    }
+
+    @Override
+    public String getCollectionBackdrop(int collectionID) {
+        int[] films = delegate.getFilmsInCollection(collectionID);
+        return films.length == 0 ? null : text(films[0], COLLECTION_BACKDROP);
+    }
+
+    // Title and original title are in memory; the overviews are searched in the file
+    @Override
+    public int[] findFilms(String searchTerm) {
+        return findFilms(searchTerm, 0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int[] findFilms(String searchTerm, int offset, int limit) {
+        if (offset < 0 || limit <= 0)
+            return new int[0];
+        TextBlobs searched = null;
+        TextBlobs.Search overviews = null;
+        int[] found = new int[16];
+        int numFound = 0, matched = 0;
+        IntIterator ids = delegate.iterateAllIDs();
+        while (ids.hasNext() && numFound < limit) {
+            int id = ids.next();
+            TextBlobs file;
+            long overview;
+            synchronized (this) {
+                file = blobs;
+                overview = handle(id, OVERVIEW);
+            }
+            if (file != searched) { // The first film, or compacted since
+                searched = file;
+                overviews = file.search(searchTerm);
+            }
+            if (matches(id, searchTerm, overviews, overview) && matched++ >= offset) {
+                if (numFound == found.length)
+                    found = Arrays.copyOf(found, numFound * 2);
+                found[numFound++] = id;
+            }
+        }
+        return Arrays.copyOf(found, numFound);
+    }
+
+    private boolean matches(int id, String searchTerm, TextBlobs.Search overviews, long overview) {
+        String title = delegate.getTitle(id);
+        if (title != null && title.contains(searchTerm))
+            return true;
+        String originalTitle = delegate.getOriginalTitle(id);
+        if (originalTitle != null && originalTitle.contains(searchTerm))
+            return true;
+        try {
+            return overviews.in(overview);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    // The slot holding a film's handles, giving it one if it hasn't one yet
+    private int slotFor(int id) {
+        int slot = slots.get(id, -1);
+        if (slot < 0) {
+            slot = FIELDS * numSlots++;
+            if (slot + FIELDS > handles.length)
+                handles = Arrays.copyOf(handles, handles.length * 2);
+            Arrays.fill(handles, slot, slot + FIELDS, TextBlobs.NONE);
+            slots.put(id, slot);
+        }
+        return slot;
+    }
+
+    // Sets count of a slot's handles from first on to NONE, counting those that held text
+    private void drop(int slot, int first, int count) {
+        for (int i = slot + first; i < slot + first + count; i++) {
+            if (handles[i] != TextBlobs.NONE) {
+                handles[i] = TextBlobs.NONE;
+                unused++;
+            }
+        }
+    }
+
+    // Called holding the lock, and read from the file blobs was then
+    private long handle(int id, int field) {
+        int slot = slots.get(id, -1);
+        return slot < 0 ? TextBlobs.NONE : handles[slot + field];
+    }
+
+    private String text(int id, int field) {
+        TextBlobs file;
+        long handle;
+        synchronized (this) {
+            file = blobs;
+            handle = handle(id, field);
+        }
+        try {
+            return file.read(handle);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package lazy;
+
+import java.io.IOException;
+
+import interfaces.AbstractStores;
+
+// Wraps another set of stores so that the films' bulky text fields live in a
+// TextBlobs file (see LazyMovies) instead of on the heap. Every IMovies call
+// still answers as it would from the wrapped stores.
+// Only movies is wrapped; the other stores are passed through unchanged.
+public class LazyTextStores extends AbstractStores implements AutoCloseable {
+    private final AbstractStores backing;
+    private final LazyMovies lazyMovies;
+
+    // The text goes to a temporary file, deleted on close (or exit)
+    public LazyTextStores(AbstractStores backing) throws IOException {
+        this(backing, new TextBlobs());
+    }
+
+    public LazyTextStores(AbstractStores backing, TextBlobs blobs) {
+        this(backing, new LazyMovies(backing.getMovies(), blobs));
+    }
+
+    private LazyTextStores(AbstractStores backing, LazyMovies lazyMovies) {
+        this.backing = backing;
+        this.lazyMovies = lazyMovies;
+        movies = lazyMovies;
+        ratings = backing.getRatings();
+        credits = backing.getCredits();
+        keywords = backing.getKeywords();
+    }
+
+    public AbstractStores getBacking() {
+        return backing;
+    }
+
+    public TextBlobs getBlobs() {
+        return lazyMovies.getBlobs();
+    }
+
+    // Shares the file: it is only appended to (and compact leaves it be), so the snapshot's handles stay valid
+    @Override
+    public AbstractStores snapshot() {
+        synchronized (lazyMovies) {
+            AbstractStores copy = backing.snapshot();
+            return new LazyTextStores(copy, lazyMovies.copy(copy.getMovies()));
+        }
+    }
+
+    // Drops the text of removed and replaced films from the file (see LazyMovies.compact)
+    public boolean compact() throws IOException {
+        return lazyMovies.compact();
+    }
+
+    @Override
+    public void close() throws IOException {
+        lazyMovies.getBlobs().close();
+    }
+}
@@ -0,0 +1,284 @@
+package lazy;
+
+import java.io.IOException;
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// An append-only file of strings, kept out of the heap. Each string appended
+// gets a handle (its offset and UTF-8 length packed into a long), which is all
+// the caller keeps. Strings are read back on demand through a small LRU cache
+// of the most recently read ones.
+// Appends are buffered; anything still in the buffer is written before it is read.
+// Strings no longer used stay in the file until it is copied (see copy). A file
+// nothing refers to any more is closed (and deleted if temporary) even if close
+// isn't called, so a copy can leave the old file to whoever still reads it.
+public class TextBlobs implements AutoCloseable {
+    public static final long NONE = -1; // The handle of a null string
+    public static final int DEFAULT_CACHE_SIZE = 256;
+    static final int LENGTH_BITS = 24;
+    static final int LONG_LENGTH = (1 << LENGTH_BITS) - 1; // Longer strings have their length written before them
+    private static final int BUFFER_BYTES = 64 * 1024;
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private Path path;
+    private final boolean temporary;
+    private final int cacheSize;
+    private final FileChannel channel;
+    private final Cleaner.Cleanable closer;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+    private long written = 0; // Bytes in the file (the buffer follows them)
+    private MappedByteBuffer mapped; // For searching, remapped when the file has grown
+    private final LinkedHashMap<Long, String> cache;
+    private long hits, misses;
+
+    // A temporary file, deleted on close
+    public TextBlobs() throws IOException {
+        this(Files.createTempFile("movie-text", ".blobs"), DEFAULT_CACHE_SIZE, true);
+    }
+
+    // Starts the file at path afresh
+    public TextBlobs(Path path, int cacheSize) throws IOException {
+        this(path, cacheSize, false);
+    }
+
+    private TextBlobs(Path path, int cacheSize, boolean temporary) throws IOException {
+        this.path = path;
+        this.temporary = temporary;
+        this.cacheSize = cacheSize;
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING);
+        if (temporary)
+            path.toFile().deleteOnExit();
+        closer = CLEANER.register(this, new Closer(channel, temporary ? path : null));
+        cache = new LinkedHashMap<Long, String>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, String> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    public synchronized Path getPath() {
+        return path;
+    }
+
+    // Writes a string, returning its handle (NONE for null)
+    public long append(String text) throws IOException {
+        return text == null ? NONE : append(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // A new file holding only the strings with the first count of handles, which are
+    // changed to their handles in it. A temporary file is copied to another temporary
+    // file, and a file at a path to one beside it, which is then moved over it. This
+    // file stays readable by whoever still has handles to it (such as a snapshot).
+    public TextBlobs copy(long[] handles, int count) throws IOException {
+        Path target = getPath();
+        TextBlobs copy = temporary ? new TextBlobs(Files.createTempFile("movie-text", ".blobs"), cacheSize, true)
+            : new TextBlobs(target.resolveSibling(target.getFileName() + ".copy"), cacheSize, false);
+        try {
+            for (int i = 0; i < count; i++) {
+                if (handles[i] != NONE)
+                    handles[i] = copy.append(bytes(handles[i]));
+            }
+            if (!temporary) {
+                synchronized (copy) {
+                    copy.flush();
+                    Files.move(copy.path, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                    copy.path = target;
+                }
+            }
+        } catch (IOException e) {
+            copy.close();
+            if (!temporary)
+                Files.deleteIfExists(copy.path);
+            throw e;
+        }
+        return copy;
+    }
+
+    private synchronized long append(byte[] bytes) throws IOException {
+        long offset = written + buffer.position();
+        if (bytes.length >= LONG_LENGTH)
+            put(ByteBuffer.allocate(4).putInt(0, bytes.length));
+        put(ByteBuffer.wrap(bytes));
+        return (offset << LENGTH_BITS) | Math.min(bytes.length, LONG_LENGTH);
+    }
+
+    // The string a handle was given for (null for NONE)
+    public String read(long handle) throws IOException {
+        if (handle == NONE)
+            return null;
+        synchronized (this) {
+            String text = cache.get(handle);
+            if (text != null) {
+                hits++;
+                return text;
+            }
+            misses++;
+        }
+        String text = new String(bytes(handle), StandardCharsets.UTF_8);
+        synchronized (this) {
+            cache.put(handle, text);
+        }
+        return text;
+    }
+
+    // Searches strings for a term (as UTF-8) by comparing bytes in place rather
+    // than reading the strings back. As UTF-8 is self-synchronising, this agrees
+    // with String.contains.
+    public Search search(String term) {
+        return new Search(term.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // One search, which maps the file once for all the strings it looks in
+    public final class Search {
+        private final byte[] term;
+        private ByteBuffer view;
+
+        private Search(byte[] term) {
+            this.term = term;
+        }
+
+        // Whether the string with this handle contains the term
+        public boolean in(long handle) throws IOException {
+            if (handle == NONE)
+                return false;
+            long offset = handle >>> LENGTH_BITS;
+            int length = (int) (handle & LONG_LENGTH);
+            if (view == null || length == LONG_LENGTH || offset + length > view.capacity())
+                view = view(handle);
+            if (length == LONG_LENGTH) {
+                length = view.getInt((int) offset);
+                offset += 4;
+            }
+            int start = (int) offset;
+            int last = start + length - term.length;
+            for (int i = start; i <= last; i++) {
+                int j = 0;
+                while (j < term.length && view.get(i + j) == term[j])
+                    j++;
+                if (j == term.length)
+                    return true;
+            }
+            return false;
+        }
+    }
+
+    // Bytes of file (including what is still buffered)
+    public synchronized long size() {
+        return written + buffer.position();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+        mapped = null;
+        if (temporary)
+            Files.deleteIfExists(path);
+        closer.clean(); // Nothing left for it to do
+    }
+
+    // Closes a file nothing refers to any more (it mustn't refer to the TextBlobs itself)
+    private static final class Closer implements Runnable {
+        private final FileChannel channel;
+        private final Path temporaryPath; // null if the file is kept
+
+        Closer(FileChannel channel, Path temporaryPath) {
+            this.channel = channel;
+            this.temporaryPath = temporaryPath;
+        }
+
+        @Override
+        public void run() {
+            try {
+                channel.close();
+                if (temporaryPath != null)
+                    Files.deleteIfExists(temporaryPath);
+            } catch (IOException e) {
+                // Nothing more can be done with it
+            }
+        }
+    }
+
+    private void put(ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining()) {
+            if (!buffer.hasRemaining())
+                flush();
+            int n = Math.min(bytes.remaining(), buffer.remaining());
+            ByteBuffer slice = bytes.slice();
+            slice.limit(n);
+            buffer.put(slice);
+            bytes.position(bytes.position() + n);
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining())
+            written += channel.write(buffer, written);
+        buffer.clear();
+    }
+
+    // The bytes of a string, read with a positional read (safe alongside other readers)
+    private byte[] bytes(long handle) throws IOException {
+        long offset = handle >>> LENGTH_BITS;
+        int length = (int) (handle & LONG_LENGTH);
+        synchronized (this) {
+            if (!isWritten(handle))
+                flush();
+        }
+        if (length == LONG_LENGTH) {
+            ByteBuffer header = ByteBuffer.allocate(4);
+            readFully(header, offset);
+            length = header.getInt(0);
+            offset += 4;
+        }
+        ByteBuffer bytes = ByteBuffer.allocate(length);
+        readFully(bytes, offset);
+        return bytes.array();
+    }
+
+    private void readFully(ByteBuffer bytes, long offset) throws IOException {
+        while (bytes.hasRemaining()) {
+            int n = channel.read(bytes, offset + bytes.position());
+            if (n < 0)
+                throw new IOException("Text blob file " + path + " is shorter than expected");
+        }
+    }
+
+    // Whether all of a string is in the file rather than the buffer (always
+    // flushed for long strings, as their length isn't in the handle)
+    private boolean isWritten(long handle) {
+        long length = handle & LONG_LENGTH;
+        return length != LONG_LENGTH && (handle >>> LENGTH_BITS) + length <= written;
+    }
+
+    // The whole file mapped, covering at least the string with this handle
+    private synchronized ByteBuffer view(long handle) throws IOException {
+        if (!isWritten(handle))
+            flush();
+        if (mapped == null || mapped.capacity() < written) {
+            if (written > Integer.MAX_VALUE)
+                throw new IOException("Text blob file " + path + " is too big to search");
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, written);
+        }
+        return mapped.duplicate();
+    }
+}
@@ -0,0 +1,13 @@
+package query;
+
+// The film attributes FacetIndex can filter and count by. Genres, languages and
+// countries are matched by name; the rest by numeric range.
+public enum Facet {
+    GENRE,
+    LANGUAGE, // Original language code, e.g. "en"
+    COUNTRY, // Production country code, e.g. "US"
+    YEAR, // Release year
+    RUNTIME, // Whole minutes
+    RATING, // Average user rating in tenths of a star (35 is 3.5 stars)
+    ADULT // 1 for adult films, 0 otherwise
+}
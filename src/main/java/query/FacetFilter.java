@@ -0,0 +1,142 @@
+package query;
+
+import java.time.LocalDate;
+
+import interfaces.AbstractStores;
+import interfaces.IMovies;
+import stores.Genre;
+
+// A set of conditions for FacetIndex. A film matches if it satisfies every condition
+// given; within one facet any of the listed names is enough. Facets with no
+// condition don't filter at all. Setters return the filter so they can be chained:
+//   new FacetFilter().genres("Action", "Comedy").years(1990, 1999).minRating(3.5f)
+public class FacetFilter {
+    final String[][] names = new String[Facet.values().length][]; // Names to match, per facet (null if unset)
+    final int[] min = new int[Facet.values().length];
+    final int[] max = new int[Facet.values().length];
+    final boolean[] ranged = new boolean[Facet.values().length]; // Whether min/max are set for a facet
+
+    public FacetFilter genres(String... genres) {
+        return anyOf(Facet.GENRE, genres);
+    }
+
+    public FacetFilter languages(String... languages) {
+        return anyOf(Facet.LANGUAGE, languages);
+    }
+
+    public FacetFilter countries(String... countries) {
+        return anyOf(Facet.COUNTRY, countries);
+    }
+
+    // Released from the start of one year to the end of another
+    public FacetFilter years(int from, int to) {
+        return range(Facet.YEAR, from, to);
+    }
+
+    public FacetFilter runtime(int minMinutes, int maxMinutes) {
+        return range(Facet.RUNTIME, minMinutes, maxMinutes);
+    }
+
+    // Average rating of at least this many stars, to a tenth of a star; unrated films never match
+    public FacetFilter minRating(float stars) {
+        return range(Facet.RATING, (int) Math.ceil(stars * 10 - 0.0001), Integer.MAX_VALUE);
+    }
+
+    public FacetFilter adult(boolean adult) {
+        return range(Facet.ADULT, adult ? 1 : 0, adult ? 1 : 0);
+    }
+
+    // Matches films with any of the given names for a facet
+    public FacetFilter anyOf(Facet facet, String... values) {
+        names[facet.ordinal()] = values == null ? null : values.clone();
+        ranged[facet.ordinal()] = false;
+        return this;
+    }
+
+    // Matches films whose value for a numeric facet is in [from, to]
+    public FacetFilter range(Facet facet, int from, int to) {
+        names[facet.ordinal()] = null;
+        min[facet.ordinal()] = from;
+        max[facet.ordinal()] = to;
+        ranged[facet.ordinal()] = true;
+        return this;
+    }
+
+    // Removes any condition on a facet
+    public FacetFilter clear(Facet facet) {
+        names[facet.ordinal()] = null;
+        ranged[facet.ordinal()] = false;
+        return this;
+    }
+
+    public boolean has(Facet facet) {
+        return names[facet.ordinal()] != null || ranged[facet.ordinal()];
+    }
+
+    // Checks one film against every condition by reading its fields (what a FacetIndex
+    // answers from bitmaps; used when there is no index)
+    boolean matches(AbstractStores stores, int filmID) {
+        IMovies movies = stores.getMovies();
+        for (Facet facet : Facet.values()) {
+            if (!has(facet))
+                continue;
+            boolean ok;
+            switch (facet) {
+                case GENRE: {
+                    Genre[] genres = movies.getGenres(filmID);
+                    ok = false;
+                    for (int g = 0; genres != null && g < genres.length && !ok; g++)
+                        ok = matches(facet, genres[g].getName());
+                    break;
+                }
+                case LANGUAGE:
+                    ok = matches(facet, movies.getOriginalLanguage(filmID));
+                    break;
+                case COUNTRY: {
+                    String[] countries = movies.getProductionCountries(filmID);
+                    ok = false;
+                    for (int c = 0; countries != null && c < countries.length && !ok; c++)
+                        ok = matches(facet, countries[c]);
+                    break;
+                }
+                case YEAR: {
+                    LocalDate release = movies.getRelease(filmID);
+                    ok = release != null && matches(facet, release.getYear());
+                    break;
+                }
+                case RUNTIME: {
+                    double runtime = movies.getRuntime(filmID);
+                    ok = runtime > 0 && matches(facet, (int) runtime);
+                    break;
+                }
+                case RATING:
+                    ok = stores.getRatings().getNumRatings(filmID) > 0
+                        && matches(facet, (int) Math.floor(stores.getRatings().getMovieAverageRating(filmID) * 10 + 0.0001));
+                    break;
+                default:
+                    ok = matches(facet, movies.getAdult(filmID) ? 1 : 0);
+                    break;
+            }
+            if (!ok)
+                return false;
+        }
+        return true;
+    }
+
+    private boolean matches(Facet facet, String value) {
+        if (value == null || names[facet.ordinal()] == null)
+            return false;
+        for (String name : names[facet.ordinal()]) {
+            if (value.equals(name))
+                return true;
+        }
+        return false;
+    }
+
+    private boolean matches(Facet facet, int value) {
+        int f = facet.ordinal();
+        if (ranged[f])
+            return value >= min[f] && value <= max[f];
+        return matches(facet, Integer.toString(value));
+    }
+}
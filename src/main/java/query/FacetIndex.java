@@ -0,0 +1,225 @@
+package query;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+import interfaces.AbstractStores;
+import interfaces.IMovies;
+import interfaces.IRatings;
+import stores.Genre;
+import structures.IntPostings;
+import structures.RoaringBitmap;
+
+// Faceted film filtering: for every value of every facet (each genre, language,
+// country, release year, runtime minute, rating tenth and the adult flag) this
+// keeps a compressed bitmap of the film IDs with that value. A filter is then a
+// few bitmap ORs (within a facet) and ANDs (across facets), and the counts a UI
+// shows next to each value are sizes of intersections, without touching films.
+// Numeric facets also keep a running OR ("value at most this one") per value, so
+// any range is one ANDNOT of two of them rather than an OR over the whole range.
+//
+// Bitmaps hold each film's position in the sorted list of film IDs rather than the
+// ID itself, so they are dense (IDs are spread thinly over a large range). The IDs
+// themselves are kept as compressed postings, decoded only for the positions asked for.
+//
+// Built once from the stores and not updated afterwards; build a new one (from a
+// snapshot, if the stores are changing) to pick up changes.
+public class FacetIndex {
+    private final IntPostings filmIDs; // Film at each position, ascending
+    private final RoaringBitmap all; // Every position
+    private final Column[] columns = new Column[Facet.values().length];
+
+    public FacetIndex(AbstractStores stores) {
+        IMovies movies = stores.getMovies();
+        IRatings ratings = stores.getRatings();
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Map<Object, RoaringBitmap>[] values = new Map[Facet.values().length];
+        for (Facet facet : Facet.values())
+            values[facet.ordinal()] = new TreeMap<>();
+
+        int[] ids = movies.getAllIDs();
+        Arrays.sort(ids);
+        filmIDs = IntPostings.of(ids);
+        if (filmIDs.size() != ids.length) // Positions would no longer line up with the IDs
+            throw new IllegalStateException("film IDs are not distinct");
+        all = new RoaringBitmap();
+        for (int doc = 0; doc < ids.length; doc++) {
+            int id = ids[doc];
+            all.add(doc);
+
+            Genre[] genres = movies.getGenres(id);
+            if (genres != null) {
+                for (Genre g : genres)
+                    put(values, Facet.GENRE, g.getName(), doc);
+            }
+            put(values, Facet.LANGUAGE, movies.getOriginalLanguage(id), doc);
+            String[] countries = movies.getProductionCountries(id);
+            if (countries != null) {
+                for (String c : countries)
+                    put(values, Facet.COUNTRY, c, doc);
+            }
+            LocalDate release = movies.getRelease(id);
+            if (release != null)
+                put(values, Facet.YEAR, release.getYear(), doc);
+            double runtime = movies.getRuntime(id);
+            if (runtime > 0)
+                put(values, Facet.RUNTIME, (int) runtime, doc);
+            if (ratings.getNumRatings(id) > 0)
+                put(values, Facet.RATING, (int) Math.floor(ratings.getMovieAverageRating(id) * 10 + 0.0001), doc);
+            put(values, Facet.ADULT, movies.getAdult(id) ? 1 : 0, doc);
+        }
+
+        for (Facet facet : Facet.values())
+            columns[facet.ordinal()] = new Column(values[facet.ordinal()]);
+    }
+
+    private static void put(Map<Object, RoaringBitmap>[] values, Facet facet, Object value, int doc) {
+        if (value == null || "".equals(value))
+            return;
+        values[facet.ordinal()].computeIfAbsent(value, v -> new RoaringBitmap()).add(doc);
+    }
+
+    public int size() {
+        return all.cardinality();
+    }
+
+    // The values a facet takes, in order (names, or numbers as text for numeric facets)
+    public String[] getValues(Facet facet) {
+        return columns[facet.ordinal()].names.clone();
+    }
+
+    // The matching film IDs, ascending
+    public int[] filter(FacetFilter filter) {
+        return toFilmIDs(match(filter, null));
+    }
+
+    // The film IDs at the positions in a bitmap, ascending
+    int[] toFilmIDs(RoaringBitmap docs) {
+        return filmIDs.select(docs.toArray());
+    }
+
+    public int count(FacetFilter filter) {
+        return match(filter, null).cardinality();
+    }
+
+    // How many films each value of a facet would match, lined up with getValues(facet).
+    // The filter's own condition on that facet is left out, so the counts say what
+    // choosing each value instead (or as well) would give.
+    public int[] getCounts(Facet facet, FacetFilter filter) {
+        RoaringBitmap base = match(filter, facet);
+        Column column = columns[facet.ordinal()];
+        int[] counts = new int[column.bitmaps.length];
+        for (int v = 0; v < counts.length; v++)
+            counts[v] = RoaringBitmap.andCardinality(base, column.bitmaps[v]);
+        return counts;
+    }
+
+    // Approximate memory used by the bitmaps, in bytes
+    public long sizeInBytes() {
+        long bytes = all.sizeInBytes();
+        for (Column column : columns) {
+            for (RoaringBitmap bitmap : column.bitmaps)
+                bytes += bitmap.sizeInBytes();
+            for (int k = 1; k < column.atMost.length; k++)
+                bytes += column.atMost[k].sizeInBytes(); // The first is shared with bitmaps
+        }
+        return bytes;
+    }
+
+    // The positions of the films matching every condition of a filter except the one on skip (if any).
+    // May be one of the index's own bitmaps, so it must not be changed.
+    RoaringBitmap match(FacetFilter filter, Facet skip) {
+        // One bitmap per condition, intersected smallest first so the work shrinks quickly
+        RoaringBitmap[] parts = new RoaringBitmap[columns.length];
+        int numParts = 0;
+        for (Facet facet : Facet.values()) {
+            if (facet != skip && filter.has(facet))
+                parts[numParts++] = select(facet, filter);
+        }
+        if (numParts == 0)
+            return all;
+        Arrays.sort(parts, 0, numParts, (a, b) -> Integer.compare(a.cardinality(), b.cardinality()));
+
+        RoaringBitmap result = parts[0];
+        for (int p = 1; p < numParts && !result.isEmpty(); p++)
+            result = RoaringBitmap.and(result, parts[p]);
+        return result;
+    }
+
+    // The films meeting a filter's condition on one facet
+    RoaringBitmap select(Facet facet, FacetFilter filter) {
+        Column column = columns[facet.ordinal()];
+        int f = facet.ordinal();
+        if (filter.ranged[f])
+            return column.range(filter.min[f], filter.max[f]);
+
+        RoaringBitmap result = new RoaringBitmap();
+        for (String name : filter.names[f]) {
+            RoaringBitmap bitmap = column.get(name);
+            if (bitmap != null)
+                result = result.isEmpty() ? bitmap : RoaringBitmap.or(result, bitmap);
+        }
+        return result;
+    }
+
+    // One facet's values, sorted, with the bitmap of films having each
+    private static final class Column {
+        final String[] names;
+        final int[] keys; // Numeric value of each (numeric facets only)
+        final boolean numeric;
+        final RoaringBitmap[] bitmaps;
+        final RoaringBitmap[] atMost; // Films with a value up to each one (numeric facets only)
+
+        Column(Map<Object, RoaringBitmap> values) {
+            names = new String[values.size()];
+            keys = new int[values.size()];
+            bitmaps = new RoaringBitmap[values.size()];
+            boolean isNumeric = false;
+            int v = 0;
+            for (Map.Entry<Object, RoaringBitmap> e : values.entrySet()) {
+                names[v] = e.getKey().toString();
+                isNumeric = e.getKey() instanceof Integer;
+                keys[v] = isNumeric ? (Integer) e.getKey() : v;
+                bitmaps[v++] = e.getValue();
+            }
+            numeric = isNumeric;
+
+            atMost = new RoaringBitmap[numeric ? bitmaps.length : 0];
+            for (int k = 0; k < atMost.length; k++)
+                atMost[k] = k == 0 ? bitmaps[0] : RoaringBitmap.or(atMost[k - 1], bitmaps[k]);
+        }
+
+        // Films with a value, by name (numeric values by their text)
+        RoaringBitmap get(String name) {
+            if (name == null)
+                return null;
+            if (!numeric) {
+                int v = Arrays.binarySearch(names, name);
+                return v < 0 ? null : bitmaps[v];
+            }
+            try {
+                int v = Arrays.binarySearch(keys, Integer.parseInt(name.trim()));
+                return v < 0 ? null : bitmaps[v];
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        // Films whose value is in [min, max] (numeric facets only)
+        RoaringBitmap range(int min, int max) {
+            int from = Arrays.binarySearch(keys, min);
+            if (from < 0)
+                from = -from - 1;
+            int to = Arrays.binarySearch(keys, max);
+            to = to < 0 ? -to - 1 : to + 1;
+            if (from >= to)
+                return new RoaringBitmap();
+            if (to - from == 1)
+                return bitmaps[from];
+            return from == 0 ? atMost[to - 1] : RoaringBitmap.andNot(atMost[to - 1], atMost[from - 1]);
+        }
+    }
+}
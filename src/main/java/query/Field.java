@@ -0,0 +1,74 @@
+package query;
+
+import interfaces.AbstractStores;
+import interfaces.IPerson;
+
+// A value a Query can filter, order or return. Film fields are looked up by the
+// row's film ID and person fields by its person ID; the credit fields are filled
+// in by the cast/crew joins themselves.
+public enum Field {
+    TITLE(Kind.FILM, (s, id) -> s.getMovies().getTitle(id), (s, ids) -> s.getMovies().getTitles(ids)),
+    RELEASE(Kind.FILM, (s, id) -> s.getMovies().getRelease(id)),
+    RUNTIME(Kind.FILM, (s, id) -> s.getMovies().getRuntime(id)),
+    POPULARITY(Kind.FILM, (s, id) -> s.getMovies().getPopularity(id)),
+    POSTER(Kind.FILM, (s, id) -> s.getMovies().getPoster(id)),
+    AVERAGE_RATING(Kind.FILM, (s, id) -> s.getRatings().getMovieAverageRating(id),
+        (s, ids) -> boxed(s.getRatings().getMovieAverageRatings(ids))),
+    NUM_RATINGS(Kind.FILM, (s, id) -> s.getRatings().getNumRatings(id),
+        (s, ids) -> boxed(s.getRatings().getNumRatings(ids))),
+    CAST(Kind.FILM, (s, id) -> s.getCredits().getFilmCast(id), // CastCredit[] in billing order
+        (s, ids) -> s.getCredits().getFilmCasts(ids)),
+
+    PERSON_NAME(Kind.PERSON, (s, id) -> name(s, id)),
+
+    CHARACTER(Kind.CREDIT, null), // From joinCast
+    BILLING(Kind.CREDIT, null), // From joinCast; 0 is top billed
+    JOB(Kind.CREDIT, null); // From joinCrew
+
+    enum Kind { FILM, PERSON, CREDIT }
+
+    // Looks up one ID's value
+    interface Lookup {
+        Object get(AbstractStores stores, int id);
+    }
+
+    // Looks up many IDs' values in one call (one value per ID, in the same order)
+    interface BatchLookup {
+        Object[] get(AbstractStores stores, int[] ids);
+    }
+
+    final Kind kind;
+    final Lookup lookup;
+    final BatchLookup batchLookup; // Null if the stores have no bulk accessor for it
+
+    Field(Kind kind, Lookup lookup) {
+        this(kind, lookup, null);
+    }
+
+    Field(Kind kind, Lookup lookup, BatchLookup batchLookup) {
+        this.kind = kind;
+        this.lookup = lookup;
+        this.batchLookup = batchLookup;
+    }
+
+    private static Object[] boxed(float[] values) {
+        Object[] boxed = new Object[values.length];
+        for (int i = 0; i < values.length; i++)
+            boxed[i] = values[i];
+        return boxed;
+    }
+
+    private static Object[] boxed(int[] values) {
+        Object[] boxed = new Object[values.length];
+        for (int i = 0; i < values.length; i++)
+            boxed[i] = values[i];
+        return boxed;
+    }
+
+    private static Object name(AbstractStores stores, int personID) {
+        IPerson person = stores.getCredits().getCast(personID);
+        if (person == null)
+            person = stores.getCredits().getCrew(personID);
+        return person == null ? null : person.getName();
+    }
+}
@@ -0,0 +1,392 @@
+package query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import interfaces.AbstractStores;
+import stores.CastCredit;
+import stores.CrewCredit;
+import structures.IntIntMap;
+
+// How a Query will run: a list of steps, each taking the rows from the one before.
+// The planner
+//  - starts from an index where it can (the facet index for facet conditions, the
+//    most-rated ranking for "most rated first, top n", a collection's or person's
+//    film list) and scans every film only when it has to,
+//  - fetches a field once per distinct ID, a column at a time, and
+//  - leaves fields that are only returned until after ordering and limiting, so
+//    they are fetched for the rows that are kept.
+// explain() describes the steps; after execute() it also shows each step's row count.
+public class Plan {
+    private final AbstractStores stores;
+    private final List<Step> steps = new ArrayList<>();
+
+    Plan(Query query, AbstractStores stores, FacetIndex index) {
+        this.stores = stores;
+        boolean[] fetched = new boolean[Field.values().length];
+        boolean ordered = false, limited = false;
+        int op = 0;
+
+        // Where to start
+        List<Object> ops = query.ops;
+        switch (query.source) {
+            case ALL_FILMS:
+                if (!ops.isEmpty() && ops.get(0) instanceof FacetFilter && index != null) {
+                    FacetFilter facets = (FacetFilter) ops.get(op++);
+                    steps.add(new Source("Facet index lookup", () -> Rows.ofFilms(index.filter(facets))));
+                } else if (ops.isEmpty() && query.orderBy == Field.NUM_RATINGS && query.descending && query.limit >= 0) {
+                    steps.add(new Source("Most-rated index, top " + query.limit,
+                        () -> Rows.ofFilms(stores.getRatings().getMostRatedMovies(query.limit))));
+                    ordered = limited = true;
+                } else {
+                    steps.add(new Source("Scan all films", () -> Rows.ofFilms(stores.getMovies().getAllIDs())));
+                }
+                break;
+            case FILMS:
+                steps.add(new Source("Given films", () -> Rows.ofFilms(query.ids)));
+                break;
+            case COLLECTION:
+                steps.add(new Source("Collection " + query.key + " lookup",
+                    () -> Rows.ofFilms(stores.getMovies().getFilmsInCollection(query.key))));
+                break;
+            case PERSON_FILMS:
+                steps.add(new Source("Cast films of person " + query.key + " lookup",
+                    () -> Rows.ofFilms(stores.getCredits().getCastFilms(query.key))));
+                break;
+            default:
+                steps.add(new Source("Given people", () -> Rows.ofPeople(query.ids)));
+                break;
+        }
+
+        // Filters and joins, in the order given
+        for (; op < ops.size(); op++) {
+            Object o = ops.get(op);
+            if (o instanceof FacetFilter) {
+                steps.add(index != null ? new FacetIndexFilter((FacetFilter) o, index) : new FacetScanFilter((FacetFilter) o));
+            } else if (o instanceof Query.FieldFilter) {
+                Query.FieldFilter filter = (Query.FieldFilter) o;
+                fetch(filter.field, fetched);
+                steps.add(new FieldFilterStep(filter));
+            } else {
+                steps.add(new JoinStep((Query.Join) o));
+            }
+        }
+
+        if (query.orderBy != null && !ordered) {
+            fetch(query.orderBy, fetched);
+            steps.add(new Sort(query.orderBy, query.descending));
+        }
+        if (query.limit >= 0 && !limited)
+            steps.add(new Limit(query.limit));
+        for (Field field : query.select)
+            fetch(field, fetched);
+    }
+
+    // Adds a step fetching a field, unless it is already fetched (join fields come with their join)
+    private void fetch(Field field, boolean[] fetched) {
+        if (fetched[field.ordinal()] || field.kind == Field.Kind.CREDIT)
+            return;
+        fetched[field.ordinal()] = true;
+        steps.add(new Fetch(field));
+    }
+
+    public QueryResult execute() {
+        Rows rows = null;
+        for (Step step : steps) {
+            rows = step.apply(rows);
+            step.rowsOut = rows.size;
+        }
+        return new QueryResult(rows);
+    }
+
+    public String explain() {
+        StringBuilder text = new StringBuilder();
+        for (int s = 0; s < steps.size(); s++) {
+            Step step = steps.get(s);
+            text.append(s + 1).append(". ").append(step.describe());
+            if (step.rowsOut >= 0)
+                text.append("  -> ").append(step.rowsOut).append(" rows");
+            text.append('\n');
+        }
+        return text.toString();
+    }
+
+    // ---------- Steps ----------
+
+    private abstract static class Step {
+        int rowsOut = -1; // Set when run
+
+        abstract Rows apply(Rows in);
+
+        abstract String describe();
+    }
+
+    private interface RowSupplier {
+        Rows get();
+    }
+
+    private static final class Source extends Step {
+        private final String description;
+        private final RowSupplier supplier;
+
+        Source(String description, RowSupplier supplier) {
+            this.description = description;
+            this.supplier = supplier;
+        }
+
+        @Override
+        Rows apply(Rows in) {
+            return supplier.get();
+        }
+
+        @Override
+        String describe() {
+            return description;
+        }
+    }
+
+    private final class Fetch extends Step {
+        private final Field field;
+        private int distinct = -1;
+
+        Fetch(Field field) {
+            this.field = field;
+        }
+
+        @Override
+        Rows apply(Rows in) {
+            int[] ids = field.kind == Field.Kind.FILM ? in.films : in.people;
+
+            // Look each distinct ID up once, all together if the stores can
+            IntIntMap slots = new IntIntMap(in.size);
+            int[] rowSlots = new int[in.size];
+            int[] distinctIDs = new int[in.size];
+            int numDistinct = 0;
+            for (int r = 0; r < in.size; r++) {
+                rowSlots[r] = -1;
+                if (ids[r] < 0)
+                    continue;
+                int slot = slots.get(ids[r], -1);
+                if (slot < 0) {
+                    slot = numDistinct++;
+                    slots.put(ids[r], slot);
+                    distinctIDs[slot] = ids[r];
+                }
+                rowSlots[r] = slot;
+            }
+
+            Object[] values;
+            if (field.batchLookup != null) {
+                int[] wanted = new int[numDistinct];
+                System.arraycopy(distinctIDs, 0, wanted, 0, numDistinct);
+                values = field.batchLookup.get(stores, wanted);
+            } else {
+                values = new Object[numDistinct];
+                for (int i = 0; i < numDistinct; i++)
+                    values[i] = field.lookup.get(stores, distinctIDs[i]);
+            }
+
+            for (int r = 0; r < in.size; r++) {
+                if (rowSlots[r] >= 0)
+                    in.set(r, field, values[rowSlots[r]]);
+            }
+            distinct = numDistinct;
+            return in;
+        }
+
+        @Override
+        String describe() {
+            return "Fetch " + field + " per distinct " + (field.kind == Field.Kind.FILM ? "film" : "person")
+                + (field.batchLookup != null ? ", in one bulk call" : "")
+                + (distinct >= 0 ? " (" + distinct + " lookups)" : "");
+        }
+    }
+
+    private final class FacetScanFilter extends Step {
+        private final FacetFilter facets;
+
+        FacetScanFilter(FacetFilter facets) {
+            this.facets = facets;
+        }
+
+        @Override
+        Rows apply(Rows in) {
+            int[] keep = new int[in.size];
+            int n = 0;
+            for (int r = 0; r < in.size; r++) {
+                if (in.films[r] >= 0 && facets.matches(stores, in.films[r]))
+                    keep[n++] = r;
+            }
+            return in.pick(keep, n);
+        }
+
+        @Override
+        String describe() {
+            return "Check facet conditions film by film (no facet index)";
+        }
+    }
+
+    private static final class FacetIndexFilter extends Step {
+        private final FacetFilter facets;
+        private final FacetIndex index;
+
+        FacetIndexFilter(FacetFilter facets, FacetIndex index) {
+            this.facets = facets;
+            this.index = index;
+        }
+
+        @Override
+        Rows apply(Rows in) {
+            int[] matching = index.filter(facets); // Ascending
+            int[] keep = new int[in.size];
+            int n = 0;
+            for (int r = 0; r < in.size; r++) {
+                if (Arrays.binarySearch(matching, in.films[r]) >= 0)
+                    keep[n++] = r;
+            }
+            return in.pick(keep, n);
+        }
+
+        @Override
+        String describe() {
+            return "Keep films in the facet index's matches";
+        }
+    }
+
+    private static final class FieldFilterStep extends Step {
+        private final Query.FieldFilter filter;
+
+        FieldFilterStep(Query.FieldFilter filter) {
+            this.filter = filter;
+        }
+
+        @Override
+        Rows apply(Rows in) {
+            int[] keep = new int[in.size];
+            int n = 0;
+            for (int r = 0; r < in.size; r++) {
+                if (filter.test.test(in.get(r, filter.field)))
+                    keep[n++] = r;
+            }
+            return in.pick(keep, n);
+        }
+
+        @Override
+        String describe() {
+            return "Filter on " + filter.field;
+        }
+    }
+
+    private final class JoinStep extends Step {
+        private final Query.Join join;
+
+        JoinStep(Query.Join join) {
+            this.join = join;
+        }
+
+        @Override
+        Rows apply(Rows in) {
+            Rows out = new Rows(in.size * 4);
+            int[] source = new int[16]; // Input row of each output row, to carry fields across
+            for (int r = 0; r < in.size; r++) {
+                int first = out.size;
+                if (join == Query.Join.CAST && in.films[r] >= 0) {
+                    for (CastCredit c : stores.getCredits().getFilmCast(in.films[r])) {
+                        int row = out.add(in.films[r], c.getID());
+                        out.set(row, Field.CHARACTER, c.getCharacter());
+                        out.set(row, Field.BILLING, c.getOrder());
+                    }
+                } else if (join == Query.Join.CREW && in.films[r] >= 0) {
+                    for (CrewCredit c : stores.getCredits().getFilmCrew(in.films[r])) {
+                        int row = out.add(in.films[r], c.getID());
+                        out.set(row, Field.JOB, c.getJob());
+                    }
+                } else if (join == Query.Join.FILMS && in.people[r] >= 0) {
+                    for (int film : stores.getCredits().getCastFilms(in.people[r]))
+                        out.add(film, in.people[r]);
+                }
+                if (out.size > source.length)
+                    source = Arrays.copyOf(source, Math.max(out.size, source.length * 2));
+                Arrays.fill(source, first, out.size, r);
+            }
+
+            // Fields of the side that was kept still hold for the new rows
+            Field.Kind kept = join == Query.Join.FILMS ? Field.Kind.PERSON : Field.Kind.FILM;
+            for (Field field : Field.values()) {
+                if (field.kind == kept && in.has(field)) {
+                    for (int row = 0; row < out.size; row++)
+                        out.set(row, field, in.get(source[row], field));
+                }
+            }
+            return out;
+        }
+
+        @Override
+        String describe() {
+            switch (join) {
+                case CAST: return "Join films to their cast";
+                case CREW: return "Join films to their crew";
+                default: return "Join people to their films";
+            }
+        }
+    }
+
+    private static final class Sort extends Step {
+        private final Field field;
+        private final boolean descending;
+
+        Sort(Field field, boolean descending) {
+            this.field = field;
+            this.descending = descending;
+        }
+
+        @Override
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Rows apply(Rows in) {
+            Integer[] order = new Integer[in.size];
+            for (int r = 0; r < in.size; r++)
+                order[r] = r;
+            // Stable, with rows missing the value last either way
+            Arrays.sort(order, (a, b) -> {
+                Object x = in.get(a, field), y = in.get(b, field);
+                if (!(x instanceof Comparable) || !(y instanceof Comparable))
+                    return (x instanceof Comparable ? 0 : 1) - (y instanceof Comparable ? 0 : 1);
+                int c = ((Comparable) x).compareTo(y);
+                return descending ? -c : c;
+            });
+            int[] rows = new int[in.size];
+            for (int r = 0; r < in.size; r++)
+                rows[r] = order[r];
+            return in.pick(rows, in.size);
+        }
+
+        @Override
+        String describe() {
+            return "Sort by " + field + (descending ? " descending" : " ascending");
+        }
+    }
+
+    private static final class Limit extends Step {
+        private final int limit;
+
+        Limit(int limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        Rows apply(Rows in) {
+            if (in.size <= limit)
+                return in;
+            int[] rows = new int[limit];
+            for (int r = 0; r < limit; r++)
+                rows[r] = r;
+            return in.pick(rows, limit);
+        }
+
+        @Override
+        String describe() {
+            return "Keep the first " + limit;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+import interfaces.AbstractStores;
+
+// A small query over the stores: start from some films (or people), then filter,
+// join films to their cast/crew (or people to their films), order, limit and pick
+// the fields wanted. Nothing runs until plan() or run(), where the Plan chooses how
+// to fetch everything, e.g.
+//   Query.films().where(new FacetFilter().genres("Comedy")).orderBy(Field.AVERAGE_RATING, true)
+//        .limit(20).select(Field.TITLE, Field.AVERAGE_RATING).run(stores)
+// Setters return the query so they can be chained.
+public class Query {
+    enum Source { ALL_FILMS, FILMS, COLLECTION, PERSON_FILMS, PEOPLE }
+    enum Join { CAST, CREW, FILMS }
+
+    final Source source;
+    final int[] ids; // For FILMS and PEOPLE
+    final int key; // Collection or person ID, for COLLECTION and PERSON_FILMS
+
+    final List<Object> ops = new ArrayList<>(); // FacetFilter, FieldFilter or Join, in the order given
+    Field orderBy = null;
+    boolean descending = false;
+    int limit = -1;
+    Field[] select = new Field[0];
+
+    private Query(Source source, int[] ids, int key) {
+        this.source = source;
+        this.ids = ids;
+        this.key = key;
+    }
+
+    // Every film
+    public static Query films() {
+        return new Query(Source.ALL_FILMS, null, 0);
+    }
+
+    public static Query films(int... filmIDs) {
+        return new Query(Source.FILMS, filmIDs.clone(), 0);
+    }
+
+    public static Query collection(int collectionID) {
+        return new Query(Source.COLLECTION, null, collectionID);
+    }
+
+    // The films a person appears in as cast
+    public static Query filmsWithCast(int personID) {
+        return new Query(Source.PERSON_FILMS, null, personID);
+    }
+
+    public static Query people(int... personIDs) {
+        return new Query(Source.PEOPLE, personIDs.clone(), 0);
+    }
+
+    // Keeps films meeting the facet conditions
+    public Query where(FacetFilter facets) {
+        ops.add(facets);
+        return this;
+    }
+
+    // Keeps rows whose field value passes a test
+    public Query where(Field field, Predicate<Object> test) {
+        ops.add(new FieldFilter(field, test));
+        return this;
+    }
+
+    // One row per cast credit of each film, with CHARACTER and BILLING
+    public Query joinCast() {
+        ops.add(Join.CAST);
+        return this;
+    }
+
+    // One row per crew credit of each film, with JOB
+    public Query joinCrew() {
+        ops.add(Join.CREW);
+        return this;
+    }
+
+    // One row per film each person appears in as cast
+    public Query joinFilms() {
+        ops.add(Join.FILMS);
+        return this;
+    }
+
+    public Query orderBy(Field field, boolean descending) {
+        this.orderBy = field;
+        this.descending = descending;
+        return this;
+    }
+
+    public Query limit(int limit) {
+        this.limit = Math.max(0, limit);
+        return this;
+    }
+
+    // The fields each result row should carry
+    public Query select(Field... fields) {
+        this.select = fields.clone();
+        return this;
+    }
+
+    public Plan plan(AbstractStores stores) {
+        return new Plan(this, stores, null);
+    }
+
+    // Plans with a facet index available, so facet conditions can use its bitmaps
+    public Plan plan(AbstractStores stores, FacetIndex index) {
+        return new Plan(this, stores, index);
+    }
+
+    public QueryResult run(AbstractStores stores) {
+        return plan(stores).execute();
+    }
+
+    static final class FieldFilter {
+        final Field field;
+        final Predicate<Object> test;
+
+        FieldFilter(Field field, Predicate<Object> test) {
+            this.field = field;
+            this.test = test;
+        }
+    }
+}
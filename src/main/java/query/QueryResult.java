@@ -0,0 +1,51 @@
+package query;
+
+// The rows a query produced, in order. Each row has a film ID and/or person ID
+// (-1 where it has none) and the fields the query selected.
+public class QueryResult {
+    private final Rows rows;
+
+    QueryResult(Rows rows) {
+        this.rows = rows;
+    }
+
+    public int size() {
+        return rows.size;
+    }
+
+    public int getFilmID(int row) {
+        return rows.films[row];
+    }
+
+    public int getPersonID(int row) {
+        return rows.people[row];
+    }
+
+    // A field's value for a row, or null if the query didn't fetch it
+    public Object get(int row, Field field) {
+        return rows.get(row, field);
+    }
+
+    public String getString(int row, Field field) {
+        Object value = rows.get(row, field);
+        return value == null ? null : value.toString();
+    }
+
+    // A numeric field's value for a row, or -1 if it has none
+    public double getDouble(int row, Field field) {
+        Object value = rows.get(row, field);
+        return value instanceof Number ? ((Number) value).doubleValue() : -1;
+    }
+
+    public int[] getFilmIDs() {
+        int[] result = new int[rows.size];
+        System.arraycopy(rows.films, 0, result, 0, rows.size);
+        return result;
+    }
+
+    public int[] getPersonIDs() {
+        int[] result = new int[rows.size];
+        System.arraycopy(rows.people, 0, result, 0, rows.size);
+        return result;
+    }
+}
@@ -0,0 +1,75 @@
+package query;
+
+import java.util.Arrays;
+
+// The rows flowing between plan steps, stored by column: each row has a film ID,
+// a person ID (-1 where a row has none of either) and any fields fetched so far.
+final class Rows {
+    int size = 0;
+    int[] films;
+    int[] people;
+    final Object[][] columns = new Object[Field.values().length][]; // Null until a field is fetched
+
+    Rows(int capacity) {
+        films = new int[Math.max(4, capacity)];
+        people = new int[films.length];
+    }
+
+    static Rows ofFilms(int[] filmIDs) {
+        Rows rows = new Rows(filmIDs.length);
+        for (int id : filmIDs)
+            rows.add(id, -1);
+        return rows;
+    }
+
+    static Rows ofPeople(int[] personIDs) {
+        Rows rows = new Rows(personIDs.length);
+        for (int id : personIDs)
+            rows.add(-1, id);
+        return rows;
+    }
+
+    int add(int film, int person) {
+        if (size == films.length) {
+            films = Arrays.copyOf(films, size * 2);
+            people = Arrays.copyOf(people, size * 2);
+            for (int c = 0; c < columns.length; c++) {
+                if (columns[c] != null)
+                    columns[c] = Arrays.copyOf(columns[c], size * 2);
+            }
+        }
+        films[size] = film;
+        people[size] = person;
+        return size++;
+    }
+
+    boolean has(Field field) {
+        return columns[field.ordinal()] != null;
+    }
+
+    Object get(int row, Field field) {
+        Object[] column = columns[field.ordinal()];
+        return column == null ? null : column[row];
+    }
+
+    void set(int row, Field field, Object value) {
+        if (columns[field.ordinal()] == null)
+            columns[field.ordinal()] = new Object[films.length];
+        columns[field.ordinal()][row] = value;
+    }
+
+    // A new Rows holding the given rows of this one, in that order, with their fields
+    Rows pick(int[] rows, int count) {
+        Rows result = new Rows(count);
+        for (int r = 0; r < count; r++)
+            result.add(films[rows[r]], people[rows[r]]);
+        for (int c = 0; c < columns.length; c++) {
+            if (columns[c] == null)
+                continue;
+            result.columns[c] = new Object[result.films.length];
+            for (int r = 0; r < count; r++)
+                result.columns[c][r] = columns[c][rows[r]];
+        }
+        return result;
+    }
+}
@@ -0,0 +1,43 @@
+package ranking;
+
+// What the scorers get to know about one movie: a summary of its ratings in the
+// store, and its TMDB vote average (out of 10) and vote count
+public final class MovieStats {
+    // Ratings at or above this many stars count as positive (for the Wilson bound)
+    public static final float POSITIVE_AT = 3.5f;
+
+    final int movieID;
+    int numRatings;
+    double ratingSum;
+    int numPositive;
+    double voteAverage;
+    int voteCount;
+
+    MovieStats(int movieID) {
+        this.movieID = movieID;
+    }
+
+    public int getMovieID() {
+        return movieID;
+    }
+
+    public int getNumRatings() {
+        return numRatings;
+    }
+
+    public double getRatingSum() {
+        return ratingSum;
+    }
+
+    public int getNumPositive() {
+        return numPositive;
+    }
+
+    public double getVoteAverage() {
+        return voteAverage;
+    }
+
+    public int getVoteCount() {
+        return voteCount;
+    }
+}
@@ -0,0 +1,38 @@
+package ranking;
+
+import java.time.LocalDate;
+
+import interfaces.IMovies;
+import stores.ForwardingMovies;
+import stores.Genre;
+
+// Movies store that tells a Ranking about every movie whose TMDB votes changed
+public class RankedMovies extends ForwardingMovies {
+    private final Ranking ranking;
+
+    public RankedMovies(IMovies delegate, Ranking ranking) {
+        super(delegate);
+        this.ranking = ranking;
+    }
+
+    @Override
+    public boolean add(int id, String title, String originalTitle, String overview, String tagline, String status, Genre[] genres, LocalDate release, long budget, long revenue, String[] languages, String originalLanguage, double runtime, String homepage, boolean adult, boolean video, String poster) {
+        return refreshIf(delegate.add(id, title, originalTitle, overview, tagline, status, genres, release, budget, revenue, languages, originalLanguage, runtime, homepage, adult, video, poster), id);
+    }
+
+    @Override
+    public boolean remove(int id) {
+        return refreshIf(delegate.remove(id), id);
+    }
+
+    @Override
+    public boolean setVote(int id, double voteAverage, int voteCount) {
+        return refreshIf(delegate.setVote(id, voteAverage, voteCount), id);
+    }
+
+    private boolean refreshIf(boolean changed, int movieID) {
+        if (changed)
+            ranking.refreshVotes(movieID);
+        return changed;
+    }
+}
@@ -0,0 +1,81 @@
+package ranking;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import interfaces.IRatings;
+import stores.ForwardingRatings;
+
+// Ratings store that tells a Ranking about every rating that changed. The old rating
+// is read before each set or remove and the difference passed on, so the ranking
+// never re-reads a movie's ratings. Sets and removes hold the write lock so nothing
+// can slip in between that read and the change; adds and batches only share the
+// read lock, as the delegate says what they added, so they run side by side and
+// the ranking takes its own lock just to apply them.
+public class RankedRatings extends ForwardingRatings {
+    private final Ranking ranking;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public RankedRatings(IRatings delegate, Ranking ranking) {
+        super(delegate);
+        this.ranking = ranking;
+    }
+
+    @Override
+    public boolean add(int userID, int movieID, float rating, LocalDateTime timestamp) {
+        lock.readLock().lock();
+        try {
+            boolean added = delegate.add(userID, movieID, rating, timestamp);
+            if (added)
+                ranking.changeRating(movieID, -1, rating);
+            return added;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(int userID, int movieID) {
+        lock.writeLock().lock();
+        try {
+            float old = delegate.getRating(userID, movieID);
+            boolean removed = delegate.remove(userID, movieID);
+            if (removed)
+                ranking.changeRating(movieID, old, -1);
+            return removed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean set(int userID, int movieID, float rating, LocalDateTime timestamp) {
+        lock.writeLock().lock();
+        try {
+            float old = delegate.getRating(userID, movieID);
+            boolean done = delegate.set(userID, movieID, rating, timestamp);
+            if (done)
+                ranking.changeRating(movieID, old, rating);
+            return done;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // The delegate marks the records it added, and only those reach the ranking
+    @Override
+    public int addBatch(int[] userIDs, int[] movieIDs, float[] ratings, long[] timestamps, boolean[] added) {
+        if (userIDs == null)
+            return delegate.addBatch(userIDs, movieIDs, ratings, timestamps, added);
+        boolean[] inserted = added != null ? added : new boolean[userIDs.length];
+        lock.readLock().lock();
+        try {
+            int count = delegate.addBatch(userIDs, movieIDs, ratings, timestamps, inserted);
+            if (count > 0)
+                ranking.addRatings(movieIDs, ratings, inserted);
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package ranking;
+
+import interfaces.AbstractStores;
+
+// Wraps another set of stores, keeping a Ranking of their movies up to date as
+// ratings and votes change. Credits and keywords are passed through unchanged.
+public class RankedStores extends AbstractStores {
+    private final AbstractStores backing;
+    private final Ranking ranking;
+
+    public RankedStores(AbstractStores backing) {
+        this.backing = backing;
+        this.ranking = new Ranking(backing.getRatings(), backing.getMovies());
+
+        movies = new RankedMovies(backing.getMovies(), ranking);
+        ratings = new RankedRatings(backing.getRatings(), ranking);
+        credits = backing.getCredits();
+        keywords = backing.getKeywords();
+    }
+
+    // Snapshots get their own ranking, built from the snapshot's ratings
+    @Override
+    public AbstractStores snapshot() {
+        return new RankedStores(backing.snapshot());
+    }
+
+    public Ranking getRanking() {
+        return ranking;
+    }
+
+    // The stores this wraps
+    public AbstractStores getBacking() {
+        return backing;
+    }
+}
@@ -0,0 +1,266 @@
+package ranking;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeSet;
+
+import interfaces.IMovies;
+import interfaces.IRatings;
+import structures.IntIntMap;
+
+// Keeps movies in order under any number of scorers as ratings and votes change.
+// A scorer gets a sorted index of (score, movie) the first time it is asked for;
+// after that a change to a movie only moves that movie within each index, so the
+// top n under any scorer is a walk over the first n entries.
+// Scorers that shrink towards the global mean score every movie with the mean as
+// it was when their index was built, and the index is rebuilt on the next read
+// once the mean has drifted by more than MAX_MEAN_DRIFT.
+public class Ranking {
+    public static final double MAX_MEAN_DRIFT = 0.01; // Stars
+
+    private final IRatings ratings;
+    private final IMovies movies;
+
+    private final IntIntMap slots = new IntIntMap(); // Movie ID -> index in stats
+    private final ArrayList<MovieStats> stats = new ArrayList<>();
+    private long totalRatings;
+    private double totalSum;
+
+    private final Map<Scorer, Index> indexes = new IdentityHashMap<>();
+
+    // Reads the current ratings and votes. Changes made after this must be passed
+    // on (RankedStores does that), or the ranking goes stale.
+    public Ranking(IRatings ratings, IMovies movies) {
+        this.ratings = ratings;
+        this.movies = movies;
+        for (int movieID : ratings.getRatedMovies())
+            refreshRatings(movieID);
+        for (int movieID : movies.getAllIDs())
+            refreshVotes(movieID);
+    }
+
+    // One movie's place in an index. Ordered by score, highest first, then by ID.
+    private static final class Entry implements Comparable<Entry> {
+        final double score;
+        final int movieID;
+
+        Entry(double score, int movieID) {
+            this.score = score;
+            this.movieID = movieID;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            int byScore = Double.compare(other.score, score);
+            return byScore != 0 ? byScore : Integer.compare(movieID, other.movieID);
+        }
+    }
+
+    // The movies in order under one scorer
+    private final class Index {
+        final Scorer scorer;
+        final TreeSet<Entry> ordered = new TreeSet<>();
+        Entry[] entries = new Entry[16]; // Per stats slot: the movie's entry (null if left out)
+        double mean; // The global mean every score in the index was worked out with
+
+        Index(Scorer scorer) {
+            this.scorer = scorer;
+        }
+
+        void build() {
+            ordered.clear();
+            entries = new Entry[Math.max(16, stats.size())];
+            mean = getGlobalMean();
+            for (int slot = 0; slot < stats.size(); slot++)
+                place(slot);
+        }
+
+        // Moves a movie to where its current stats put it
+        void update(int slot) {
+            if (slot >= entries.length)
+                entries = Arrays.copyOf(entries, Math.max(slot + 1, entries.length * 2));
+            if (entries[slot] != null)
+                ordered.remove(entries[slot]);
+            place(slot);
+        }
+
+        private void place(int slot) {
+            MovieStats movie = stats.get(slot);
+            double score = scorer.score(movie, mean);
+            entries[slot] = Double.isNaN(score) ? null : new Entry(score, movie.movieID);
+            if (entries[slot] != null)
+                ordered.add(entries[slot]);
+        }
+    }
+
+    // The n best movies under a scorer, best first
+    public synchronized int[] getTop(Scorer scorer, int n) {
+        if (n <= 0)
+            return new int[0];
+
+        Index index = indexFor(scorer);
+        int[] top = new int[Math.min(n, index.ordered.size())];
+        Iterator<Entry> it = index.ordered.iterator();
+        for (int i = 0; i < top.length; i++)
+            top[i] = it.next().movieID;
+        return top;
+    }
+
+    // A movie's score under a scorer, or -1 if it isn't ranked
+    public synchronized double getScore(Scorer scorer, int movieID) {
+        int slot = slots.get(movieID, -1);
+        if (slot < 0)
+            return -1;
+        Index index = indexFor(scorer);
+        Entry entry = slot < index.entries.length ? index.entries[slot] : null;
+        return entry == null ? -1 : entry.score;
+    }
+
+    // The average of every rating (0 if there are none)
+    public synchronized double getGlobalMean() {
+        return totalRatings == 0 ? 0 : totalSum / totalRatings;
+    }
+
+    // Number of movies with ratings or votes
+    public synchronized int size() {
+        return stats.size();
+    }
+
+    // ---------- Updates (from RankedRatings and RankedMovies) ----------
+
+    // Re-reads a movie's ratings after they changed
+    synchronized void refreshRatings(int movieID) {
+        float[] movieRatings = ratings.getMovieRatings(movieID);
+        int slot = slots.get(movieID, -1);
+        if (slot < 0 && movieRatings.length == 0)
+            return;
+
+        if (slot < 0)
+            slot = newSlot(movieID);
+        MovieStats movie = stats.get(slot);
+        totalRatings -= movie.numRatings;
+        totalSum -= movie.ratingSum;
+        movie.numRatings = movieRatings.length;
+        movie.ratingSum = 0;
+        movie.numPositive = 0;
+        for (float rating : movieRatings) {
+            movie.ratingSum += rating;
+            if (rating >= MovieStats.POSITIVE_AT)
+                movie.numPositive++;
+        }
+        totalRatings += movie.numRatings;
+        totalSum += movie.ratingSum;
+        reindex(slot);
+    }
+
+    // Applies one rating of a movie changing from oldRating to newRating, either of
+    // which is -1 for none (so an add or a remove), without re-reading the ratings
+    synchronized void changeRating(int movieID, float oldRating, float newRating) {
+        int slot = slots.get(movieID, -1);
+        if (slot < 0 && newRating < 0)
+            return;
+        if (slot < 0)
+            slot = newSlot(movieID);
+        count(stats.get(slot), oldRating, -1);
+        count(stats.get(slot), newRating, 1);
+        reindex(slot);
+    }
+
+    // Applies the ratings of a batch that were added (those marked in added), moving
+    // each movie in the indexes once. They are summed per movie before the lock is
+    // taken, so it is held only while the stats and indexes change.
+    void addRatings(int[] movieIDs, float[] newRatings, boolean[] added) {
+        IntIntMap groups = new IntIntMap(); // Movie ID -> index in the arrays below
+        int[] groupMovies = new int[movieIDs.length];
+        int[] counts = new int[movieIDs.length];
+        int[] positives = new int[movieIDs.length];
+        double[] sums = new double[movieIDs.length];
+        int numGroups = 0;
+        for (int k = 0; k < movieIDs.length; k++) {
+            if (!added[k])
+                continue;
+            int g = groups.get(movieIDs[k], -1);
+            if (g < 0) {
+                g = numGroups++;
+                groups.put(movieIDs[k], g);
+                groupMovies[g] = movieIDs[k];
+            }
+            counts[g]++;
+            sums[g] += newRatings[k];
+            if (newRatings[k] >= MovieStats.POSITIVE_AT)
+                positives[g]++;
+        }
+
+        synchronized (this) {
+            for (int g = 0; g < numGroups; g++) {
+                int slot = slots.get(groupMovies[g], -1);
+                if (slot < 0)
+                    slot = newSlot(groupMovies[g]);
+                MovieStats movie = stats.get(slot);
+                movie.numRatings += counts[g];
+                movie.ratingSum += sums[g];
+                movie.numPositive += positives[g];
+                totalRatings += counts[g];
+                totalSum += sums[g];
+                reindex(slot);
+            }
+        }
+    }
+
+    // Re-reads a movie's TMDB votes after they changed (or the movie was added or removed)
+    synchronized void refreshVotes(int movieID) {
+        int voteCount = Math.max(0, movies.getVoteCount(movieID)); // -1 for unknown movies
+        int slot = slots.get(movieID, -1);
+        if (slot < 0 && voteCount == 0)
+            return;
+
+        if (slot < 0)
+            slot = newSlot(movieID);
+        MovieStats movie = stats.get(slot);
+        movie.voteCount = voteCount;
+        movie.voteAverage = voteCount == 0 ? 0 : movies.getVoteAverage(movieID);
+        reindex(slot);
+    }
+
+    // Adds (sign 1) or takes away (sign -1) one rating from a movie's stats and the totals;
+    // nothing for a rating of -1
+    private void count(MovieStats movie, float rating, int sign) {
+        if (rating < 0)
+            return;
+        movie.numRatings += sign;
+        movie.ratingSum += sign * rating;
+        if (rating >= MovieStats.POSITIVE_AT)
+            movie.numPositive += sign;
+        if (movie.numRatings == 0)
+            movie.ratingSum = 0; // Don't let rounding leave a sum with no ratings
+        totalRatings += sign;
+        totalSum += sign * rating;
+    }
+
+    private int newSlot(int movieID) {
+        slots.put(movieID, stats.size());
+        stats.add(new MovieStats(movieID));
+        return stats.size() - 1;
+    }
+
+    private void reindex(int slot) {
+        for (Index index : indexes.values())
+            index.update(slot);
+    }
+
+    // The scorer's index, built (or rebuilt, if the global mean has moved on) as needed
+    private Index indexFor(Scorer scorer) {
+        Index index = indexes.get(scorer);
+        if (index == null) {
+            index = new Index(scorer);
+            index.build();
+            indexes.put(scorer, index);
+        } else if (scorer.usesGlobalMean() && Math.abs(getGlobalMean() - index.mean) > MAX_MEAN_DRIFT) {
+            index.build();
+        }
+        return index;
+    }
+}
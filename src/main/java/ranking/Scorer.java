@@ -0,0 +1,13 @@
+package ranking;
+
+// Turns a movie's stats into a ranking score (higher is better). See Scorers for
+// the built in ones. Each scorer object gets its own index in a Ranking, so reuse
+// the same object rather than making an equal one per query.
+public interface Scorer {
+    // The movie's score, or NaN to leave it out of the ranking. globalMean is the
+    // average of every rating in the store, for scorers that shrink towards it.
+    double score(MovieStats movie, double globalMean);
+
+    // Whether score uses globalMean (the index is then rebuilt when the mean drifts)
+    boolean usesGlobalMean();
+}
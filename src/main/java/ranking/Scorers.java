@@ -0,0 +1,123 @@
+package ranking;
+
+// The built in scorers. Movies with no ratings (and, for BLENDED, no TMDB votes
+// either) are left out of every ranking.
+public final class Scorers {
+    public static final double DEFAULT_PRIOR_WEIGHT = 10; // In ratings
+    public static final double DEFAULT_Z = 1.96; // 95% confidence
+    public static final double DEFAULT_VOTE_WEIGHT = 0.1; // A TMDB vote counts as a tenth of a rating
+
+    // The raw mean rating (what IRatings.getTopAverageRatedMovies ranks by)
+    public static final Scorer MEAN = new Scorer() {
+        @Override
+        public double score(MovieStats movie, double globalMean) {
+            return movie.numRatings == 0 ? Double.NaN : movie.ratingSum / movie.numRatings;
+        }
+
+        @Override
+        public boolean usesGlobalMean() {
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            return "Mean rating";
+        }
+    };
+
+    public static final Scorer BAYESIAN = bayesian(DEFAULT_PRIOR_WEIGHT);
+    public static final Scorer WILSON = wilson(DEFAULT_Z);
+    public static final Scorer BLENDED = blended(DEFAULT_PRIOR_WEIGHT, DEFAULT_VOTE_WEIGHT);
+
+    private Scorers() {
+    }
+
+    // The built in scorer with the given name (mean, bayesian, wilson or blended),
+    // or null if there isn't one
+    public static Scorer named(String name) {
+        switch (name) {
+            case "mean": return MEAN;
+            case "bayesian": return BAYESIAN;
+            case "wilson": return WILSON;
+            case "blended": return BLENDED;
+            default: return null;
+        }
+    }
+
+    // The mean rating after adding priorWeight made up ratings at the global mean,
+    // so a movie needs many ratings before it can stray far from the average
+    public static Scorer bayesian(double priorWeight) {
+        return new Scorer() {
+            @Override
+            public double score(MovieStats movie, double globalMean) {
+                if (movie.numRatings == 0)
+                    return Double.NaN;
+                return (priorWeight * globalMean + movie.ratingSum) / (priorWeight + movie.numRatings);
+            }
+
+            @Override
+            public boolean usesGlobalMean() {
+                return true;
+            }
+
+            @Override
+            public String toString() {
+                return "Bayesian average (prior weight " + priorWeight + ")";
+            }
+        };
+    }
+
+    // The lower bound of the Wilson score interval for the share of positive
+    // ratings (see MovieStats.POSITIVE_AT), z standard deviations down
+    public static Scorer wilson(double z) {
+        return new Scorer() {
+            @Override
+            public double score(MovieStats movie, double globalMean) {
+                int n = movie.numRatings;
+                if (n == 0)
+                    return Double.NaN;
+                double p = (double) movie.numPositive / n;
+                double z2 = z * z;
+                double centre = p + z2 / (2 * n);
+                double spread = z * Math.sqrt(p * (1 - p) / n + z2 / (4.0 * n * n));
+                return (centre - spread) / (1 + z2 / n);
+            }
+
+            @Override
+            public boolean usesGlobalMean() {
+                return false;
+            }
+
+            @Override
+            public String toString() {
+                return "Wilson lower bound (z " + z + ")";
+            }
+        };
+    }
+
+    // A Bayesian average that also counts the movie's TMDB votes (scaled to stars),
+    // each worth voteWeight of a rating, so films with few ratings here but many
+    // votes on TMDB are still placed with some confidence
+    public static Scorer blended(double priorWeight, double voteWeight) {
+        return new Scorer() {
+            @Override
+            public double score(MovieStats movie, double globalMean) {
+                double votes = voteWeight * movie.voteCount;
+                if (movie.numRatings == 0 && votes == 0)
+                    return Double.NaN;
+                double total = priorWeight * globalMean + movie.ratingSum + votes * movie.voteAverage / 2;
+                return total / (priorWeight + movie.numRatings + votes);
+            }
+
+            @Override
+            public boolean usesGlobalMean() {
+                return true;
+            }
+
+            @Override
+            public String toString() {
+                return "Blended with TMDB votes (prior weight " + priorWeight + ", vote weight " + voteWeight + ")";
+            }
+        };
+    }
+}
@@ -0,0 +1,234 @@
+package recommend;
+
+import java.util.Arrays;
+
+import structures.IntIntMap;
+import structures.LongHashSet;
+import structures.TopK;
+
+// A matrix factorization model: every user and movie has a vector of rank factors
+// and a predicted rating is the global mean plus their dot product. Factors are
+// kept in flat float arrays (row i is [i * rank, (i + 1) * rank)) so a scan over
+// all movies walks memory in order.
+//
+// Made by AlsTrainer. Users and movies can be added or refreshed afterwards by
+// folding them in (solving just their own factors with everything else fixed).
+// All public methods are synchronized, so fold-ins can run alongside queries.
+public class AlsModel {
+    // Movies are scored this many at a time when searching for a user's top movies
+    private static final int BLOCK = 64;
+
+    private final int rank;
+    private final float lambda;
+    private final float mean;
+
+    private int numUsers;
+    private int[] userIDs;
+    private final IntIntMap userIndex = new IntIntMap();
+    private float[] userFactors;
+
+    private int numMovies;
+    private int[] movieIDs;
+    private final IntIntMap movieIndex = new IntIntMap();
+    private float[] movieFactors;
+
+    AlsModel(int rank, float lambda, float mean, int[] userIDs, float[] userFactors, int[] movieIDs, float[] movieFactors) {
+        this.rank = rank;
+        this.lambda = lambda;
+        this.mean = mean;
+        this.numUsers = userIDs.length;
+        this.userIDs = userIDs;
+        this.userFactors = userFactors;
+        this.numMovies = movieIDs.length;
+        this.movieIDs = movieIDs;
+        this.movieFactors = movieFactors;
+        for (int u = 0; u < numUsers; u++)
+            userIndex.put(userIDs[u], u);
+        for (int i = 0; i < numMovies; i++)
+            movieIndex.put(movieIDs[i], i);
+    }
+
+    public int getRank() {
+        return rank;
+    }
+
+    public synchronized int getNumUsers() {
+        return numUsers;
+    }
+
+    public synchronized int getNumMovies() {
+        return numMovies;
+    }
+
+    public synchronized boolean hasUser(int userID) {
+        return userIndex.containsKey(userID);
+    }
+
+    public synchronized boolean hasMovie(int movieID) {
+        return movieIndex.containsKey(movieID);
+    }
+
+    // Predicted rating of a movie by a user, or -1 if the model doesn't know either
+    public synchronized float predict(int userID, int movieID) {
+        int u = userIndex.get(userID, -1);
+        int i = movieIndex.get(movieID, -1);
+        if (u < 0 || i < 0)
+            return -1.0f;
+        return mean + dot(userFactors, u * rank, movieFactors, i * rank, rank);
+    }
+
+    // The numResults movies with the highest predicted rating for a user, best first,
+    // skipping the movies in exclude (e.g. ones they have already rated)
+    public synchronized int[] topMovies(int userID, int numResults, int[] exclude) {
+        int u = userIndex.get(userID, -1);
+        if (u < 0 || numResults <= 0)
+            return new int[0];
+
+        LongHashSet skip = new LongHashSet(exclude == null ? 0 : exclude.length);
+        if (exclude != null) {
+            for (int id : exclude)
+                skip.add(id);
+        }
+
+        // Copy the user's factors once, then score the movies a block at a time
+        float[] x = Arrays.copyOfRange(userFactors, u * rank, (u + 1) * rank);
+        float[] scores = new float[BLOCK];
+        TopK top = new TopK(numResults);
+        for (int start = 0; start < numMovies; start += BLOCK) {
+            int end = Math.min(start + BLOCK, numMovies);
+            for (int i = start; i < end; i++)
+                scores[i - start] = dot(x, 0, movieFactors, i * rank, rank);
+            for (int i = start; i < end; i++) {
+                if (!skip.contains(movieIDs[i]))
+                    top.offer(i, scores[i - start]);
+            }
+        }
+
+        int[] best = top.toIDs();
+        for (int n = 0; n < best.length; n++)
+            best[n] = movieIDs[best[n]];
+        return best;
+    }
+
+    // Solves (or re-solves) a user's factors from their ratings, keeping every movie's
+    // factors fixed. Movies the model doesn't know are ignored. Returns false if none are known.
+    public synchronized boolean foldInUser(int userID, int[] ratedMovies, float[] ratings) {
+        int len = Math.min(ratedMovies.length, ratings.length);
+        int[] known = new int[len];
+        float[] values = new float[len];
+        int n = 0;
+        for (int k = 0; k < len; k++) {
+            int i = movieIndex.get(ratedMovies[k], -1);
+            if (i >= 0) {
+                known[n] = i;
+                values[n++] = ratings[k];
+            }
+        }
+        if (n == 0)
+            return false;
+
+        int u = userIndex.get(userID, -1);
+        if (u < 0) {
+            u = numUsers++;
+            if (u == userIDs.length) {
+                userIDs = Arrays.copyOf(userIDs, Math.max(16, u * 2));
+                userFactors = Arrays.copyOf(userFactors, userIDs.length * rank);
+            }
+            userIDs[u] = userID;
+            userIndex.put(userID, u);
+        }
+        solve(movieFactors, known, values, 0, n, mean, lambda, rank, userFactors, u * rank, new double[rank * rank], new double[rank]);
+        return true;
+    }
+
+    // Solves (or re-solves) a movie's factors from its ratings, keeping every user's
+    // factors fixed. Users the model doesn't know are ignored. Returns false if none are known.
+    public synchronized boolean foldInMovie(int movieID, int[] raters, float[] ratings) {
+        int len = Math.min(raters.length, ratings.length);
+        int[] known = new int[len];
+        float[] values = new float[len];
+        int n = 0;
+        for (int k = 0; k < len; k++) {
+            int u = userIndex.get(raters[k], -1);
+            if (u >= 0) {
+                known[n] = u;
+                values[n++] = ratings[k];
+            }
+        }
+        if (n == 0)
+            return false;
+
+        int i = movieIndex.get(movieID, -1);
+        if (i < 0) {
+            i = numMovies++;
+            if (i == movieIDs.length) {
+                movieIDs = Arrays.copyOf(movieIDs, Math.max(16, i * 2));
+                movieFactors = Arrays.copyOf(movieFactors, movieIDs.length * rank);
+            }
+            movieIDs[i] = movieID;
+            movieIndex.put(movieID, i);
+        }
+        solve(userFactors, known, values, 0, n, mean, lambda, rank, movieFactors, i * rank, new double[rank * rank], new double[rank]);
+        return true;
+    }
+
+    // ---------- Shared with AlsTrainer ----------
+
+    static float dot(float[] a, int aOffset, float[] b, int bOffset, int rank) {
+        float sum = 0;
+        for (int f = 0; f < rank; f++)
+            sum += a[aOffset + f] * b[bOffset + f];
+        return sum;
+    }
+
+    // Solves one row's factors by regularised least squares against fixed factors:
+    //   (sum of y y^T over its ratings + lambda * n * I) x = sum of (rating - mean) y
+    // where y is the fixed row each rating refers to (others[index] * rank).
+    // a and b are scratch space of rank * rank and rank doubles.
+    static void solve(float[] fixed, int[] others, float[] values, int from, int to, float mean, float lambda, int rank,
+            float[] out, int outOffset, double[] a, double[] b) {
+        Arrays.fill(a, 0);
+        Arrays.fill(b, 0);
+        for (int k = from; k < to; k++) {
+            int y = others[k] * rank;
+            double r = values[k] - mean;
+            for (int p = 0; p < rank; p++) {
+                double yp = fixed[y + p];
+                b[p] += r * yp;
+                for (int q = 0; q <= p; q++)
+                    a[p * rank + q] += yp * fixed[y + q];
+            }
+        }
+        double reg = lambda * Math.max(1, to - from);
+        for (int p = 0; p < rank; p++)
+            a[p * rank + p] += reg;
+
+        // Cholesky: a = L L^T, with L stored in the lower triangle of a
+        for (int p = 0; p < rank; p++) {
+            for (int q = 0; q <= p; q++) {
+                double sum = a[p * rank + q];
+                for (int s = 0; s < q; s++)
+                    sum -= a[p * rank + s] * a[q * rank + s];
+                if (p == q)
+                    a[p * rank + p] = Math.sqrt(Math.max(sum, 1e-12));
+                else
+                    a[p * rank + q] = sum / a[q * rank + q];
+            }
+        }
+        // Forward then back substitution
+        for (int p = 0; p < rank; p++) {
+            double sum = b[p];
+            for (int s = 0; s < p; s++)
+                sum -= a[p * rank + s] * b[s];
+            b[p] = sum / a[p * rank + p];
+        }
+        for (int p = rank - 1; p >= 0; p--) {
+            double sum = b[p];
+            for (int s = p + 1; s < rank; s++)
+                sum -= a[s * rank + p] * b[s];
+            b[p] = sum / a[p * rank + p];
+        }
+        for (int p = 0; p < rank; p++)
+            out[outOffset + p] = (float) b[p];
+    }
+}
@@ -0,0 +1,102 @@
+package recommend;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import interfaces.IRatings;
+
+// Trains an AlsModel with alternating least squares: with the movie factors fixed,
+// every user's factors are a small independent least squares problem (and the
+// other way round), so each half-step solves all users (or all movies) in parallel
+// with fork-join. The ratings are read once into primitive arrays (RatingMatrix),
+// so memory grows with the number of ratings, not users x movies.
+public class AlsTrainer {
+    public static final int DEFAULT_RANK = 16;
+    public static final float DEFAULT_LAMBDA = 0.1f;
+    public static final int DEFAULT_ITERATIONS = 10;
+
+    // Ranges of rows at most this size are solved by one task
+    private static final int LEAF_SIZE = 64;
+
+    private final int rank;
+    private final float lambda;
+    private final int iterations;
+    private final long seed;
+
+    public AlsTrainer() {
+        this(DEFAULT_RANK, DEFAULT_LAMBDA, DEFAULT_ITERATIONS, 126);
+    }
+
+    public AlsTrainer(int rank, float lambda, int iterations, long seed) {
+        this.rank = Math.max(1, rank);
+        this.lambda = lambda;
+        this.iterations = iterations;
+        this.seed = seed;
+    }
+
+    // Trains on every rating; the ratings should not change while this runs (use a snapshot)
+    public AlsModel train(IRatings ratings) {
+        return train(ratings, ForkJoinPool.commonPool());
+    }
+
+    public AlsModel train(IRatings ratings, ForkJoinPool pool) {
+        RatingMatrix matrix = new RatingMatrix(ratings);
+
+        double sum = 0;
+        for (float v : matrix.movieValues)
+            sum += v;
+        float mean = matrix.numRatings() == 0 ? 0 : (float) (sum / matrix.numRatings());
+
+        // Movies start with small random factors; users are solved from them first
+        Random random = new Random(seed);
+        float[] movieFactors = new float[matrix.numMovies() * rank];
+        for (int i = 0; i < movieFactors.length; i++)
+            movieFactors[i] = (float) (random.nextGaussian() * 0.1);
+        float[] userFactors = new float[matrix.numUsers() * rank];
+
+        for (int it = 0; it < iterations; it++) {
+            pool.invoke(new Solve(movieFactors, matrix.userStart, matrix.userMovies, matrix.userValues, mean, userFactors, 0, matrix.numUsers()));
+            pool.invoke(new Solve(userFactors, matrix.movieStart, matrix.movieUsers, matrix.movieValues, mean, movieFactors, 0, matrix.numMovies()));
+        }
+        return new AlsModel(rank, lambda, mean, matrix.userIDs, userFactors, matrix.movieIDs, movieFactors);
+    }
+
+    // Solves rows [from, to) of out against the fixed factors, splitting the range while it is large
+    private class Solve extends RecursiveAction {
+        private final float[] fixed;
+        private final int[] start;
+        private final int[] others;
+        private final float[] values;
+        private final float mean;
+        private final float[] out;
+        private final int from;
+        private final int to;
+
+        Solve(float[] fixed, int[] start, int[] others, float[] values, float mean, float[] out, int from, int to) {
+            this.fixed = fixed;
+            this.start = start;
+            this.others = others;
+            this.values = values;
+            this.mean = mean;
+            this.out = out;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > LEAF_SIZE) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new Solve(fixed, start, others, values, mean, out, from, mid),
+                          new Solve(fixed, start, others, values, mean, out, mid, to));
+                return;
+            }
+
+            double[] a = new double[rank * rank];
+            double[] b = new double[rank];
+            for (int row = from; row < to; row++)
+                AlsModel.solve(fixed, others, values, start[row], start[row + 1], mean, lambda, rank, out, row * rank, a, b);
+        }
+    }
+}
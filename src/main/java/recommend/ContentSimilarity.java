@@ -0,0 +1,241 @@
+package recommend;
+
+import java.util.Arrays;
+
+import interfaces.AbstractStores;
+import stores.CastCredit;
+import stores.Genre;
+import stores.Keyword;
+import structures.IntIntMap;
+import structures.LongHashSet;
+import structures.TopK;
+
+// "More like this" by content: each film is described by the set of its keywords,
+// genres and top-billed cast, and two films are as similar as the Jaccard index of
+// their sets (shared features / all features).
+//
+// Comparing a film against every other one is a full scan, so each set is also
+// summarised by a MinHash signature (the minimum of numBands * rowsPerBand hash
+// functions over the set; two signatures agree at a position with probability equal
+// to the Jaccard index). The signature is cut into bands, and films whose band
+// values match exactly land in the same bucket (locality-sensitive hashing). A query
+// only looks at the films sharing at least one bucket and ranks them by their exact
+// Jaccard index. With b bands of r rows, films with a Jaccard index around
+// (1/b)^(1/r) or above are very likely to be found.
+public class ContentSimilarity {
+    public static final int DEFAULT_BANDS = 64;
+    public static final int DEFAULT_ROWS = 2;
+    public static final int DEFAULT_TOP_CAST = 5;
+
+    // Feature types, kept in the top bits so IDs of different types never collide
+    private static final long KEYWORD = 1L << 32;
+    private static final long GENRE = 2L << 32;
+    private static final long CAST = 3L << 32;
+
+    private final int numBands;
+    private final int rowsPerBand;
+    private final long[] seeds; // One per hash function
+
+    private final int[] filmIDs; // Film at each index
+    private final IntIntMap filmIndex = new IntIntMap();
+    private final long[][] features; // Sorted feature set of each film
+
+    // Band b's buckets: bandKeys[b] is sorted, and bandFilms[b] holds the film index for each key
+    private final long[][] bandKeys;
+    private final int[][] bandFilms;
+
+    public ContentSimilarity(AbstractStores stores) {
+        this(stores, DEFAULT_BANDS, DEFAULT_ROWS, DEFAULT_TOP_CAST, 126);
+    }
+
+    public ContentSimilarity(AbstractStores stores, int numBands, int rowsPerBand, int topCast, long seed) {
+        this.numBands = Math.max(1, numBands);
+        this.rowsPerBand = Math.max(1, rowsPerBand);
+        this.seeds = new long[this.numBands * this.rowsPerBand];
+        long s = seed;
+        for (int h = 0; h < seeds.length; h++) {
+            s += 0x9E3779B97F4A7C15L;
+            seeds[h] = mix(s);
+        }
+
+        filmIDs = stores.getMovies().getAllIDs();
+        features = new long[filmIDs.length][];
+        for (int i = 0; i < filmIDs.length; i++) {
+            filmIndex.put(filmIDs[i], i);
+            features[i] = featuresOf(stores, filmIDs[i], topCast);
+        }
+
+        // Films with no features can't be similar to anything, so they get no buckets
+        int[] described = new int[filmIDs.length];
+        int numDescribed = 0;
+        for (int i = 0; i < filmIDs.length; i++) {
+            if (features[i].length > 0)
+                described[numDescribed++] = i;
+        }
+
+        bandKeys = new long[this.numBands][];
+        bandFilms = new int[this.numBands][];
+        long[][] keysByFilm = new long[numDescribed][];
+        for (int n = 0; n < numDescribed; n++)
+            keysByFilm[n] = bandsOf(features[described[n]]);
+        for (int b = 0; b < this.numBands; b++) {
+            // Sort (key, film) pairs by key so a bucket is a run of equal keys
+            long[] keys = new long[numDescribed];
+            Integer[] order = new Integer[numDescribed];
+            for (int n = 0; n < numDescribed; n++) {
+                keys[n] = keysByFilm[n][b];
+                order[n] = n;
+            }
+            Arrays.sort(order, (x, y) -> Long.compare(keys[x], keys[y]));
+            bandKeys[b] = new long[numDescribed];
+            bandFilms[b] = new int[numDescribed];
+            for (int n = 0; n < numDescribed; n++) {
+                bandKeys[b][n] = keys[order[n]];
+                bandFilms[b][n] = described[order[n]];
+            }
+        }
+    }
+
+    public int size() {
+        return filmIDs.length;
+    }
+
+    // Exact Jaccard index of two films' feature sets, or -1 if either film is unknown
+    public float getSimilarity(int filmA, int filmB) {
+        int a = filmIndex.get(filmA, -1);
+        int b = filmIndex.get(filmB, -1);
+        if (a < 0 || b < 0)
+            return -1.0f;
+        return jaccard(features[a], features[b]);
+    }
+
+    // The numResults films most similar to a film, best first, using the LSH buckets.
+    // May miss films that are only weakly similar.
+    public int[] moreLikeThis(int filmID, int numResults) {
+        int f = filmIndex.get(filmID, -1);
+        if (f < 0 || numResults <= 0 || features[f].length == 0)
+            return new int[0];
+
+        long[] keys = bandsOf(features[f]);
+        LongHashSet seen = new LongHashSet();
+        seen.add(f);
+        TopK top = new TopK(numResults);
+        for (int b = 0; b < numBands; b++) {
+            int pos = Arrays.binarySearch(bandKeys[b], keys[b]);
+            if (pos < 0)
+                continue;
+            while (pos > 0 && bandKeys[b][pos - 1] == keys[b])
+                pos--; // Back to the start of the bucket
+            for (; pos < bandKeys[b].length && bandKeys[b][pos] == keys[b]; pos++) {
+                int other = bandFilms[b][pos];
+                if (seen.add(other)) {
+                    float similarity = jaccard(features[f], features[other]);
+                    if (similarity > 0) // As in the exact scan
+                        top.offer(other, similarity);
+                }
+            }
+        }
+        return toFilmIDs(top);
+    }
+
+    // The same query answered by comparing against every film (used to measure the buckets)
+    public int[] moreLikeThisExact(int filmID, int numResults) {
+        int f = filmIndex.get(filmID, -1);
+        if (f < 0 || numResults <= 0 || features[f].length == 0)
+            return new int[0];
+
+        TopK top = new TopK(numResults);
+        for (int other = 0; other < filmIDs.length; other++) {
+            if (other != f && features[other].length > 0) {
+                float similarity = jaccard(features[f], features[other]);
+                if (similarity > 0)
+                    top.offer(other, similarity);
+            }
+        }
+        return toFilmIDs(top);
+    }
+
+    private int[] toFilmIDs(TopK top) {
+        int[] result = top.toIDs();
+        for (int n = 0; n < result.length; n++)
+            result[n] = filmIDs[result[n]];
+        return result;
+    }
+
+    // The film's keywords, genres and first topCast billed cast members, sorted
+    private static long[] featuresOf(AbstractStores stores, int filmID, int topCast) {
+        Keyword[] keywords = stores.getKeywords().getKeywordsForFilm(filmID);
+        Genre[] genres = stores.getMovies().getGenres(filmID);
+        CastCredit[] cast = stores.getCredits().getFilmCast(filmID);
+        int numKeywords = keywords == null ? 0 : keywords.length;
+        int numGenres = genres == null ? 0 : genres.length;
+        int numCast = cast == null ? 0 : cast.length;
+
+        long[] result = new long[numKeywords + numGenres + Math.min(topCast, numCast)];
+        int n = 0;
+        for (int k = 0; k < numKeywords; k++)
+            result[n++] = KEYWORD | (keywords[k].getID() & 0xFFFFFFFFL);
+        for (int g = 0; g < numGenres; g++)
+            result[n++] = GENRE | (genres[g].getID() & 0xFFFFFFFFL);
+        if (numCast > 0) {
+            CastCredit[] billed = Arrays.copyOf(cast, numCast);
+            Arrays.sort(billed, (x, y) -> Integer.compare(x.getOrder(), y.getOrder()));
+            for (int c = 0; c < Math.min(topCast, numCast); c++)
+                result[n++] = CAST | (billed[c].getID() & 0xFFFFFFFFL);
+        }
+        Arrays.sort(result);
+
+        // Drop duplicates (the same keyword or actor listed twice)
+        int unique = 0;
+        for (int k = 0; k < result.length; k++) {
+            if (unique == 0 || result[unique - 1] != result[k])
+                result[unique++] = result[k];
+        }
+        return Arrays.copyOf(result, unique);
+    }
+
+    // The MinHash signature of a feature set, folded into one key per band
+    private long[] bandsOf(long[] set) {
+        long[] keys = new long[numBands];
+        for (int b = 0; b < numBands; b++) {
+            long key = b;
+            for (int r = 0; r < rowsPerBand; r++) {
+                long seed = seeds[b * rowsPerBand + r];
+                long min = Long.MAX_VALUE;
+                for (long feature : set)
+                    min = Math.min(min, mix(feature ^ seed));
+                key = mix(key * 31 + min);
+            }
+            keys[b] = key;
+        }
+        return keys;
+    }
+
+    // Jaccard index of two sorted sets, by merging them
+    static float jaccard(long[] a, long[] b) {
+        int i = 0, j = 0, shared = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) {
+                shared++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        int union = a.length + b.length - shared;
+        return union == 0 ? 0 : (float) shared / union;
+    }
+
+    // 64-bit finaliser from MurmurHash3, used as a family of hash functions by XORing in a seed
+    private static long mix(long x) {
+        x ^= x >>> 33;
+        x *= 0xFF51AFD7ED558CCDL;
+        x ^= x >>> 33;
+        x *= 0xC4CEB93E1A85EC53L;
+        x ^= x >>> 33;
+        return x;
+    }
+}
@@ -0,0 +1,78 @@
+package recommend;
+
+import java.time.LocalDateTime;
+
+import interfaces.IRatings;
+import stores.ForwardingRatings;
+import structures.LongHashSet;
+
+// Ratings store that keeps an AlsModel up to date as ratings change: after each
+// successful change the user's factors are folded in again from their ratings, and
+// a movie the model hasn't seen yet is folded in from its raters.
+// Much cheaper than retraining, though the model drifts until it is next retrained.
+public class FoldInRatings extends ForwardingRatings {
+    private final AlsModel model;
+
+    public FoldInRatings(IRatings delegate, AlsModel model) {
+        super(delegate);
+        this.model = model;
+    }
+
+    @Override
+    public boolean add(int userID, int movieID, float rating, LocalDateTime timestamp) {
+        return refoldIf(delegate.add(userID, movieID, rating, timestamp), userID, movieID);
+    }
+
+    @Override
+    public boolean remove(int userID, int movieID) {
+        return refoldIf(delegate.remove(userID, movieID), userID, movieID);
+    }
+
+    @Override
+    public boolean set(int userID, int movieID, float rating, LocalDateTime timestamp) {
+        return refoldIf(delegate.set(userID, movieID, rating, timestamp), userID, movieID);
+    }
+
+    // Each user with a new rating is folded in once, after the whole batch is in,
+    // then each movie the model hasn't seen. The delegate says which records it
+    // added, so users whose pairs were already rated aren't folded in for them.
+    @Override
+    public int addBatch(int[] userIDs, int[] movieIDs, float[] ratings, long[] timestamps, boolean[] added) {
+        if (userIDs == null || movieIDs == null || userIDs.length != movieIDs.length)
+            return delegate.addBatch(userIDs, movieIDs, ratings, timestamps, added);
+
+        boolean[] inserted = added != null ? added : new boolean[userIDs.length];
+        int count = delegate.addBatch(userIDs, movieIDs, ratings, timestamps, inserted);
+        if (count > 0) {
+            LongHashSet seenUsers = new LongHashSet(), seenMovies = new LongHashSet();
+            for (int k = 0; k < userIDs.length; k++) {
+                if (inserted[k] && seenUsers.add(userIDs[k]))
+                    foldInUser(userIDs[k]);
+            }
+            for (int k = 0; k < movieIDs.length; k++) {
+                if (inserted[k] && !model.hasMovie(movieIDs[k]) && seenMovies.add(movieIDs[k]))
+                    foldInMovie(movieIDs[k]);
+            }
+        }
+        return count;
+    }
+
+    private boolean refoldIf(boolean changed, int userID, int movieID) {
+        if (!changed)
+            return false;
+
+        foldInUser(userID);
+        foldInMovie(movieID);
+        return true;
+    }
+
+    private void foldInUser(int userID) {
+        model.foldInUser(userID, delegate.getUserMovies(userID), delegate.getUserRatings(userID));
+    }
+
+    // Only movies the model hasn't seen; the others keep their trained factors
+    private void foldInMovie(int movieID) {
+        if (!model.hasMovie(movieID))
+            model.foldInMovie(movieID, delegate.getMovieRaters(movieID), delegate.getMovieRatings(movieID));
+    }
+}
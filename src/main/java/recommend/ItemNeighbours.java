@@ -0,0 +1,62 @@
+package recommend;
+
+import structures.IntIntMap;
+
+// Sparse top-N neighbour table: for each movie, its most similar movies (best
+// first) with their similarity scores. Stored as flat arrays indexed by offsets,
+// and never changed once built, so it can be read from any thread.
+public class ItemNeighbours {
+    private final int[] movieIDs; // Movie at each index
+    private final IntIntMap indexOf; // Movie ID -> index
+    private final int[] offsets; // Neighbours of movie i are [offsets[i], offsets[i + 1])
+    private final int[] neighbours; // Neighbour movie IDs
+    private final float[] scores; // Similarity of each neighbour
+
+    ItemNeighbours(int[] movieIDs, int[] offsets, int[] neighbours, float[] scores) {
+        this.movieIDs = movieIDs;
+        this.offsets = offsets;
+        this.neighbours = neighbours;
+        this.scores = scores;
+        this.indexOf = new IntIntMap(movieIDs.length);
+        for (int i = 0; i < movieIDs.length; i++)
+            indexOf.put(movieIDs[i], i);
+    }
+
+    // The movies most similar to a movie, best first (empty if it has none)
+    public int[] getNeighbours(int movieID) {
+        return getNeighbours(movieID, Integer.MAX_VALUE);
+    }
+
+    // At most numResults of the movies most similar to a movie, best first
+    public int[] getNeighbours(int movieID, int numResults) {
+        int i = indexOf.get(movieID, -1);
+        if (i < 0 || numResults <= 0)
+            return new int[0];
+
+        int len = Math.min(numResults, offsets[i + 1] - offsets[i]);
+        int[] result = new int[len];
+        System.arraycopy(neighbours, offsets[i], result, 0, len);
+        return result;
+    }
+
+    // The similarity scores lined up with getNeighbours(movieID)
+    public float[] getScores(int movieID) {
+        int i = indexOf.get(movieID, -1);
+        if (i < 0)
+            return new float[0];
+
+        float[] result = new float[offsets[i + 1] - offsets[i]];
+        System.arraycopy(scores, offsets[i], result, 0, result.length);
+        return result;
+    }
+
+    // Number of movies in the table (including ones without neighbours)
+    public int size() {
+        return movieIDs.length;
+    }
+
+    // Total number of neighbour entries stored
+    public int numEntries() {
+        return neighbours.length;
+    }
+}
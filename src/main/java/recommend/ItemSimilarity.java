@@ -0,0 +1,171 @@
+package recommend;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import interfaces.IRatings;
+import structures.TopK;
+
+// Computes item-item similarity with adjusted cosine: each rating has its user's
+// average rating subtracted (so harsh and generous raters count the same), and
+// two movies are compared by the cosine of those adjusted ratings over all users.
+//
+// For each movie i, the users who rated it are walked, and every other movie j
+// those users rated gets their adjusted ratings' product added to dot(i, j).
+// Only movies that share a rater are ever touched, so the cost is the sum over
+// users of (number of ratings)^2 rather than (number of movies)^2.
+// Movies are split into ranges that are scored in parallel with fork-join.
+public class ItemSimilarity {
+    // Ranges of movies at most this size are scored by one task
+    private static final int LEAF_SIZE = 32;
+
+    private final RatingMatrix matrix;
+    private final int[] movieIDs;
+
+    // Adjusted ratings, lined up with the matrix's by-movie and by-user lists
+    private final float[] movieAdjusted;
+    private final float[] userAdjusted;
+
+    private final double[] norms; // Length of each movie's adjusted rating vector
+    private final int numNeighbours;
+    private final int minCommonRaters;
+
+    // Per movie results, filled in by the fork-join tasks
+    private final int[][] resultIDs;
+    private final float[][] resultScores;
+
+    private ItemSimilarity(IRatings ratings, int numNeighbours, int minCommonRaters) {
+        this.numNeighbours = numNeighbours;
+        this.minCommonRaters = Math.max(1, minCommonRaters);
+        this.matrix = new RatingMatrix(ratings);
+        this.movieIDs = matrix.movieIDs;
+        int numMovies = matrix.numMovies();
+
+        // Each user's average rating
+        double[] userMean = new double[matrix.numUsers()];
+        for (int u = 0; u < matrix.numUsers(); u++) {
+            double sum = 0;
+            for (int k = matrix.userStart[u]; k < matrix.userStart[u + 1]; k++)
+                sum += matrix.userValues[k];
+            userMean[u] = sum / (matrix.userStart[u + 1] - matrix.userStart[u]);
+        }
+
+        // Subtract it from each of their ratings, in both layouts
+        movieAdjusted = new float[matrix.numRatings()];
+        for (int k = 0; k < movieAdjusted.length; k++)
+            movieAdjusted[k] = (float) (matrix.movieValues[k] - userMean[matrix.movieUsers[k]]);
+        userAdjusted = new float[matrix.numRatings()];
+        for (int u = 0; u < matrix.numUsers(); u++) {
+            for (int k = matrix.userStart[u]; k < matrix.userStart[u + 1]; k++)
+                userAdjusted[k] = (float) (matrix.userValues[k] - userMean[u]);
+        }
+
+        norms = new double[numMovies];
+        for (int i = 0; i < numMovies; i++) {
+            double sum = 0;
+            for (int k = matrix.movieStart[i]; k < matrix.movieStart[i + 1]; k++)
+                sum += (double) movieAdjusted[k] * movieAdjusted[k];
+            norms[i] = Math.sqrt(sum);
+        }
+
+        resultIDs = new int[numMovies][];
+        resultScores = new float[numMovies][];
+    }
+
+    // Builds the neighbour table: for each movie, its numNeighbours most similar movies
+    // (with a positive similarity) among those sharing at least minCommonRaters raters.
+    // The ratings should not change while this runs (pass a snapshot's ratings).
+    public static ItemNeighbours compute(IRatings ratings, int numNeighbours, int minCommonRaters) {
+        return compute(ratings, numNeighbours, minCommonRaters, ForkJoinPool.commonPool());
+    }
+
+    public static ItemNeighbours compute(IRatings ratings, int numNeighbours, int minCommonRaters, ForkJoinPool pool) {
+        ItemSimilarity model = new ItemSimilarity(ratings, numNeighbours, minCommonRaters);
+        pool.invoke(model.new Score(0, model.movieIDs.length));
+        return model.toTable();
+    }
+
+    // Scores the movies in [from, to), splitting the range while it is large
+    private class Score extends RecursiveAction {
+        private final int from;
+        private final int to;
+
+        Score(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= LEAF_SIZE) {
+                scoreRange(from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new Score(from, mid), new Score(mid, to));
+        }
+    }
+
+    // Finds the neighbours of every movie in [from, to)
+    private void scoreRange(int from, int to) {
+        int numMovies = movieIDs.length;
+        double[] dot = new double[numMovies];
+        int[] common = new int[numMovies];
+        int[] touched = new int[numMovies];
+
+        for (int i = from; i < to; i++) {
+            int numTouched = 0;
+            for (int k = matrix.movieStart[i]; k < matrix.movieStart[i + 1]; k++) {
+                int u = matrix.movieUsers[k];
+                double ri = movieAdjusted[k];
+                for (int m = matrix.userStart[u]; m < matrix.userStart[u + 1]; m++) {
+                    int j = matrix.userMovies[m];
+                    if (j == i)
+                        continue;
+                    if (common[j] == 0)
+                        touched[numTouched++] = j;
+                    common[j]++;
+                    dot[j] += ri * userAdjusted[m];
+                }
+            }
+
+            TopK top = new TopK(numNeighbours);
+            for (int t = 0; t < numTouched; t++) {
+                int j = touched[t];
+                if (common[j] >= minCommonRaters && norms[i] > 0 && norms[j] > 0) {
+                    double similarity = dot[j] / (norms[i] * norms[j]);
+                    if (similarity > 0)
+                        top.offer(j, similarity);
+                }
+                dot[j] = 0;
+                common[j] = 0;
+            }
+
+            int[] best = top.toIDs();
+            int[] ids = new int[best.length];
+            float[] scores = new float[best.length];
+            for (int n = 0; n < best.length; n++) {
+                ids[n] = movieIDs[best[n]];
+                scores[n] = (float) top.getScore(n);
+            }
+            resultIDs[i] = ids;
+            resultScores[i] = scores;
+        }
+    }
+
+    // Packs the per-movie results into flat arrays
+    private ItemNeighbours toTable() {
+        int numMovies = movieIDs.length;
+        int[] offsets = new int[numMovies + 1];
+        for (int i = 0; i < numMovies; i++)
+            offsets[i + 1] = offsets[i] + resultIDs[i].length;
+
+        int[] neighbours = new int[offsets[numMovies]];
+        float[] scores = new float[offsets[numMovies]];
+        for (int i = 0; i < numMovies; i++) {
+            System.arraycopy(resultIDs[i], 0, neighbours, offsets[i], resultIDs[i].length);
+            System.arraycopy(resultScores[i], 0, scores, offsets[i], resultScores[i].length);
+        }
+        return new ItemNeighbours(movieIDs, offsets, neighbours, scores);
+    }
+}
@@ -0,0 +1,102 @@
+package recommend;
+
+import java.util.Arrays;
+
+import interfaces.IRatings;
+import structures.IntIntMap;
+
+// The rating matrix read out of an IRatings into primitive arrays, indexed both by
+// movie and by user (compressed sparse rows). Movies and users get dense indexes
+// 0..n-1 so models can keep their own per-movie and per-user data in flat arrays.
+final class RatingMatrix {
+    final int[] movieIDs; // Movie at each movie index
+    final int[] userIDs; // User at each user index
+    final IntIntMap movieIndex; // Movie ID -> movie index
+    final IntIntMap userIndex; // User ID -> user index
+
+    // Movie i's ratings are [movieStart[i], movieStart[i + 1]) of these
+    final int[] movieStart;
+    final int[] movieUsers; // User index of each rating
+    final float[] movieValues;
+
+    // User u's ratings are [userStart[u], userStart[u + 1]) of these
+    final int[] userStart;
+    final int[] userMovies; // Movie index of each rating
+    final float[] userValues;
+
+    // Reads every rating; the ratings should not change while this runs (use a snapshot)
+    RatingMatrix(IRatings ratings) {
+        movieIDs = ratings.getRatedMovies();
+        int numMovies = movieIDs.length;
+        movieIndex = new IntIntMap(numMovies);
+        int[][] raters = new int[numMovies][];
+        float[][] values = new float[numMovies][];
+        int total = 0;
+        for (int i = 0; i < numMovies; i++) {
+            movieIndex.put(movieIDs[i], i);
+            raters[i] = ratings.getMovieRaters(movieIDs[i]);
+            values[i] = ratings.getMovieRatings(movieIDs[i]);
+            total += Math.min(raters[i].length, values[i].length);
+        }
+
+        // By movie, giving every user a dense index as they are first seen
+        userIndex = new IntIntMap();
+        int numUsers = 0;
+        int[] users = new int[16];
+        int[] userCount = new int[16];
+        movieStart = new int[numMovies + 1];
+        movieUsers = new int[total];
+        movieValues = new float[total];
+        int pos = 0;
+        for (int i = 0; i < numMovies; i++) {
+            movieStart[i] = pos;
+            int len = Math.min(raters[i].length, values[i].length);
+            for (int k = 0; k < len; k++) {
+                int u = userIndex.get(raters[i][k], -1);
+                if (u < 0) {
+                    u = numUsers++;
+                    userIndex.put(raters[i][k], u);
+                    if (u == users.length) {
+                        users = Arrays.copyOf(users, u * 2);
+                        userCount = Arrays.copyOf(userCount, u * 2);
+                    }
+                    users[u] = raters[i][k];
+                }
+                userCount[u]++;
+                movieUsers[pos] = u;
+                movieValues[pos] = values[i][k];
+                pos++;
+            }
+        }
+        movieStart[numMovies] = pos;
+        userIDs = Arrays.copyOf(users, numUsers);
+
+        // By user (counting sort on user index)
+        userStart = new int[numUsers + 1];
+        for (int u = 0; u < numUsers; u++)
+            userStart[u + 1] = userStart[u] + userCount[u];
+        int[] fill = new int[numUsers];
+        userMovies = new int[total];
+        userValues = new float[total];
+        for (int i = 0; i < numMovies; i++) {
+            for (int k = movieStart[i]; k < movieStart[i + 1]; k++) {
+                int u = movieUsers[k];
+                int at = userStart[u] + fill[u]++;
+                userMovies[at] = i;
+                userValues[at] = movieValues[k];
+            }
+        }
+    }
+
+    int numMovies() {
+        return movieIDs.length;
+    }
+
+    int numUsers() {
+        return userIDs.length;
+    }
+
+    int numRatings() {
+        return movieValues.length;
+    }
+}
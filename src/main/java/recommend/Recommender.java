@@ -0,0 +1,182 @@
+package recommend;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import interfaces.AbstractStores;
+
+// Serves "because you watched" lists for a set of stores. The neighbour table is
+// precomputed in the background from a snapshot of the stores' ratings, after
+// which each list is just a lookup. Films with too few ratings fall back to
+// "more like this" by content (ContentSimilarity), built from the same snapshot.
+// When the ratings change (see ratingsChanged) both are computed again from a new
+// snapshot, and the old ones are served until the new ones are ready.
+public class Recommender {
+    public static final int NUM_NEIGHBOURS = 20;
+    public static final int MIN_COMMON_RATERS = 2;
+
+    // How long after a change the recompute starts, so a burst of changes leads to one
+    public static final int REFRESH_DELAY_SECONDS = 5;
+
+    // One recommender per set of stores (dropped when the stores are)
+    private static final Map<AbstractStores, Recommender> recommenders = new WeakHashMap<>();
+
+    // The neighbour table and content index computed from one snapshot
+    private static final class Model {
+        final ItemNeighbours neighbours;
+        final ContentSimilarity content;
+
+        Model(ItemNeighbours neighbours, ContentSimilarity content) {
+            this.neighbours = neighbours;
+            this.content = content;
+        }
+    }
+
+    private final WeakReference<AbstractStores> stores; // Weak, so the map above can drop them
+    private final CompletableFuture<Model> first;
+    private volatile Model model; // The latest finished model (null until the first is)
+    private CompletableFuture<Model> computing; // The model being computed (null if none)
+    private boolean stale; // Whether the ratings changed after computing took its snapshot
+
+    private Recommender(AbstractStores stores) {
+        this.stores = new WeakReference<>(stores);
+        this.first = compute(ForkJoinPool.commonPool());
+    }
+
+    // The recommender for a set of stores, starting its precompute the first time it is asked for
+    public static synchronized Recommender forStores(AbstractStores stores) {
+        Recommender recommender = recommenders.get(stores);
+        if (recommender == null) {
+            recommender = new Recommender(stores);
+            recommenders.put(stores, recommender);
+        }
+        return recommender;
+    }
+
+    // Tells the recommender for a set of stores (if one has been started) that their
+    // ratings or films changed, so it computes its model again
+    public static void ratingsChanged(AbstractStores stores) {
+        Recommender recommender;
+        synchronized (Recommender.class) {
+            recommender = recommenders.get(stores);
+        }
+        if (recommender != null)
+            recommender.refresh();
+    }
+
+    // Computes the model again from the stores as they will be shortly, in the
+    // background. Changes made while that is running lead to one more afterwards.
+    public synchronized void refresh() {
+        if (computing != null)
+            stale = true;
+        else
+            compute(CompletableFuture.delayedExecutor(REFRESH_DELAY_SECONDS, TimeUnit.SECONDS));
+    }
+
+    // Whether a neighbour table and content index have finished computing
+    public boolean isReady() {
+        return model != null;
+    }
+
+    // Runs an action once the first model is ready (straight away if it already is).
+    // It may run on a background thread, so UI code should hand off to the event thread.
+    public void whenReady(Runnable action) {
+        first.thenRun(action);
+    }
+
+    // Waits for the neighbour table (used by the benchmark and tests)
+    public ItemNeighbours getModel() {
+        return latest().neighbours;
+    }
+
+    // Waits for the content index (used by the benchmark and tests)
+    public ContentSimilarity getContent() {
+        return latest().content;
+    }
+
+    // Movies similar to one the user watched, best first: those rated alike, topped up
+    // with those alike by content. Empty until both are ready.
+    public int[] becauseYouWatched(int movieID, int numResults) {
+        Model current = model;
+        if (current == null)
+            return new int[0];
+        int[] rated = current.neighbours.getNeighbours(movieID, numResults);
+        if (rated.length >= numResults)
+            return rated;
+
+        int[] alike = current.content.moreLikeThis(movieID, numResults);
+        int[] result = Arrays.copyOf(rated, numResults);
+        int size = rated.length;
+        for (int k = 0; k < alike.length && size < numResults; k++) {
+            boolean duplicate = false;
+            for (int n = 0; n < rated.length && !duplicate; n++)
+                duplicate = rated[n] == alike[k];
+            if (!duplicate)
+                result[size++] = alike[k];
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    // Movies alike by content to a movie, best first. Empty until the content index is ready.
+    public int[] moreLikeThis(int movieID, int numResults) {
+        Model current = model;
+        if (current == null)
+            return new int[0];
+        return current.content.moreLikeThis(movieID, numResults);
+    }
+
+    // The latest model, waiting for the first if none has finished
+    private Model latest() {
+        Model current = model;
+        return current != null ? current : first.join();
+    }
+
+    // Starts computing a model from a snapshot taken by the given executor. It fails
+    // if the stores have been dropped by then.
+    private synchronized CompletableFuture<Model> compute(Executor takeSnapshot) {
+        CompletableFuture<AbstractStores> snapshot = CompletableFuture.supplyAsync(() -> {
+            AbstractStores live = stores.get();
+            synchronized (this) {
+                stale = false; // Changes from here on aren't in this snapshot
+            }
+            if (live == null)
+                throw new IllegalStateException("The stores have been dropped");
+            return live.snapshot();
+        }, takeSnapshot);
+        CompletableFuture<ItemNeighbours> neighbours = snapshot.thenApplyAsync(s -> {
+            long start = System.nanoTime();
+            ItemNeighbours table = ItemSimilarity.compute(s.getRatings(), NUM_NEIGHBOURS, MIN_COMMON_RATERS);
+            System.out.println("Recommendations computed for " + table.size() + " movies in " + (System.nanoTime() - start) / 1000000 + "ms");
+            return table;
+        });
+        CompletableFuture<ContentSimilarity> content = snapshot.thenApplyAsync(s -> {
+            long start = System.nanoTime();
+            ContentSimilarity similarity = new ContentSimilarity(s);
+            System.out.println("Content similarity indexed for " + similarity.size() + " movies in " + (System.nanoTime() - start) / 1000000 + "ms");
+            return similarity;
+        });
+        CompletableFuture<Model> next = neighbours.thenCombine(content, Model::new);
+        computing = next;
+        next.whenComplete((finished, e) -> finished(next, finished));
+        return next;
+    }
+
+    // Swaps in a finished model, and starts another if the ratings changed meanwhile
+    private synchronized void finished(CompletableFuture<Model> done, Model finished) {
+        if (finished != null)
+            model = finished;
+        if (computing != done)
+            return;
+        computing = null;
+        if (stale) {
+            stale = false;
+            compute(CompletableFuture.delayedExecutor(REFRESH_DELAY_SECONDS, TimeUnit.SECONDS));
+        }
+    }
+}
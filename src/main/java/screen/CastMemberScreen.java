@@ -133,8 +133,9 @@ public class CastMemberScreen {
         int id = castMember.getID();
         String keyFactsText = 
         "CastID: " + id + "\n" +
-        "Appears in " + stores.getCredits().getCastFilms(id).length + " films. \n";
-        
+        "Appears in " + stores.getCredits().getCastFilms(id).length + " films. \n" +
+        collaboratorsText(stores, id);
+
         JTextArea keyFacts = new JTextArea(keyFactsText);
         keyFacts.setForeground(Constants.getFontColor());
         keyFacts.setBackground(Constants.getHighlight());
@@ -151,6 +152,23 @@ public class CastMemberScreen {
         profileInfo.add(keyFacts, profileInfoConstraints);
 
     }
+
+    // "Often works with" line listing the people who share the most films with this one
+    private static String collaboratorsText(AbstractStores stores, int personID) {
+        int[] collaborators = stores.getCredits().getTopCollaborators(personID, 3);
+        if (collaborators.length == 0)
+            return "";
+
+        String text = "Often works with ";
+        for (int i = 0; i < collaborators.length; i++) {
+            IPerson person = stores.getCredits().getCast(collaborators[i]);
+            if (person == null)
+                person = stores.getCredits().getCrew(collaborators[i]);
+            String name = person == null ? "ID " + collaborators[i] : person.getName();
+            text += (i == 0 ? "" : ", ") + name + " (" + stores.getCredits().getNumSharedFilms(personID, collaborators[i]) + " films)";
+        }
+        return text + ".\n";
+    }
 }
 
 class CastMemberAppearsInReel extends MovieReel {
@@ -169,10 +187,7 @@ class CastMemberAppearsInReel extends MovieReel {
             System.out.println("\tNo movies found");
         }
 
-        String[] labels = new String[length];
-        for (int i = 0; i < length; i++){
-            labels[i] = stores.getMovies().getTitle(movieResults[i]);
-        }
+        String[] labels = stores.getMovies().getTitles(movieResults);
         displayItems(movieResults, labels);
         System.out.println("Finished running Appears In");
     }
@@ -193,10 +208,7 @@ class CastMemberStarsInReel extends MovieReel {
         if (movieResults == null || length == 0){
             System.out.println("\tNo movies found");
         }
-        String[] labels = new String[length];
-        for (int i = 0; i < length; i++){
-            labels[i] = stores.getMovies().getTitle(movieResults[i]);
-        }
+        String[] labels = stores.getMovies().getTitles(movieResults);
         displayItems(movieResults, labels);
         System.out.println("Finished running Stars In");
     }
@@ -10,6 +10,9 @@ import javax.swing.*;
 import javax.swing.border.*;
 import javax.swing.event.MouseInputListener;
 
+import query.Field;
+import query.Query;
+import query.QueryResult;
 import stores.*;
 import ui.MovieReel;
 import utils.*;
@@ -116,6 +119,7 @@ class TopRatedCastRunnable implements Runnable {
     private AbstractStores stores;
     private JLabel loadingText;
     private int[] topMovies; // store IDs of 20 top movies
+    private QueryResult topMovieCasts; // title and cast of each top movie
 
     public TopRatedCastRunnable(JPanel masterPanel, JScrollPane scrollPane, JPanel resultsPanel, AbstractStores stores) {
         this.masterPanel = masterPanel;
@@ -138,7 +142,10 @@ class TopRatedCastRunnable implements Runnable {
     @Override
     public void run() {
 
-        topMovies = stores.getRatings().getMostRatedMovies(Constants.topMoviesCount); // ids of top 20 movies
+        // ids, titles and casts of the top 20 movies, in one query
+        topMovieCasts = Query.films().orderBy(Field.NUM_RATINGS, true).limit(Constants.topMoviesCount)
+                .select(Field.TITLE, Field.CAST).run(stores);
+        topMovies = topMovieCasts.getFilmIDs();
 
         scrollPane.setVisible(false);
 
@@ -166,8 +173,8 @@ class TopRatedCastRunnable implements Runnable {
 
             String resultString = "";
             int movieID = topMovies[i];
-            String currentTitle = stores.getMovies().getTitle(topMovies[i]); // title of the current movie
-            CastCredit[] cast = stores.getCredits().getFilmCast(topMovies[i]); // current cast
+            String currentTitle = topMovieCasts.getString(i, Field.TITLE); // title of the current movie
+            CastCredit[] cast = (CastCredit[]) topMovieCasts.get(i, Field.CAST); // current cast
 
             // create a clickable button
             JPanel titlePanel = new JPanel();
@@ -299,14 +306,16 @@ class OldMoviesCastRunnable implements Runnable {
         resultsPanel.setLayout(new BoxLayout(resultsPanel, BoxLayout.Y_AXIS));
         resultsPanel.setSize(scrollPane.getWidth(), oldMovies.length * (itemHeight + ((new JSeparator()).getHeight())));
 
+        String[] titles = stores.getMovies().getTitles(oldMovies);
+        CastCredit[][] casts = stores.getCredits().getFilmCasts(oldMovies);
         for (int i = 0; i < oldMovies.length; i ++) {
             JPanel resultItem = new JPanel();
             resultItem.setSize(scrollPane.getWidth(), itemHeight);
 
             String resultString = "";
             int movieID = oldMovies[i];
-            String currentTitle = stores.getMovies().getTitle(oldMovies[i]);
-            CastCredit[] cast = stores.getCredits().getFilmCast(oldMovies[i]); // current cast
+            String currentTitle = titles[i];
+            CastCredit[] cast = casts[i]; // current cast
 
             // create a clickable button
             JPanel titlePanel = new JPanel();
@@ -412,9 +421,10 @@ class FeaturedCastMovieReel extends MovieReel {
         if (featuredCastMovies == null || featuredCastMovies.length == 0) {
             System.out.println("    No films with " + castName + " were found");
         } else {
+            String[] titles = stores.getMovies().getTitles(featuredCastMovies);
             String[] labels = new String[featuredCastMovies.length];
             for (int i = 0; i < featuredCastMovies.length; i++) {
-                labels[i] = String.format("%s", stores.getMovies().getTitle(featuredCastMovies[i]));
+                labels[i] = String.format("%s", titles[i]);
             }
             displayItems(featuredCastMovies, labels);
             System.out.println("Finished running Featured Cast Movie Reel");
@@ -11,6 +11,9 @@ import javax.swing.text.SimpleAttributeSet;
 import javax.swing.text.StyleConstants;
 
 import interfaces.AbstractStores;
+import query.Field;
+import query.Query;
+import query.QueryResult;
 import ui.MovieReel;
 import utils.Constants;
 
@@ -75,18 +78,17 @@ class CollectionReel extends MovieReel {
 
     public void run(){
         System.out.println("Running Collection Reel");
-        int[] moviesInCollection = stores.getMovies().getFilmsInCollection(collectionID);
-        int length = moviesInCollection.length;
+        QueryResult films = Query.collection(collectionID).select(Field.TITLE, Field.AVERAGE_RATING).run(stores);
+        int length = films.size();
 
-        if (moviesInCollection == null || moviesInCollection.length == 0){
+        if (length == 0){
             System.out.println("\tNo movies found in the collection");
         }
         String[] labels = new String[length];
         for (int i = 0; i < length; i++){
-            labels[i] = String.format("%s (%.2f ★)", stores.getMovies().getTitle(moviesInCollection[i]),
-                                                     stores.getRatings().getMovieAverageRating(moviesInCollection[i]));
+            labels[i] = String.format("%s (%.2f ★)", films.getString(i, Field.TITLE), films.getDouble(i, Field.AVERAGE_RATING));
         }
-        displayItems(moviesInCollection, labels);
+        displayItems(films.getFilmIDs(), labels);
         System.out.println("Finished running Collection Reel");
     }
 }
\ No newline at end of file
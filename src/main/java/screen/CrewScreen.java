@@ -153,12 +153,13 @@ class TopRatedCrewRunnable implements Runnable {
         resultsPanel.setLayout(new BoxLayout(resultsPanel, BoxLayout.Y_AXIS));
         resultsPanel.setSize(scrollPane.getWidth() - 40, topMovies.length * (itemHeight + ((new JSeparator()).getHeight())));
     
+        String[] titles = stores.getMovies().getTitles(topMovies);
         for (int i = 0; i < topMovies.length; i ++) {
             JPanel resultItem = new JPanel();
             resultItem.setSize(scrollPane.getWidth(), itemHeight);
 
             String resultString = "";
-            String currentTitle = stores.getMovies().getTitle(topMovies[i]); // title of the current movie
+            String currentTitle = titles[i]; // title of the current movie
             CrewCredit[] crew = stores.getCredits().getFilmCrew(topMovies[i]); // current cast
 
             int movieID = topMovies[i];
@@ -297,12 +298,13 @@ class RecentMoviesCrewsRunnable implements Runnable {
         resultsPanel.setLayout(new BoxLayout(resultsPanel, BoxLayout.Y_AXIS));
         resultsPanel.setSize(scrollPane.getWidth() - 60, newMovies.length * (itemHeight + ((new JSeparator()).getHeight())));
    
+        String[] titles = stores.getMovies().getTitles(newMovies);
         for (int i = 0; i < newMovies.length; i ++) {
             JPanel resultItem = new JPanel();
             resultItem.setSize(scrollPane.getWidth(), itemHeight);
 
             String resultString = "";
-            String currentTitle = stores.getMovies().getTitle(newMovies[i]);
+            String currentTitle = titles[i];
             CrewCredit[] crew = stores.getCredits().getFilmCrew(newMovies[i]); // current cast
 
             int movieID = newMovies[i];
@@ -410,9 +412,10 @@ class FeaturedCrewMovieReel extends MovieReel{
         if (featuredCrewMovies == null || featuredCrewMovies.length == 0) {
             System.out.println("    No films with " + crewName + " were found");
         } else {
+            String[] titles = stores.getMovies().getTitles(featuredCrewMovies);
             String[] labels = new String[featuredCrewMovies.length];
             for (int i = 0; i < featuredCrewMovies.length; i++) {
-                labels[i] = String.format("%s", stores.getMovies().getTitle(featuredCrewMovies[i]));
+                labels[i] = String.format("%s", titles[i]);
             }
             displayItems(featuredCrewMovies, labels);
             System.out.println("Finished running Featured Crew Movie Reel");
@@ -25,10 +25,12 @@ import javax.swing.text.SimpleAttributeSet;
 import javax.swing.text.StyleConstants;
 
 import interfaces.*;
+import recommend.Recommender;
 import stores.CastCredit;
 import stores.Company;
 import stores.CrewCredit;
 import stores.Genre;
+import ui.MovieReel;
 import utils.Constants;
 import utils.DisplayImage;
 import utils.IsoSearch;
@@ -453,15 +455,15 @@ public class FilmScreen {
         JPanel castScrollInnerPanel = new JPanel();
         JScrollPane castScroll = new JScrollPane(castScrollInnerPanel);
         castScrollOuterPanel.setBorder(castBorder);
-        castScrollOuterPanel.setBounds(5, (int) (panel.getHeight() * 0.7), (int) (panel.getWidth()*0.5)-10, (int) (panel.getHeight()*0.25));
+        castScrollOuterPanel.setBounds(5, (int) (panel.getHeight() * 0.7), (int) (panel.getWidth()*0.34)-10, (int) (panel.getHeight()*0.25));
         castScrollOuterPanel.setBackground(Constants.getHighlight());
         castScroll.setHorizontalScrollBarPolicy(JScrollPane.HORIZONTAL_SCROLLBAR_NEVER);
         castScroll.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED);
-        castScroll.setPreferredSize(new Dimension((int) (panel.getWidth() * 0.475), (int) (panel.getHeight() * 0.2)));
-        castScroll.setMinimumSize(new Dimension((int) (panel.getWidth() * 0.475), (int) (panel.getHeight() * 0.2)));
-        castScroll.getViewport().setPreferredSize(new Dimension((int) (panel.getWidth() * 0.475), (int) (panel.getHeight() * 0.2)));
-        castScroll.getViewport().setMinimumSize(new Dimension((int) (panel.getWidth() * 0.475), (int) (panel.getHeight() * 0.2)));
-        castScrollInnerPanel.setSize(new Dimension((int) (panel.getWidth() * 0.475), (int) (panel.getHeight() * 0.2)));
+        castScroll.setPreferredSize(new Dimension((int) (panel.getWidth() * 0.315), (int) (panel.getHeight() * 0.2)));
+        castScroll.setMinimumSize(new Dimension((int) (panel.getWidth() * 0.315), (int) (panel.getHeight() * 0.2)));
+        castScroll.getViewport().setPreferredSize(new Dimension((int) (panel.getWidth() * 0.315), (int) (panel.getHeight() * 0.2)));
+        castScroll.getViewport().setMinimumSize(new Dimension((int) (panel.getWidth() * 0.315), (int) (panel.getHeight() * 0.2)));
+        castScrollInnerPanel.setSize(new Dimension((int) (panel.getWidth() * 0.315), (int) (panel.getHeight() * 0.2)));
         castScroll.setBackground(Constants.getHighlight());
         castScrollInnerPanel.setBackground(Constants.getHighlight());
         castScrollOuterPanel.setBackground(Constants.getHighlight());
@@ -487,7 +489,7 @@ public class FilmScreen {
             castScrollOuterPanel.setLayout(new GridBagLayout());
         } else {
             final int gapSize = 5;
-            final int castPanelWidth = (int) (panel.getWidth() * 0.475)-30;
+            final int castPanelWidth = (int) (panel.getWidth() * 0.315)-30;
             int currentWidth = 0;
             int currentHeight = gapSize;
 
@@ -546,17 +548,17 @@ public class FilmScreen {
         JPanel crewScrollInnerPanel = new JPanel();
         JScrollPane crewScroll = new JScrollPane(crewScrollInnerPanel);
         crewScrollOuterPanel.setBorder(crewBorder);
-        crewScrollOuterPanel.setBounds((int) (panel.getWidth() * 0.5)+5, (int) (panel.getHeight() * 0.7), (int) (panel.getWidth() * 0.5) - 10, (int) (panel.getHeight() * 0.25));
+        crewScrollOuterPanel.setBounds((int) (panel.getWidth() * 0.34)+5, (int) (panel.getHeight() * 0.7), (int) (panel.getWidth() * 0.34) - 10, (int) (panel.getHeight() * 0.25));
         crewScrollOuterPanel.setBackground(Constants.getHighlight());
         crewScroll.setHorizontalScrollBarPolicy(JScrollPane.HORIZONTAL_SCROLLBAR_NEVER);
         crewScroll.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED);
-        crewScroll.setPreferredSize(new Dimension((int) (panel.getWidth() * 0.475), (int) (panel.getHeight() * 0.2)));
-        crewScroll.setMinimumSize(new Dimension((int) (panel.getWidth() * 0.475), (int) (panel.getHeight() * 0.2)));
+        crewScroll.setPreferredSize(new Dimension((int) (panel.getWidth() * 0.315), (int) (panel.getHeight() * 0.2)));
+        crewScroll.setMinimumSize(new Dimension((int) (panel.getWidth() * 0.315), (int) (panel.getHeight() * 0.2)));
         crewScroll.getViewport()
-                .setPreferredSize(new Dimension((int) (panel.getWidth() * 0.475), (int) (panel.getHeight() * 0.2)));
+                .setPreferredSize(new Dimension((int) (panel.getWidth() * 0.315), (int) (panel.getHeight() * 0.2)));
         crewScroll.getViewport()
-                .setMinimumSize(new Dimension((int) (panel.getWidth() * 0.475), (int) (panel.getHeight() * 0.2)));
-        crewScrollInnerPanel.setSize(new Dimension((int) (panel.getWidth() * 0.475), (int) (panel.getHeight() * 0.2)));
+                .setMinimumSize(new Dimension((int) (panel.getWidth() * 0.315), (int) (panel.getHeight() * 0.2)));
+        crewScrollInnerPanel.setSize(new Dimension((int) (panel.getWidth() * 0.315), (int) (panel.getHeight() * 0.2)));
         crewScroll.setBackground(Constants.getHighlight());
         crewScrollInnerPanel.setBackground(Constants.getHighlight());
         crewScrollOuterPanel.setBackground(Constants.getHighlight());
@@ -582,7 +584,7 @@ public class FilmScreen {
             crewScrollOuterPanel.setLayout(new GridBagLayout());
         } else {
             final int gapSize = 5;
-            final int crewPanelWidth = (int) (panel.getWidth() * 0.475) - 30;
+            final int crewPanelWidth = (int) (panel.getWidth() * 0.315) - 30;
             int currentWidth = 0;
             int currentHeight = gapSize;
 
@@ -619,6 +621,11 @@ public class FilmScreen {
         }
         System.out.println("\tCrew built");
 
+        MovieReel becauseYouWatched = new BecauseYouWatchedReel(panel, stores, filmID);
+        becauseYouWatched.setBounds((int) (panel.getWidth() * 0.68)+5, (int) (panel.getHeight() * 0.7), (int) (panel.getWidth() * 0.32) - 10, (int) (panel.getHeight() * 0.25));
+        SwingUtilities.invokeLater(becauseYouWatched);
+        System.out.println("\tBecause you watched built");
+
         panel.add(title);
         panel.add(tagline);
         panel.add(overview);
@@ -629,6 +636,31 @@ public class FilmScreen {
         panel.add(imdb);
         panel.add(castScrollOuterPanel);
         panel.add(crewScrollOuterPanel);
+        panel.add(becauseYouWatched);
+
+    }
+}
+
+class BecauseYouWatchedReel extends MovieReel {
+    int filmID;
+    public BecauseYouWatchedReel(JPanel screenPanel, AbstractStores stores, int filmID){
+        super(screenPanel, stores, "Because you watched this", "Finding similar movies...");
+        this.filmID = filmID;
+    }
+
+    public void run(){
+        System.out.println("Running 'because you watched' reel for filmID: " + filmID);
+        Recommender recommender = Recommender.forStores(stores);
+        if (!recommender.isReady()){
+            // Run again on the event thread once they are
+            setLoadingText("Recommendations are still being computed");
+            recommender.whenReady(() -> SwingUtilities.invokeLater(this));
+            return;
+        }
 
+        int[] movieResults = recommender.becauseYouWatched(filmID, Constants.topMoviesCount);
+        String[] labels = stores.getMovies().getTitles(movieResults);
+        displayItems(movieResults, labels);
+        System.out.println("Finished running Because you watched");
     }
 }
\ No newline at end of file
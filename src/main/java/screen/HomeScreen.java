@@ -214,10 +214,11 @@ class TopAverageRatedMovies extends MovieReel {
             this.add(new JLabel(message));
         }
         else{
-            String[] labels = new String[length];
-            for (int i = 0; i < length; i++){
-                labels[i] = String.format("%s (%.2f ★)", stores.getMovies().getTitle(movieResults[i]),
-                                                     stores.getRatings().getMovieAverageRating(movieResults[i]));
+            String[] titles = stores.getMovies().getTitles(movieResults);
+            float[] averages = stores.getRatings().getMovieAverageRatings(movieResults);
+            String[] labels = new String[movieResults.length];
+            for (int i = 0; i < movieResults.length; i++){
+                labels[i] = String.format("%s (%.2f ★)", titles[i], averages[i]);
             }
             displayItems(movieResults, labels);
             System.out.println("Finished running Top Average Rated Movie Reel");
@@ -239,9 +240,10 @@ class MostKeywordMovies extends MovieReel {
             System.out.println("\tNo most keyword movie ratings found");
         }
         else{
-            String[] labels = new String[length];
-            for (int i = 0; i < length; i++){
-                labels[i] = String.format("%s (%d)", stores.getMovies().getTitle(movieResults[i]),
+            String[] titles = stores.getMovies().getTitles(movieResults);
+            String[] labels = new String[movieResults.length];
+            for (int i = 0; i < movieResults.length; i++){
+                labels[i] = String.format("%s (%d)", titles[i],
                                                          stores.getKeywords().getKeywordsForFilm(movieResults[i]).length);
             }
             displayItems(movieResults, labels);
@@ -434,9 +434,10 @@ class SelectedKeywordMovieReel extends MovieReel {
         if (movieResults == null || movieResults.length == 0){
             System.out.println("No movies with this particular keyword ID found");
         } else {
+            String[] titles = stores.getMovies().getTitles(movieResults);
             String[] labels = new String[movieResults.length];
             for (int i = 0; i < movieResults.length; i++) {
-                labels[i] = String.format("%s", stores.getMovies().getTitle(movieResults[i]));
+                labels[i] = String.format("%s", titles[i]);
             }
             displayItems(movieResults, labels);
             System.out.println("Finished running Keyword to Film");
@@ -3,6 +3,7 @@ package screen;
 import java.awt.Dimension;
 import java.awt.*;
 import java.text.DecimalFormat;
+import java.time.LocalDateTime;
 
 import javax.swing.BorderFactory;
 import javax.swing.BoxLayout;
@@ -15,10 +16,23 @@ import javax.swing.SwingUtilities;
 import javax.swing.border.TitledBorder;
 
 import interfaces.*;
+import ranking.RankedStores;
+import ranking.Scorers;
 import ui.MovieReel;
 import utils.Constants;
 
 public class RatingsScreen {
+    private static final String REELS_NAME = "ratings-reels";
+
+    // Whether the panel is currently showing this screen (other screens clear the panel)
+    public static boolean isShowing(JPanel panel) {
+        for (Component component : panel.getComponents()) {
+            if (REELS_NAME.equals(component.getName()))
+                return true;
+        }
+        return false;
+    }
+
     public static void createPanel(JPanel panel, AbstractStores stores) {
         IRatings ratings = stores.getRatings();
         System.out.println("Ratings screen");
@@ -49,6 +63,10 @@ public class RatingsScreen {
         //Make layout vertically stacked
         reels.setLayout(new BoxLayout(reels, BoxLayout.Y_AXIS));
         
+        MovieReel trendingMovies = new TrendingMovieReel(panel, stores);
+        reels.add(trendingMovies);
+        SwingUtilities.invokeLater(trendingMovies);
+
         MovieReel mostRatedMovies = new MostRatedMovieReel(panel, stores);
         mostRatedMovies.setSize(new Dimension(reels.getWidth(), (int) (reels.getHeight() * 0.3)));
         reels.add(mostRatedMovies);
@@ -63,6 +81,7 @@ public class RatingsScreen {
         reelsScrollPane.setBackground(Constants.getHighlight());
         reelsScrollPane.setForeground(Constants.getFontColor());
         reelsScrollPane.setBorder(BorderFactory.createEmptyBorder());
+        reelsScrollPane.setName(REELS_NAME);
 
         reels.setSize(new Dimension(reelsScrollPane.getWidth(), reelsScrollPane.getHeight()));
 
@@ -174,19 +193,14 @@ class MostRatedUsersRunnable implements Runnable {
                 formattedUsersAvgRating = new DecimalFormat("0.00").format(userAvgRating);
             }
             
-            float[] userRatings = ratings.getUserRatings(userResults[i]);
-            if (userRatings == null){
-                loadingText.setText("No user ratings found: Received null! (For user "+ userResults[i] +")");
-                System.out.println("\tNo user ratings found: Received null!(For user "+ userResults[i] +")");
-                scrollPane.setVisible(true);
-                return;
-            }
-            else{
-                formattedUsersAvgRating = new DecimalFormat("0.00").format(userAvgRating);
-            }
-
-            
-            String resultString = "UID: " + userResults[i] + "\t " + formattedUsersAvgRating + "★ (" + userRatings.length + ")";
+            int[] userHistogram = ratings.getUserRatingHistogram(userResults[i]);
+            int numUserRatings = 0;
+            for (int count : userHistogram)
+                numUserRatings += count;
+            float median = ratings.getUserRatingPercentile(userResults[i], 50);
+            float drift = ratings.getUserRatingDrift(userResults[i]);
+            String resultString = "UID: " + userResults[i] + "\t " + formattedUsersAvgRating + "★ (" + numUserRatings + ")"
+                                + "\t median " + median + "★\t " + new DecimalFormat("+0.00;-0.00").format(drift) + "★/yr";
 
             JTextArea title = new JTextArea(resultString);
             title.setBounds(0, (itemHeight * i), resultsPanel.getWidth(), itemHeight);
@@ -230,10 +244,11 @@ class MostRatedMovieReel extends MovieReel {
             this.add(new JLabel(message));
         }
         else{
-            String[] labels = new String[length];
-            for (int i = 0; i < length; i++){
-                labels[i] = String.format("%s (%d)", stores.getMovies().getTitle(movieResults[i]),
-                                                     stores.getRatings().getNumRatings(movieResults[i]));
+            String[] titles = stores.getMovies().getTitles(movieResults);
+            int[] numRatings = stores.getRatings().getNumRatings(movieResults);
+            String[] labels = new String[movieResults.length];
+            for (int i = 0; i < movieResults.length; i++){
+                labels[i] = String.format("%s (%d)", titles[i], numRatings[i]);
             }
             displayItems(movieResults, labels);
             System.out.println("Finished running Most Rated Movie Reel");
@@ -241,6 +256,29 @@ class MostRatedMovieReel extends MovieReel {
     }
 }
 
+class TrendingMovieReel extends MovieReel {
+    public TrendingMovieReel(JPanel screenPanel, AbstractStores stores){
+        super(screenPanel, stores, "Trending", "Searching Trending Movies...");
+    }
+
+    public void run(){
+        System.out.println("Running Trending Movie Reel");
+        // The window ends at the latest rating, so older data sets still have something trending
+        LocalDateTime latest = stores.getRatings().getLatestTimestamp();
+        int[] movieResults = stores.getRatings().getTrendingMovies(latest, Constants.trendingDays, Constants.topMoviesCount);
+
+        if (movieResults == null || movieResults.length == 0){
+            String message = "No movies rated in the last " + Constants.trendingDays + " days";
+            System.out.println("\t" + message);
+            this.add(new JLabel(message));
+        }
+        else{
+            displayItems(movieResults, stores.getMovies().getTitles(movieResults));
+            System.out.println("Finished running Trending Movie Reel");
+        }
+    }
+}
+
 class TopRatedMovieReel extends MovieReel {
     public TopRatedMovieReel(JPanel screenPanel, AbstractStores stores){
         super(screenPanel, stores, "Top Rated Movies", "Searching Top Rated Movies...");
@@ -249,16 +287,21 @@ class TopRatedMovieReel extends MovieReel {
     public void run(){
         System.out.println("Running Top Rated Movie Reel");
         int length = Constants.topMoviesCount;
-        int[] movieResults = stores.getRatings().getTopAverageRatedMovies(length);
+        // Ranked by Bayesian average where the stores keep a ranking, so a single 5★ rating doesn't top the list
+        int[] movieResults = stores instanceof RankedStores
+            ? ((RankedStores) stores).getRanking().getTop(Scorers.BAYESIAN, length)
+            : stores.getRatings().getTopAverageRatedMovies(length);
 
         if (movieResults == null || movieResults.length == 0){
             System.out.println("\tNo top rated movie ratings found");
         }
         else{
-            String[] labels = new String[length];
-            for (int i = 0; i < length; i++){
-                labels[i] = String.format("%s (%.2f ★)", stores.getMovies().getTitle(movieResults[i]),
-                                                         stores.getRatings().getMovieAverageRating(movieResults[i]));
+            String[] titles = stores.getMovies().getTitles(movieResults);
+            float[] averages = stores.getRatings().getMovieAverageRatings(movieResults);
+            int[] numRatings = stores.getRatings().getNumRatings(movieResults);
+            String[] labels = new String[movieResults.length];
+            for (int i = 0; i < movieResults.length; i++){
+                labels[i] = String.format("%s (%.2f ★, %d)", titles[i], averages[i], numRatings[i]);
             }
             displayItems(movieResults, labels);
             System.out.println("Finished running Top Rated Movie Reel");
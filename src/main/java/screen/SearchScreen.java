@@ -237,12 +237,13 @@ class MovieSearchRunnable implements Runnable {
         resultsPane.setSize(scrollPane.getWidth()-40, idResults.length*(itemHeight+((new JSeparator()).getHeight())));
 
 
+        String[] titles = stores.getMovies().getTitles(idResults);
         for (int i = 0; i < idResults.length; i++) {
             JPanel resultItem = new JPanel();
             resultItem.setSize(scrollPane.getWidth()-40, itemHeight);
             int filmID = idResults[i];
 
-            JTextArea title = new JTextArea(stores.getMovies().getTitle(idResults[i]));
+            JTextArea title = new JTextArea(titles[i]);
             title.setBounds(0, (itemHeight * i), resultsPane.getWidth(), itemHeight);
             title.setForeground(Constants.getFontColor());
             title.setBackground(Constants.getBackground());
@@ -0,0 +1,348 @@
+package server;
+
+import java.time.LocalDateTime;
+
+import org.json.JSONWriter;
+
+import interfaces.AbstractStores;
+import interfaces.ICredits;
+import interfaces.IKeywords;
+import interfaces.IMovies;
+import interfaces.IRatings;
+import ranking.RankedStores;
+import ranking.Scorer;
+import ranking.Scorers;
+import stores.CastCredit;
+import stores.Company;
+import stores.CrewCredit;
+import stores.Genre;
+import stores.Keyword;
+import stores.Person;
+import utils.Constants;
+
+// What each route writes. Every endpoint checks its parameters and that the
+// thing asked for exists before it writes anything, returning false (a 404)
+// if it doesn't, so nothing has been sent by the time a request is turned down.
+final class Endpoints {
+    static final int DEFAULT_LIMIT = 100;
+    static final int MAX_RESULTS = 10000; // For the n parameter of the top lists
+
+    private final AbstractStores stores;
+    private final IMovies movies;
+    private final IRatings ratings;
+    private final ICredits credits;
+    private final IKeywords keywords;
+
+    Endpoints(AbstractStores stores) {
+        this.stores = stores;
+        this.movies = stores.getMovies();
+        this.ratings = stores.getRatings();
+        this.credits = stores.getCredits();
+        this.keywords = stores.getKeywords();
+    }
+
+    // ---------- Movies ----------
+
+    // GET /movies?offset=&limit=
+    boolean movies(Request request, JSONWriter json) {
+        int offset = request.intParam("offset", 0, 0, Integer.MAX_VALUE);
+        int limit = request.intParam("limit", DEFAULT_LIMIT, 0, Integer.MAX_VALUE);
+        writePage(json, offset, movies.getAllIDs(offset, limit));
+        return true;
+    }
+
+    // GET /movies/search?q=&offset=&limit=
+    boolean search(Request request, JSONWriter json) {
+        String term = request.param("q");
+        if (term == null || term.isEmpty())
+            throw new Request.BadRequest("q is required");
+        int offset = request.intParam("offset", 0, 0, Integer.MAX_VALUE);
+        int limit = request.intParam("limit", DEFAULT_LIMIT, 0, Integer.MAX_VALUE);
+        writePage(json, offset, movies.findFilms(term, offset, limit));
+        return true;
+    }
+
+    // GET /movies/{id}
+    boolean movie(Request request, JSONWriter json) {
+        int id = request.id(1);
+        String title = movies.getTitle(id);
+        if (title == null)
+            return false;
+
+        json.object()
+            .key("id").value(id)
+            .key("title").value(title)
+            .key("originalTitle").value(movies.getOriginalTitle(id))
+            .key("overview").value(movies.getOverview(id))
+            .key("tagline").value(movies.getTagline(id))
+            .key("status").value(movies.getStatus(id))
+            .key("release").value(movies.getRelease(id) == null ? null : movies.getRelease(id).toString())
+            .key("runtime").value(movies.getRuntime(id))
+            .key("budget").value(movies.getBudget(id))
+            .key("revenue").value(movies.getRevenue(id))
+            .key("originalLanguage").value(movies.getOriginalLanguage(id))
+            .key("homepage").value(movies.getHomepage(id))
+            .key("adult").value(movies.getAdult(id))
+            .key("video").value(movies.getVideo(id))
+            .key("poster").value(movies.getPoster(id))
+            .key("imdb").value(movies.getIMDB(id))
+            .key("popularity").value(movies.getPopularity(id))
+            .key("voteAverage").value(movies.getVoteAverage(id))
+            .key("voteCount").value(movies.getVoteCount(id));
+
+        json.key("genres").array();
+        for (Genre genre : movies.getGenres(id))
+            json.object().key("id").value(genre.getID()).key("name").value(genre.getName()).endObject();
+        json.endArray();
+
+        json.key("languages").array();
+        for (String language : movies.getLanguages(id))
+            json.value(language);
+        json.endArray();
+
+        json.key("companies").array();
+        for (Company company : movies.getProductionCompanies(id))
+            json.object().key("id").value(company.getID()).key("name").value(company.getName()).endObject();
+        json.endArray();
+
+        json.key("countries").array();
+        for (String country : movies.getProductionCountries(id))
+            json.value(country);
+        json.endArray();
+
+        int collection = movies.getCollectionID(id);
+        String collectionName = collection < 0 ? null : movies.getCollectionName(collection);
+        if (collectionName != null) {
+            json.key("collection").object()
+                .key("id").value(collection)
+                .key("name").value(collectionName)
+                .endObject();
+        }
+        json.endObject();
+        return true;
+    }
+
+    // GET /movies/{id}/ratings
+    boolean movieRatings(Request request, JSONWriter json) {
+        int id = request.id(1);
+        int count = ratings.getNumRatings(id);
+        if (count <= 0 && movies.getTitle(id) == null)
+            return false;
+
+        json.object()
+            .key("id").value(id)
+            .key("count").value(Math.max(0, count))
+            .key("average").value(ratings.getMovieAverageRating(id))
+            .key("median").value(ratings.getMovieMedianRating(id));
+        writeHistogram(json, ratings.getMovieRatingHistogram(id));
+        json.endObject();
+        return true;
+    }
+
+    // GET /movies/{id}/cast
+    boolean cast(Request request, JSONWriter json) {
+        int id = request.id(1);
+        CastCredit[] cast = credits.getFilmCast(id);
+        if (cast == null || (cast.length == 0 && movies.getTitle(id) == null))
+            return false;
+
+        json.array();
+        for (CastCredit credit : cast) {
+            json.object()
+                .key("id").value(credit.getID())
+                .key("name").value(credit.getName())
+                .key("character").value(credit.getCharacter())
+                .key("order").value(credit.getOrder())
+                .endObject();
+        }
+        json.endArray();
+        return true;
+    }
+
+    // GET /movies/{id}/crew
+    boolean crew(Request request, JSONWriter json) {
+        int id = request.id(1);
+        CrewCredit[] crew = credits.getFilmCrew(id);
+        if (crew == null || (crew.length == 0 && movies.getTitle(id) == null))
+            return false;
+
+        json.array();
+        for (CrewCredit credit : crew) {
+            json.object()
+                .key("id").value(credit.getID())
+                .key("name").value(credit.getName())
+                .key("department").value(credit.getDepartment())
+                .key("job").value(credit.getJob())
+                .endObject();
+        }
+        json.endArray();
+        return true;
+    }
+
+    // GET /movies/{id}/keywords
+    boolean movieKeywords(Request request, JSONWriter json) {
+        int id = request.id(1);
+        Keyword[] found = keywords.getKeywordsForFilm(id);
+        if (found == null)
+            found = new Keyword[0]; // No keywords stored for the film
+        if (found.length == 0 && movies.getTitle(id) == null)
+            return false;
+
+        json.array();
+        for (Keyword keyword : found)
+            json.object().key("id").value(keyword.getID()).key("name").value(keyword.getName()).endObject();
+        json.endArray();
+        return true;
+    }
+
+    // ---------- Ratings ----------
+
+    // GET /ratings/top?n=&scorer=mean|bayesian|wilson|blended
+    boolean top(Request request, JSONWriter json) {
+        int n = request.intParam("n", Constants.topMoviesCount, 0, MAX_RESULTS);
+        String name = request.param("scorer");
+        Scorer scorer = Scorers.named(name == null ? "mean" : name);
+        if (scorer == null)
+            throw new Request.BadRequest("scorer must be one of mean, bayesian, wilson or blended");
+
+        int[] ids;
+        if (stores instanceof RankedStores)
+            ids = ((RankedStores) stores).getRanking().getTop(scorer, n);
+        else if (scorer == Scorers.MEAN)
+            ids = ratings.getTopAverageRatedMovies(n);
+        else
+            throw new Request.BadRequest("Only the mean scorer is available on these stores");
+
+        writeMovieStats(json, ids);
+        return true;
+    }
+
+    // GET /ratings/most-rated?n=
+    boolean mostRated(Request request, JSONWriter json) {
+        int n = request.intParam("n", Constants.topMoviesCount, 0, MAX_RESULTS);
+        writeMovieStats(json, ratings.getMostRatedMovies(n));
+        return true;
+    }
+
+    // GET /ratings/trending?days=&n= (the window ends at the latest rating in the store)
+    boolean trending(Request request, JSONWriter json) {
+        int days = request.intParam("days", Constants.trendingDays, 1, 36500);
+        int n = request.intParam("n", Constants.topMoviesCount, 0, MAX_RESULTS);
+        LocalDateTime latest = ratings.getLatestTimestamp();
+        int[] ids = latest == null ? new int[0] : ratings.getTrendingMovies(latest, days, n);
+        writeMovieStats(json, ids);
+        return true;
+    }
+
+    // GET /ratings/percentile?p=
+    boolean percentile(Request request, JSONWriter json) {
+        double p = request.doubleParam("p", 50, 0, 100);
+        json.object()
+            .key("percentile").value(p)
+            .key("rating").value(ratings.getRatingPercentile(p))
+            .endObject();
+        return true;
+    }
+
+    // GET /users/{id}/ratings
+    boolean userRatings(Request request, JSONWriter json) {
+        int id = request.id(1);
+        int[] rated = ratings.getUserMovies(id);
+        float[] given = ratings.getUserRatings(id);
+        if (rated.length == 0)
+            return false;
+
+        json.object()
+            .key("id").value(id)
+            .key("count").value(rated.length)
+            .key("average").value(ratings.getUserAverageRating(id))
+            .key("median").value(ratings.getUserRatingPercentile(id, 50))
+            .key("drift").value(ratings.getUserRatingDrift(id));
+        writeHistogram(json, ratings.getUserRatingHistogram(id));
+        json.key("ratings").array();
+        for (int i = 0; i < rated.length && i < given.length; i++)
+            json.object().key("movie").value(rated[i]).key("rating").value(given[i]).endObject();
+        json.endArray();
+        json.endObject();
+        return true;
+    }
+
+    // ---------- People and keywords ----------
+
+    // GET /people/{id}
+    boolean person(Request request, JSONWriter json) {
+        int id = request.id(1);
+        Person person = credits.getCast(id);
+        if (person == null)
+            person = credits.getCrew(id);
+        if (person == null)
+            return false;
+
+        json.object()
+            .key("id").value(id)
+            .key("name").value(person.getName())
+            .key("profilePath").value(person.getProfilePath());
+        writeIDs(json.key("castFilms"), credits.getCastFilms(id));
+        writeIDs(json.key("crewFilms"), credits.getCrewFilms(id));
+        json.endObject();
+        return true;
+    }
+
+    // GET /keywords/{id}/films?offset=&limit=
+    boolean keywordFilms(Request request, JSONWriter json) {
+        int id = request.id(1);
+        int offset = request.intParam("offset", 0, 0, Integer.MAX_VALUE);
+        int limit = request.intParam("limit", DEFAULT_LIMIT, 0, Integer.MAX_VALUE);
+        if (keywords.getFilmsWithKeyword(id, 0, 1).length == 0)
+            return false;
+
+        writePage(json, offset, keywords.getFilmsWithKeyword(id, offset, limit));
+        return true;
+    }
+
+    // ---------- Shared shapes ----------
+
+    // {"offset": o, "next": o + n, "results": [{"id", "title"}, ...]}
+    private void writePage(JSONWriter json, int offset, int[] ids) {
+        String[] titles = movies.getTitles(ids);
+        json.object()
+            .key("offset").value(offset)
+            .key("next").value(offset + ids.length);
+        json.key("results").array();
+        for (int i = 0; i < ids.length; i++)
+            json.object().key("id").value(ids[i]).key("title").value(titles[i]).endObject();
+        json.endArray();
+        json.endObject();
+    }
+
+    // [{"id", "title", "average", "count"}, ...]
+    private void writeMovieStats(JSONWriter json, int[] ids) {
+        String[] titles = movies.getTitles(ids);
+        float[] averages = ratings.getMovieAverageRatings(ids);
+        int[] counts = ratings.getNumRatings(ids);
+        json.array();
+        for (int i = 0; i < ids.length; i++) {
+            json.object()
+                .key("id").value(ids[i])
+                .key("title").value(titles[i])
+                .key("average").value(averages[i])
+                .key("count").value(counts[i])
+                .endObject();
+        }
+        json.endArray();
+    }
+
+    private static void writeHistogram(JSONWriter json, int[] histogram) {
+        json.key("histogram").array();
+        for (int count : histogram)
+            json.value(count);
+        json.endArray();
+    }
+
+    private static void writeIDs(JSONWriter json, int[] ids) {
+        json.array();
+        for (int id : ids)
+            json.value(id);
+        json.endArray();
+    }
+}
@@ -0,0 +1,96 @@
+package server;
+
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+// A GET request as the endpoints see it: the path split into segments, and the
+// query parameters. Bad numbers are reported with BadRequest, which the server
+// turns into a 400.
+final class Request {
+    private final String[] segments;
+    private final Map<String, String> params = new HashMap<>();
+
+    Request(URI uri) {
+        String path = uri.getPath() == null ? "" : uri.getPath();
+        String trimmed = path.replaceAll("^/+|/+$", "");
+        segments = trimmed.isEmpty() ? new String[0] : trimmed.split("/+");
+
+        String query = uri.getRawQuery();
+        if (query != null) {
+            for (String pair : query.split("&")) {
+                if (pair.isEmpty())
+                    continue;
+                int eq = pair.indexOf('=');
+                String name = decode(eq < 0 ? pair : pair.substring(0, eq));
+                String value = eq < 0 ? "" : decode(pair.substring(eq + 1));
+                params.putIfAbsent(name, value); // The first one wins
+            }
+        }
+    }
+
+    int numSegments() {
+        return segments.length;
+    }
+
+    String segment(int i) {
+        return segments[i];
+    }
+
+    // The ID in the given path segment (the router has already checked it is a number)
+    int id(int i) {
+        return Integer.parseInt(segments[i]);
+    }
+
+    // A query parameter, or null if it wasn't given
+    String param(String name) {
+        return params.get(name);
+    }
+
+    int intParam(String name, int missing, int min, int max) {
+        String value = params.get(name);
+        if (value == null || value.isEmpty())
+            return missing;
+        try {
+            int parsed = Integer.parseInt(value);
+            if (parsed < min || parsed > max)
+                throw new BadRequest(name + " must be between " + min + " and " + max);
+            return parsed;
+        } catch (NumberFormatException e) {
+            throw new BadRequest(name + " must be a whole number");
+        }
+    }
+
+    double doubleParam(String name, double missing, double min, double max) {
+        String value = params.get(name);
+        if (value == null || value.isEmpty())
+            return missing;
+        try {
+            double parsed = Double.parseDouble(value);
+            if (!(parsed >= min && parsed <= max))
+                throw new BadRequest(name + " must be between " + min + " and " + max);
+            return parsed;
+        } catch (NumberFormatException e) {
+            throw new BadRequest(name + " must be a number");
+        }
+    }
+
+    private static String decode(String s) {
+        try {
+            return URLDecoder.decode(s, StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequest("Badly encoded query string");
+        }
+    }
+
+    // A parameter the client got wrong
+    static final class BadRequest extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        BadRequest(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.sun.net.httpserver.HttpExchange;
+
+// Where an endpoint's JSON goes. Small responses are held back until the
+// endpoint is done, so they can be sent with a Content-Length and an ETag (and
+// as a bodiless 304 when the client already has them). Once a response grows
+// past the buffer limit it is sent chunked as it is written instead, so large
+// results never sit in memory in full; those go without an ETag.
+final class ResponseBody extends OutputStream {
+    private final HttpExchange exchange;
+    private final int limit;
+
+    private byte[] buffer = new byte[4096];
+    private int size = 0;
+    private OutputStream stream = null; // Set once the response is being streamed
+
+    ResponseBody(HttpExchange exchange, int limit) {
+        this.exchange = exchange;
+        this.limit = limit;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        if (stream == null && size + length > limit)
+            startStreaming();
+        if (stream != null) {
+            stream.write(bytes, offset, length);
+            return;
+        }
+        if (size + length > buffer.length) {
+            byte[] bigger = new byte[Math.min(limit, Math.max(size + length, buffer.length * 2))];
+            System.arraycopy(buffer, 0, bigger, 0, size);
+            buffer = bigger;
+        }
+        System.arraycopy(bytes, offset, buffer, size, length);
+        size += length;
+    }
+
+    boolean isStreaming() {
+        return stream != null;
+    }
+
+    // Sends whatever is held back (or ends the chunked stream) and closes the exchange.
+    // ifNoneMatch is the request's If-None-Match header (null if it had none).
+    void finish(String ifNoneMatch) throws IOException {
+        if (stream != null) {
+            stream.close();
+            return;
+        }
+        String etag = etagOf(buffer, size);
+        exchange.getResponseHeaders().set("ETag", etag);
+        if (matches(ifNoneMatch, etag)) {
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+        exchange.sendResponseHeaders(200, size == 0 ? -1 : size);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(buffer, 0, size);
+        }
+    }
+
+    private void startStreaming() throws IOException {
+        exchange.sendResponseHeaders(200, 0); // 0 means chunked
+        stream = exchange.getResponseBody();
+        stream.write(buffer, 0, size);
+        buffer = null;
+    }
+
+    // A strong ETag from a 64 bit FNV-1a hash of the body
+    static String etagOf(byte[] bytes, int length) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < length; i++) {
+            hash ^= bytes[i] & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return String.format("\"%016x\"", hash);
+    }
+
+    // Whether an If-None-Match header lists the ETag (weak comparison, as the spec asks for GETs)
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null)
+            return false;
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.startsWith("W/"))
+                tag = tag.substring(2);
+            if (tag.equals("*") || tag.equals(etag))
+                return true;
+        }
+        return false;
+    }
+}
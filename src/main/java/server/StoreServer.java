@@ -0,0 +1,212 @@
+package server;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.json.JSONWriter;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import interfaces.AbstractStores;
+
+// Serves the stores' queries as JSON over HTTP, for running headless (--serve).
+// Built on the JDK's own HttpServer, which keeps HTTP/1.1 connections alive
+// between requests as long as each exchange is read and closed in full.
+// Requests run on virtual threads where the JDK has them (Java 21 and later)
+// and on a growing pool of threads otherwise.
+//
+// Routes (all GET, IDs are whole numbers):
+//   /movies?offset=&limit=            /movies/search?q=&offset=&limit=
+//   /movies/{id}                      /movies/{id}/ratings
+//   /movies/{id}/cast                 /movies/{id}/crew
+//   /movies/{id}/keywords             /ratings/top?n=&scorer=
+//   /ratings/most-rated?n=            /ratings/trending?days=&n=
+//   /ratings/percentile?p=            /users/{id}/ratings
+//   /people/{id}                      /keywords/{id}/films?offset=&limit=
+public class StoreServer {
+    public static final int DEFAULT_PORT = 8080;
+    static final int BUFFER_LIMIT = 64 * 1024; // Bigger responses are streamed, without an ETag
+    private static final String JSON = "application/json; charset=utf-8";
+
+    // Writes a route's JSON, returning false if what was asked for doesn't exist
+    interface Endpoint {
+        boolean write(Request request, JSONWriter json);
+    }
+
+    private static final class Route {
+        final String[] pattern; // "{id}" segments match any whole number
+        final Endpoint endpoint;
+
+        Route(String pattern, Endpoint endpoint) {
+            this.pattern = pattern.split("/");
+            this.endpoint = endpoint;
+        }
+
+        boolean matches(Request request) {
+            if (request.numSegments() != pattern.length)
+                return false;
+            for (int i = 0; i < pattern.length; i++) {
+                if (pattern[i].equals("{id}") ? !isID(request.segment(i)) : !pattern[i].equals(request.segment(i)))
+                    return false;
+            }
+            return true;
+        }
+    }
+
+    static {
+        // HttpServer sends the headers and the body in separate writes, so with Nagle's
+        // algorithm on every response waits out the client's delayed ACK (~40ms)
+        if (System.getProperty("sun.net.httpserver.nodelay") == null)
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final ArrayList<Route> routes = new ArrayList<>();
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    // Binds to the port (0 picks a free one); call start to begin serving
+    public StoreServer(AbstractStores stores, int port) throws IOException {
+        Endpoints endpoints = new Endpoints(stores);
+        route("movies", endpoints::movies);
+        route("movies/search", endpoints::search);
+        route("movies/{id}", endpoints::movie);
+        route("movies/{id}/ratings", endpoints::movieRatings);
+        route("movies/{id}/cast", endpoints::cast);
+        route("movies/{id}/crew", endpoints::crew);
+        route("movies/{id}/keywords", endpoints::movieKeywords);
+        route("ratings/top", endpoints::top);
+        route("ratings/most-rated", endpoints::mostRated);
+        route("ratings/trending", endpoints::trending);
+        route("ratings/percentile", endpoints::percentile);
+        route("users/{id}/ratings", endpoints::userRatings);
+        route("people/{id}", endpoints::person);
+        route("keywords/{id}/films", endpoints::keywordFilms);
+
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        executor = newExecutor();
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    // Stops taking requests, giving those in flight up to a second to finish
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+    }
+
+    // The port being listened on (the one picked, if the server was made with port 0)
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void route(String pattern, Endpoint endpoint) {
+        routes.add(new Route(pattern, endpoint));
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            drain(exchange.getRequestBody()); // So the connection can be reused
+            if (!exchange.getRequestMethod().equals("GET")) {
+                exchange.getResponseHeaders().set("Allow", "GET");
+                sendError(exchange, 405, "Only GET is supported");
+                return;
+            }
+
+            Request request = new Request(exchange.getRequestURI());
+            Route route = find(request);
+            if (route == null) {
+                sendError(exchange, 404, "No such route");
+                return;
+            }
+
+            exchange.getResponseHeaders().set("Content-Type", JSON);
+            ResponseBody body = new ResponseBody(exchange, BUFFER_LIMIT);
+            Writer writer = new BufferedWriter(new OutputStreamWriter(body, StandardCharsets.UTF_8));
+            boolean found;
+            try {
+                found = route.endpoint.write(request, new JSONWriter(writer));
+            } catch (Request.BadRequest e) {
+                sendError(exchange, 400, e.getMessage());
+                return;
+            }
+            if (!found) {
+                sendError(exchange, 404, "Not found");
+                return;
+            }
+            writer.flush();
+            body.finish(exchange.getRequestHeaders().getFirst("If-None-Match"));
+        } catch (RuntimeException e) {
+            // Too late for an error response if the body was already being streamed;
+            // closing the exchange cuts the chunked response short instead
+            System.err.println("Error serving " + exchange.getRequestURI() + ": " + e);
+            sendError(exchange, 500, "Internal error");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private Route find(Request request) {
+        for (Route route : routes) {
+            if (route.matches(request))
+                return route;
+        }
+        return null;
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) {
+        try {
+            StringBuilder json = new StringBuilder();
+            new JSONWriter(json).object().key("error").value(message).endObject();
+            byte[] bytes = json.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", JSON);
+            exchange.getResponseHeaders().remove("ETag");
+            exchange.sendResponseHeaders(status, bytes.length);
+            exchange.getResponseBody().write(bytes);
+        } catch (IOException e) {
+            // Headers already sent (or the client went away), nothing more to tell it
+        }
+    }
+
+    private static void drain(InputStream in) throws IOException {
+        byte[] skip = new byte[1024];
+        while (in.read(skip) >= 0) {
+        }
+    }
+
+    private static boolean isID(String segment) {
+        if (segment.isEmpty() || segment.length() > 10)
+            return false;
+        for (int i = 0; i < segment.length(); i++) {
+            if (segment.charAt(i) < '0' || segment.charAt(i) > '9')
+                return false;
+        }
+        return Long.parseLong(segment) <= Integer.MAX_VALUE;
+    }
+
+    // A virtual thread per request if the JDK has them, else a pool that grows as needed.
+    // Looked up reflectively so the code still builds and runs on Java 17.
+    private static ExecutorService newExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(task -> {
+                Thread thread = new Thread(task, "store-server");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
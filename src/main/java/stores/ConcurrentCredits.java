@@ -0,0 +1,255 @@
+package stores;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import interfaces.AbstractStores;
+import interfaces.ICredits;
+import interfaces.IntIterator;
+import structures.MyHashTable;
+import structures.TopK;
+import structures.WeightedGraph;
+
+// Thread-safe ICredits. Film credits are spread over independently locked Credits
+// stripes by film ID. The same person can be credited in films from several
+// stripes, so people are de-duplicated by ID when stripes are combined.
+// Collaborations span stripes too, so there is one graph for the whole store,
+// updated while the film's stripe is locked.
+public class ConcurrentCredits implements ICredits {
+    final Stripes<Credits> stripes;
+    final WeightedGraph collaborations;
+    private final AtomicInteger size; // Kept outside the locks so size() never blocks
+
+    public ConcurrentCredits(AbstractStores stores, int stripeCount) {
+        this(new Stripes<>(stripeCount, () -> new Credits(stores, false)), 0, new WeightedGraph());
+    }
+
+    // Wraps existing stripes holding size items (used for snapshots)
+    ConcurrentCredits(Stripes<Credits> stripes, int size, WeightedGraph collaborations) {
+        this.stripes = stripes;
+        this.size = new AtomicInteger(size);
+        this.collaborations = collaborations;
+    }
+
+    @Override
+    public boolean add(CastCredit[] cast, CrewCredit[] crew, int filmID) {
+        return stripes.write(filmID, c -> {
+            boolean added = c.add(cast, crew, filmID);
+            if (added)
+                collaborations.addClique(Credits.peopleIn(cast, crew));
+            return counted(added, 1);
+        });
+    }
+
+    @Override
+    public boolean remove(int filmID) {
+        return stripes.write(filmID, c -> {
+            int[] people = Credits.peopleIn(c.getFilmCast(filmID), c.getFilmCrew(filmID));
+            boolean removed = c.remove(filmID);
+            if (removed)
+                collaborations.removeClique(people);
+            return counted(removed, -1);
+        });
+    }
+
+    @Override
+    public int[] getFilmIDs() {
+        return stripes.gather(Credits::getFilmIDs);
+    }
+
+    @Override
+    public CastCredit[] getFilmCast(int filmID) {
+        return stripes.read(filmID, c -> c.getFilmCast(filmID));
+    }
+
+    @Override
+    public CrewCredit[] getFilmCrew(int filmID) {
+        return stripes.read(filmID, c -> c.getFilmCrew(filmID));
+    }
+
+    @Override
+    public CastCredit[][] getFilmCasts(int[] filmIDs) {
+        CastCredit[][] casts = new CastCredit[filmIDs.length][];
+        stripes.readEach(filmIDs, (c, positions, from, to) -> c.fillFilmCasts(filmIDs, positions, from, to, casts));
+        return casts;
+    }
+
+    @Override
+    public Person getCast(int castID) {
+        for (int i = 0; i < stripes.count(); i++) {
+            Person p = stripes.readStripe(i, c -> c.getCast(castID));
+            if (p != null)
+                return p;
+        }
+        return null;
+    }
+
+    @Override
+    public Person getCrew(int crewID) {
+        for (int i = 0; i < stripes.count(); i++) {
+            Person p = stripes.readStripe(i, c -> c.getCrew(crewID));
+            if (p != null)
+                return p;
+        }
+        return null;
+    }
+
+    @Override
+    public int[] getCastFilms(int castID) {
+        return stripes.gather(c -> c.getCastFilms(castID));
+    }
+
+    @Override
+    public int[] getCrewFilms(int crewID) {
+        return stripes.gather(c -> c.getCrewFilms(crewID));
+    }
+
+    @Override
+    public int[] getCastStarsInFilms(int castID) {
+        return stripes.gather(c -> c.getCastStarsInFilms(castID));
+    }
+
+    @Override
+    public int[] getCastFilms(int castID, int offset, int limit) {
+        return stripes.gatherPage((c, n) -> c.getCastFilms(castID, 0, n), offset, limit);
+    }
+
+    @Override
+    public int[] getCrewFilms(int crewID, int offset, int limit) {
+        return stripes.gatherPage((c, n) -> c.getCrewFilms(crewID, 0, n), offset, limit);
+    }
+
+    @Override
+    public IntIterator iterateCastFilms(int castID) {
+        return Stripes.iterator(getCastFilms(castID));
+    }
+
+    @Override
+    public Person[] getMostCastCredits(int numResults) {
+        // Count every cast member's credits over all stripes in one pass each
+        MyHashTable<Integer, int[]> counts = new MyHashTable<>();
+        for (int i = 0; i < stripes.count(); i++) {
+            stripes.readStripe(i, c -> {
+                c.countCastCredits(counts);
+                return null;
+            });
+        }
+
+        Person[] cast = getUniqueCast();
+        TopK top = new TopK(numResults);
+        MyHashTable<Integer, Person> byID = new MyHashTable<>();
+        for (Person p : cast) {
+            int[] count = counts.get(p.getID());
+            top.offer(p.getID(), count == null ? 0 : count[0]);
+            byID.put(p.getID(), p);
+        }
+
+        int[] ids = top.toIDs();
+        Person[] result = new Person[ids.length];
+        for (int i = 0; i < ids.length; i++)
+            result[i] = byID.get(ids[i]);
+        return result;
+    }
+
+    @Override
+    public int getNumCastCredits(int castID) {
+        int total = 0;
+        for (int i = 0; i < stripes.count(); i++) {
+            int count = stripes.readStripe(i, c -> c.getNumCastCredits(castID));
+            if (count > 0)
+                total += count;
+        }
+        return total == 0 ? -1 : total;
+    }
+
+    @Override
+    public int getNumSharedFilms(int personA, int personB) {
+        return collaborations.getWeight(personA, personB);
+    }
+
+    @Override
+    public int[] getTopCollaborators(int personID, int numResults) {
+        return collaborations.topNeighbours(personID, numResults);
+    }
+
+    @Override
+    public int[] getCollaborationPath(int fromPersonID, int toPersonID) {
+        return collaborations.shortestPath(fromPersonID, toPersonID);
+    }
+
+    @Override
+    public int getDegreesOfSeparation(int fromPersonID, int toPersonID) {
+        return collaborations.shortestPath(fromPersonID, toPersonID).length - 1;
+    }
+
+    @Override
+    public int sizeOfCast(int filmID) {
+        return stripes.read(filmID, c -> c.sizeOfCast(filmID));
+    }
+
+    @Override
+    public int sizeOfCrew(int filmID) {
+        return stripes.read(filmID, c -> c.sizeOfCrew(filmID));
+    }
+
+    @Override
+    public Person[] getUniqueCast() {
+        return Stripes.distinct(stripes.gather(Credits::getUniqueCast, Person[]::new), Person::getID, Person[]::new);
+    }
+
+    @Override
+    public Person[] getUniqueCrew() {
+        return Stripes.distinct(stripes.gather(Credits::getUniqueCrew, Person[]::new), Person::getID, Person[]::new);
+    }
+
+    @Override
+    public Person[] getUniqueCast(int offset, int limit) {
+        return Stripes.slice(getUniqueCast(), offset, limit, Person[]::new);
+    }
+
+    @Override
+    public Person[] getUniqueCrew(int offset, int limit) {
+        return Stripes.slice(getUniqueCrew(), offset, limit, Person[]::new);
+    }
+
+    @Override
+    public int getNumUniqueCast() {
+        return getUniqueCast().length;
+    }
+
+    @Override
+    public int getNumUniqueCrew() {
+        return getUniqueCrew().length;
+    }
+
+    @Override
+    public Person[] findCast(String searchTerm) {
+        return Stripes.distinct(stripes.gather(c -> c.findCast(searchTerm), Person[]::new), Person::getID, Person[]::new);
+    }
+
+    @Override
+    public Person[] findCrew(String searchTerm) {
+        return Stripes.distinct(stripes.gather(c -> c.findCrew(searchTerm), Person[]::new), Person::getID, Person[]::new);
+    }
+
+    @Override
+    public Person[] findCast(String searchTerm, int offset, int limit) {
+        return Stripes.slice(findCast(searchTerm), offset, limit, Person[]::new);
+    }
+
+    @Override
+    public Person[] findCrew(String searchTerm, int offset, int limit) {
+        return Stripes.slice(findCrew(searchTerm), offset, limit, Person[]::new);
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    // Updates the film count after a successful add (+1) or remove (-1), while still holding the lock
+    private boolean counted(boolean changed, int delta) {
+        if (changed)
+            size.addAndGet(delta);
+        return changed;
+    }
+}
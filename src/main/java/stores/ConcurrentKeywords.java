@@ -0,0 +1,145 @@
+package stores;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import interfaces.AbstractStores;
+import interfaces.IKeywords;
+import interfaces.IntIterator;
+import structures.TopK;
+
+// Thread-safe IKeywords. Films' keywords are spread over independently locked
+// Keywords stripes by film ID. The same keyword can be used by films in several
+// stripes, so unique keywords are de-duplicated by ID when stripes are combined.
+public class ConcurrentKeywords implements IKeywords {
+    final Stripes<Keywords> stripes;
+    private final AtomicInteger size; // Kept outside the locks so size() never blocks
+
+    public ConcurrentKeywords(AbstractStores stores, int stripeCount) {
+        this(new Stripes<>(stripeCount, () -> new Keywords(stores)), 0);
+    }
+
+    // Wraps existing stripes holding size items (used for snapshots)
+    ConcurrentKeywords(Stripes<Keywords> stripes, int size) {
+        this.stripes = stripes;
+        this.size = new AtomicInteger(size);
+    }
+
+    @Override
+    public boolean add(int filmID, Keyword[] keywords) {
+        return stripes.write(filmID, k -> {
+            boolean isNew = k.getKeywordsForFilm(filmID) == null;
+            boolean added = k.add(filmID, keywords);
+            if (added && isNew)
+                size.incrementAndGet();
+            return added;
+        });
+    }
+
+    @Override
+    public boolean add(int filmID, Keyword keyword) {
+        return stripes.write(filmID, k -> {
+            boolean isNew = k.getKeywordsForFilm(filmID) == null;
+            boolean added = k.add(filmID, keyword);
+            if (added && isNew)
+                size.incrementAndGet();
+            return added;
+        });
+    }
+
+    @Override
+    public boolean remove(int filmID) {
+        // Keywords.remove expects the film to be there
+        return stripes.write(filmID, k -> {
+            if (k.getKeywordsForFilm(filmID) == null || !k.remove(filmID))
+                return false;
+            size.decrementAndGet();
+            return true;
+        });
+    }
+
+    @Override
+    public boolean removeKeywordFromFilm(int filmID, int keywordID) {
+        return stripes.write(filmID, k -> k.removeKeywordFromFilm(filmID, keywordID));
+    }
+
+    @Override
+    public int[] getFilmIDs() {
+        return stripes.gather(Keywords::getFilmIDs);
+    }
+
+    @Override
+    public int[] getKeywordIDs() {
+        return Stripes.distinct(stripes.gather(Keywords::getKeywordIDs));
+    }
+
+    @Override
+    public int[] getFilmsWithKeyword(int keywordID) {
+        return stripes.gather(k -> k.getFilmsWithKeyword(keywordID));
+    }
+
+    @Override
+    public int[] getFilmIDs(int offset, int limit) {
+        return stripes.gatherPage((k, n) -> k.getFilmIDs(0, n), offset, limit);
+    }
+
+    @Override
+    public int[] getFilmsWithKeyword(int keywordID, int offset, int limit) {
+        return stripes.gatherPage((k, n) -> k.getFilmsWithKeyword(keywordID, 0, n), offset, limit);
+    }
+
+    @Override
+    public IntIterator iterateFilmsWithKeyword(int keywordID) {
+        return Stripes.iterator(getFilmsWithKeyword(keywordID));
+    }
+
+    @Override
+    public Keyword[] getKeywordsForFilm(int filmID) {
+        return stripes.read(filmID, k -> k.getKeywordsForFilm(filmID));
+    }
+
+    @Override
+    public Keyword[] getUnique() {
+        return Stripes.distinct(stripes.gather(Keywords::getUnique, Keyword[]::new), Keyword::getID, Keyword[]::new);
+    }
+
+    @Override
+    public Keyword[] getUnique(int offset, int limit) {
+        return Stripes.slice(getUnique(), offset, limit, Keyword[]::new);
+    }
+
+    @Override
+    public int getNumUnique() {
+        return getUnique().length;
+    }
+
+    @Override
+    public int[] getMostKeywordFilms(int numResults) {
+        TopK top = new TopK(numResults);
+        for (int i = 0; i < stripes.count(); i++) {
+            stripes.readStripe(i, k -> {
+                for (int id : k.getMostKeywordFilms(numResults)) {
+                    Keyword[] words = k.getKeywordsForFilm(id);
+                    if (words != null && words.length > 0)
+                        top.offer(id, words.length);
+                }
+                return null;
+            });
+        }
+
+        // Keywords always returns numResults slots, with unused ones left as 0
+        int[] result = new int[Math.max(0, numResults)];
+        int[] ids = top.toIDs();
+        System.arraycopy(ids, 0, result, 0, ids.length);
+        return result;
+    }
+
+    @Override
+    public Keyword[] findKeywords(String searchTerm) {
+        return stripes.gather(k -> k.findKeywords(searchTerm), Keyword[]::new);
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+}
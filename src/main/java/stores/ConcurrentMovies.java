@@ -0,0 +1,271 @@
+package stores;
+
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import interfaces.AbstractStores;
+import interfaces.IMovies;
+import interfaces.IntIterator;
+
+// Thread-safe IMovies. Films are spread over independently locked Movies stripes
+// by film ID, so loads and lookups for different films run in parallel.
+// Whole-store queries (listing, search, collections) visit the stripes in turn.
+public class ConcurrentMovies implements IMovies {
+    final Stripes<Movies> stripes;
+    private final AtomicInteger size; // Kept outside the locks so size() never blocks
+
+    public ConcurrentMovies(AbstractStores stores, int stripeCount) {
+        this(new Stripes<>(stripeCount, () -> new Movies(stores)), 0);
+    }
+
+    // Wraps existing stripes holding size items (used for snapshots)
+    ConcurrentMovies(Stripes<Movies> stripes, int size) {
+        this.stripes = stripes;
+        this.size = new AtomicInteger(size);
+    }
+
+    @Override
+    public boolean add(int id, String title, String originalTitle, String overview, String tagline, String status, Genre[] genres, LocalDate release, long budget, long revenue, String[] languages, String originalLanguage, double runtime, String homepage, boolean adult, boolean video, String poster) {
+        return stripes.write(id, m -> counted(m.add(id, title, originalTitle, overview, tagline, status, genres, release, budget, revenue, languages, originalLanguage, runtime, homepage, adult, video, poster), 1));
+    }
+
+    @Override
+    public boolean remove(int id) {
+        return stripes.write(id, m -> counted(m.remove(id), -1));
+    }
+
+    @Override
+    public int[] getAllIDs() {
+        return stripes.gather(Movies::getAllIDs);
+    }
+
+    @Override
+    public int[] getAllIDsReleasedInRange(LocalDate start, LocalDate end) {
+        return stripes.gather(m -> m.getAllIDsReleasedInRange(start, end));
+    }
+
+    @Override
+    public int[] getAllIDs(int offset, int limit) {
+        return stripes.gatherPage((m, n) -> m.getAllIDs(0, n), offset, limit);
+    }
+
+    @Override
+    public int[] getAllIDsReleasedInRange(LocalDate start, LocalDate end, int offset, int limit) {
+        return stripes.gatherPage((m, n) -> m.getAllIDsReleasedInRange(start, end, 0, n), offset, limit);
+    }
+
+    @Override
+    public IntIterator iterateAllIDs() {
+        return Stripes.iterator(getAllIDs());
+    }
+
+    @Override
+    public String getTitle(int id) {
+        return stripes.read(id, m -> m.getTitle(id));
+    }
+
+    @Override
+    public String[] getTitles(int[] ids) {
+        String[] titles = new String[ids.length];
+        stripes.readEach(ids, (m, positions, from, to) -> m.fillTitles(ids, positions, from, to, titles));
+        return titles;
+    }
+
+    @Override
+    public String getOriginalTitle(int id) {
+        return stripes.read(id, m -> m.getOriginalTitle(id));
+    }
+
+    @Override
+    public String getOverview(int id) {
+        return stripes.read(id, m -> m.getOverview(id));
+    }
+
+    @Override
+    public String getTagline(int id) {
+        return stripes.read(id, m -> m.getTagline(id));
+    }
+
+    @Override
+    public String getStatus(int id) {
+        return stripes.read(id, m -> m.getStatus(id));
+    }
+
+    @Override
+    public Genre[] getGenres(int id) {
+        return stripes.read(id, m -> m.getGenres(id));
+    }
+
+    @Override
+    public LocalDate getRelease(int id) {
+        return stripes.read(id, m -> m.getRelease(id));
+    }
+
+    @Override
+    public long getBudget(int id) {
+        return stripes.read(id, m -> m.getBudget(id));
+    }
+
+    @Override
+    public long getRevenue(int id) {
+        return stripes.read(id, m -> m.getRevenue(id));
+    }
+
+    @Override
+    public String[] getLanguages(int id) {
+        return stripes.read(id, m -> m.getLanguages(id));
+    }
+
+    @Override
+    public String getOriginalLanguage(int id) {
+        return stripes.read(id, m -> m.getOriginalLanguage(id));
+    }
+
+    @Override
+    public double getRuntime(int id) {
+        return stripes.read(id, m -> m.getRuntime(id));
+    }
+
+    @Override
+    public String getHomepage(int id) {
+        return stripes.read(id, m -> m.getHomepage(id));
+    }
+
+    @Override
+    public boolean getAdult(int id) {
+        return stripes.read(id, m -> m.getAdult(id));
+    }
+
+    @Override
+    public boolean getVideo(int id) {
+        return stripes.read(id, m -> m.getVideo(id));
+    }
+
+    @Override
+    public String getPoster(int id) {
+        return stripes.read(id, m -> m.getPoster(id));
+    }
+
+    @Override
+    public boolean setVote(int id, double voteAverage, int voteCount) {
+        return stripes.write(id, m -> m.setVote(id, voteAverage, voteCount));
+    }
+
+    @Override
+    public double getVoteAverage(int id) {
+        return stripes.read(id, m -> m.getVoteAverage(id));
+    }
+
+    @Override
+    public int getVoteCount(int id) {
+        return stripes.read(id, m -> m.getVoteCount(id));
+    }
+
+    @Override
+    public boolean addToCollection(int filmID, int collectionID, String collectionName, String collectionPosterPath, String collectionBackdropPath) {
+        return stripes.write(filmID, m -> m.addToCollection(filmID, collectionID, collectionName, collectionPosterPath, collectionBackdropPath));
+    }
+
+    @Override
+    public int[] getFilmsInCollection(int collectionID) {
+        return stripes.gather(m -> m.getFilmsInCollection(collectionID));
+    }
+
+    @Override
+    public String getCollectionName(int collectionID) {
+        // A collection's films can be in any stripe, so take the first one that knows it
+        for (int i = 0; i < stripes.count(); i++) {
+            String name = stripes.readStripe(i, m -> m.getCollectionName(collectionID));
+            if (name != null)
+                return name;
+        }
+        return null;
+    }
+
+    @Override
+    public String getCollectionPoster(int collectionID) {
+        for (int i = 0; i < stripes.count(); i++) {
+            String poster = stripes.readStripe(i, m -> m.getCollectionPoster(collectionID));
+            if (poster != null)
+                return poster;
+        }
+        return null;
+    }
+
+    @Override
+    public String getCollectionBackdrop(int collectionID) {
+        for (int i = 0; i < stripes.count(); i++) {
+            String backdrop = stripes.readStripe(i, m -> m.getCollectionBackdrop(collectionID));
+            if (backdrop != null)
+                return backdrop;
+        }
+        return null;
+    }
+
+    @Override
+    public int getCollectionID(int filmID) {
+        return stripes.read(filmID, m -> m.getCollectionID(filmID));
+    }
+
+    @Override
+    public boolean setIMDB(int filmID, String imdbID) {
+        return stripes.write(filmID, m -> m.setIMDB(filmID, imdbID));
+    }
+
+    @Override
+    public String getIMDB(int filmID) {
+        return stripes.read(filmID, m -> m.getIMDB(filmID));
+    }
+
+    @Override
+    public boolean setPopularity(int id, double popularity) {
+        return stripes.write(id, m -> m.setPopularity(id, popularity));
+    }
+
+    @Override
+    public double getPopularity(int id) {
+        return stripes.read(id, m -> m.getPopularity(id));
+    }
+
+    @Override
+    public boolean addProductionCompany(int movieId, Company company) {
+        return stripes.write(movieId, m -> m.addProductionCompany(movieId, company));
+    }
+
+    @Override
+    public boolean addProductionCountry(int movieId, String country) {
+        return stripes.write(movieId, m -> m.addProductionCountry(movieId, country));
+    }
+
+    @Override
+    public Company[] getProductionCompanies(int movieId) {
+        return stripes.read(movieId, m -> m.getProductionCompanies(movieId));
+    }
+
+    @Override
+    public String[] getProductionCountries(int movieId) {
+        return stripes.read(movieId, m -> m.getProductionCountries(movieId));
+    }
+
+    @Override
+    public int[] findFilms(String searchTerm) {
+        return stripes.gather(m -> m.findFilms(searchTerm));
+    }
+
+    @Override
+    public int[] findFilms(String searchTerm, int offset, int limit) {
+        return stripes.gatherPage((m, n) -> m.findFilms(searchTerm, 0, n), offset, limit);
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    // Updates the film count after a successful add (+1) or remove (-1), while still holding the lock
+    private boolean counted(boolean changed, int delta) {
+        if (changed)
+            size.addAndGet(delta);
+        return changed;
+    }
+}
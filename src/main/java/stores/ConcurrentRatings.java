@@ -0,0 +1,407 @@
+package stores;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import interfaces.AbstractStores;
+import interfaces.IRatings;
+import structures.MyHashTable;
+import structures.TopK;
+
+// Thread-safe IRatings. Ratings are spread over independently locked Ratings
+// stripes by movie ID, so every rating of a movie (and the duplicate check on add)
+// lives in one stripe. Per-user queries and leaderboards combine all stripes.
+// Batches are handed to each stripe through a lock-free queue, and whichever
+// thread gets the stripe's lock applies everything queued for it.
+public class ConcurrentRatings implements IRatings {
+    final Stripes<Ratings> stripes;
+    private final ConcurrentLinkedQueue<PendingBatch>[] pending; // Per stripe: batches waiting to be applied
+    private final AtomicInteger size; // Kept outside the locks so size() never blocks
+
+    public ConcurrentRatings(AbstractStores stores, int stripeCount) {
+        this(new Stripes<>(stripeCount, () -> new Ratings(stores)), 0);
+    }
+
+    // Wraps existing stripes holding size items (used for snapshots)
+    ConcurrentRatings(Stripes<Ratings> stripes, int size) {
+        this.stripes = stripes;
+        this.size = new AtomicInteger(size);
+        this.pending = newQueues(stripes.count());
+    }
+
+    // An array of empty queues (generic arrays can't be made directly)
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static ConcurrentLinkedQueue<PendingBatch>[] newQueues(int count) {
+        ConcurrentLinkedQueue<PendingBatch>[] queues = new ConcurrentLinkedQueue[count];
+        for (int i = 0; i < count; i++)
+            queues[i] = new ConcurrentLinkedQueue<>();
+        return queues;
+    }
+
+    // The records of one addBatch call that belong to one stripe
+    private static final class PendingBatch {
+        final int[] userIDs;
+        final int[] movieIDs;
+        final float[] ratings;
+        final long[] timestamps;
+        final int[] positions; // Where each record is in the caller's batch
+        final boolean[] inserted; // Which records were added (null if the caller didn't ask)
+        int filled = 0;
+        volatile int added = -1; // Set once the batch has been applied (after inserted)
+
+        PendingBatch(int size, boolean track) {
+            userIDs = new int[size];
+            movieIDs = new int[size];
+            ratings = new float[size];
+            timestamps = new long[size];
+            positions = new int[size];
+            inserted = track ? new boolean[size] : null;
+        }
+    }
+
+    @Override
+    public boolean add(int userID, int movieID, float rating, LocalDateTime timestamp) {
+        return stripes.write(movieID, r -> {
+            boolean added = r.add(userID, movieID, rating, timestamp);
+            if (added)
+                size.incrementAndGet();
+            return added;
+        });
+    }
+
+    @Override
+    public boolean remove(int userID, int movieID) {
+        return stripes.write(movieID, r -> {
+            boolean removed = r.remove(userID, movieID);
+            if (removed)
+                size.decrementAndGet();
+            return removed;
+        });
+    }
+
+    @Override
+    public boolean set(int userID, int movieID, float rating, LocalDateTime timestamp) {
+        return stripes.write(movieID, r -> {
+            // set() adds the rating if it wasn't there, which changes the size
+            boolean existed = r.hasRating(userID, movieID);
+            boolean done = r.set(userID, movieID, rating, timestamp);
+            if (done && !existed)
+                size.incrementAndGet();
+            return done;
+        });
+    }
+
+    @Override
+    public int addBatch(int[] userIDs, int[] movieIDs, float[] ratings, long[] timestamps) {
+        return addBatch(userIDs, movieIDs, ratings, timestamps, null);
+    }
+
+    @Override
+    public int addBatch(int[] userIDs, int[] movieIDs, float[] ratings, long[] timestamps, boolean[] added) {
+        if (userIDs == null || movieIDs == null || ratings == null || timestamps == null)
+            return 0;
+        int n = userIDs.length;
+        if (movieIDs.length != n || ratings.length != n || timestamps.length != n || (added != null && added.length != n))
+            return 0;
+
+        // Split the records by stripe, keeping their order within each stripe
+        int[] stripeOf = new int[n];
+        int[] counts = new int[stripes.count()];
+        for (int i = 0; i < n; i++) {
+            stripeOf[i] = stripes.indexFor(movieIDs[i]);
+            counts[stripeOf[i]]++;
+        }
+        PendingBatch[] parts = new PendingBatch[stripes.count()];
+        for (int s = 0; s < parts.length; s++) {
+            if (counts[s] > 0)
+                parts[s] = new PendingBatch(counts[s], added != null);
+        }
+        for (int i = 0; i < n; i++) {
+            PendingBatch part = parts[stripeOf[i]];
+            part.userIDs[part.filled] = userIDs[i];
+            part.movieIDs[part.filled] = movieIDs[i];
+            part.ratings[part.filled] = ratings[i];
+            part.timestamps[part.filled] = timestamps[i];
+            part.positions[part.filled] = i;
+            part.filled++;
+        }
+
+        // Queue every part first, then apply them. A thread that gets a stripe's lock
+        // applies every batch queued for it so far, so producers writing to the same
+        // stripe share one lock hold instead of waiting for it one after another.
+        for (int s = 0; s < parts.length; s++) {
+            if (parts[s] != null)
+                pending[s].add(parts[s]);
+        }
+        int count = 0;
+        for (int s = 0; s < parts.length; s++) {
+            PendingBatch part = parts[s];
+            if (part == null)
+                continue;
+            if (part.added < 0) {
+                int stripe = s;
+                stripes.writeStripe(stripe, r -> {
+                    applyPending(stripe, r);
+                    return null;
+                });
+            }
+            count += part.added;
+            if (added != null) {
+                for (int j = 0; j < part.filled; j++)
+                    added[part.positions[j]] = part.inserted[j];
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public float[] getMovieRatings(int movieID) {
+        return stripes.read(movieID, r -> r.getMovieRatings(movieID));
+    }
+
+    @Override
+    public float[] getUserRatings(int userID) {
+        return stripes.gatherFloats(r -> r.getUserRatings(userID));
+    }
+
+    @Override
+    public float getMovieAverageRating(int movieID) {
+        return stripes.read(movieID, r -> r.getMovieAverageRating(movieID));
+    }
+
+    @Override
+    public float getUserAverageRating(int userID) {
+        float[] all = getUserRatings(userID);
+        if (all.length == 0)
+            return -1.0f;
+
+        float sum = 0;
+        for (float rating : all)
+            sum += rating;
+        return sum / all.length;
+    }
+
+    @Override
+    public float[] getMovieRatings(int movieID, int offset, int limit) {
+        return stripes.read(movieID, r -> r.getMovieRatings(movieID, offset, limit));
+    }
+
+    @Override
+    public float[] getUserRatings(int userID, int offset, int limit) {
+        return Stripes.slice(getUserRatings(userID), offset, limit);
+    }
+
+    @Override
+    public int[] getRatedMovies() {
+        return stripes.gather(Ratings::getRatedMovies);
+    }
+
+    @Override
+    public long[] getMovieRatingTimes(int movieID) {
+        return stripes.read(movieID, r -> r.getMovieRatingTimes(movieID));
+    }
+
+    @Override
+    public int[] getMovieRaters(int movieID) {
+        return stripes.read(movieID, r -> r.getMovieRaters(movieID));
+    }
+
+    @Override
+    public float getRating(int userID, int movieID) {
+        return stripes.read(movieID, r -> r.getRating(userID, movieID));
+    }
+
+    @Override
+    public int[] getUserMovies(int userID) {
+        // Visits the stripes in the same order as getUserRatings, so the two line up
+        return stripes.gather(r -> r.getUserMovies(userID));
+    }
+
+    @Override
+    public int[] getMostRatedMovies(int numResults) {
+        // The overall top n is made up of each stripe's own top n
+        TopK top = new TopK(numResults);
+        for (int i = 0; i < stripes.count(); i++) {
+            stripes.readStripe(i, r -> {
+                for (int id : r.getMostRatedMovies(numResults))
+                    top.offer(id, r.getNumRatings(id));
+                return null;
+            });
+        }
+        return top.toIDs();
+    }
+
+    @Override
+    public int[] getMostRatedUsers(int numResults) {
+        // A user's ratings are split over the stripes, so add up their counts first
+        MyHashTable<Integer, int[]> counts = new MyHashTable<>();
+        int[] order = new int[0];
+        int seen = 0;
+        for (int i = 0; i < stripes.count(); i++) {
+            int[][] stripeCounts = stripes.readStripe(i, r -> {
+                int[] users = r.userIDs();
+                int[] num = new int[users.length];
+                for (int j = 0; j < users.length; j++)
+                    num[j] = r.numUserRatings(users[j]);
+                return new int[][] { users, num };
+            });
+
+            for (int j = 0; j < stripeCounts[0].length; j++) {
+                int user = stripeCounts[0][j];
+                int[] count = counts.get(user);
+                if (count == null) {
+                    counts.put(user, new int[] { stripeCounts[1][j] });
+                    if (seen == order.length) {
+                        int[] grown = new int[Math.max(16, order.length * 2)];
+                        System.arraycopy(order, 0, grown, 0, order.length);
+                        order = grown;
+                    }
+                    order[seen++] = user;
+                } else {
+                    count[0] += stripeCounts[1][j];
+                }
+            }
+        }
+
+        TopK top = new TopK(numResults);
+        for (int j = 0; j < seen; j++)
+            top.offer(order[j], counts.get(order[j])[0]);
+        return top.toIDs();
+    }
+
+    @Override
+    public int getNumRatings(int movieID) {
+        return stripes.read(movieID, r -> r.getNumRatings(movieID));
+    }
+
+    @Override
+    public float[] getMovieAverageRatings(int[] movieIDs) {
+        float[] averages = new float[movieIDs.length];
+        stripes.readEach(movieIDs, (r, positions, from, to) -> r.fillMovieStats(movieIDs, positions, from, to, averages, null));
+        return averages;
+    }
+
+    @Override
+    public int[] getNumRatings(int[] movieIDs) {
+        int[] counts = new int[movieIDs.length];
+        stripes.readEach(movieIDs, (r, positions, from, to) -> r.fillMovieStats(movieIDs, positions, from, to, null, counts));
+        return counts;
+    }
+
+    @Override
+    public int[] getTopAverageRatedMovies(int numResults) {
+        TopK top = new TopK(numResults);
+        for (int i = 0; i < stripes.count(); i++) {
+            stripes.readStripe(i, r -> {
+                for (int id : r.getTopAverageRatedMovies(numResults))
+                    top.offer(id, r.getMovieAverageRating(id));
+                return null;
+            });
+        }
+        return top.toIDs();
+    }
+
+    @Override
+    public int[] getTrendingMovies(LocalDateTime reference, int days, int numResults) {
+        if (reference == null || days <= 0 || numResults <= 0)
+            return new int[0];
+
+        // Each movie is in one stripe, so the stripes' totals never overlap
+        MonthIndex.Totals totals = new MonthIndex.Totals();
+        long to = reference.toEpochSecond(ZoneOffset.UTC);
+        for (int i = 0; i < stripes.count(); i++) {
+            stripes.readStripe(i, r -> {
+                r.countWindow(to - days * 86400L, to, totals);
+                return null;
+            });
+        }
+        return totals.top(numResults);
+    }
+
+    @Override
+    public int[] getMonthlyRatingCounts(int movieID, YearMonth from, YearMonth to) {
+        return stripes.read(movieID, r -> r.getMonthlyRatingCounts(movieID, from, to));
+    }
+
+    @Override
+    public float getUserRatingDrift(int userID) {
+        // A user's ratings are split over the stripes, but the fit's sums just add up
+        double[] sums = new double[5];
+        for (int i = 0; i < stripes.count(); i++) {
+            double[] part = stripes.readStripe(i, r -> r.driftSums(userID));
+            for (int j = 0; j < sums.length; j++)
+                sums[j] += part[j];
+        }
+        return Ratings.drift(sums);
+    }
+
+    @Override
+    public LocalDateTime getLatestTimestamp() {
+        long latest = Long.MIN_VALUE;
+        for (int i = 0; i < stripes.count(); i++)
+            latest = Math.max(latest, stripes.readStripe(i, Ratings::latestSecond));
+        return latest == Long.MIN_VALUE ? null : LocalDateTime.ofEpochSecond(latest, 0, ZoneOffset.UTC);
+    }
+
+    @Override
+    public int[] getMovieRatingHistogram(int movieID) {
+        return stripes.read(movieID, r -> r.getMovieRatingHistogram(movieID));
+    }
+
+    @Override
+    public int[] getUserRatingHistogram(int userID) {
+        // A user's ratings are split over the stripes, so their histograms are added up
+        int[] histogram = new int[Ratings.NUM_BUCKETS];
+        for (int i = 0; i < stripes.count(); i++) {
+            int[] part = stripes.readStripe(i, r -> r.getUserRatingHistogram(userID));
+            for (int b = 0; b < histogram.length; b++)
+                histogram[b] += part[b];
+        }
+        return histogram;
+    }
+
+    @Override
+    public float getMovieMedianRating(int movieID) {
+        return stripes.read(movieID, r -> r.getMovieMedianRating(movieID));
+    }
+
+    @Override
+    public float getMovieRatingPercentile(int movieID, double percentile) {
+        return stripes.read(movieID, r -> r.getMovieRatingPercentile(movieID, percentile));
+    }
+
+    @Override
+    public float getUserRatingPercentile(int userID, double percentile) {
+        return Ratings.percentileOf(getUserRatingHistogram(userID), percentile);
+    }
+
+    @Override
+    public float getRatingPercentile(double percentile) {
+        RatingDistribution all = new RatingDistribution();
+        for (int i = 0; i < stripes.count(); i++) {
+            stripes.readStripe(i, r -> {
+                all.addAll(r.distribution());
+                return null;
+            });
+        }
+        return all.percentile(percentile);
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    // Applies every batch queued for a stripe (the caller holds its write lock)
+    private void applyPending(int stripe, Ratings r) {
+        PendingBatch batch;
+        while ((batch = pending[stripe].poll()) != null) {
+            int added = r.addBatch(batch.userIDs, batch.movieIDs, batch.ratings, batch.timestamps, batch.inserted);
+            size.addAndGet(added);
+            batch.added = added;
+        }
+    }
+}
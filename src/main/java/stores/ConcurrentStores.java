@@ -0,0 +1,60 @@
+package stores;
+
+import interfaces.AbstractStores;
+
+// Stores that can be loaded and queried from several threads at once.
+// Each store is split into lock stripes by ID (see Stripes), each guarded by its
+// own StampedLock: reads share their stripe's read lock and writes take its write
+// lock, so threads working on different films rarely block each other.
+public class ConcurrentStores extends AbstractStores {
+    public static final int DEFAULT_STRIPES = 16;
+
+    public ConcurrentStores() {
+        this(DEFAULT_STRIPES);
+    }
+
+    public ConcurrentStores(int stripeCount) {
+        credits  = new ConcurrentCredits(this, stripeCount);
+        keywords = new ConcurrentKeywords(this, stripeCount);
+        movies   = new ConcurrentMovies(this, stripeCount);
+        ratings  = new ConcurrentRatings(this, stripeCount);
+    }
+
+    // The stores of a snapshot, sharing the data of the source's (see snapshot).
+    // Every stripe of the snapshot belongs to this, so the snapshot's Ratings asks
+    // the snapshot's Movies whether an unrated film exists, not the live ones.
+    private ConcurrentStores(ConcurrentStores source) {
+        ConcurrentRatings r = (ConcurrentRatings) source.ratings;
+        ConcurrentCredits c = (ConcurrentCredits) source.credits;
+        ConcurrentKeywords k = (ConcurrentKeywords) source.keywords;
+        ConcurrentMovies m = (ConcurrentMovies) source.movies;
+
+        // Locked in the same order as reads nest (Ratings reads Movies), so this can't deadlock with them
+        long[] rLocks = r.stripes.readLockAll();
+        long[] cLocks = c.stripes.readLockAll();
+        long[] kLocks = k.stripes.readLockAll();
+        long[] mLocks = m.stripes.readLockAll();
+        try {
+            credits  = new ConcurrentCredits(c.stripes.share(s -> s.share(this)), c.size(), c.collaborations.copy());
+            keywords = new ConcurrentKeywords(k.stripes.share(s -> s.share(this)), k.size());
+            movies   = new ConcurrentMovies(m.stripes.share(s -> s.share(this)), m.size());
+            ratings  = new ConcurrentRatings(r.stripes.share(s -> s.share(this)), r.size());
+        } finally {
+            m.stripes.unlockAllRead(mLocks);
+            k.stripes.unlockAllRead(kLocks);
+            c.stripes.unlockAllRead(cLocks);
+            r.stripes.unlockAllRead(rLocks);
+        }
+    }
+
+    // Takes a consistent snapshot by briefly holding every stripe's read lock, which
+    // only waits for writes already in progress. The snapshot shares the stores' data
+    // rather than copying it; each live store copies a part (a movie's ratings, a
+    // bucket of a table) before it first changes it, and the old version is garbage
+    // collected once no snapshot refers to it.
+    @Override
+    public AbstractStores snapshot() {
+        ConcurrentStores copy = new ConcurrentStores(this);
+        return new ReadOnlyStores(copy.credits, copy.keywords, copy.movies, copy.ratings);
+    }
+}
@@ -5,18 +5,35 @@ import structures.*;
 
 // Implementation of the ICredits interface, managing cast and crew information for movies
 public class Credits implements ICredits {
-    private Stores stores;
+    private AbstractStores stores;
 
     private MyHashTable<Integer, CreditRecord> creditRecords; // Maps film ID to its CreditRecord
     private MyDynamicArray<CastCredit> uniqueCast; // Stores unique cast members
     private MyDynamicArray<CrewCredit> uniqueCrew; // Stores unique crew members
+    private IntIntMap castSlots; // Maps cast ID to their index in uniqueCast
+    private IntIntMap crewSlots; // Maps crew ID to their index in uniqueCrew
+    private PostingsTable castFilms; // The films each cast member appears in, at the same index
+    private PostingsTable crewFilms; // The films each crew member worked on, at the same index
+    private WeightedGraph collaborations; // Links people by the number of films they share (null if not kept)
+    private boolean shared; // Whether a share() twin still uses the slots, postings and graph (see detach)
 
     // Constructor initializes data structures
-    public Credits(Stores stores) {
+    public Credits(AbstractStores stores) {
+        this(stores, true);
+    }
+
+    // Stores built from several Credits keep one collaboration graph for all of them,
+    // so theirs are made without one
+    Credits(AbstractStores stores, boolean keepCollaborations) {
         this.stores = stores;
         creditRecords = new MyHashTable<>();
         uniqueCast = new MyDynamicArray<>();
         uniqueCrew = new MyDynamicArray<>();
+        castSlots = new IntIntMap();
+        crewSlots = new IntIntMap();
+        castFilms = new PostingsTable();
+        crewFilms = new PostingsTable();
+        collaborations = keepCollaborations ? new WeightedGraph() : null;
     }
 
     // Adds a cast and crew entry for a movie
@@ -24,31 +41,67 @@ public class Credits implements ICredits {
     public boolean add(CastCredit[] cast, CrewCredit[] crew, int id) {
         if (creditRecords.containsKey(id))
             return false; // Prevent duplicates
+        detach();
         creditRecords.put(id, new CreditRecord(cast, crew));
 
         // Add unique cast members
         if (cast != null) {
             for (CastCredit c : cast) {
-                if (!containsCast(c.getID()))
+                int slot = castSlots.get(c.getID(), -1);
+                if (slot < 0) {
+                    slot = uniqueCast.size();
                     uniqueCast.add(c);
+                    castFilms.addSlot();
+                    castSlots.put(c.getID(), slot);
+                }
+                castFilms.add(slot, id);
             }
         }
 
         // Add unique crew members
         if (crew != null) {
             for (CrewCredit c : crew) {
-                if (!containsCrew(c.getID()))
+                int slot = crewSlots.get(c.getID(), -1);
+                if (slot < 0) {
+                    slot = uniqueCrew.size();
                     uniqueCrew.add(c);
+                    crewFilms.addSlot();
+                    crewSlots.put(c.getID(), slot);
+                }
+                crewFilms.add(slot, id);
             }
         }
 
+        if (collaborations != null)
+            collaborations.addClique(peopleIn(cast, crew));
         return true;
     }
 
     // Removes a movie's credits
     @Override
     public boolean remove(int id) {
-        return creditRecords.remove(id) != null;
+        if (!creditRecords.containsKey(id))
+            return false;
+        detach();
+        CreditRecord record = creditRecords.remove(id);
+        if (record == null)
+            return false;
+        if (record.cast != null) {
+            for (CastCredit c : record.cast)
+                castFilms.remove(castSlots.get(c.getID(), -1), id);
+        }
+        if (record.crew != null) {
+            for (CrewCredit c : record.crew)
+                crewFilms.remove(crewSlots.get(c.getID(), -1), id);
+        }
+        if (collaborations != null)
+            collaborations.removeClique(peopleIn(record.cast, record.crew));
+        return true;
+    }
+
+    @Override
+    public int[] getFilmIDs() {
+        return creditRecords.keys();
     }
 
     // Gets the cast of a movie, sorted by billing order
@@ -75,6 +128,14 @@ public class Credits implements ICredits {
         return crewCopy;
     }
 
+    // Gets the cast of each film, one array per ID
+    @Override
+    public CastCredit[][] getFilmCasts(int[] filmIDs) {
+        CastCredit[][] casts = new CastCredit[filmIDs.length][];
+        fillFilmCasts(filmIDs, null, 0, filmIDs.length, casts);
+        return casts;
+    }
+
     // Gets the size of the cast
     @Override
     public int sizeOfCast(int filmID) {
@@ -109,6 +170,44 @@ public class Credits implements ICredits {
         return result;
     }
 
+    // Returns a page of the unique cast members, in the order they were first added
+    @Override
+    public Person[] getUniqueCast(int offset, int limit) {
+        if (offset < 0 || limit < 0 || offset >= uniqueCast.size())
+            return new Person[0];
+
+        int end = (int) Math.min((long) offset + limit, uniqueCast.size());
+        Person[] result = new Person[end - offset];
+        for (int i = offset; i < end; i++)
+            result[i - offset] = uniqueCast.get(i);
+        return result;
+    }
+
+    // Returns a page of the unique crew members, in the order they were first added
+    @Override
+    public Person[] getUniqueCrew(int offset, int limit) {
+        if (offset < 0 || limit < 0 || offset >= uniqueCrew.size())
+            return new Person[0];
+
+        int end = (int) Math.min((long) offset + limit, uniqueCrew.size());
+        Person[] result = new Person[end - offset];
+        for (int i = offset; i < end; i++)
+            result[i - offset] = uniqueCrew.get(i);
+        return result;
+    }
+
+    // Returns how many unique cast members there are, without copying them
+    @Override
+    public int getNumUniqueCast() {
+        return uniqueCast.size();
+    }
+
+    // Returns how many unique crew members there are, without copying them
+    @Override
+    public int getNumUniqueCrew() {
+        return uniqueCrew.size();
+    }
+
     // Searches cast members by name
     @Override
     public Person[] findCast(String cast) {
@@ -133,85 +232,99 @@ public class Credits implements ICredits {
         return toPersonArray(result);
     }
 
-    // Gets a cast member by their ID
+    // Returns a page of the cast members whose name contains the search term
     @Override
-    public Person getCast(int castID) {
-        for (int i = 0; i < uniqueCast.size(); i++) {
+    public Person[] findCast(String cast, int offset, int limit) {
+        MyDynamicArray<Person> result = new MyDynamicArray<>();
+        if (offset < 0 || limit <= 0)
+            return new Person[0];
+
+        int matched = 0;
+        for (int i = 0; i < uniqueCast.size() && result.size() < limit; i++) {
             CastCredit c = uniqueCast.get(i);
-            if (c.getID() == castID)
-                return c;
+            if (c.getName() != null && c.getName().contains(cast) && matched++ >= offset)
+                result.add(c);
         }
-        return null;
+        return toPersonArray(result);
     }
 
-    // Gets a crew member by their ID
+    // Returns a page of the crew members whose name contains the search term
     @Override
-    public Person getCrew(int crewID) {
-        for (int i = 0; i < uniqueCrew.size(); i++) {
+    public Person[] findCrew(String crew, int offset, int limit) {
+        MyDynamicArray<Person> result = new MyDynamicArray<>();
+        if (offset < 0 || limit <= 0)
+            return new Person[0];
+
+        int matched = 0;
+        for (int i = 0; i < uniqueCrew.size() && result.size() < limit; i++) {
             CrewCredit c = uniqueCrew.get(i);
-            if (c.getID() == crewID)
-                return c;
+            if (c.getName() != null && c.getName().contains(crew) && matched++ >= offset)
+                result.add(c);
         }
-        return null;
+        return toPersonArray(result);
+    }
+
+    // Gets a cast member by their ID
+    @Override
+    public Person getCast(int castID) {
+        int slot = castSlots.get(castID, -1);
+        return slot < 0 ? null : uniqueCast.get(slot);
     }
 
-    // Returns all films a cast member has appeared in
+    // Gets a crew member by their ID
+    @Override
+    public Person getCrew(int crewID) {
+        int slot = crewSlots.get(crewID, -1);
+        return slot < 0 ? null : uniqueCrew.get(slot);
+    }
+
+    // Returns all films a cast member has appeared in, ascending
     @Override
     public int[] getCastFilms(int castID) {
-        MyDynamicArray<Integer> result = new MyDynamicArray<>();
-        int[] keys = creditRecords.keys();
-        for (int filmID : keys) {
-            CreditRecord r = creditRecords.get(filmID);
-            if (r.cast != null) {
-                for (CastCredit c : r.cast) {
-                    if (c.getID() == castID) {
-                        result.add(filmID);
-                        break;
-                    }
-                }
-            }
-        }
-        return toIntArray(result);
+        return postings(castSlots, castFilms, castID).toArray();
     }
 
-    // Returns all films a crew member has worked on
+    // Returns all films a crew member has worked on, ascending
     @Override
     public int[] getCrewFilms(int crewID) {
-        MyDynamicArray<Integer> result = new MyDynamicArray<>();
-        int[] keys = creditRecords.keys();
-        for (int filmID : keys) {
-            CreditRecord r = creditRecords.get(filmID);
-            if (r.crew != null) {
-                for (CrewCredit c : r.crew) {
-                    if (c.getID() == crewID) {
-                        result.add(filmID);
-                        break;
-                    }
-                }
-            }
-        }
-        return toIntArray(result);
+        return postings(crewSlots, crewFilms, crewID).toArray();
     }
 
     // Gets all films where a cast member was a "star" (top 3 billing order)
     @Override
     public int[] getCastStarsInFilms(int castID) {
         MyDynamicArray<Integer> result = new MyDynamicArray<>();
-        int[] keys = creditRecords.keys();
-        for (int filmID : keys) {
-            CreditRecord r = creditRecords.get(filmID);
-            if (r.cast != null) {
-                for (CastCredit c : r.cast) {
-                    if (c.getID() == castID && c.getOrder() <= 3) {
-                        result.add(filmID);
-                        break;
-                    }
+        IntPostings.Cursor films = postings(castSlots, castFilms, castID).cursor();
+        while (films.hasNext()) {
+            int filmID = films.next();
+            for (CastCredit c : creditRecords.get(filmID).cast) {
+                if (c.getID() == castID && c.getOrder() <= 3) {
+                    result.add(filmID);
+                    break;
                 }
             }
         }
         return toIntArray(result);
     }
 
+    // Returns a page of the films a cast member has appeared in, stopping once the page is full
+    @Override
+    public int[] getCastFilms(int castID, int offset, int limit) {
+        return toIntArray(nextPage(iterateCastFilms(castID), offset, limit));
+    }
+
+    // Returns a page of the films a crew member has worked on, stopping once the page is full
+    @Override
+    public int[] getCrewFilms(int crewID, int offset, int limit) {
+        return toIntArray(nextPage(iterator(postings(crewSlots, crewFilms, crewID)), offset, limit));
+    }
+
+    // Walks the films a cast member has appeared in
+    @Override
+    public IntIterator iterateCastFilms(int castID) {
+        return iterator(postings(castSlots, castFilms, castID));
+    }
+
     // Returns the top cast members with the most credits
     @Override
     public Person[] getMostCastCredits(int numResults) {
@@ -236,42 +349,127 @@ public class Credits implements ICredits {
     @Override
     public int getNumCastCredits(int castID) {
         int count = 0;
-        int[] keys = creditRecords.keys();
-        for (int filmID : keys) {
-            CreditRecord r = creditRecords.get(filmID);
-            if (r.cast != null) {
-                for (CastCredit c : r.cast) {
-                    if (c.getID() == castID)
-                        count++;
-                }
+        IntPostings.Cursor films = postings(castSlots, castFilms, castID).cursor();
+        while (films.hasNext()) {
+            for (CastCredit c : creditRecords.get(films.next()).cast) {
+                if (c.getID() == castID)
+                    count++;
             }
         }
         return count == 0 ? -1 : count;
     }
 
+    // Gets the number of films two people both worked on (from their postings if
+    // there is no collaboration graph)
+    @Override
+    public int getNumSharedFilms(int personA, int personB) {
+        if (collaborations == null)
+            return IntPostings.andCardinality(allFilms(personA), allFilms(personB));
+        return collaborations.getWeight(personA, personB);
+    }
+
+    // Gets the people who worked on the most films with someone, most first
+    @Override
+    public int[] getTopCollaborators(int personID, int numResults) {
+        return collaborations.topNeighbours(personID, numResults);
+    }
+
+    // Gets a shortest chain of collaborators between two people, both included (empty if none)
+    @Override
+    public int[] getCollaborationPath(int fromPersonID, int toPersonID) {
+        return collaborations.shortestPath(fromPersonID, toPersonID);
+    }
+
+    // Gets the number of links between two people, or -1 if they aren't connected
+    @Override
+    public int getDegreesOfSeparation(int fromPersonID, int toPersonID) {
+        return collaborations.shortestPath(fromPersonID, toPersonID).length - 1;
+    }
+
     @Override
     public int size() {
         return creditRecords.size();
     }
 
-    // ---------- Helper Methods ----------
-
-    // Checks if a cast member already exists
-    private boolean containsCast(int id) {
-        for (int i = 0; i < uniqueCast.size(); i++) {
-            if (uniqueCast.get(i).getID() == id)
-                return true;
+    // ---------- Package-private access for stores built on top of this one ----------
+
+    // Fills in the cast of filmIDs[positions[k]] for k in [from, to) (positions null
+    // for k itself), as getFilmCast gives it, looking each film up once
+    void fillFilmCasts(int[] filmIDs, int[] positions, int from, int to, CastCredit[][] casts) {
+        for (int k = from; k < to; k++) {
+            int i = positions == null ? k : positions[k];
+            CreditRecord record = creditRecords.get(filmIDs[i]);
+            if (record == null || record.cast == null) {
+                casts[i] = new CastCredit[0];
+            } else {
+                casts[i] = record.cast.clone();
+                insertionSortCastByOrder(casts[i]);
+            }
         }
-        return false;
     }
 
-    // Checks if a crew member already exists
-    private boolean containsCrew(int id) {
-        for (int i = 0; i < uniqueCrew.size(); i++) {
-            if (uniqueCrew.get(i).getID() == id)
-                return true;
+    // A store holding the same credits (used for snapshots), owned by the given stores.
+    // Credit records are never changed once added, and the record table and people
+    // lists copy what they change, so those are shared. The slots, postings and graph
+    // only change when films are added or removed (a reload), so the next such change
+    // copies them whole rather than each snapshot doing so.
+    Credits share(AbstractStores owner) {
+        Credits twin = new Credits(owner, false);
+        twin.creditRecords = creditRecords.share();
+        twin.uniqueCast = uniqueCast.share();
+        twin.uniqueCrew = uniqueCrew.share();
+        twin.castSlots = castSlots;
+        twin.crewSlots = crewSlots;
+        twin.castFilms = castFilms;
+        twin.crewFilms = crewFilms;
+        twin.collaborations = collaborations;
+        twin.shared = true;
+        shared = true;
+        return twin;
+    }
+
+    // Takes its own copies of the structures share() left in common, before changing them
+    private void detach() {
+        if (!shared)
+            return;
+        castSlots = castSlots.copy();
+        crewSlots = crewSlots.copy();
+        castFilms = castFilms.copy();
+        crewFilms = crewFilms.copy();
+        if (collaborations != null)
+            collaborations = collaborations.copy();
+        shared = false;
+    }
+
+    // Adds every cast credit in this store to counts (cast ID -> {count}), in one pass
+    void countCastCredits(MyHashTable<Integer, int[]> counts) {
+        int[] keys = creditRecords.keys();
+        for (int filmID : keys) {
+            CreditRecord r = creditRecords.get(filmID);
+            if (r.cast == null)
+                continue;
+            for (CastCredit c : r.cast) {
+                int[] count = counts.get(c.getID());
+                if (count == null)
+                    counts.put(c.getID(), new int[] { 1 });
+                else
+                    count[0]++;
+            }
         }
-        return false;
+    }
+
+    // ---------- Helper Methods ----------
+
+    // IDs of everyone credited on a film (a person with several credits appears more than once)
+    static int[] peopleIn(CastCredit[] cast, CrewCredit[] crew) {
+        int numCast = cast == null ? 0 : cast.length;
+        int numCrew = crew == null ? 0 : crew.length;
+        int[] people = new int[numCast + numCrew];
+        for (int i = 0; i < numCast; i++)
+            people[i] = cast[i].getID();
+        for (int i = 0; i < numCrew; i++)
+            people[numCast + i] = crew[i].getID();
+        return people;
     }
 
     // Converts a dynamic array of persons to a regular array
@@ -282,6 +480,48 @@ public class Credits implements ICredits {
         return result;
     }
 
+    // A person's films, from the slots and postings of cast or crew (empty if they
+    // have none). People keep their slot once their films are removed, as they stay
+    // in uniqueCast and uniqueCrew.
+    private static IntPostings postings(IntIntMap slots, PostingsTable films, int personID) {
+        int slot = slots.get(personID, -1);
+        return slot < 0 ? new IntPostings() : films.get(slot);
+    }
+
+    // The films a person is credited in, as cast or crew
+    private IntPostings allFilms(int personID) {
+        return IntPostings.or(postings(castSlots, castFilms, personID), postings(crewSlots, crewFilms, personID));
+    }
+
+    // Walks postings without copying them out
+    private static IntIterator iterator(IntPostings postings) {
+        IntPostings.Cursor films = postings.cursor();
+        return new IntIterator() {
+            @Override
+            public boolean hasNext() {
+                return films.hasNext();
+            }
+
+            @Override
+            public int next() {
+                return films.next();
+            }
+        };
+    }
+
+    // Reads one page from an iterator: skips offset items, then collects at most limit
+    private MyDynamicArray<Integer> nextPage(IntIterator it, int offset, int limit) {
+        MyDynamicArray<Integer> result = new MyDynamicArray<>();
+        if (offset < 0 || limit <= 0)
+            return result;
+
+        for (int skipped = 0; skipped < offset && it.hasNext(); skipped++)
+            it.next();
+        while (it.hasNext() && result.size() < limit)
+            result.add(it.next());
+        return result;
+    }
+
     // Converts a dynamic array of integers to a regular array
     private int[] toIntArray(MyDynamicArray<Integer> arr) {
         int[] result = new int[arr.size()];
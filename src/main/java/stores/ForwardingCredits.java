@@ -0,0 +1,179 @@
+package stores;
+
+import interfaces.ICredits;
+import interfaces.IntIterator;
+
+// Credits store that passes every call on to another ICredits.
+// Subclasses override only the calls they need to intercept (caching, locking, logging...).
+public abstract class ForwardingCredits implements ICredits {
+    protected final ICredits delegate;
+
+    protected ForwardingCredits(ICredits delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public boolean add(CastCredit[] cast, CrewCredit[] crew, int filmID) {
+        return delegate.add(cast, crew, filmID);
+    }
+
+    @Override
+    public boolean remove(int filmID) {
+        return delegate.remove(filmID);
+    }
+
+    @Override
+    public int[] getFilmIDs() {
+        return delegate.getFilmIDs();
+    }
+
+    @Override
+    public CastCredit[] getFilmCast(int filmID) {
+        return delegate.getFilmCast(filmID);
+    }
+
+    @Override
+    public CrewCredit[] getFilmCrew(int filmID) {
+        return delegate.getFilmCrew(filmID);
+    }
+
+    @Override
+    public CastCredit[][] getFilmCasts(int[] filmIDs) {
+        return delegate.getFilmCasts(filmIDs);
+    }
+
+    @Override
+    public Person getCast(int castID) {
+        return delegate.getCast(castID);
+    }
+
+    @Override
+    public Person getCrew(int crewID) {
+        return delegate.getCrew(crewID);
+    }
+
+    @Override
+    public int[] getCastFilms(int castID) {
+        return delegate.getCastFilms(castID);
+    }
+
+    @Override
+    public int[] getCrewFilms(int crewID) {
+        return delegate.getCrewFilms(crewID);
+    }
+
+    @Override
+    public int[] getCastStarsInFilms(int castID) {
+        return delegate.getCastStarsInFilms(castID);
+    }
+
+    @Override
+    public int[] getCastFilms(int castID, int offset, int limit) {
+        return delegate.getCastFilms(castID, offset, limit);
+    }
+
+    @Override
+    public int[] getCrewFilms(int crewID, int offset, int limit) {
+        return delegate.getCrewFilms(crewID, offset, limit);
+    }
+
+    @Override
+    public IntIterator iterateCastFilms(int castID) {
+        return delegate.iterateCastFilms(castID);
+    }
+
+    @Override
+    public Person[] getMostCastCredits(int numResults) {
+        return delegate.getMostCastCredits(numResults);
+    }
+
+    @Override
+    public int getNumCastCredits(int castID) {
+        return delegate.getNumCastCredits(castID);
+    }
+
+    @Override
+    public int getNumSharedFilms(int personA, int personB) {
+        return delegate.getNumSharedFilms(personA, personB);
+    }
+
+    @Override
+    public int[] getTopCollaborators(int personID, int numResults) {
+        return delegate.getTopCollaborators(personID, numResults);
+    }
+
+    @Override
+    public int[] getCollaborationPath(int fromPersonID, int toPersonID) {
+        return delegate.getCollaborationPath(fromPersonID, toPersonID);
+    }
+
+    @Override
+    public int getDegreesOfSeparation(int fromPersonID, int toPersonID) {
+        return delegate.getDegreesOfSeparation(fromPersonID, toPersonID);
+    }
+
+    @Override
+    public int sizeOfCast(int filmID) {
+        return delegate.sizeOfCast(filmID);
+    }
+
+    @Override
+    public int sizeOfCrew(int filmID) {
+        return delegate.sizeOfCrew(filmID);
+    }
+
+    @Override
+    public Person[] getUniqueCast() {
+        return delegate.getUniqueCast();
+    }
+
+    @Override
+    public Person[] getUniqueCrew() {
+        return delegate.getUniqueCrew();
+    }
+
+    @Override
+    public Person[] getUniqueCast(int offset, int limit) {
+        return delegate.getUniqueCast(offset, limit);
+    }
+
+    @Override
+    public Person[] getUniqueCrew(int offset, int limit) {
+        return delegate.getUniqueCrew(offset, limit);
+    }
+
+    @Override
+    public int getNumUniqueCast() {
+        return delegate.getNumUniqueCast();
+    }
+
+    @Override
+    public int getNumUniqueCrew() {
+        return delegate.getNumUniqueCrew();
+    }
+
+    @Override
+    public Person[] findCast(String searchTerm) {
+        return delegate.findCast(searchTerm);
+    }
+
+    @Override
+    public Person[] findCrew(String searchTerm) {
+        return delegate.findCrew(searchTerm);
+    }
+
+    @Override
+    public Person[] findCast(String searchTerm, int offset, int limit) {
+        return delegate.findCast(searchTerm, offset, limit);
+    }
+
+    @Override
+    public Person[] findCrew(String searchTerm, int offset, int limit) {
+        return delegate.findCrew(searchTerm, offset, limit);
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+}
@@ -0,0 +1,99 @@
+package stores;
+
+import interfaces.IKeywords;
+import interfaces.IntIterator;
+
+// Keywords store that passes every call on to another IKeywords.
+// Subclasses override only the calls they need to intercept (caching, locking, logging...).
+public abstract class ForwardingKeywords implements IKeywords {
+    protected final IKeywords delegate;
+
+    protected ForwardingKeywords(IKeywords delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public boolean add(int filmID, Keyword[] keywords) {
+        return delegate.add(filmID, keywords);
+    }
+
+    @Override
+    public boolean add(int filmID, Keyword keyword) {
+        return delegate.add(filmID, keyword);
+    }
+
+    @Override
+    public boolean remove(int filmID) {
+        return delegate.remove(filmID);
+    }
+
+    @Override
+    public boolean removeKeywordFromFilm(int filmID, int keywordID) {
+        return delegate.removeKeywordFromFilm(filmID, keywordID);
+    }
+
+    @Override
+    public int[] getFilmIDs() {
+        return delegate.getFilmIDs();
+    }
+
+    @Override
+    public int[] getKeywordIDs() {
+        return delegate.getKeywordIDs();
+    }
+
+    @Override
+    public int[] getFilmsWithKeyword(int keywordID) {
+        return delegate.getFilmsWithKeyword(keywordID);
+    }
+
+    @Override
+    public int[] getFilmIDs(int offset, int limit) {
+        return delegate.getFilmIDs(offset, limit);
+    }
+
+    @Override
+    public int[] getFilmsWithKeyword(int keywordID, int offset, int limit) {
+        return delegate.getFilmsWithKeyword(keywordID, offset, limit);
+    }
+
+    @Override
+    public IntIterator iterateFilmsWithKeyword(int keywordID) {
+        return delegate.iterateFilmsWithKeyword(keywordID);
+    }
+
+    @Override
+    public Keyword[] getKeywordsForFilm(int filmID) {
+        return delegate.getKeywordsForFilm(filmID);
+    }
+
+    @Override
+    public Keyword[] getUnique() {
+        return delegate.getUnique();
+    }
+
+    @Override
+    public Keyword[] getUnique(int offset, int limit) {
+        return delegate.getUnique(offset, limit);
+    }
+
+    @Override
+    public int getNumUnique() {
+        return delegate.getNumUnique();
+    }
+
+    @Override
+    public int[] getMostKeywordFilms(int numResults) {
+        return delegate.getMostKeywordFilms(numResults);
+    }
+
+    @Override
+    public Keyword[] findKeywords(String searchTerm) {
+        return delegate.findKeywords(searchTerm);
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+}
@@ -0,0 +1,235 @@
+package stores;
+
+import java.time.LocalDate;
+import interfaces.IMovies;
+import interfaces.IntIterator;
+
+// Movies store that passes every call on to another IMovies.
+// Subclasses override only the calls they need to intercept (caching, locking, logging...).
+public abstract class ForwardingMovies implements IMovies {
+    protected final IMovies delegate;
+
+    protected ForwardingMovies(IMovies delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public boolean add(int id, String title, String originalTitle, String overview, String tagline, String status, Genre[] genres, LocalDate release, long budget, long revenue, String[] languages, String originalLanguage, double runtime, String homepage, boolean adult, boolean video, String poster) {
+        return delegate.add(id, title, originalTitle, overview, tagline, status, genres, release, budget, revenue, languages, originalLanguage, runtime, homepage, adult, video, poster);
+    }
+
+    @Override
+    public boolean remove(int id) {
+        return delegate.remove(id);
+    }
+
+    @Override
+    public int[] getAllIDs() {
+        return delegate.getAllIDs();
+    }
+
+    @Override
+    public int[] getAllIDsReleasedInRange(LocalDate start, LocalDate end) {
+        return delegate.getAllIDsReleasedInRange(start, end);
+    }
+
+    @Override
+    public int[] getAllIDs(int offset, int limit) {
+        return delegate.getAllIDs(offset, limit);
+    }
+
+    @Override
+    public int[] getAllIDsReleasedInRange(LocalDate start, LocalDate end, int offset, int limit) {
+        return delegate.getAllIDsReleasedInRange(start, end, offset, limit);
+    }
+
+    @Override
+    public IntIterator iterateAllIDs() {
+        return delegate.iterateAllIDs();
+    }
+
+    @Override
+    public String getTitle(int id) {
+        return delegate.getTitle(id);
+    }
+
+    @Override
+    public String getOriginalTitle(int id) {
+        return delegate.getOriginalTitle(id);
+    }
+
+    @Override
+    public String getOverview(int id) {
+        return delegate.getOverview(id);
+    }
+
+    @Override
+    public String getTagline(int id) {
+        return delegate.getTagline(id);
+    }
+
+    @Override
+    public String getStatus(int id) {
+        return delegate.getStatus(id);
+    }
+
+    @Override
+    public Genre[] getGenres(int id) {
+        return delegate.getGenres(id);
+    }
+
+    @Override
+    public LocalDate getRelease(int id) {
+        return delegate.getRelease(id);
+    }
+
+    @Override
+    public long getBudget(int id) {
+        return delegate.getBudget(id);
+    }
+
+    @Override
+    public long getRevenue(int id) {
+        return delegate.getRevenue(id);
+    }
+
+    @Override
+    public String[] getLanguages(int id) {
+        return delegate.getLanguages(id);
+    }
+
+    @Override
+    public String getOriginalLanguage(int id) {
+        return delegate.getOriginalLanguage(id);
+    }
+
+    @Override
+    public double getRuntime(int id) {
+        return delegate.getRuntime(id);
+    }
+
+    @Override
+    public String getHomepage(int id) {
+        return delegate.getHomepage(id);
+    }
+
+    @Override
+    public boolean getAdult(int id) {
+        return delegate.getAdult(id);
+    }
+
+    @Override
+    public boolean getVideo(int id) {
+        return delegate.getVideo(id);
+    }
+
+    @Override
+    public String getPoster(int id) {
+        return delegate.getPoster(id);
+    }
+
+    @Override
+    public String[] getTitles(int[] ids) {
+        return delegate.getTitles(ids);
+    }
+
+    @Override
+    public boolean setVote(int id, double voteAverage, int voteCount) {
+        return delegate.setVote(id, voteAverage, voteCount);
+    }
+
+    @Override
+    public double getVoteAverage(int id) {
+        return delegate.getVoteAverage(id);
+    }
+
+    @Override
+    public int getVoteCount(int id) {
+        return delegate.getVoteCount(id);
+    }
+
+    @Override
+    public boolean addToCollection(int filmID, int collectionID, String collectionName, String collectionPosterPath, String collectionBackdropPath) {
+        return delegate.addToCollection(filmID, collectionID, collectionName, collectionPosterPath, collectionBackdropPath);
+    }
+
+    @Override
+    public int[] getFilmsInCollection(int collectionID) {
+        return delegate.getFilmsInCollection(collectionID);
+    }
+
+    @Override
+    public String getCollectionName(int collectionID) {
+        return delegate.getCollectionName(collectionID);
+    }
+
+    @Override
+    public String getCollectionPoster(int collectionID) {
+        return delegate.getCollectionPoster(collectionID);
+    }
+
+    @Override
+    public String getCollectionBackdrop(int collectionID) {
+        return delegate.getCollectionBackdrop(collectionID);
+    }
+
+    @Override
+    public int getCollectionID(int filmID) {
+        return delegate.getCollectionID(filmID);
+    }
+
+    @Override
+    public boolean setIMDB(int filmID, String imdbID) {
+        return delegate.setIMDB(filmID, imdbID);
+    }
+
+    @Override
+    public String getIMDB(int filmID) {
+        return delegate.getIMDB(filmID);
+    }
+
+    @Override
+    public boolean setPopularity(int id, double popularity) {
+        return delegate.setPopularity(id, popularity);
+    }
+
+    @Override
+    public double getPopularity(int id) {
+        return delegate.getPopularity(id);
+    }
+
+    @Override
+    public boolean addProductionCompany(int movieId, Company company) {
+        return delegate.addProductionCompany(movieId, company);
+    }
+
+    @Override
+    public boolean addProductionCountry(int movieId, String country) {
+        return delegate.addProductionCountry(movieId, country);
+    }
+
+    @Override
+    public Company[] getProductionCompanies(int movieId) {
+        return delegate.getProductionCompanies(movieId);
+    }
+
+    @Override
+    public String[] getProductionCountries(int movieId) {
+        return delegate.getProductionCountries(movieId);
+    }
+
+    @Override
+    public int[] findFilms(String searchTerm) {
+        return delegate.findFilms(searchTerm);
+    }
+
+    @Override
+    public int[] findFilms(String searchTerm, int offset, int limit) {
+        return delegate.findFilms(searchTerm, offset, limit);
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+}
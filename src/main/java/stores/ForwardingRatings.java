@@ -0,0 +1,181 @@
+package stores;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import interfaces.IRatings;
+
+// Ratings store that passes every call on to another IRatings.
+// Subclasses override only the calls they need to intercept (caching, locking, logging...).
+public abstract class ForwardingRatings implements IRatings {
+    protected final IRatings delegate;
+
+    protected ForwardingRatings(IRatings delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public boolean add(int userID, int movieID, float rating, LocalDateTime timestamp) {
+        return delegate.add(userID, movieID, rating, timestamp);
+    }
+
+    @Override
+    public boolean remove(int userID, int movieID) {
+        return delegate.remove(userID, movieID);
+    }
+
+    @Override
+    public boolean set(int userID, int movieID, float rating, LocalDateTime timestamp) {
+        return delegate.set(userID, movieID, rating, timestamp);
+    }
+
+    // Goes through the five-argument addBatch, so subclasses need only override that one
+    @Override
+    public int addBatch(int[] userIDs, int[] movieIDs, float[] ratings, long[] timestamps) {
+        return addBatch(userIDs, movieIDs, ratings, timestamps, null);
+    }
+
+    @Override
+    public int addBatch(int[] userIDs, int[] movieIDs, float[] ratings, long[] timestamps, boolean[] added) {
+        return delegate.addBatch(userIDs, movieIDs, ratings, timestamps, added);
+    }
+
+    @Override
+    public float[] getMovieRatings(int movieID) {
+        return delegate.getMovieRatings(movieID);
+    }
+
+    @Override
+    public float[] getUserRatings(int userID) {
+        return delegate.getUserRatings(userID);
+    }
+
+    @Override
+    public float getMovieAverageRating(int movieID) {
+        return delegate.getMovieAverageRating(movieID);
+    }
+
+    @Override
+    public float getUserAverageRating(int userID) {
+        return delegate.getUserAverageRating(userID);
+    }
+
+    @Override
+    public float[] getMovieRatings(int movieID, int offset, int limit) {
+        return delegate.getMovieRatings(movieID, offset, limit);
+    }
+
+    @Override
+    public float[] getUserRatings(int userID, int offset, int limit) {
+        return delegate.getUserRatings(userID, offset, limit);
+    }
+
+    @Override
+    public int[] getRatedMovies() {
+        return delegate.getRatedMovies();
+    }
+
+    @Override
+    public long[] getMovieRatingTimes(int movieID) {
+        return delegate.getMovieRatingTimes(movieID);
+    }
+
+    @Override
+    public int[] getMovieRaters(int movieID) {
+        return delegate.getMovieRaters(movieID);
+    }
+
+    @Override
+    public float getRating(int userID, int movieID) {
+        return delegate.getRating(userID, movieID);
+    }
+
+    @Override
+    public int[] getUserMovies(int userID) {
+        return delegate.getUserMovies(userID);
+    }
+
+    @Override
+    public int[] getMostRatedMovies(int numResults) {
+        return delegate.getMostRatedMovies(numResults);
+    }
+
+    @Override
+    public int[] getMostRatedUsers(int numResults) {
+        return delegate.getMostRatedUsers(numResults);
+    }
+
+    @Override
+    public int getNumRatings(int movieID) {
+        return delegate.getNumRatings(movieID);
+    }
+
+    @Override
+    public float[] getMovieAverageRatings(int[] movieIDs) {
+        return delegate.getMovieAverageRatings(movieIDs);
+    }
+
+    @Override
+    public int[] getNumRatings(int[] movieIDs) {
+        return delegate.getNumRatings(movieIDs);
+    }
+
+    @Override
+    public int[] getTopAverageRatedMovies(int numResults) {
+        return delegate.getTopAverageRatedMovies(numResults);
+    }
+
+    @Override
+    public int[] getTrendingMovies(LocalDateTime reference, int days, int numResults) {
+        return delegate.getTrendingMovies(reference, days, numResults);
+    }
+
+    @Override
+    public int[] getMonthlyRatingCounts(int movieID, YearMonth from, YearMonth to) {
+        return delegate.getMonthlyRatingCounts(movieID, from, to);
+    }
+
+    @Override
+    public float getUserRatingDrift(int userID) {
+        return delegate.getUserRatingDrift(userID);
+    }
+
+    @Override
+    public LocalDateTime getLatestTimestamp() {
+        return delegate.getLatestTimestamp();
+    }
+
+    @Override
+    public int[] getMovieRatingHistogram(int movieID) {
+        return delegate.getMovieRatingHistogram(movieID);
+    }
+
+    @Override
+    public int[] getUserRatingHistogram(int userID) {
+        return delegate.getUserRatingHistogram(userID);
+    }
+
+    @Override
+    public float getMovieMedianRating(int movieID) {
+        return delegate.getMovieMedianRating(movieID);
+    }
+
+    @Override
+    public float getMovieRatingPercentile(int movieID, double percentile) {
+        return delegate.getMovieRatingPercentile(movieID, percentile);
+    }
+
+    @Override
+    public float getUserRatingPercentile(int userID, double percentile) {
+        return delegate.getUserRatingPercentile(userID, percentile);
+    }
+
+    @Override
+    public float getRatingPercentile(double percentile) {
+        return delegate.getRatingPercentile(percentile);
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+}
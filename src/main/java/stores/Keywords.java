@@ -1,8 +1,12 @@
 package stores;
 
 import interfaces.IKeywords;
+import interfaces.IntIterator;
 import interfaces.AbstractStores;
+import structures.IntIntMap;
+import structures.IntPostings;
 import structures.MyArrayList;
+import structures.PostingsTable;
 
 public class Keywords implements IKeywords{
     AbstractStores stores;
@@ -10,17 +14,24 @@ public class Keywords implements IKeywords{
     MyArrayList<Integer> id;
     MyArrayList<Keyword[]> keywords;
     MyArrayList<Keyword> unique;
+    IntIntMap slots; // Maps keyword ID to its index in unique
+    PostingsTable films; // The films with each unique keyword, at the same index
+    private boolean shared; // Whether a share() twin still uses these structures (see detach)
 
     Keywords(AbstractStores stores) {
         this.stores = stores;
         id = new MyArrayList<>();
         keywords = new MyArrayList<>();
         unique = new MyArrayList<>();
+        slots = new IntIntMap();
+        films = new PostingsTable();
     }
 
     @Override
     public boolean add(int filmID, Keyword keyword) {
         boolean result = true;
+        detach();
+        keyword = unique.get(slot(keyword));
 
         for (int i = 0; i < this.id.size(); i++) {
             if(this.id.get(i) == filmID) {
@@ -30,32 +41,23 @@ public class Keywords implements IKeywords{
                 }
                 tmp[keywords.get(i).length] = keyword;
                 keywords.set(i, tmp);
+                index(filmID, keyword);
                 return result;
             }
         }
 
-        boolean flag = true;
-        for(int i = 0; i < unique.size(); i++) {
-            if(this.unique.get(i).getID() == keyword.getID()) {
-                flag = false;
-                break;
-            }
-        }
-
-        if (flag) {
-            unique.add(keyword);
-        }
-        
-
         result &= this.id.add(filmID);
         Keyword[] tmp = {keyword};
         result &= keywords.add(tmp);
+        index(filmID, keyword);
         return result;
     }
 
     @Override
     public boolean add(int id, Keyword[] keywords) {
         boolean result = true;
+        detach();
+        keywords = canonical(keywords);
 
         for (int i = 0; i < this.id.size(); i++) {
             if (this.id.get(i) == id) {
@@ -67,31 +69,27 @@ public class Keywords implements IKeywords{
                     tmp[this.keywords.get(i).length+j] = keywords[j];
                 }
                 this.keywords.set(i, tmp);
+                for (Keyword k : keywords)
+                    index(id, k);
                 return result;
             }
         }
 
-        for (int i = 0; i < keywords.length; i++) {
-            boolean flag = true;
-            for (int j = 0; j < unique.size(); j++) {
-                if(this.unique.get(j).getID() == keywords[i].getID()) {
-                    flag = false;
-                    break;
-                }
-            }
-            if(flag){
-                unique.add(keywords[i]);
-            }
-        }
-
         result &= this.id.add(id);
         result &= this.keywords.add(keywords);
+        for (Keyword k : keywords)
+            index(id, k);
         return result;
     }
 
     @Override
     public boolean remove(int id) {
+        detach();
         int index = this.id.indexOf(id);
+        if (index >= 0) {
+            for (Keyword k : this.keywords.get(index))
+                unindex(id, k.getID());
+        }
         boolean result = this.id.remove(id);
         result &= this.keywords.remove(this.keywords.get(index));
         return result;
@@ -99,6 +97,7 @@ public class Keywords implements IKeywords{
 
     @Override
     public boolean removeKeywordFromFilm(int id, int keywordID) {
+        detach();
         for (int i = 0; i < this.id.size(); i++) {
             if(this.id.get(i) == id) {
                 int indexToRemove = -1;
@@ -120,6 +119,8 @@ public class Keywords implements IKeywords{
                     }
 
                     this.keywords.set(i, tmp);
+                    if (!hasKeyword(tmp, keywordID))
+                        unindex(id, keywordID);
                 }
                 return true;
             }
@@ -147,16 +148,40 @@ public class Keywords implements IKeywords{
         return uniqueKeyword;
     }
 
+    // The films with a keyword, ascending, from the keyword's postings
     @Override
     public int[] getFilmsWithKeyword(int keywordID) {
+        return postings(keywordID).toArray();
+    }
+
+    @Override
+    public int[] getFilmIDs(int offset, int limit) {
+        if (offset < 0 || limit < 0 || offset >= id.size()) {
+            return new int[0];
+        }
+
+        int end = (int) Math.min((long) offset + limit, id.size());
+        int[] result = new int[end - offset];
+        for (int i = offset; i < end; i++) {
+            result[i - offset] = id.get(i);
+        }
+        return result;
+    }
+
+    @Override
+    public int[] getFilmsWithKeyword(int keywordID, int offset, int limit) {
+        if (offset < 0 || limit <= 0) {
+            return new int[0];
+        }
+
+        IntIterator films = iterateFilmsWithKeyword(keywordID);
+        for (int skipped = 0; skipped < offset && films.hasNext(); skipped++) {
+            films.next();
+        }
+
         MyArrayList<Integer> tmp = new MyArrayList<>();
-        for (int i = 0; i < this.id.size(); i++) {
-            for (int j = 0; j < this.keywords.get(i).length; j++) {
-                if (keywordID == this.keywords.get(i)[j].getID()) {
-                    tmp.add(this.id.get(i));
-                    break;
-                }
-            }
+        while (films.hasNext() && tmp.size() < limit) {
+            tmp.add(films.next());
         }
 
         int[] result = new int[tmp.size()];
@@ -166,6 +191,22 @@ public class Keywords implements IKeywords{
         return result;
     }
 
+    @Override
+    public IntIterator iterateFilmsWithKeyword(int keywordID) {
+        IntPostings.Cursor films = postings(keywordID).cursor();
+        return new IntIterator() {
+            @Override
+            public boolean hasNext() {
+                return films.hasNext();
+            }
+
+            @Override
+            public int next() {
+                return films.next();
+            }
+        };
+    }
+
     @Override
     public Keyword[] getKeywordsForFilm(int id) {
         int index = this.id.indexOf(id);
@@ -187,6 +228,25 @@ public class Keywords implements IKeywords{
         return uniqueKeyword;
     }
 
+    @Override
+    public Keyword[] getUnique(int offset, int limit) {
+        if (offset < 0 || limit < 0 || offset >= unique.size()) {
+            return new Keyword[0];
+        }
+
+        int end = (int) Math.min((long) offset + limit, unique.size());
+        Keyword[] uniqueKeyword = new Keyword[end - offset];
+        for (int i = offset; i < end; i++) {
+            uniqueKeyword[i - offset] = unique.get(i);
+        }
+        return uniqueKeyword;
+    }
+
+    @Override
+    public int getNumUnique() {
+        return unique.size();
+    }
+
     @Override
     public int size() {
         return keywords.size();
@@ -240,4 +300,99 @@ public class Keywords implements IKeywords{
 
         return results;
     }
+
+    // A store holding the same keywords (used for snapshots), owned by the given stores.
+    // Keywords only change when films are added or removed (a reload), so the two
+    // share everything and the next such change copies it, rather than each snapshot.
+    Keywords share(AbstractStores owner) {
+        Keywords twin = new Keywords(owner);
+        twin.id = id;
+        twin.keywords = keywords;
+        twin.unique = unique;
+        twin.slots = slots;
+        twin.films = films;
+        twin.shared = true;
+        shared = true;
+        return twin;
+    }
+
+    // Takes its own copies of the structures share() left in common, before changing them.
+    // A film's keyword array is replaced rather than changed, so the arrays stay shared.
+    private void detach() {
+        if (!shared)
+            return;
+        MyArrayList<Integer> ids = new MyArrayList<>();
+        MyArrayList<Keyword[]> lists = new MyArrayList<>();
+        MyArrayList<Keyword> uniques = new MyArrayList<>();
+        for (int i = 0; i < id.size(); i++) {
+            ids.add(id.get(i));
+            lists.add(keywords.get(i));
+        }
+        for (int i = 0; i < unique.size(); i++) {
+            uniques.add(unique.get(i));
+        }
+        id = ids;
+        keywords = lists;
+        unique = uniques;
+        slots = slots.copy();
+        films = films.copy();
+        shared = false;
+    }
+
+    // The index of a keyword in unique (and films), adding it if it is new
+    private int slot(Keyword keyword) {
+        int slot = slots.get(keyword.getID(), -1);
+        if (slot < 0) {
+            slot = unique.size();
+            unique.add(keyword);
+            films.addSlot();
+            slots.put(keyword.getID(), slot);
+        }
+        return slot;
+    }
+
+    // The keywords with each one replaced by the first seen with its ID, so films
+    // share one Keyword (and name) rather than each keeping their own. The array
+    // is copied only if something in it changes.
+    private Keyword[] canonical(Keyword[] keywords) {
+        Keyword[] result = keywords;
+        for (int i = 0; i < keywords.length; i++) {
+            Keyword k = unique.get(slot(keywords[i]));
+            if (k != keywords[i]) {
+                if (result == keywords)
+                    result = keywords.clone();
+                result[i] = k;
+            }
+        }
+        return result;
+    }
+
+    // The films with a keyword (empty if no film has it)
+    private IntPostings postings(int keywordID) {
+        int slot = slots.get(keywordID, -1);
+        return slot < 0 ? new IntPostings() : films.get(slot);
+    }
+
+    // Adds a film to a keyword's postings
+    private void index(int filmID, Keyword keyword) {
+        films.add(slot(keyword), filmID);
+    }
+
+    // Takes a film out of a keyword's postings. The keyword keeps its place in
+    // unique, as it always has, so its slot is kept even once empty.
+    private void unindex(int filmID, int keywordID) {
+        int slot = slots.get(keywordID, -1);
+        if (slot >= 0) {
+            films.remove(slot, filmID);
+        }
+    }
+
+    private static boolean hasKeyword(Keyword[] keywords, int keywordID) {
+        for (Keyword k : keywords) {
+            if (k.getID() == keywordID) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
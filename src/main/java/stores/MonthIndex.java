@@ -0,0 +1,308 @@
+package stores;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+import structures.IntIntMap;
+import structures.LongIntMap;
+import structures.TopK;
+
+// Ratings bucketed by calendar month (UTC), for the time-window queries.
+// Every month keeps a count and a sum of ratings per movie, as well as the
+// ratings themselves. A window query adds up the totals of the months wholly
+// inside the window and only looks at single ratings in the (at most two)
+// months it cuts through; months outside the window are never visited.
+final class MonthIndex {
+    private int[] months = new int[8]; // Sorted month numbers (year * 12 + month - 1)
+    private Bucket[] buckets = new Bucket[8];
+    private int numMonths = 0;
+    private int generation = 0; // Bumped by share(); buckets made before then are copied before they change
+
+    // The ratings of one month
+    private static final class Bucket {
+        int generation; // The generation of the index that made it
+        // The ratings, in no particular order
+        int[] movies, users;
+        long[] seconds;
+        float[] ratings;
+        int size;
+
+        // Per movie totals (movie -> slot)
+        IntIntMap slots;
+        int[] slotMovies, counts;
+        double[] sums;
+        int numSlots;
+
+        // Where each (movie, user) rating is in the arrays. Built the first time a
+        // rating is taken out (loading only adds, so most months never need one).
+        LongIntMap positions;
+
+        Bucket(int capacity, int slotCapacity) {
+            movies = new int[capacity];
+            users = new int[capacity];
+            seconds = new long[capacity];
+            ratings = new float[capacity];
+            slots = new IntIntMap(slotCapacity);
+            slotMovies = new int[slotCapacity];
+            counts = new int[slotCapacity];
+            sums = new double[slotCapacity];
+        }
+
+        void add(int movieID, int userID, float rating, long second) {
+            if (size == movies.length) {
+                int capacity = size * 2;
+                movies = Arrays.copyOf(movies, capacity);
+                users = Arrays.copyOf(users, capacity);
+                seconds = Arrays.copyOf(seconds, capacity);
+                ratings = Arrays.copyOf(ratings, capacity);
+            }
+            movies[size] = movieID;
+            users[size] = userID;
+            seconds[size] = second;
+            ratings[size] = rating;
+            if (positions != null)
+                positions.put(pair(movieID, userID), size);
+            size++;
+
+            int slot = slots.get(movieID, -1);
+            if (slot < 0) {
+                if (numSlots == slotMovies.length) {
+                    int capacity = numSlots * 2;
+                    slotMovies = Arrays.copyOf(slotMovies, capacity);
+                    counts = Arrays.copyOf(counts, capacity);
+                    sums = Arrays.copyOf(sums, capacity);
+                }
+                slot = numSlots++;
+                slots.put(movieID, slot);
+                slotMovies[slot] = movieID;
+            }
+            counts[slot]++;
+            sums[slot] += rating;
+        }
+
+        // Takes a rating out (moving the last one into its place)
+        boolean remove(int movieID, int userID) {
+            if (positions == null) {
+                positions = new LongIntMap(size);
+                for (int r = 0; r < size; r++)
+                    positions.put(pair(movies[r], users[r]), r);
+            }
+            int i = positions.remove(pair(movieID, userID), -1);
+            if (i < 0)
+                return false;
+            int slot = slots.get(movieID, -1);
+            counts[slot]--;
+            sums[slot] -= ratings[i];
+            size--;
+            if (i < size) {
+                movies[i] = movies[size];
+                users[i] = users[size];
+                seconds[i] = seconds[size];
+                ratings[i] = ratings[size];
+                positions.put(pair(movies[i], users[i]), i);
+            }
+            return true;
+        }
+
+        private static long pair(int movieID, int userID) {
+            return ((long) movieID << 32) | (userID & 0xffffffffL);
+        }
+
+        // The copy builds its own positions if it ever needs them
+        Bucket copy(int generation) {
+            Bucket copy = new Bucket(Math.max(1, size), Math.max(1, numSlots));
+            System.arraycopy(movies, 0, copy.movies, 0, size);
+            System.arraycopy(users, 0, copy.users, 0, size);
+            System.arraycopy(seconds, 0, copy.seconds, 0, size);
+            System.arraycopy(ratings, 0, copy.ratings, 0, size);
+            copy.size = size;
+            for (int s = 0; s < numSlots; s++) {
+                copy.slots.put(slotMovies[s], s);
+                copy.slotMovies[s] = slotMovies[s];
+                copy.counts[s] = counts[s];
+                copy.sums[s] = sums[s];
+            }
+            copy.numSlots = numSlots;
+            copy.generation = generation;
+            return copy;
+        }
+    }
+
+    // Per movie counts and sums of the ratings in a window, added up over buckets
+    // (and over stripes, for the concurrent store)
+    static final class Totals {
+        private final IntIntMap slots = new IntIntMap();
+        private int[] movies = new int[16];
+        private int[] counts = new int[16];
+        private double[] sums = new double[16];
+        private int size = 0;
+
+        void add(int movieID, int count, double sum) {
+            if (count == 0)
+                return;
+            int slot = slots.get(movieID, -1);
+            if (slot < 0) {
+                if (size == movies.length) {
+                    movies = Arrays.copyOf(movies, size * 2);
+                    counts = Arrays.copyOf(counts, size * 2);
+                    sums = Arrays.copyOf(sums, size * 2);
+                }
+                slot = size++;
+                slots.put(movieID, slot);
+                movies[slot] = movieID;
+            }
+            counts[slot] += count;
+            sums[slot] += sum;
+        }
+
+        // The n movies rated most often, ties going to the higher average rating and
+        // then the lower ID (so the answer doesn't depend on the order totals were added in)
+        int[] top(int n) {
+            long[] byMovie = new long[size];
+            for (int s = 0; s < size; s++)
+                byMovie[s] = ((long) movies[s] << 32) | s;
+            Arrays.sort(byMovie);
+
+            TopK top = new TopK(n);
+            for (long key : byMovie) {
+                int s = (int) key;
+                if (counts[s] > 0)
+                    top.offer(movies[s], counts[s] + sums[s] / counts[s] / 10); // The average is under 1 after / 10
+            }
+            return top.toIDs();
+        }
+    }
+
+    void add(int movieID, int userID, float rating, LocalDateTime time) {
+        if (time == null)
+            return; // Nothing to place it by
+        long second = time.toEpochSecond(ZoneOffset.UTC);
+        int month = monthOf(second);
+        int index = find(month);
+        if (index < 0) {
+            index = -index - 1;
+            insertMonth(index, month);
+        }
+        own(index).add(movieID, userID, rating, second);
+    }
+
+    void remove(int movieID, int userID, LocalDateTime time) {
+        if (time == null)
+            return;
+        int index = find(monthOf(time.toEpochSecond(ZoneOffset.UTC)));
+        if (index >= 0)
+            own(index).remove(movieID, userID);
+    }
+
+    // Adds the ratings made in (from, to] (epoch seconds) to totals
+    void countWindow(long from, long to, Totals totals) {
+        if (from >= to)
+            return;
+        int first = find(monthOf(from + 1));
+        if (first < 0)
+            first = -first - 1;
+        int last = monthOf(to);
+        for (int i = first; i < numMonths && months[i] <= last; i++) {
+            Bucket b = buckets[i];
+            if (startOf(months[i]) > from && startOf(months[i] + 1) - 1 <= to) {
+                // The whole month is in the window, so its totals can be used as they are
+                for (int s = 0; s < b.numSlots; s++)
+                    totals.add(b.slotMovies[s], b.counts[s], b.sums[s]);
+            } else {
+                for (int r = 0; r < b.size; r++) {
+                    if (b.seconds[r] > from && b.seconds[r] <= to)
+                        totals.add(b.movies[r], 1, b.ratings[r]);
+                }
+            }
+        }
+    }
+
+    // Adds the number of ratings of a movie in each month from fromMonth to toMonth
+    // (month numbers, inclusive) to counts[month - fromMonth]
+    void countMonths(int movieID, int fromMonth, int toMonth, int[] counts) {
+        int first = find(fromMonth);
+        if (first < 0)
+            first = -first - 1;
+        for (int i = first; i < numMonths && months[i] <= toMonth; i++)
+            counts[months[i] - fromMonth] += countOf(buckets[i], movieID);
+    }
+
+    // The latest time any stored rating was made (epoch seconds), or Long.MIN_VALUE if there are none
+    long latest() {
+        for (int i = numMonths - 1; i >= 0; i--) {
+            Bucket b = buckets[i];
+            if (b.size == 0)
+                continue;
+            long latest = Long.MIN_VALUE;
+            for (int r = 0; r < b.size; r++)
+                latest = Math.max(latest, b.seconds[r]);
+            return latest;
+        }
+        return Long.MIN_VALUE;
+    }
+
+    // An index holding the same ratings, for snapshots. The two share every bucket;
+    // whichever changes a shared bucket copies it first, so a snapshot costs the
+    // month arrays plus a copy of each month written after it.
+    MonthIndex share() {
+        MonthIndex twin = new MonthIndex();
+        twin.months = months.clone();
+        twin.buckets = buckets.clone();
+        twin.numMonths = numMonths;
+        twin.generation = ++generation;
+        return twin;
+    }
+
+    // The month number of a time in epoch seconds
+    static int monthOf(long second) {
+        LocalDateTime time = LocalDateTime.ofEpochSecond(second, 0, ZoneOffset.UTC);
+        return time.getYear() * 12 + time.getMonthValue() - 1;
+    }
+
+    // The first second of a month
+    static long startOf(int month) {
+        return LocalDate.of(Math.floorDiv(month, 12), Math.floorMod(month, 12) + 1, 1).atStartOfDay().toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static int countOf(Bucket b, int movieID) {
+        int slot = b.slots.get(movieID, -1);
+        return slot < 0 ? 0 : b.counts[slot];
+    }
+
+    // Binary search for a month: its index, or -(insert position) - 1 if it has no bucket
+    private int find(int month) {
+        int lo = 0, hi = numMonths - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (months[mid] < month)
+                lo = mid + 1;
+            else if (months[mid] > month)
+                hi = mid - 1;
+            else
+                return mid;
+        }
+        return -lo - 1;
+    }
+
+    // The bucket at an index, copied first if it was made before the last share()
+    private Bucket own(int index) {
+        if (buckets[index].generation != generation)
+            buckets[index] = buckets[index].copy(generation);
+        return buckets[index];
+    }
+
+    private void insertMonth(int index, int month) {
+        if (numMonths == months.length) {
+            months = Arrays.copyOf(months, numMonths * 2);
+            buckets = Arrays.copyOf(buckets, numMonths * 2);
+        }
+        System.arraycopy(months, index, months, index + 1, numMonths - index);
+        System.arraycopy(buckets, index, buckets, index + 1, numMonths - index);
+        months[index] = month;
+        buckets[index] = new Bucket(16, 16);
+        buckets[index].generation = generation;
+        numMonths++;
+    }
+}
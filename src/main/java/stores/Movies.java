@@ -1,13 +1,15 @@
 package stores;
 
 import java.time.LocalDate;
+import interfaces.AbstractStores;
 import interfaces.IMovies;
+import interfaces.IntIterator;
 import structures.*;
 
 // Movies class that implements IMovies interface
 // Responsible for storing and managing movie information
 public class Movies implements IMovies {
-    Stores stores; // Reference to the overall Stores object (so we can access other stores if
+    AbstractStores stores; // Reference to the overall Stores object (so we can access other stores if
                    // needed)
 
     // A hashtable to map a movie's ID to its Movie object for quick lookup
@@ -16,8 +18,11 @@ public class Movies implements IMovies {
     // A dynamic array to keep track of all movie IDs in the order they were added
     private MyDynamicArray<Integer> movieIDs;
 
+    // Bumped by share(); movies made before then are copied before they change
+    private int generation = 0;
+
     // Constructor - initializes data structures
-    public Movies(Stores stores) {
+    public Movies(AbstractStores stores) {
         this.stores = stores;
         movieTable = new MyHashTable<>();
         movieIDs = new MyDynamicArray<>();
@@ -36,6 +41,7 @@ public class Movies implements IMovies {
         // Create a new Movie object with the provided details
         Movie movie = new Movie(id, title, originalTitle, overview, tagline, status, genres, release, budget, revenue,
                 languages, originalLanguage, runtime, homepage, adult, video, poster);
+        movie.generation = generation;
 
         // Add movie to hashtable and record its ID
         movieTable.put(id, movie);
@@ -89,6 +95,56 @@ public class Movies implements IMovies {
         return res;
     }
 
+    // Returns a page of movie IDs, in the order they were added
+    @Override
+    public int[] getAllIDs(int offset, int limit) {
+        if (offset < 0 || limit < 0 || offset >= movieIDs.size())
+            return new int[0];
+
+        int end = (int) Math.min((long) offset + limit, movieIDs.size());
+        int[] ids = new int[end - offset];
+        for (int i = offset; i < end; i++) {
+            ids[i - offset] = movieIDs.get(i);
+        }
+        return ids;
+    }
+
+    // Returns a page of the IDs of movies released between two dates, stopping once the page is full
+    @Override
+    public int[] getAllIDsReleasedInRange(LocalDate start, LocalDate end, int offset, int limit) {
+        MyDynamicArray<Integer> result = new MyDynamicArray<>();
+        if (offset < 0 || limit <= 0)
+            return new int[0];
+
+        int matched = 0;
+        for (int i = 0; i < movieIDs.size() && result.size() < limit; i++) {
+            Movie m = movieTable.get(movieIDs.get(i));
+            if (m != null && m.release != null && m.release.isAfter(start) && m.release.isBefore(end)) {
+                if (matched++ >= offset)
+                    result.add(m.id);
+            }
+        }
+        return toIntArray(result);
+    }
+
+    // Walks the movie IDs in the order they were added, without copying them
+    @Override
+    public IntIterator iterateAllIDs() {
+        return new IntIterator() {
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return index < movieIDs.size();
+            }
+
+            @Override
+            public int next() {
+                return movieIDs.get(index++);
+            }
+        };
+    }
+
     // ---------- Getters ----------
 
     @Override
@@ -171,6 +227,13 @@ public class Movies implements IMovies {
         return getField(id, m -> m.poster);
     }
 
+    @Override
+    public String[] getTitles(int[] ids) {
+        String[] titles = new String[ids.length];
+        fillTitles(ids, null, 0, ids.length, titles);
+        return titles;
+    }
+
     @Override
     public double getVoteAverage(int id) {
         return getField(id, m -> m.voteAverage, -1.0);
@@ -200,7 +263,7 @@ public class Movies implements IMovies {
 
     @Override
     public boolean setVote(int id, double voteAverage, int voteCount) {
-        Movie m = movieTable.get(id);
+        Movie m = toChange(id);
         if (m == null)
             return false;
         m.voteAverage = voteAverage;
@@ -210,7 +273,7 @@ public class Movies implements IMovies {
 
     @Override
     public boolean setIMDB(int filmID, String imdbID) {
-        Movie m = movieTable.get(filmID);
+        Movie m = toChange(filmID);
         if (m == null)
             return false;
         m.imdbID = imdbID;
@@ -219,7 +282,7 @@ public class Movies implements IMovies {
 
     @Override
     public boolean setPopularity(int id, double popularity) {
-        Movie m = movieTable.get(id);
+        Movie m = toChange(id);
         if (m == null)
             return false;
         m.popularity = popularity;
@@ -229,7 +292,7 @@ public class Movies implements IMovies {
     @Override
     public boolean addToCollection(int filmID, int collectionID, String name, String posterPath, String backdropPath) {
         // Attach movie to a collection
-        Movie m = movieTable.get(filmID);
+        Movie m = toChange(filmID);
         if (m == null)
             return false;
         m.collectionID = collectionID;
@@ -297,7 +360,7 @@ public class Movies implements IMovies {
 
     @Override
     public boolean addProductionCompany(int id, Company c) {
-        Movie m = movieTable.get(id);
+        Movie m = toChange(id);
         if (m == null)
             return false;
         m.productionCompanies.add(c);
@@ -306,7 +369,7 @@ public class Movies implements IMovies {
 
     @Override
     public boolean addProductionCountry(int id, String c) {
-        Movie m = movieTable.get(id);
+        Movie m = toChange(id);
         if (m == null)
             return false;
         m.productionCountries.add(c);
@@ -352,22 +415,81 @@ public class Movies implements IMovies {
             if (m == null)
                 continue;
 
-            if ((m.title != null && m.title.contains(searchTerm)) ||
-                    (m.originalTitle != null && m.originalTitle.contains(searchTerm)) ||
-                    (m.overview != null && m.overview.contains(searchTerm))) {
+            if (matchesSearch(m, searchTerm)) {
                 result.add(m.id);
             }
         }
+        return toIntArray(result);
+    }
 
-        int[] res = new int[result.size()];
-        for (int i = 0; i < res.length; i++) {
-            res[i] = result.get(i);
+    // Returns a page of the movies matching a search term, stopping once the page is full
+    @Override
+    public int[] findFilms(String searchTerm, int offset, int limit) {
+        MyDynamicArray<Integer> result = new MyDynamicArray<>();
+        if (offset < 0 || limit <= 0)
+            return new int[0];
+
+        int matched = 0;
+        for (int i = 0; i < movieIDs.size() && result.size() < limit; i++) {
+            Movie m = movieTable.get(movieIDs.get(i));
+            if (m != null && matchesSearch(m, searchTerm)) {
+                if (matched++ >= offset)
+                    result.add(m.id);
+            }
         }
-        return res;
+        return toIntArray(result);
+    }
+
+    // ---------- Package-private access for stores built on top of this one ----------
+
+    // Fills in the title of ids[positions[k]] for k in [from, to) (positions null for k itself)
+    void fillTitles(int[] ids, int[] positions, int from, int to, String[] titles) {
+        for (int k = from; k < to; k++) {
+            int i = positions == null ? k : positions[k];
+            Movie m = movieTable.get(ids[i]);
+            titles[i] = (m != null) ? m.title : null;
+        }
+    }
+
+    // A store holding the same movies (used for snapshots), owned by the given stores.
+    // The two share the table, the ID list and every Movie; a Movie is copied before
+    // either first changes it, so a snapshot doesn't copy the movies up front.
+    Movies share(AbstractStores owner) {
+        Movies twin = new Movies(owner);
+        twin.movieTable = movieTable.share();
+        twin.movieIDs = movieIDs.share();
+        twin.generation = ++generation;
+        return twin;
     }
 
     // ---------- Internal helper methods ----------
 
+    // A movie about to be changed (null if there is none), copied first if a share() handed it out
+    private Movie toChange(int id) {
+        Movie m = movieTable.get(id);
+        if (m != null && m.generation != generation) {
+            m = m.copy();
+            m.generation = generation;
+            movieTable.put(id, m);
+        }
+        return m;
+    }
+
+    // Checks whether a search term appears in a movie's title, original title or overview
+    private boolean matchesSearch(Movie m, String searchTerm) {
+        return (m.title != null && m.title.contains(searchTerm)) ||
+                (m.originalTitle != null && m.originalTitle.contains(searchTerm)) ||
+                (m.overview != null && m.overview.contains(searchTerm));
+    }
+
+    // Converts a dynamic array of integers to a regular array
+    private int[] toIntArray(MyDynamicArray<Integer> arr) {
+        int[] result = new int[arr.size()];
+        for (int i = 0; i < arr.size(); i++)
+            result[i] = arr.get(i);
+        return result;
+    }
+
     private <T> T getField(int id, java.util.function.Function<Movie, T> extractor) {
         Movie m = movieTable.get(id);
         return (m != null) ? extractor.apply(m) : null;
@@ -390,6 +512,7 @@ public class Movies implements IMovies {
         double runtime, voteAverage, popularity;
         int voteCount, collectionID;
         boolean adult, video;
+        int generation; // The generation of the store that made it
         MyDynamicArray<Company> productionCompanies = new MyDynamicArray<>();
         MyDynamicArray<String> productionCountries = new MyDynamicArray<>();
 
@@ -416,5 +539,23 @@ public class Movies implements IMovies {
             this.poster = poster;
             this.collectionID = -1; // Default collection ID (means no collection initially)
         }
+
+        // Copies every field; the arrays are never changed once set, so they can be shared,
+        // and the lists are shared until either movie adds to them
+        Movie copy() {
+            Movie m = new Movie(id, title, originalTitle, overview, tagline, status, genres, release, budget, revenue,
+                    languages, originalLanguage, runtime, homepage, adult, video, poster);
+            m.imdbID = imdbID;
+            m.collectionID = collectionID;
+            m.collectionName = collectionName;
+            m.collectionPosterPath = collectionPosterPath;
+            m.collectionBackdropPath = collectionBackdropPath;
+            m.voteAverage = voteAverage;
+            m.voteCount = voteCount;
+            m.popularity = popularity;
+            m.productionCompanies = productionCompanies.share();
+            m.productionCountries = productionCountries.share();
+            return m;
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,80 @@
+package stores;
+
+import java.util.Arrays;
+
+// Exact distribution of a multiset of ratings: each distinct value with how many
+// times it occurs, kept sorted. Ratings only take a handful of distinct values
+// (half stars, in practice), so this stays tiny however many ratings there are.
+final class RatingDistribution {
+    private float[] values = new float[16];
+    private long[] counts = new long[16];
+    private int numValues = 0;
+    private long total = 0;
+
+    void add(float value) {
+        change(value, 1);
+    }
+
+    void remove(float value) {
+        change(value, -1);
+    }
+
+    // Adds every rating in another distribution to this one
+    void addAll(RatingDistribution other) {
+        for (int i = 0; i < other.numValues; i++)
+            change(other.values[i], other.counts[i]);
+    }
+
+    long size() {
+        return total;
+    }
+
+    // The nearest rank percentile: the lowest value at least percentile% of the
+    // ratings are at or below (-1 if there are none or the percentile isn't in [0, 100])
+    float percentile(double percentile) {
+        if (total == 0 || !(percentile >= 0 && percentile <= 100))
+            return -1.0f;
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < numValues; i++) {
+            seen += counts[i];
+            if (seen >= rank)
+                return values[i];
+        }
+        return values[numValues - 1];
+    }
+
+    RatingDistribution copy() {
+        RatingDistribution copy = new RatingDistribution();
+        copy.values = values.clone();
+        copy.counts = counts.clone();
+        copy.numValues = numValues;
+        copy.total = total;
+        return copy;
+    }
+
+    private void change(float value, long by) {
+        int index = Arrays.binarySearch(values, 0, numValues, value);
+        if (index < 0) {
+            if (by < 0)
+                return; // Not there to remove
+            index = -index - 1;
+            if (numValues == values.length) {
+                values = Arrays.copyOf(values, numValues * 2);
+                counts = Arrays.copyOf(counts, numValues * 2);
+            }
+            System.arraycopy(values, index, values, index + 1, numValues - index);
+            System.arraycopy(counts, index, counts, index + 1, numValues - index);
+            values[index] = value;
+            counts[index] = 0;
+            numValues++;
+        }
+        counts[index] += by;
+        total += by;
+        if (counts[index] == 0) {
+            System.arraycopy(values, index + 1, values, index, numValues - index - 1);
+            System.arraycopy(counts, index + 1, counts, index, numValues - index - 1);
+            numValues--;
+        }
+    }
+}
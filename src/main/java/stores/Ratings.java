@@ -1,11 +1,14 @@
 package stores;
 
 import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import interfaces.AbstractStores;
 import interfaces.IRatings;
 import structures.*;
 
 public class Ratings implements IRatings {
-    private Stores stores;
+    private AbstractStores stores;
 
     // Hash table mapping movie IDs -> dynamic array of ratings for that movie
     private MyHashTable<Integer, MyDynamicArray<Rating>> movieRatings;
@@ -13,19 +16,55 @@ public class Ratings implements IRatings {
     // Hash table mapping user IDs -> dynamic array of ratings made by that user
     private MyHashTable<Integer, MyDynamicArray<Rating>> userRatings;
 
+    // The same ratings bucketed by the month they were made in (for the time-window queries)
+    private MonthIndex byMonth;
+
+    // Half-star histograms of each movie's and each user's ratings, and the exact
+    // distribution of every rating, kept up to date so distribution queries never
+    // have to copy the ratings out
+    private MyHashTable<Integer, int[]> movieHistograms;
+    private MyHashTable<Integer, int[]> userHistograms;
+    private RatingDistribution distribution;
+
+    // The movies and users whose lists and histograms this store may change in place.
+    // null means all of them; after share() only those copied since (see ownMovie).
+    private LongHashSet ownedMovies, ownedUsers;
+
+    static final int NUM_BUCKETS = 10; // Half stars from 0.5 to 5.0
+
+    private static final double SECONDS_PER_YEAR = 365.25 * 24 * 60 * 60;
+
     // Constructor - creates empty rating store
-    public Ratings(Stores stores) {
+    public Ratings(AbstractStores stores) {
         this.stores = stores;
         this.movieRatings = new MyHashTable<>();
         this.userRatings = new MyHashTable<>();
+        this.byMonth = new MonthIndex();
+        this.movieHistograms = new MyHashTable<>();
+        this.userHistograms = new MyHashTable<>();
+        this.distribution = new RatingDistribution();
     }
 
-    // Private inner class to represent a single rating
+    // A store sharing every table of another (see share)
+    private Ratings(AbstractStores stores, Ratings source) {
+        this.stores = stores;
+        this.movieRatings = source.movieRatings.share();
+        this.userRatings = source.userRatings.share();
+        this.byMonth = source.byMonth.share();
+        this.movieHistograms = source.movieHistograms.share();
+        this.userHistograms = source.userHistograms.share();
+        this.distribution = source.distribution.copy();
+        this.ownedMovies = new LongHashSet();
+        this.ownedUsers = new LongHashSet();
+    }
+
+    // Private inner class to represent a single rating.
+    // Never changed once made (set() swaps in a new one), so copies of the store can share them.
     private static class Rating {
-        int userID;
-        int movieID;
-        float rating;
-        LocalDateTime timestamp;
+        final int userID;
+        final int movieID;
+        final float rating;
+        final LocalDateTime timestamp;
 
         // Constructor for a Rating
         Rating(int userID, int movieID, float rating, LocalDateTime timestamp) {
@@ -42,33 +81,68 @@ public class Ratings implements IRatings {
         if (containsRating(userID, movieID))
             return false;
 
-        Rating r = new Rating(userID, movieID, rating, timestamp);
+        insert(new Rating(userID, movieID, rating, timestamp));
+        return true;
+    }
 
-        // Insert into movieRatings table
-        if (!movieRatings.containsKey(movieID)) {
-            movieRatings.put(movieID, new MyDynamicArray<>());
-        }
-        movieRatings.get(movieID).add(r);
+    @Override
+    public int addBatch(int[] userIDs, int[] movieIDs, float[] ratings, long[] timestamps) {
+        return addBatch(userIDs, movieIDs, ratings, timestamps, null);
+    }
 
-        // Insert into userRatings table
-        if (!userRatings.containsKey(userID)) {
-            userRatings.put(userID, new MyDynamicArray<>());
-        }
-        userRatings.get(userID).add(r);
+    @Override
+    public int addBatch(int[] userIDs, int[] movieIDs, float[] ratings, long[] timestamps, boolean[] added) {
+        if (userIDs == null || movieIDs == null || ratings == null || timestamps == null)
+            return 0;
+        int n = userIDs.length;
+        if (movieIDs.length != n || ratings.length != n || timestamps.length != n || (added != null && added.length != n))
+            return 0;
+
+        // Instead of scanning a movie's list for every record (as add does), the
+        // (user, movie) pairs already rated are loaded into a hash set the first time
+        // the batch touches each movie, so every duplicate check is O(1)
+        LongHashSet rated = new LongHashSet(n);
+        LongHashSet loadedMovies = new LongHashSet();
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            int movieID = movieIDs[i];
+            if (loadedMovies.add(movieID)) {
+                MyDynamicArray<Rating> mList = movieRatings.get(movieID);
+                if (mList != null) {
+                    for (int j = 0; j < mList.size(); j++)
+                        rated.add(pair(mList.get(j).userID, movieID));
+                }
+            }
 
-        return true;
+            // Skips pairs already stored, and repeats of a pair earlier in the batch
+            boolean isNew = rated.add(pair(userIDs[i], movieID));
+            if (added != null)
+                added[i] = isNew;
+            if (!isNew)
+                continue;
+
+            LocalDateTime time = LocalDateTime.ofEpochSecond(timestamps[i], 0, ZoneOffset.UTC);
+            insert(new Rating(userIDs[i], movieID, ratings[i], time));
+            count++;
+        }
+        return count;
     }
 
     @Override
     public boolean remove(int userID, int movieID) {
         boolean removed = false;
+        ownMovie(movieID);
+        ownUser(userID);
 
         // Try to remove from movieRatings
         MyDynamicArray<Rating> mList = movieRatings.get(movieID);
         if (mList != null) {
             for (int i = 0; i < mList.size(); i++) {
                 if (mList.get(i).userID == userID) {
-                    mList.removeByValue(mList.get(i)); // Remove the rating object
+                    Rating r = mList.get(i);
+                    mList.removeByValue(r); // Remove the rating object
+                    byMonth.remove(movieID, userID, r.timestamp);
+                    count(r, -1);
                     removed = true;
                     break;
                 }
@@ -91,14 +165,27 @@ public class Ratings implements IRatings {
 
     @Override
     public boolean set(int userID, int movieID, float rating, LocalDateTime timestamp) {
-        // Try updating existing rating first
+        ownMovie(movieID);
+        ownUser(userID);
+        // Try updating existing rating first, by replacing it in both lists
         MyDynamicArray<Rating> mList = movieRatings.get(movieID);
         if (mList != null) {
             for (int i = 0; i < mList.size(); i++) {
-                Rating r = mList.get(i);
-                if (r.userID == userID) {
-                    r.rating = rating;
-                    r.timestamp = timestamp;
+                Rating old = mList.get(i);
+                if (old.userID == userID) {
+                    Rating r = new Rating(userID, movieID, rating, timestamp);
+                    mList.set(i, r);
+                    byMonth.remove(movieID, userID, old.timestamp);
+                    byMonth.add(movieID, userID, rating, timestamp);
+                    count(old, -1);
+                    count(r, 1);
+                    MyDynamicArray<Rating> uList = userRatings.get(userID);
+                    for (int j = 0; j < uList.size(); j++) {
+                        if (uList.get(j) == old) {
+                            uList.set(j, r);
+                            break;
+                        }
+                    }
                     return true;
                 }
             }
@@ -133,6 +220,18 @@ public class Ratings implements IRatings {
         return res;
     }
 
+    @Override
+    public float[] getMovieRatings(int movieID, int offset, int limit) {
+        // Return one page of the ratings for a movie
+        return ratingsPage(movieRatings.get(movieID), offset, limit);
+    }
+
+    @Override
+    public float[] getUserRatings(int userID, int offset, int limit) {
+        // Return one page of the ratings made by a user
+        return ratingsPage(userRatings.get(userID), offset, limit);
+    }
+
     @Override
     public float getMovieAverageRating(int movieID) {
         // Calculate the average rating of a movie
@@ -171,6 +270,65 @@ public class Ratings implements IRatings {
         return sum / uList.size();
     }
 
+    @Override
+    public int[] getRatedMovies() {
+        // Return every movie that has at least one rating
+        int[] keys = movieRatings.keys();
+        int count = 0;
+        for (int id : keys) {
+            if (movieRatings.get(id).size() > 0)
+                keys[count++] = id;
+        }
+        int[] res = new int[count];
+        System.arraycopy(keys, 0, res, 0, count);
+        return res;
+    }
+
+    @Override
+    public long[] getMovieRatingTimes(int movieID) {
+        // Return when each of a movie's ratings was made, lined up with getMovieRatings
+        MyDynamicArray<Rating> mList = movieRatings.get(movieID);
+        if (mList == null || mList.size() == 0)
+            return new long[0];
+
+        long[] res = new long[mList.size()];
+        for (int i = 0; i < mList.size(); i++)
+            res[i] = mList.get(i).timestamp.toEpochSecond(ZoneOffset.UTC);
+        return res;
+    }
+
+    @Override
+    public int[] getMovieRaters(int movieID) {
+        // Return the users who rated a movie, lined up with getMovieRatings
+        MyDynamicArray<Rating> mList = movieRatings.get(movieID);
+        if (mList == null || mList.size() == 0)
+            return new int[0];
+
+        int[] res = new int[mList.size()];
+        for (int i = 0; i < mList.size(); i++)
+            res[i] = mList.get(i).userID;
+        return res;
+    }
+
+    @Override
+    public int[] getUserMovies(int userID) {
+        // Return the movies a user rated, lined up with getUserRatings
+        MyDynamicArray<Rating> uList = userRatings.get(userID);
+        if (uList == null || uList.size() == 0)
+            return new int[0];
+
+        int[] res = new int[uList.size()];
+        for (int i = 0; i < uList.size(); i++)
+            res[i] = uList.get(i).movieID;
+        return res;
+    }
+
+    @Override
+    public float getRating(int userID, int movieID) {
+        Rating r = find(userID, movieID);
+        return r == null ? -1 : r.rating;
+    }
+
     @Override
     public int[] getMostRatedMovies(int num) {
         // Return top num movies with the most ratings
@@ -224,40 +382,100 @@ public class Ratings implements IRatings {
     }
 
     @Override
-    public int[] getTopAverageRatedMovies(int numResults) {
-        // Find top numResults movies with highest average rating
-        int[] keys = movieRatings.keys();
-        MyDynamicArray<float[]> averages = new MyDynamicArray<>();
+    public float[] getMovieAverageRatings(int[] movieIDs) {
+        float[] averages = new float[movieIDs.length];
+        fillMovieStats(movieIDs, null, 0, movieIDs.length, averages, null);
+        return averages;
+    }
 
-        for (int id : keys) {
+    @Override
+    public int[] getNumRatings(int[] movieIDs) {
+        int[] counts = new int[movieIDs.length];
+        fillMovieStats(movieIDs, null, 0, movieIDs.length, null, counts);
+        return counts;
+    }
+
+    @Override
+    public int[] getTopAverageRatedMovies(int numResults) {
+        // Find top numResults movies with highest average rating, keeping only the
+        // best numResults seen so far (ties keep the order the movies are stored in)
+        TopK top = new TopK(numResults);
+        for (int id : movieRatings.keys()) {
             MyDynamicArray<Rating> mList = movieRatings.get(id);
             if (mList != null && mList.size() > 0) {
                 float sum = 0;
                 for (int i = 0; i < mList.size(); i++) {
                     sum += mList.get(i).rating;
                 }
-                averages.add(new float[] { id, sum / mList.size() });
+                top.offer(id, sum / mList.size());
             }
         }
+        return top.toIDs();
+    }
 
-        // Bubble sort by average rating descending
-        for (int i = 0; i < averages.size() - 1; i++) {
-            for (int j = 0; j < averages.size() - i - 1; j++) {
-                if (averages.get(j)[1] < averages.get(j + 1)[1]) {
-                    float[] temp = averages.get(j);
-                    averages.set(j, averages.get(j + 1));
-                    averages.set(j + 1, temp);
-                }
-            }
-        }
+    @Override
+    public int[] getTrendingMovies(LocalDateTime reference, int days, int numResults) {
+        if (reference == null || days <= 0 || numResults <= 0)
+            return new int[0];
+
+        MonthIndex.Totals totals = new MonthIndex.Totals();
+        long to = reference.toEpochSecond(ZoneOffset.UTC);
+        countWindow(to - days * 86400L, to, totals);
+        return totals.top(numResults);
+    }
 
-        // Return top numResults movie IDs
-        int len = Math.min(numResults, averages.size());
-        int[] result = new int[len];
-        for (int i = 0; i < len; i++) {
-            result[i] = (int) averages.get(i)[0];
-        }
-        return result;
+    @Override
+    public int[] getMonthlyRatingCounts(int movieID, YearMonth from, YearMonth to) {
+        if (from == null || to == null || from.isAfter(to))
+            return new int[0];
+
+        int first = monthNumber(from);
+        int[] counts = new int[monthNumber(to) - first + 1];
+        byMonth.countMonths(movieID, first, first + counts.length - 1, counts);
+        return counts;
+    }
+
+    @Override
+    public float getUserRatingDrift(int userID) {
+        return drift(driftSums(userID));
+    }
+
+    @Override
+    public LocalDateTime getLatestTimestamp() {
+        long latest = byMonth.latest();
+        return latest == Long.MIN_VALUE ? null : LocalDateTime.ofEpochSecond(latest, 0, ZoneOffset.UTC);
+    }
+
+    @Override
+    public int[] getMovieRatingHistogram(int movieID) {
+        int[] histogram = movieHistograms.get(movieID);
+        return histogram == null ? new int[NUM_BUCKETS] : histogram.clone();
+    }
+
+    @Override
+    public int[] getUserRatingHistogram(int userID) {
+        int[] histogram = userHistograms.get(userID);
+        return histogram == null ? new int[NUM_BUCKETS] : histogram.clone();
+    }
+
+    @Override
+    public float getMovieMedianRating(int movieID) {
+        return getMovieRatingPercentile(movieID, 50);
+    }
+
+    @Override
+    public float getMovieRatingPercentile(int movieID, double percentile) {
+        return percentileOf(movieHistograms.get(movieID), percentile);
+    }
+
+    @Override
+    public float getUserRatingPercentile(int userID, double percentile) {
+        return percentileOf(userHistograms.get(userID), percentile);
+    }
+
+    @Override
+    public float getRatingPercentile(double percentile) {
+        return distribution.percentile(percentile);
     }
 
     @Override
@@ -271,15 +489,251 @@ public class Ratings implements IRatings {
         return total;
     }
 
+    // Helper method: Copies ratings [offset, offset + limit) of a list into a float array
+    private float[] ratingsPage(MyDynamicArray<Rating> list, int offset, int limit) {
+        if (list == null || offset < 0 || limit < 0 || offset >= list.size())
+            return new float[0];
+
+        int end = (int) Math.min((long) offset + limit, list.size());
+        float[] res = new float[end - offset];
+        for (int i = offset; i < end; i++)
+            res[i - offset] = list.get(i).rating;
+        return res;
+    }
+
+    // ---------- Package-private access for stores built on top of this one ----------
+
+    // A store holding the same ratings (used for snapshots), owned by the given stores.
+    // The two share their tables, lists and histograms; from then on each copies a
+    // movie's or user's list and histogram before first changing them, so a snapshot
+    // costs about the table arrays plus whatever is written after it.
+    Ratings share(AbstractStores owner) {
+        Ratings twin = new Ratings(owner, this);
+        ownedMovies = new LongHashSet();
+        ownedUsers = new LongHashSet();
+        return twin;
+    }
+
+    // Fills in the average and/or count (either may be null) of movieIDs[positions[k]]
+    // for k in [from, to) (positions null for k itself), with the values
+    // getMovieAverageRating and getNumRatings give. Each movie is looked up once, and
+    // whether the unrated ones exist is asked of the movies store in one call.
+    void fillMovieStats(int[] movieIDs, int[] positions, int from, int to, float[] averages, int[] counts) {
+        int[] unrated = null;
+        int numUnrated = 0;
+        for (int k = from; k < to; k++) {
+            int i = positions == null ? k : positions[k];
+            MyDynamicArray<Rating> mList = movieRatings.get(movieIDs[i]);
+            if (mList == null) {
+                if (unrated == null)
+                    unrated = new int[to - k];
+                unrated[numUnrated++] = i;
+                continue;
+            }
+            if (counts != null)
+                counts[i] = mList.size();
+            if (averages != null) {
+                float sum = 0;
+                for (int j = 0; j < mList.size(); j++)
+                    sum += mList.get(j).rating;
+                averages[i] = mList.size() == 0 ? 0.0f : sum / mList.size();
+            }
+        }
+        if (numUnrated == 0)
+            return;
+
+        int[] ids = new int[numUnrated];
+        for (int u = 0; u < numUnrated; u++)
+            ids[u] = movieIDs[unrated[u]];
+        String[] titles = stores.getMovies().getTitles(ids);
+        for (int u = 0; u < numUnrated; u++) {
+            boolean exists = titles[u] != null;
+            if (counts != null)
+                counts[unrated[u]] = exists ? 0 : -1;
+            if (averages != null)
+                averages[unrated[u]] = exists ? 0.0f : -1.0f;
+        }
+    }
+
+    // Checks if a specific user has already rated a specific movie
+    boolean hasRating(int userID, int movieID) {
+        return containsRating(userID, movieID);
+    }
+
+    // IDs of every user with at least one rating in this store
+    int[] userIDs() {
+        return userRatings.keys();
+    }
+
+    // Adds the ratings made in (from, to] (epoch seconds) to totals, per movie
+    void countWindow(long from, long to, MonthIndex.Totals totals) {
+        byMonth.countWindow(from, to, totals);
+    }
+
+    // The latest time a rating in this store was made (epoch seconds), or Long.MIN_VALUE if none
+    long latestSecond() {
+        return byMonth.latest();
+    }
+
+    // The sums a least squares fit of a user's ratings against time needs:
+    // {n, sum of t, sum of r, sum of t * t, sum of t * r}, with t in years.
+    // They can be added up over stores holding different ratings of the user.
+    double[] driftSums(int userID) {
+        double[] sums = new double[5];
+        MyDynamicArray<Rating> uList = userRatings.get(userID);
+        if (uList == null)
+            return sums;
+        for (int i = 0; i < uList.size(); i++) {
+            Rating r = uList.get(i);
+            if (r.timestamp == null)
+                continue;
+            double t = r.timestamp.toEpochSecond(ZoneOffset.UTC) / SECONDS_PER_YEAR;
+            sums[0]++;
+            sums[1] += t;
+            sums[2] += r.rating;
+            sums[3] += t * t;
+            sums[4] += t * r.rating;
+        }
+        return sums;
+    }
+
+    // The slope of the least squares line through a user's ratings over time, in
+    // stars per year (0 if there are fewer than two distinct times to fit)
+    static float drift(double[] sums) {
+        double n = sums[0];
+        double spread = n * sums[3] - sums[1] * sums[1];
+        if (n < 2 || spread <= 1e-9 * n * n)
+            return 0.0f;
+        return (float) ((n * sums[4] - sums[1] * sums[2]) / spread);
+    }
+
+    // The histogram bucket of a rating (rounded to the nearest half star, and clamped to 0.5 - 5.0)
+    static int bucketOf(float rating) {
+        return Math.max(0, Math.min(NUM_BUCKETS - 1, Math.round(rating * 2) - 1));
+    }
+
+    // The nearest rank percentile of a histogram, in stars (-1 if it is empty or
+    // the percentile isn't in [0, 100])
+    static float percentileOf(int[] histogram, double percentile) {
+        if (histogram == null || !(percentile >= 0 && percentile <= 100))
+            return -1.0f;
+        long total = 0;
+        for (int count : histogram)
+            total += count;
+        if (total == 0)
+            return -1.0f;
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        int bucket = 0;
+        while (bucket < NUM_BUCKETS - 1 && (seen += histogram[bucket]) < rank)
+            bucket++;
+        return (bucket + 1) / 2.0f;
+    }
+
+    // Every rating's exact distribution (the caller must not change it)
+    RatingDistribution distribution() {
+        return distribution;
+    }
+
+    // The month number MonthIndex uses for a month
+    static int monthNumber(YearMonth month) {
+        return month.getYear() * 12 + month.getMonthValue() - 1;
+    }
+
+    // Number of ratings a user has made in this store (0 if none)
+    int numUserRatings(int userID) {
+        MyDynamicArray<Rating> uList = userRatings.get(userID);
+        return uList == null ? 0 : uList.size();
+    }
+
+    // Helper method: Adds a rating to both the movie's and the user's lists
+    private void insert(Rating r) {
+        ownMovie(r.movieID);
+        ownUser(r.userID);
+        MyDynamicArray<Rating> mList = movieRatings.get(r.movieID);
+        if (mList == null) {
+            mList = new MyDynamicArray<>();
+            movieRatings.put(r.movieID, mList);
+        }
+        mList.add(r);
+
+        MyDynamicArray<Rating> uList = userRatings.get(r.userID);
+        if (uList == null) {
+            uList = new MyDynamicArray<>();
+            userRatings.put(r.userID, uList);
+        }
+        uList.add(r);
+
+        byMonth.add(r.movieID, r.userID, r.rating, r.timestamp);
+        count(r, 1);
+    }
+
+    // Helper method: Adds a rating to (by = 1) or takes it out of (by = -1) the histograms and distribution
+    private void count(Rating r, int by) {
+        addToHistogram(movieHistograms, r.movieID, r.rating, by);
+        addToHistogram(userHistograms, r.userID, r.rating, by);
+        if (by > 0)
+            distribution.add(r.rating);
+        else
+            distribution.remove(r.rating);
+    }
+
+    private static void addToHistogram(MyHashTable<Integer, int[]> histograms, int id, float rating, int by) {
+        int[] histogram = histograms.get(id);
+        if (histogram == null) {
+            histogram = new int[NUM_BUCKETS];
+            histograms.put(id, histogram);
+        }
+        histogram[bucketOf(rating)] += by;
+    }
+
+    // Helper method: Makes a movie's list and histogram this store's own before they
+    // change, if a share() may have handed them out (the list is shared until written)
+    private void ownMovie(int movieID) {
+        if (ownedMovies != null && ownedMovies.add(movieID))
+            own(movieRatings, movieHistograms, movieID);
+    }
+
+    // Helper method: Same as ownMovie, for a user's list and histogram
+    private void ownUser(int userID) {
+        if (ownedUsers != null && ownedUsers.add(userID))
+            own(userRatings, userHistograms, userID);
+    }
+
+    private static void own(MyHashTable<Integer, MyDynamicArray<Rating>> lists, MyHashTable<Integer, int[]> histograms, int id) {
+        MyDynamicArray<Rating> list = lists.get(id);
+        if (list != null)
+            lists.put(id, list.share());
+        int[] histogram = histograms.get(id);
+        if (histogram != null)
+            histograms.put(id, histogram.clone());
+    }
+
+    // Helper method: Packs a (user, movie) pair into one long key
+    private static long pair(int userID, int movieID) {
+        return ((long) movieID << 32) | (userID & 0xffffffffL);
+    }
+
     // Helper method: Checks if a specific user has already rated a specific movie
     private boolean containsRating(int userID, int movieID) {
+        return find(userID, movieID) != null;
+    }
+
+    // Helper method: A user's rating of a movie (null if there isn't one), found by
+    // scanning whichever of the movie's and the user's lists is shorter
+    private Rating find(int userID, int movieID) {
         MyDynamicArray<Rating> mList = movieRatings.get(movieID);
-        if (mList != null) {
-            for (int i = 0; i < mList.size(); i++) {
-                if (mList.get(i).userID == userID)
-                    return true;
-            }
+        MyDynamicArray<Rating> uList = userRatings.get(userID);
+        if (mList == null || uList == null)
+            return null;
+        boolean byUser = uList.size() < mList.size();
+        MyDynamicArray<Rating> list = byUser ? uList : mList;
+        for (int i = 0; i < list.size(); i++) {
+            Rating r = list.get(i);
+            if (byUser ? r.movieID == movieID : r.userID == userID)
+                return r;
         }
-        return false;
+        return null;
     }
 }
@@ -0,0 +1,140 @@
+package stores;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import interfaces.*;
+
+// A snapshot of a set of stores: every query works as normal, but every change
+// is refused (returning false, or 0 for addBatch). Made by AbstractStores.snapshot().
+public class ReadOnlyStores extends AbstractStores {
+    ReadOnlyStores(ICredits credits, IKeywords keywords, IMovies movies, IRatings ratings) {
+        this.credits  = new ReadOnlyCredits(credits);
+        this.keywords = new ReadOnlyKeywords(keywords);
+        this.movies   = new ReadOnlyMovies(movies);
+        this.ratings  = new ReadOnlyRatings(ratings);
+    }
+
+    // A snapshot never changes, so a snapshot of one is itself
+    @Override
+    public AbstractStores snapshot() {
+        return this;
+    }
+
+    private static class ReadOnlyMovies extends ForwardingMovies {
+        ReadOnlyMovies(IMovies delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public boolean add(int id, String title, String originalTitle, String overview, String tagline, String status, Genre[] genres, LocalDate release, long budget, long revenue, String[] languages, String originalLanguage, double runtime, String homepage, boolean adult, boolean video, String poster) {
+            return false;
+        }
+
+        @Override
+        public boolean remove(int id) {
+            return false;
+        }
+
+        @Override
+        public boolean setVote(int id, double voteAverage, int voteCount) {
+            return false;
+        }
+
+        @Override
+        public boolean addToCollection(int filmID, int collectionID, String collectionName, String collectionPosterPath, String collectionBackdropPath) {
+            return false;
+        }
+
+        @Override
+        public boolean setIMDB(int filmID, String imdbID) {
+            return false;
+        }
+
+        @Override
+        public boolean setPopularity(int id, double popularity) {
+            return false;
+        }
+
+        @Override
+        public boolean addProductionCompany(int movieId, Company company) {
+            return false;
+        }
+
+        @Override
+        public boolean addProductionCountry(int movieId, String country) {
+            return false;
+        }
+    }
+
+    private static class ReadOnlyRatings extends ForwardingRatings {
+        ReadOnlyRatings(IRatings delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public boolean add(int userID, int movieID, float rating, LocalDateTime timestamp) {
+            return false;
+        }
+
+        @Override
+        public boolean remove(int userID, int movieID) {
+            return false;
+        }
+
+        @Override
+        public boolean set(int userID, int movieID, float rating, LocalDateTime timestamp) {
+            return false;
+        }
+
+        @Override
+        public int addBatch(int[] userIDs, int[] movieIDs, float[] ratings, long[] timestamps, boolean[] added) {
+            if (added != null)
+                Arrays.fill(added, false);
+            return 0;
+        }
+    }
+
+    private static class ReadOnlyCredits extends ForwardingCredits {
+        ReadOnlyCredits(ICredits delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public boolean add(CastCredit[] cast, CrewCredit[] crew, int filmID) {
+            return false;
+        }
+
+        @Override
+        public boolean remove(int filmID) {
+            return false;
+        }
+    }
+
+    private static class ReadOnlyKeywords extends ForwardingKeywords {
+        ReadOnlyKeywords(IKeywords delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public boolean add(int filmID, Keyword[] keywords) {
+            return false;
+        }
+
+        @Override
+        public boolean add(int filmID, Keyword keyword) {
+            return false;
+        }
+
+        @Override
+        public boolean remove(int filmID) {
+            return false;
+        }
+
+        @Override
+        public boolean removeKeywordFromFilm(int filmID, int keywordID) {
+            return false;
+        }
+    }
+}
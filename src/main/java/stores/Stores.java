@@ -9,4 +9,19 @@ public class Stores extends AbstractStores{
         movies   = new Movies(this);
         ratings  = new Ratings(this);
     }
+
+    // Stores sharing the source's data, each copying a part before it changes it
+    // (see Ratings.share and the like), so taking a snapshot copies little up front
+    private Stores(Stores source) {
+        credits  = ((Credits) source.credits).share(this);
+        keywords = ((Keywords) source.keywords).share(this);
+        movies   = ((Movies) source.movies).share(this);
+        ratings  = ((Ratings) source.ratings).share(this);
+    }
+
+    @Override
+    public AbstractStores snapshot() {
+        Stores copy = new Stores(this);
+        return new ReadOnlyStores(copy.credits, copy.keywords, copy.movies, copy.ratings);
+    }
 }
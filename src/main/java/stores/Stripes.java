@@ -0,0 +1,310 @@
+package stores;
+
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import java.util.function.UnaryOperator;
+
+import interfaces.IntIterator;
+import structures.MyHashTable;
+
+// Splits a store into independently locked partitions ("stripes"), chosen by ID.
+// Operations on IDs in different stripes never wait for each other, and reads
+// of one stripe only wait for writes to that stripe.
+//
+// For snapshots, share() makes a twin of each stripe that shares its data, and
+// the stores themselves copy only the parts that are written after that (see
+// Ratings.share and the like), so a snapshot never copies a whole stripe.
+final class Stripes<S> {
+    private final Object[] parts;
+    private final StampedLock[] locks;
+    private final int mask;
+
+    Stripes(int count, Supplier<S> factory) {
+        this(create(count, factory));
+    }
+
+    // Wraps existing stripes (the array length must be a power of two)
+    private Stripes(Object[] parts) {
+        this.parts = parts;
+        this.locks = new StampedLock[parts.length];
+        for (int i = 0; i < parts.length; i++)
+            locks[i] = new StampedLock();
+        this.mask = parts.length - 1;
+    }
+
+    // Makes the empty stripes, rounding the count up to a power of two so a stripe can be picked with a mask
+    private static Object[] create(int count, Supplier<?> factory) {
+        int n = 1;
+        while (n < count)
+            n <<= 1;
+
+        Object[] parts = new Object[n];
+        for (int i = 0; i < n; i++)
+            parts[i] = factory.get();
+        return parts;
+    }
+
+    int count() {
+        return parts.length;
+    }
+
+    // Picks the stripe for an ID (mixing the bits so sequential IDs spread out)
+    int indexFor(int id) {
+        int h = id * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    // Point lookup for one ID, under its stripe's read lock. Every lookup walks a
+    // hash chain (and most allocate), which isn't safe against a writer relinking
+    // it, so there is no optimistic lock-free attempt first: a torn read could
+    // loop on a half-linked chain or allocate from a torn size before validate()
+    // had a chance to reject it. The query must not change the stripe.
+    <R> R read(int id, Function<S, R> query) {
+        return readStripe(indexFor(id), query);
+    }
+
+    // Reads a whole stripe under its read lock (used for scans)
+    <R> R readStripe(int index, Function<S, R> query) {
+        StampedLock lock = locks[index];
+        long stamp = lock.readLock();
+        try {
+            return query.apply(part(index));
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // Changes the stripe an ID belongs to, under that stripe's write lock
+    <R> R write(int id, Function<S, R> update) {
+        return writeStripe(indexFor(id), update);
+    }
+
+    // Changes a whole stripe under its write lock
+    <R> R writeStripe(int index, Function<S, R> update) {
+        StampedLock lock = locks[index];
+        long stamp = lock.writeLock();
+        try {
+            return update.apply(part(index));
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // Takes every stripe's read lock, in order, so no write is half done while they are held
+    long[] readLockAll() {
+        long[] stamps = new long[locks.length];
+        for (int i = 0; i < locks.length; i++)
+            stamps[i] = locks[i].readLock();
+        return stamps;
+    }
+
+    void unlockAllRead(long[] stamps) {
+        for (int i = 0; i < locks.length; i++)
+            locks[i].unlockRead(stamps[i]);
+    }
+
+    // A new Stripes of twin(stripe) for every stripe, which must never be written.
+    // twin may only change what the stripe's own writes read, as the caller holds
+    // every read lock (see readLockAll) rather than the write locks.
+    Stripes<S> share(UnaryOperator<S> twin) {
+        Object[] twins = new Object[parts.length];
+        for (int i = 0; i < parts.length; i++)
+            twins[i] = twin.apply(part(i));
+        return new Stripes<>(twins);
+    }
+
+    // Runs an int[] query on every stripe (one at a time) and joins the results
+    int[] gather(Function<S, int[]> query) {
+        int[][] results = new int[parts.length][];
+        int total = 0;
+        for (int i = 0; i < parts.length; i++) {
+            results[i] = readStripe(i, query);
+            total += results[i].length;
+        }
+        int[] joined = new int[total];
+        int pos = 0;
+        for (int[] r : results) {
+            System.arraycopy(r, 0, joined, pos, r.length);
+            pos += r.length;
+        }
+        return joined;
+    }
+
+    // Runs a float[] query on every stripe (one at a time) and joins the results
+    float[] gatherFloats(Function<S, float[]> query) {
+        float[][] results = new float[parts.length][];
+        int total = 0;
+        for (int i = 0; i < parts.length; i++) {
+            results[i] = readStripe(i, query);
+            total += results[i].length;
+        }
+        float[] joined = new float[total];
+        int pos = 0;
+        for (float[] r : results) {
+            System.arraycopy(r, 0, joined, pos, r.length);
+            pos += r.length;
+        }
+        return joined;
+    }
+
+    // Runs an object array query on every stripe (one at a time) and joins the results
+    <T> T[] gather(Function<S, T[]> query, IntFunction<T[]> newArray) {
+        Object[][] results = new Object[parts.length][];
+        int total = 0;
+        for (int i = 0; i < parts.length; i++) {
+            results[i] = readStripe(i, query);
+            total += results[i].length;
+        }
+        T[] joined = newArray.apply(total);
+        int pos = 0;
+        for (Object[] r : results) {
+            System.arraycopy(r, 0, joined, pos, r.length);
+            pos += r.length;
+        }
+        return joined;
+    }
+
+    // Looks up many IDs, visiting each stripe they fall in once under its read lock.
+    // The positions of ids in the same stripe are grouped (keeping their order), and
+    // lookups.apply(stripe, positions, from, to) is handed positions[from, to).
+    void readEach(int[] ids, BatchQuery<S> lookups) {
+        int[] stripeOf = new int[ids.length];
+        int[] starts = new int[parts.length + 1];
+        for (int i = 0; i < ids.length; i++) {
+            stripeOf[i] = indexFor(ids[i]);
+            starts[stripeOf[i] + 1]++;
+        }
+        for (int s = 0; s < parts.length; s++)
+            starts[s + 1] += starts[s];
+
+        int[] positions = new int[ids.length];
+        int[] next = starts.clone();
+        for (int i = 0; i < ids.length; i++)
+            positions[next[stripeOf[i]]++] = i;
+
+        for (int s = 0; s < parts.length; s++) {
+            int from = starts[s], to = starts[s + 1];
+            if (from == to)
+                continue;
+            readStripe(s, part -> {
+                lookups.apply(part, positions, from, to);
+                return null;
+            });
+        }
+    }
+
+    // Answers a paged query across all stripes. firstMatches(stripe, n) must return
+    // the first n matches in that stripe; stripes are only visited until enough
+    // matches have been found to fill [offset, offset + limit).
+    int[] gatherPage(PageQuery<S> firstMatches, int offset, int limit) {
+        if (offset < 0 || limit <= 0)
+            return new int[0];
+
+        int wanted = (int) Math.min((long) offset + limit, Integer.MAX_VALUE);
+        int[] found = new int[0];
+        for (int i = 0; i < parts.length && found.length < wanted; i++) {
+            int stillWanted = wanted - found.length;
+            int[] more = readStripe(i, s -> firstMatches.apply(s, stillWanted));
+            int[] joined = new int[found.length + more.length];
+            System.arraycopy(found, 0, joined, 0, found.length);
+            System.arraycopy(more, 0, joined, found.length, more.length);
+            found = joined;
+        }
+        return slice(found, offset, limit);
+    }
+
+    // Copies [offset, offset + limit) of an array (clamped to its length)
+    static int[] slice(int[] all, int offset, int limit) {
+        if (offset < 0 || limit < 0 || offset >= all.length)
+            return new int[0];
+        int end = (int) Math.min((long) offset + limit, all.length);
+        int[] page = new int[end - offset];
+        System.arraycopy(all, offset, page, 0, page.length);
+        return page;
+    }
+
+    // Copies [offset, offset + limit) of a float array (clamped to its length)
+    static float[] slice(float[] all, int offset, int limit) {
+        if (offset < 0 || limit < 0 || offset >= all.length)
+            return new float[0];
+        int end = (int) Math.min((long) offset + limit, all.length);
+        float[] page = new float[end - offset];
+        System.arraycopy(all, offset, page, 0, page.length);
+        return page;
+    }
+
+    // Copies [offset, offset + limit) of an object array (clamped to its length)
+    static <T> T[] slice(T[] all, int offset, int limit, IntFunction<T[]> newArray) {
+        if (offset < 0 || limit < 0 || offset >= all.length)
+            return newArray.apply(0);
+        int end = (int) Math.min((long) offset + limit, all.length);
+        T[] page = newArray.apply(end - offset);
+        System.arraycopy(all, offset, page, 0, page.length);
+        return page;
+    }
+
+    // Drops all but the first item with each ID (the same person or keyword
+    // can be stored in several stripes)
+    static <T> T[] distinct(T[] all, ToIntFunction<T> idOf, IntFunction<T[]> newArray) {
+        MyHashTable<Integer, Boolean> seen = new MyHashTable<>();
+        T[] kept = newArray.apply(all.length);
+        int count = 0;
+        for (T item : all) {
+            int id = idOf.applyAsInt(item);
+            if (!seen.containsKey(id)) {
+                seen.put(id, Boolean.TRUE);
+                kept[count++] = item;
+            }
+        }
+        return slice(kept, 0, count, newArray);
+    }
+
+    // Same as distinct, for plain IDs
+    static int[] distinct(int[] all) {
+        MyHashTable<Integer, Boolean> seen = new MyHashTable<>();
+        int[] kept = new int[all.length];
+        int count = 0;
+        for (int id : all) {
+            if (!seen.containsKey(id)) {
+                seen.put(id, Boolean.TRUE);
+                kept[count++] = id;
+            }
+        }
+        return slice(kept, 0, count);
+    }
+
+    // Walks a snapshot of IDs taken from the stripes
+    static IntIterator iterator(int[] ids) {
+        return new IntIterator() {
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return index < ids.length;
+            }
+
+            @Override
+            public int next() {
+                return ids[index++];
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private S part(int index) {
+        return (S) parts[index];
+    }
+
+    // A query for the first n matches in one stripe
+    interface PageQuery<S> {
+        int[] apply(S stripe, int n);
+    }
+
+    // A lookup of the IDs at positions[from, to), which all belong to one stripe
+    interface BatchQuery<S> {
+        void apply(S stripe, int[] positions, int from, int to);
+    }
+}
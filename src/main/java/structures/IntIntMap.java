@@ -0,0 +1,100 @@
+package structures;
+
+// Map from int keys to int values using open addressing (linear probing), so no
+// boxing is needed. Grows to keep the table at most half full.
+public class IntIntMap {
+    private int[] keys; // Slot keys
+    private int[] values; // Slot values
+    private boolean[] used; // Whether each slot holds a key
+    private int size; // Number of keys stored
+
+    public IntIntMap() {
+        this(16);
+    }
+
+    // Constructor sized for about expected keys without growing
+    public IntIntMap(int expected) {
+        int capacity = 16;
+        while (capacity < expected * 2L && capacity < (1 << 30))
+            capacity <<= 1;
+        keys = new int[capacity];
+        values = new int[capacity];
+        used = new boolean[capacity];
+        size = 0;
+    }
+
+    // Inserts a key-value pair, or updates the value if the key already exists
+    public void put(int key, int value) {
+        if ((size + 1) * 2 > keys.length)
+            resize();
+
+        int index = slot(key);
+        while (used[index]) {
+            if (keys[index] == key) {
+                values[index] = value;
+                return;
+            }
+            index = (index + 1) & (keys.length - 1);
+        }
+        keys[index] = key;
+        values[index] = value;
+        used[index] = true;
+        size++;
+    }
+
+    // Returns the value for a key, or missing if the key isn't in the map
+    public int get(int key, int missing) {
+        int index = slot(key);
+        while (used[index]) {
+            if (keys[index] == key)
+                return values[index];
+            index = (index + 1) & (keys.length - 1);
+        }
+        return missing;
+    }
+
+    public boolean containsKey(int key) {
+        int index = slot(key);
+        while (used[index]) {
+            if (keys[index] == key)
+                return true;
+            index = (index + 1) & (keys.length - 1);
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // An independent copy of this map
+    public IntIntMap copy() {
+        IntIntMap copy = new IntIntMap();
+        copy.keys = keys.clone();
+        copy.values = values.clone();
+        copy.used = used.clone();
+        copy.size = size;
+        return copy;
+    }
+
+    // Spreads the key's bits so nearby keys land in different slots
+    private int slot(int key) {
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & (keys.length - 1);
+    }
+
+    // Doubles the table and re-inserts every pair
+    private void resize() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        boolean[] oldUsed = used;
+        keys = new int[oldKeys.length * 2];
+        values = new int[oldKeys.length * 2];
+        used = new boolean[oldKeys.length * 2];
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i])
+                put(oldKeys[i], oldValues[i]);
+        }
+    }
+}
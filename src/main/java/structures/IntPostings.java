@@ -0,0 +1,359 @@
+package structures;
+
+import java.util.Arrays;
+
+// Compressed sorted set of ints, for lists of IDs such as the films with a
+// keyword or the films a person is credited in. The values are written in order
+// into one byte array in variable-byte form (7 bits a byte, the high bit set on
+// all but the last byte of a number), in blocks of BLOCK values: the first value
+// of a block is written whole and the rest as the gap from the one before, so
+// close IDs take a byte each rather than four. The first value is zigzag encoded
+// (0, -1, 1, -2, ... as 0, 1, 2, 3, ...) so a small negative ID stays short, and
+// gaps are written unsigned, so any two ints can follow each other.
+// Lists longer than a block also keep a skip pointer per block (its first value
+// and where it starts), so contains() and and() only decode the blocks that
+// could hold what they look for.
+// Adding a value above all the others appends it. Anything else waits in a small
+// unsorted buffer, which is sorted and merged in with one re-encode when the list
+// is next read (or once PENDING values are waiting), so adding n values in any
+// order costs about n log n rather than n re-encodes.
+// and() and or() return new postings. Reads may merge the buffer in, so reads of
+// one list from several threads are safe, but not alongside a write to it.
+public class IntPostings {
+    static final int BLOCK = 128;
+    static final int PENDING = 128; // Most values left waiting before they are merged in
+
+    private byte[] data = new byte[4];
+    private int length = 0; // Bytes of data used
+    private int size = 0; // Values in data
+    private int last = 0; // The largest value in data (if there are any)
+    private int[] skips; // First value and offset of each block, for more than one block (null otherwise)
+    private volatile int[] pending; // Values below last not yet in data, unsorted (null if none)
+    private int numPending = 0;
+
+    public IntPostings() {
+    }
+
+    // Postings of the given values, in any order
+    public static IntPostings of(int... values) {
+        int[] sorted = values.clone();
+        Arrays.sort(sorted);
+        IntPostings postings = new IntPostings();
+        postings.rebuild(sorted);
+        return postings;
+    }
+
+    // Adds a value; returns false if it was already there
+    public boolean add(int value) {
+        if (size == 0 || value > last) {
+            append(value);
+            return true;
+        }
+        if (value == last || holds(value))
+            return false;
+        int[] waiting = pending;
+        for (int i = 0; i < numPending; i++) {
+            if (waiting[i] == value)
+                return false;
+        }
+        if (waiting == null)
+            waiting = new int[8];
+        else if (numPending == waiting.length)
+            waiting = Arrays.copyOf(waiting, numPending * 2);
+        waiting[numPending++] = value;
+        pending = waiting;
+        if (numPending == PENDING)
+            merge();
+        return true;
+    }
+
+    // Removes a value; returns false if it wasn't there
+    public boolean remove(int value) {
+        if (!contains(value))
+            return false;
+        int[] values = toArray();
+        int pos = Arrays.binarySearch(values, value);
+        System.arraycopy(values, pos + 1, values, pos, values.length - pos - 1);
+        rebuild(Arrays.copyOf(values, values.length - 1));
+        return true;
+    }
+
+    public boolean contains(int value) {
+        seal();
+        return size > 0 && value <= last && holds(value);
+    }
+
+    public int size() {
+        seal();
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    // The values in ascending order
+    public int[] toArray() {
+        seal();
+        int[] result = new int[size];
+        Cursor cursor = new Cursor(this);
+        for (int n = 0; n < size; n++)
+            result[n] = cursor.next();
+        return result;
+    }
+
+    // Walks the values in ascending order, decoding them as they are read. The cursor
+    // sees the list as it was when the cursor was made, whatever is added later.
+    public Cursor cursor() {
+        seal();
+        return new Cursor(this);
+    }
+
+    // The values at the given ranks (0 for the smallest), which must be ascending
+    // and below size(). Blocks with no rank in them are skipped over.
+    public int[] select(int[] ranks) {
+        seal();
+        int[] result = new int[ranks.length];
+        Cursor cursor = new Cursor(this);
+        for (int k = 0; k < ranks.length; k++) {
+            int block = ranks[k] / BLOCK;
+            if (skips != null && block > (cursor.index - 1) / BLOCK && block > 0)
+                cursor.toBlock(block);
+            while (cursor.index <= ranks[k])
+                cursor.next();
+            result[k] = cursor.value;
+        }
+        return result;
+    }
+
+    // Approximate memory used, in bytes (the object and its arrays)
+    public long sizeInBytes() {
+        seal();
+        return 40 + 16 + data.length + (skips == null ? 0 : 16 + skips.length * 4L);
+    }
+
+    // An independent copy, with no spare room
+    public IntPostings copy() {
+        seal();
+        IntPostings copy = new IntPostings();
+        copy.data = Arrays.copyOf(data, length);
+        copy.length = length;
+        copy.size = size;
+        copy.last = last;
+        copy.skips = skips == null ? null : Arrays.copyOf(skips, 2 * ((size + BLOCK - 1) / BLOCK));
+        return copy;
+    }
+
+    // ---------- Set operations ----------
+
+    // Values in both. The smaller is walked, and the larger skips to the block that
+    // could hold each of its values.
+    public static IntPostings and(IntPostings a, IntPostings b) {
+        IntPostings result = new IntPostings();
+        intersect(a, b, result);
+        return result;
+    }
+
+    // Number of values in both, without building the intersection
+    public static int andCardinality(IntPostings a, IntPostings b) {
+        return intersect(a, b, null);
+    }
+
+    // Values in either
+    public static IntPostings or(IntPostings a, IntPostings b) {
+        a.seal();
+        b.seal();
+        IntPostings result = new IntPostings();
+        result.data = new byte[Math.max(4, a.length + b.length)];
+        Cursor x = new Cursor(a), y = new Cursor(b);
+        boolean moreX = x.hasNext(), moreY = y.hasNext();
+        if (moreX)
+            x.next();
+        if (moreY)
+            y.next();
+        while (moreX || moreY) {
+            int w = !moreY || (moreX && x.value < y.value) ? x.value : y.value;
+            result.append(w);
+            if (moreX && x.value == w && (moreX = x.hasNext()))
+                x.next();
+            if (moreY && y.value == w && (moreY = y.hasNext()))
+                y.next();
+        }
+        return result;
+    }
+
+    // ---------- Helper Methods ----------
+
+    // Intersects two postings into out (if it isn't null), returning how many values they share
+    private static int intersect(IntPostings a, IntPostings b, IntPostings out) {
+        a.seal();
+        b.seal();
+        if (a.size > b.size) {
+            IntPostings t = a;
+            a = b;
+            b = t;
+        }
+        if (a.size == 0 || a.last < b.first() || b.last < a.first())
+            return 0;
+        Cursor x = new Cursor(a), y = new Cursor(b);
+        int n = 0;
+        while (x.hasNext()) {
+            int v = x.next();
+            if (!y.advanceTo(v))
+                break; // Nothing left in b
+            if (y.value == v) {
+                if (out != null)
+                    out.append(v);
+                n++;
+            }
+        }
+        return n;
+    }
+
+    private int first() {
+        return skips != null ? skips[0] : new Cursor(this).next();
+    }
+
+    // Whether the encoded values (not the waiting ones) include value
+    private boolean holds(int value) {
+        Cursor cursor = new Cursor(this);
+        return cursor.advanceTo(value) && cursor.value == value;
+    }
+
+    // Merges any waiting values in (before a read)
+    private void seal() {
+        if (pending != null)
+            merge();
+    }
+
+    // Sorts the waiting values and re-encodes the list with them, once. Synchronized
+    // so two readers of the same list don't both merge it.
+    private synchronized void merge() {
+        int[] waiting = pending;
+        if (waiting == null)
+            return;
+        Arrays.sort(waiting, 0, numPending);
+        int[] values = new int[size + numPending];
+        Cursor cursor = new Cursor(this);
+        int n = 0, p = 0;
+        while (cursor.hasNext()) {
+            int v = cursor.next();
+            while (p < numPending && waiting[p] < v)
+                values[n++] = waiting[p++];
+            values[n++] = v;
+        }
+        while (p < numPending)
+            values[n++] = waiting[p++];
+        numPending = 0;
+        rebuild(values);
+        pending = null; // Last, so a reader that sees null also sees the merged data
+    }
+
+    // Writes a value above all the others at the end
+    private void append(int value) {
+        int block = size / BLOCK;
+        int number = size % BLOCK == 0 ? (value << 1) ^ (value >> 31) : value - last;
+        if (size % BLOCK == 0 && size > 0) {
+            if (skips == null) {
+                skips = new int[8];
+                skips[0] = first();
+                skips[1] = 0;
+            } else if (2 * block + 1 >= skips.length) {
+                skips = Arrays.copyOf(skips, skips.length * 2);
+            }
+            skips[2 * block] = value;
+            skips[2 * block + 1] = length;
+        }
+        if (length + 5 > data.length)
+            data = Arrays.copyOf(data, Math.max(length + 5, data.length + (data.length >> 1)));
+        while ((number & ~0x7f) != 0) {
+            data[length++] = (byte) (number | 0x80);
+            number >>>= 7;
+        }
+        data[length++] = (byte) number;
+        last = value;
+        size++;
+    }
+
+    // Replaces the encoded values with ascending ones (repeated values are skipped),
+    // leaving no spare room
+    private void rebuild(int[] values) {
+        data = new byte[Math.max(4, values.length + 4)];
+        length = 0;
+        size = 0;
+        last = 0;
+        skips = null;
+        for (int v : values) {
+            if (size == 0 || v > last)
+                append(v);
+        }
+        data = Arrays.copyOf(data, Math.max(1, length));
+    }
+
+    // Reads the values in order, able to jump ahead a block at a time. Keeps its own
+    // references to the arrays it reads: appends only write past the values it covers,
+    // and anything else makes new arrays, so it never sees a half-made change.
+    public static final class Cursor {
+        private final byte[] data;
+        private final int[] skips;
+        private final int size;
+        private int pos = 0; // Offset of the next value in data
+        int index = 0; // Index of the next value
+        int value = -1; // The value last read
+
+        Cursor(IntPostings postings) {
+            this.data = postings.data;
+            this.skips = postings.skips;
+            this.size = postings.size;
+        }
+
+        public boolean hasNext() {
+            return index < size;
+        }
+
+        public int next() {
+            int number = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = data[pos++];
+                number |= (b & 0x7f) << shift;
+                if (b >= 0)
+                    break;
+            }
+            value = index % BLOCK == 0 ? (number >>> 1) ^ -(number & 1) : value + number;
+            index++;
+            return value;
+        }
+
+        // Moves to the start of a block
+        void toBlock(int block) {
+            pos = skips[2 * block + 1];
+            index = block * BLOCK;
+        }
+
+        // Reads up to the first value at least target, returning false if there isn't one.
+        // Whole blocks are skipped while the next one starts at or below target.
+        boolean advanceTo(int target) {
+            if (index > 0 && value >= target)
+                return true;
+            if (skips != null) {
+                int numBlocks = (size + BLOCK - 1) / BLOCK;
+                int current = index == 0 ? -1 : (index - 1) / BLOCK;
+                int low = current + 1, high = numBlocks - 1;
+                while (low <= high) { // The last block starting at or below target
+                    int mid = (low + high) >>> 1;
+                    if (skips[2 * mid] <= target)
+                        low = mid + 1;
+                    else
+                        high = mid - 1;
+                }
+                if (high > current && high > 0)
+                    toBlock(high);
+            }
+            while (hasNext()) {
+                if (next() >= target)
+                    return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package structures;
+
+// Set of primitive longs using open addressing (linear probing), so adding a
+// key allocates nothing. Grows to keep the table at most half full.
+public class LongHashSet {
+    private long[] keys; // Slot contents
+    private boolean[] used; // Whether each slot holds a key
+    private int size; // Number of keys stored
+
+    public LongHashSet() {
+        this(16);
+    }
+
+    // Constructor sized for about expected keys without growing
+    public LongHashSet(int expected) {
+        int capacity = 16;
+        while (capacity < expected * 2L && capacity < (1 << 30))
+            capacity <<= 1;
+        keys = new long[capacity];
+        used = new boolean[capacity];
+        size = 0;
+    }
+
+    // Adds a key; returns false if it was already in the set
+    public boolean add(long key) {
+        if ((size + 1) * 2 > keys.length)
+            resize();
+
+        int index = slot(key);
+        while (used[index]) {
+            if (keys[index] == key)
+                return false;
+            index = (index + 1) & (keys.length - 1);
+        }
+        keys[index] = key;
+        used[index] = true;
+        size++;
+        return true;
+    }
+
+    public boolean contains(long key) {
+        int index = slot(key);
+        while (used[index]) {
+            if (keys[index] == key)
+                return true;
+            index = (index + 1) & (keys.length - 1);
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Spreads the key's bits so nearby keys land in different slots
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & (keys.length - 1);
+    }
+
+    // Doubles the table and re-inserts every key
+    private void resize() {
+        long[] oldKeys = keys;
+        boolean[] oldUsed = used;
+        keys = new long[oldKeys.length * 2];
+        used = new boolean[oldKeys.length * 2];
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i])
+                add(oldKeys[i]);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package structures;
+
+// Map from long keys to int values using open addressing (linear probing), so no
+// boxing is needed. Grows to keep the table at most half full. Removing a key
+// shifts the keys after it back, so lookups never need tombstones.
+public class LongIntMap {
+    private long[] keys; // Slot keys
+    private int[] values; // Slot values
+    private boolean[] used; // Whether each slot holds a key
+    private int size; // Number of keys stored
+
+    public LongIntMap() {
+        this(16);
+    }
+
+    // Constructor sized for about expected keys without growing
+    public LongIntMap(int expected) {
+        int capacity = 16;
+        while (capacity < expected * 2L && capacity < (1 << 30))
+            capacity <<= 1;
+        keys = new long[capacity];
+        values = new int[capacity];
+        used = new boolean[capacity];
+        size = 0;
+    }
+
+    // Inserts a key-value pair, or updates the value if the key already exists
+    public void put(long key, int value) {
+        if ((size + 1) * 2 > keys.length)
+            resize();
+
+        int index = slot(key);
+        while (used[index]) {
+            if (keys[index] == key) {
+                values[index] = value;
+                return;
+            }
+            index = (index + 1) & (keys.length - 1);
+        }
+        keys[index] = key;
+        values[index] = value;
+        used[index] = true;
+        size++;
+    }
+
+    // Returns the value for a key, or missing if the key isn't in the map
+    public int get(long key, int missing) {
+        int index = slot(key);
+        while (used[index]) {
+            if (keys[index] == key)
+                return values[index];
+            index = (index + 1) & (keys.length - 1);
+        }
+        return missing;
+    }
+
+    // Removes a key, returning its value (or missing if it wasn't there)
+    public int remove(long key, int missing) {
+        int mask = keys.length - 1;
+        int index = slot(key);
+        while (used[index] && keys[index] != key)
+            index = (index + 1) & mask;
+        if (!used[index])
+            return missing;
+        int value = values[index];
+
+        // Move back any key after the gap that can't otherwise be reached from its home slot
+        int gap = index;
+        for (int next = (gap + 1) & mask; used[next]; next = (next + 1) & mask) {
+            int home = slot(keys[next]);
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+        }
+        used[gap] = false;
+        size--;
+        return value;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Spreads the key's bits so nearby keys land in different slots
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & (keys.length - 1);
+    }
+
+    // Doubles the table and re-inserts every pair
+    private void resize() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        boolean[] oldUsed = used;
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldKeys.length * 2];
+        used = new boolean[oldKeys.length * 2];
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i])
+                put(oldKeys[i], oldValues[i]);
+        }
+    }
+}
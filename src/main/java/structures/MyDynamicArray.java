@@ -5,6 +5,7 @@ public class MyDynamicArray<T> {
     private Object[] data; // Internal array to store elements
     private int size; // Number of elements currently in the array
     private int capacity; // Total available space before needing to resize
+    private boolean shared; // Whether another array still uses data (see share)
 
     // Default constructor: starts with capacity 10
     public MyDynamicArray() {
@@ -18,10 +19,22 @@ public class MyDynamicArray<T> {
         this.size = 0;
     }
 
+    // An array holding the same elements, for snapshots. The two share the internal
+    // array until either is changed, which first copies it.
+    public MyDynamicArray<T> share() {
+        MyDynamicArray<T> twin = new MyDynamicArray<>(0);
+        twin.data = data;
+        twin.size = size;
+        twin.capacity = capacity;
+        twin.shared = true;
+        shared = true;
+        return twin;
+    }
+
     // Adds a new element to the end of the array
     public void add(T value) {
-        if (size == capacity)
-            resize(); // If array is full, double its size
+        if (size == capacity || shared)
+            resize(); // If array is full (or shared), double its size
         data[size++] = value; // Insert value and increment size
     }
 
@@ -29,6 +42,8 @@ public class MyDynamicArray<T> {
     public void set(int index, T value) {
         if (index < 0 || index >= size)
             throw new IndexOutOfBoundsException();
+        if (shared)
+            resize();
         data[index] = value;
     }
 
@@ -49,6 +64,8 @@ public class MyDynamicArray<T> {
     public boolean removeByValue(T value) {
         for (int i = 0; i < size; i++) {
             if (data[i].equals(value)) {
+                if (shared)
+                    resize();
                 // Shift elements to fill the gap
                 System.arraycopy(data, i + 1, data, i, size - i - 1);
                 data[--size] = null; // Clean up last slot
@@ -58,11 +75,13 @@ public class MyDynamicArray<T> {
         return false; // Value not found
     }
 
-    // Doubles the capacity of the internal array when full
+    // Doubles the capacity of the internal array when full (and copies it when shared)
     private void resize() {
-        capacity *= 2;
+        if (size == capacity)
+            capacity = Math.max(1, capacity * 2);
         Object[] newData = new Object[capacity];
         System.arraycopy(data, 0, newData, 0, size);
         data = newData; // Replace old array with the new one
+        shared = false;
     }
 }
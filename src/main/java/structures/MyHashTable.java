@@ -6,6 +6,7 @@ public class MyHashTable<K, V> {
 
     private MyLinkedList<Entry<K, V>>[] table; // Array of linked lists (buckets)
     private int size; // Number of key-value pairs stored
+    private boolean[] owned; // After share(): which buckets this table has its own copy of (null if it owns them all)
 
     // Constructor to initialize the hash table
     @SuppressWarnings("unchecked")
@@ -22,10 +23,25 @@ public class MyHashTable<K, V> {
         return (key.hashCode() & 0x7fffffff) % table.length;
     }
 
+    // A table holding the same keys and values (which are shared, not copied), for
+    // snapshots. The two share their buckets until one of them changes a bucket,
+    // which first gets its own copy of it, so this only copies the bucket array.
+    public MyHashTable<K, V> share() {
+        MyHashTable<K, V> twin = new MyHashTable<>(table.clone(), size);
+        owned = new boolean[table.length];
+        return twin;
+    }
+
+    private MyHashTable(MyLinkedList<Entry<K, V>>[] table, int size) {
+        this.table = table;
+        this.size = size;
+        this.owned = new boolean[table.length];
+    }
+
     // Inserts a new key-value pair, or updates the value if the key already exists
     public void put(K key, V value) {
         int index = hash(key);
-        MyLinkedList<Entry<K, V>> bucket = table[index];
+        MyLinkedList<Entry<K, V>> bucket = bucketToChange(index);
 
         // Search for the key in the bucket
         for (int i = 0; i < bucket.size(); i++) {
@@ -59,7 +75,7 @@ public class MyHashTable<K, V> {
     // Removes a key-value pair from the table
     public V remove(K key) {
         int index = hash(key);
-        MyLinkedList<Entry<K, V>> bucket = table[index];
+        MyLinkedList<Entry<K, V>> bucket = get(key) == null ? table[index] : bucketToChange(index);
 
         // Search for the key and remove it
         for (int i = 0; i < bucket.size(); i++) {
@@ -122,6 +138,21 @@ public class MyHashTable<K, V> {
         return ids;
     }
 
+    // A bucket that is safe to change: copied first (entries included) if another table shares it
+    private MyLinkedList<Entry<K, V>> bucketToChange(int index) {
+        if (owned != null && !owned[index]) {
+            MyLinkedList<Entry<K, V>> copy = new MyLinkedList<>();
+            MyLinkedList<Entry<K, V>> bucket = table[index];
+            for (int i = 0; i < bucket.size(); i++) {
+                Entry<K, V> entry = bucket.get(i);
+                copy.add(new Entry<>(entry.key, entry.value));
+            }
+            table[index] = copy;
+            owned[index] = true;
+        }
+        return table[index];
+    }
+
     // Private inner class to store key-value pairs
     private static class Entry<K, V> {
         K key;
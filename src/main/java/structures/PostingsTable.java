@@ -0,0 +1,101 @@
+package structures;
+
+import java.util.Arrays;
+
+// Postings for many lists, one per slot (0, 1, 2, ... in the order they were
+// made), such as the films of each person. Most lists hold one value, so a slot
+// keeps a single value in an int array and only gets IntPostings once it has a
+// second, saving the postings object and its byte array for each of those.
+public class PostingsTable {
+    private static final IntPostings EMPTY = new IntPostings(); // Marks a slot with no values (never changed)
+
+    private int[] single = new int[16]; // The value of each slot with exactly one
+    private IntPostings[] lists = new IntPostings[16]; // Postings of each slot with more than one, EMPTY for none (null otherwise)
+    private int size = 0; // Number of slots
+
+    // Adds an empty slot, returning its index
+    public int addSlot() {
+        if (size == single.length) {
+            single = Arrays.copyOf(single, size * 2);
+            lists = Arrays.copyOf(lists, size * 2);
+        }
+        lists[size] = EMPTY;
+        return size++;
+    }
+
+    // Adds a value to a slot's list; returns false if it was already there
+    public boolean add(int slot, int value) {
+        IntPostings list = lists[slot];
+        if (list == EMPTY) {
+            single[slot] = value;
+            lists[slot] = null;
+            return true;
+        }
+        if (list != null)
+            return list.add(value);
+        if (single[slot] == value)
+            return false;
+        lists[slot] = IntPostings.of(single[slot], value);
+        return true;
+    }
+
+    // Removes a value from a slot's list; returns false if it wasn't there
+    public boolean remove(int slot, int value) {
+        IntPostings list = lists[slot];
+        if (list == null) {
+            if (single[slot] != value)
+                return false;
+            lists[slot] = EMPTY;
+            return true;
+        }
+        if (list == EMPTY || !list.remove(value))
+            return false;
+        if (list.size() == 1) { // Back to one value, kept inline
+            single[slot] = list.toArray()[0];
+            lists[slot] = null;
+        }
+        return true;
+    }
+
+    // A slot's list. Lists of more than one value are returned as held, so must not be
+    // changed; shorter ones are made for the call.
+    public IntPostings get(int slot) {
+        IntPostings list = lists[slot];
+        if (list == EMPTY)
+            return new IntPostings();
+        return list != null ? list : IntPostings.of(single[slot]);
+    }
+
+    // Number of values in a slot's list
+    public int size(int slot) {
+        return lists[slot] != null ? lists[slot].size() : 1;
+    }
+
+    // Number of slots
+    public int size() {
+        return size;
+    }
+
+    // Approximate memory used, in bytes (the object, its arrays and any postings)
+    public long sizeInBytes() {
+        long bytes = 24 + 2 * 16 + single.length * 8L;
+        for (int i = 0; i < size; i++) {
+            if (lists[i] != null && lists[i] != EMPTY)
+                bytes += lists[i].sizeInBytes();
+        }
+        return bytes;
+    }
+
+    // An independent copy, with no spare room
+    public PostingsTable copy() {
+        PostingsTable copy = new PostingsTable();
+        copy.single = Arrays.copyOf(single, Math.max(16, size));
+        copy.lists = new IntPostings[copy.single.length];
+        for (int i = 0; i < size; i++) {
+            if (lists[i] != null)
+                copy.lists[i] = lists[i] == EMPTY ? EMPTY : lists[i].copy();
+        }
+        copy.size = size;
+        return copy;
+    }
+}
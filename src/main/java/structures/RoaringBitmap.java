@@ -0,0 +1,441 @@
+package structures;
+
+import java.util.Arrays;
+
+// Compressed set of non-negative ints, after Roaring bitmaps: values are split by
+// their high 16 bits into chunks of up to 65536, and each chunk is stored as either
+// a sorted char array (up to 4096 values, 2 bytes each) or a 1024-word bitset (8KB,
+// for denser chunks). Sparse and dense sets both stay small, and AND/OR work a
+// chunk at a time without looking at individual values in bitset chunks.
+// add() is for building; and(), or() and andNot() return new bitmaps.
+public class RoaringBitmap {
+    private static final int ARRAY_MAX = 4096; // Chunks with more values than this use a bitset
+    private static final int WORDS = 1024; // 65536 bits
+
+    private char[] keys = new char[4]; // High 16 bits of each chunk, ascending
+    private Object[] chunks = new Object[4]; // char[] (sorted values) or long[] (bitset)
+    private int[] counts = new int[4]; // Number of values in each chunk
+    private int size = 0; // Number of chunks
+
+    public RoaringBitmap() {
+    }
+
+    public static RoaringBitmap of(int... values) {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        for (int v : values)
+            bitmap.add(v);
+        return bitmap;
+    }
+
+    // Adds a value (negative values are ignored); returns false if it was already there
+    public boolean add(int value) {
+        if (value < 0)
+            return false;
+        char key = (char) (value >>> 16);
+        char low = (char) value;
+        int c = Arrays.binarySearch(keys, 0, size, key);
+        if (c < 0) {
+            c = -c - 1;
+            insertChunk(c, key, new char[4], 0);
+        }
+
+        if (chunks[c] instanceof long[]) {
+            long[] bits = (long[]) chunks[c];
+            long mask = 1L << low;
+            if ((bits[low >>> 6] & mask) != 0)
+                return false;
+            bits[low >>> 6] |= mask;
+        } else {
+            char[] values = (char[]) chunks[c];
+            int pos = Arrays.binarySearch(values, 0, counts[c], low);
+            if (pos >= 0)
+                return false;
+            pos = -pos - 1;
+            if (counts[c] == ARRAY_MAX) {
+                long[] bits = toBits(values, counts[c]);
+                bits[low >>> 6] |= 1L << low;
+                chunks[c] = bits;
+            } else {
+                if (counts[c] == values.length)
+                    chunks[c] = values = Arrays.copyOf(values, Math.min(ARRAY_MAX, values.length * 2));
+                System.arraycopy(values, pos, values, pos + 1, counts[c] - pos);
+                values[pos] = low;
+            }
+        }
+        counts[c]++;
+        return true;
+    }
+
+    public boolean contains(int value) {
+        if (value < 0)
+            return false;
+        int c = Arrays.binarySearch(keys, 0, size, (char) (value >>> 16));
+        if (c < 0)
+            return false;
+        char low = (char) value;
+        if (chunks[c] instanceof long[])
+            return (((long[]) chunks[c])[low >>> 6] & (1L << low)) != 0;
+        return Arrays.binarySearch((char[]) chunks[c], 0, counts[c], low) >= 0;
+    }
+
+    // Number of values in the set
+    public int cardinality() {
+        int total = 0;
+        for (int c = 0; c < size; c++)
+            total += counts[c];
+        return total;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // The values in ascending order
+    public int[] toArray() {
+        int[] result = new int[cardinality()];
+        int n = 0;
+        for (int c = 0; c < size; c++) {
+            int high = keys[c] << 16;
+            if (chunks[c] instanceof long[]) {
+                long[] bits = (long[]) chunks[c];
+                for (int w = 0; w < WORDS; w++) {
+                    long word = bits[w];
+                    while (word != 0) {
+                        result[n++] = high | (w << 6) | Long.numberOfTrailingZeros(word);
+                        word &= word - 1;
+                    }
+                }
+            } else {
+                char[] values = (char[]) chunks[c];
+                for (int k = 0; k < counts[c]; k++)
+                    result[n++] = high | values[k];
+            }
+        }
+        return result;
+    }
+
+    // Approximate memory used by the chunks, in bytes
+    public long sizeInBytes() {
+        long bytes = size * 8L;
+        for (int c = 0; c < size; c++)
+            bytes += chunks[c] instanceof long[] ? WORDS * 8L : ((char[]) chunks[c]).length * 2L;
+        return bytes;
+    }
+
+    // ---------- Set operations ----------
+
+    // Values in both bitmaps
+    public static RoaringBitmap and(RoaringBitmap a, RoaringBitmap b) {
+        RoaringBitmap result = new RoaringBitmap();
+        int i = 0, j = 0;
+        while (i < a.size && j < b.size) {
+            if (a.keys[i] < b.keys[j]) {
+                i++;
+            } else if (a.keys[i] > b.keys[j]) {
+                j++;
+            } else {
+                result.appendAnd(a.keys[i], a.chunks[i], a.counts[i], b.chunks[j], b.counts[j]);
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    // Number of values in both bitmaps, without building the intersection
+    public static int andCardinality(RoaringBitmap a, RoaringBitmap b) {
+        int total = 0;
+        int i = 0, j = 0;
+        while (i < a.size && j < b.size) {
+            if (a.keys[i] < b.keys[j]) {
+                i++;
+            } else if (a.keys[i] > b.keys[j]) {
+                j++;
+            } else {
+                Object x = a.chunks[i], y = b.chunks[j];
+                if (x instanceof long[] && y instanceof long[]) {
+                    long[] p = (long[]) x, q = (long[]) y;
+                    for (int w = 0; w < WORDS; w++)
+                        total += Long.bitCount(p[w] & q[w]);
+                } else if (x instanceof long[]) {
+                    total += countIn((char[]) y, b.counts[j], (long[]) x);
+                } else if (y instanceof long[]) {
+                    total += countIn((char[]) x, a.counts[i], (long[]) y);
+                } else {
+                    total += intersect((char[]) x, a.counts[i], (char[]) y, b.counts[j], null);
+                }
+                i++;
+                j++;
+            }
+        }
+        return total;
+    }
+
+    // Values in either bitmap
+    public static RoaringBitmap or(RoaringBitmap a, RoaringBitmap b) {
+        RoaringBitmap result = new RoaringBitmap();
+        int i = 0, j = 0;
+        while (i < a.size || j < b.size) {
+            if (j == b.size || (i < a.size && a.keys[i] < b.keys[j])) {
+                result.append(a.keys[i], copy(a.chunks[i], a.counts[i]), a.counts[i]);
+                i++;
+            } else if (i == a.size || a.keys[i] > b.keys[j]) {
+                result.append(b.keys[j], copy(b.chunks[j], b.counts[j]), b.counts[j]);
+                j++;
+            } else {
+                result.appendOr(a.keys[i], a.chunks[i], a.counts[i], b.chunks[j], b.counts[j]);
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    // Values in any of bitmaps[from, to). Each chunk is ORed into one bitset, so this
+    // is linear in the input rather than re-copying a growing result for every bitmap.
+    public static RoaringBitmap or(RoaringBitmap[] bitmaps, int from, int to) {
+        RoaringBitmap result = new RoaringBitmap();
+        int[] next = new int[to - from]; // Next chunk to read from each bitmap
+        while (true) {
+            // The smallest key not done yet
+            int key = Integer.MAX_VALUE;
+            for (int k = from; k < to; k++) {
+                if (next[k - from] < bitmaps[k].size)
+                    key = Math.min(key, bitmaps[k].keys[next[k - from]]);
+            }
+            if (key == Integer.MAX_VALUE)
+                return result;
+
+            // Sparse chunks are merged as arrays, to avoid an 8KB bitset for a few values
+            int total = 0;
+            boolean dense = false;
+            for (int k = from; k < to; k++) {
+                RoaringBitmap b = bitmaps[k];
+                int c = next[k - from];
+                if (c < b.size && b.keys[c] == key) {
+                    total += b.counts[c];
+                    dense |= b.chunks[c] instanceof long[];
+                }
+            }
+            if (!dense && total <= ARRAY_MAX) {
+                char[] values = new char[total];
+                int n = 0;
+                for (int k = from; k < to; k++) {
+                    RoaringBitmap b = bitmaps[k];
+                    int c = next[k - from];
+                    if (c < b.size && b.keys[c] == key) {
+                        System.arraycopy((char[]) b.chunks[c], 0, values, n, b.counts[c]);
+                        n += b.counts[c];
+                        next[k - from]++;
+                    }
+                }
+                Arrays.sort(values);
+                int unique = 0;
+                for (int v = 0; v < n; v++) {
+                    if (unique == 0 || values[unique - 1] != values[v])
+                        values[unique++] = values[v];
+                }
+                result.append((char) key, values, unique);
+                continue;
+            }
+
+            long[] bits = new long[WORDS];
+            for (int k = from; k < to; k++) {
+                RoaringBitmap b = bitmaps[k];
+                int c = next[k - from];
+                if (c == b.size || b.keys[c] != key)
+                    continue;
+                if (b.chunks[c] instanceof long[]) {
+                    long[] other = (long[]) b.chunks[c];
+                    for (int w = 0; w < WORDS; w++)
+                        bits[w] |= other[w];
+                } else {
+                    char[] values = (char[]) b.chunks[c];
+                    for (int v = 0; v < b.counts[c]; v++)
+                        bits[values[v] >>> 6] |= 1L << values[v];
+                }
+                next[k - from]++;
+            }
+            result.appendBits((char) key, bits);
+        }
+    }
+
+    // Values in a but not in b
+    public static RoaringBitmap andNot(RoaringBitmap a, RoaringBitmap b) {
+        RoaringBitmap result = new RoaringBitmap();
+        int j = 0;
+        for (int i = 0; i < a.size; i++) {
+            while (j < b.size && b.keys[j] < a.keys[i])
+                j++;
+            if (j == b.size || b.keys[j] != a.keys[i]) {
+                result.append(a.keys[i], copy(a.chunks[i], a.counts[i]), a.counts[i]);
+                continue;
+            }
+            if (a.chunks[i] instanceof char[] && b.chunks[j] instanceof char[]) {
+                // Both sparse: walk the two sorted arrays together
+                char[] p = (char[]) a.chunks[i], q = (char[]) b.chunks[j];
+                char[] out = new char[a.counts[i]];
+                int x = 0, y = 0, n = 0;
+                while (x < a.counts[i]) {
+                    while (y < b.counts[j] && q[y] < p[x])
+                        y++;
+                    if (y == b.counts[j] || q[y] != p[x])
+                        out[n++] = p[x];
+                    x++;
+                }
+                result.append(a.keys[i], out, n);
+                continue;
+            }
+            long[] bits = a.chunks[i] instanceof long[] ? ((long[]) a.chunks[i]).clone() : toBits((char[]) a.chunks[i], a.counts[i]);
+            if (b.chunks[j] instanceof long[]) {
+                long[] other = (long[]) b.chunks[j];
+                for (int w = 0; w < WORDS; w++)
+                    bits[w] &= ~other[w];
+            } else {
+                char[] other = (char[]) b.chunks[j];
+                for (int k = 0; k < b.counts[j]; k++)
+                    bits[other[k] >>> 6] &= ~(1L << other[k]);
+            }
+            result.appendBits(a.keys[i], bits);
+        }
+        return result;
+    }
+
+    // ---------- Helper Methods ----------
+
+    private void insertChunk(int c, char key, Object chunk, int count) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            chunks = Arrays.copyOf(chunks, size * 2);
+            counts = Arrays.copyOf(counts, size * 2);
+        }
+        System.arraycopy(keys, c, keys, c + 1, size - c);
+        System.arraycopy(chunks, c, chunks, c + 1, size - c);
+        System.arraycopy(counts, c, counts, c + 1, size - c);
+        keys[c] = key;
+        chunks[c] = chunk;
+        counts[c] = count;
+        size++;
+    }
+
+    // Adds a chunk after all the others (results are built in key order); empty chunks are skipped
+    private void append(char key, Object chunk, int count) {
+        if (count > 0)
+            insertChunk(size, key, chunk, count);
+    }
+
+    // Appends a bitset chunk, as an array if it is sparse enough
+    private void appendBits(char key, long[] bits) {
+        int count = 0;
+        for (long word : bits)
+            count += Long.bitCount(word);
+        if (count > ARRAY_MAX) {
+            append(key, bits, count);
+            return;
+        }
+        char[] values = new char[count];
+        int n = 0;
+        for (int w = 0; w < WORDS; w++) {
+            long word = bits[w];
+            while (word != 0) {
+                values[n++] = (char) ((w << 6) | Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+        append(key, values, count);
+    }
+
+    private void appendAnd(char key, Object x, int xCount, Object y, int yCount) {
+        if (x instanceof long[] && y instanceof long[]) {
+            long[] p = (long[]) x, q = (long[]) y;
+            long[] bits = new long[WORDS];
+            for (int w = 0; w < WORDS; w++)
+                bits[w] = p[w] & q[w];
+            appendBits(key, bits);
+        } else if (x instanceof long[] || y instanceof long[]) {
+            char[] values = (char[]) (x instanceof long[] ? y : x);
+            int count = x instanceof long[] ? yCount : xCount;
+            long[] bits = (long[]) (x instanceof long[] ? x : y);
+            char[] out = new char[count];
+            int n = 0;
+            for (int k = 0; k < count; k++) {
+                if ((bits[values[k] >>> 6] & (1L << values[k])) != 0)
+                    out[n++] = values[k];
+            }
+            append(key, out, n);
+        } else {
+            char[] out = new char[Math.min(xCount, yCount)];
+            append(key, out, intersect((char[]) x, xCount, (char[]) y, yCount, out));
+        }
+    }
+
+    private void appendOr(char key, Object x, int xCount, Object y, int yCount) {
+        if (x instanceof char[] && y instanceof char[] && xCount + yCount <= ARRAY_MAX) {
+            char[] p = (char[]) x, q = (char[]) y;
+            char[] out = new char[xCount + yCount];
+            int i = 0, j = 0, n = 0;
+            while (i < xCount || j < yCount) {
+                if (j == yCount || (i < xCount && p[i] < q[j]))
+                    out[n++] = p[i++];
+                else if (i == xCount || p[i] > q[j])
+                    out[n++] = q[j++];
+                else {
+                    out[n++] = p[i++];
+                    j++;
+                }
+            }
+            append(key, out, n);
+            return;
+        }
+        long[] bits = x instanceof long[] ? ((long[]) x).clone() : toBits((char[]) x, xCount);
+        if (y instanceof long[]) {
+            long[] q = (long[]) y;
+            for (int w = 0; w < WORDS; w++)
+                bits[w] |= q[w];
+        } else {
+            char[] q = (char[]) y;
+            for (int k = 0; k < yCount; k++)
+                bits[q[k] >>> 6] |= 1L << q[k];
+        }
+        appendBits(key, bits);
+    }
+
+    // Intersects two sorted arrays into out (if not null); returns the size of the intersection
+    private static int intersect(char[] p, int pCount, char[] q, int qCount, char[] out) {
+        int i = 0, j = 0, n = 0;
+        while (i < pCount && j < qCount) {
+            if (p[i] < q[j]) {
+                i++;
+            } else if (p[i] > q[j]) {
+                j++;
+            } else {
+                if (out != null)
+                    out[n] = p[i];
+                n++;
+                i++;
+                j++;
+            }
+        }
+        return n;
+    }
+
+    private static int countIn(char[] values, int count, long[] bits) {
+        int n = 0;
+        for (int k = 0; k < count; k++) {
+            if ((bits[values[k] >>> 6] & (1L << values[k])) != 0)
+                n++;
+        }
+        return n;
+    }
+
+    private static long[] toBits(char[] values, int count) {
+        long[] bits = new long[WORDS];
+        for (int k = 0; k < count; k++)
+            bits[values[k] >>> 6] |= 1L << values[k];
+        return bits;
+    }
+
+    private static Object copy(Object chunk, int count) {
+        return chunk instanceof long[] ? ((long[]) chunk).clone() : Arrays.copyOf((char[]) chunk, count);
+    }
+}
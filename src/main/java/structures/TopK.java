@@ -0,0 +1,55 @@
+package structures;
+
+// Keeps the k highest scoring IDs seen so far, in descending score order.
+// Ties keep the ID that was offered first, so results are stable.
+public class TopK {
+    private final int[] ids;
+    private final double[] scores;
+    private int size;
+
+    public TopK(int k) {
+        this.ids = new int[Math.max(0, k)];
+        this.scores = new double[Math.max(0, k)];
+        this.size = 0;
+    }
+
+    // Offers an ID with its score; it is kept only if it beats the current k-th best
+    public void offer(int id, double score) {
+        if (ids.length == 0)
+            return;
+        if (size == ids.length && score <= scores[size - 1])
+            return; // Not better than the worst one kept
+
+        // Find the insert position (after any equal scores, to keep ties stable)
+        int pos = (size == ids.length) ? size - 1 : size;
+        while (pos > 0 && scores[pos - 1] < score) {
+            if (pos < ids.length) {
+                ids[pos] = ids[pos - 1];
+                scores[pos] = scores[pos - 1];
+            }
+            pos--;
+        }
+        ids[pos] = id;
+        scores[pos] = score;
+        if (size < ids.length)
+            size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // The kept IDs, best first
+    public int[] toIDs() {
+        int[] result = new int[size];
+        System.arraycopy(ids, 0, result, 0, size);
+        return result;
+    }
+
+    // The score of the i-th best ID
+    public double getScore(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException();
+        return scores[index];
+    }
+}
@@ -0,0 +1,322 @@
+package structures;
+
+import java.util.Arrays;
+
+// Undirected graph between int IDs where each edge has a small positive weight.
+// Adjacency is kept in compressed sparse rows: row i of the neighbour and weight
+// arrays is [offsets[i], offsets[i + 1]), sorted by neighbour. That is 6 bytes per
+// direction of each edge (an int neighbour and a char weight, capped at 65535).
+//
+// Changes are appended to a log of pending edge additions and removals, and folded
+// into new row arrays on the next query. The row arrays are never changed once
+// made, so copies share them and only copy the (small) log.
+// Public methods are synchronized so one graph can be shared between threads.
+public class WeightedGraph {
+    // The log is folded in early once it holds this many pairs and is at least as
+    // big as the rows, so bulk loading doesn't hold every pair in the log at once
+    private static final int COMPACT_AT = 1 << 20;
+
+    private final IntIntMap index = new IntIntMap(); // ID -> node index
+    private int[] ids = new int[16]; // ID of each node
+    private int numNodes = 0;
+
+    // Rows as of the last compaction (nodes added since then have no row yet)
+    private int[] offsets = new int[1];
+    private int[] neighbours = new int[0];
+    private char[] weights = new char[0];
+    private int numRows = 0;
+
+    // Pending changes, each a node pair packed as (lower index << 32 | higher index)
+    private long[] added = new long[16];
+    private int numAdded = 0;
+    private long[] removed = new long[16];
+    private int numRemoved = 0;
+    private boolean logShared = false; // Whether a copy still uses the log arrays
+
+    public WeightedGraph() {
+    }
+
+    // Copy sharing this graph's rows and log (used for snapshots). Compaction only
+    // reads the log, so it is only copied when either graph next adds to it.
+    public synchronized WeightedGraph copy() {
+        WeightedGraph copy = new WeightedGraph();
+        for (int i = 0; i < numNodes; i++)
+            copy.node(ids[i]);
+        copy.offsets = offsets;
+        copy.neighbours = neighbours;
+        copy.weights = weights;
+        copy.numRows = numRows;
+        copy.added = added;
+        copy.numAdded = numAdded;
+        copy.removed = removed;
+        copy.numRemoved = numRemoved;
+        copy.logShared = true;
+        logShared = true;
+        return copy;
+    }
+
+    // Adds 1 to the weight between every pair of the given IDs (duplicates are ignored)
+    public synchronized void addClique(int[] members) {
+        int[] nodes = distinctNodes(members, true);
+        ownLog();
+        for (int x = 0; x < nodes.length; x++) {
+            for (int y = x + 1; y < nodes.length; y++) {
+                if (numAdded == added.length)
+                    added = Arrays.copyOf(added, numAdded * 2);
+                added[numAdded++] = pair(nodes[x], nodes[y]);
+            }
+        }
+        if (numAdded >= COMPACT_AT && numAdded >= neighbours.length / 2)
+            compact();
+    }
+
+    // Takes 1 off the weight between every pair of the given IDs; edges reaching 0 are dropped
+    public synchronized void removeClique(int[] members) {
+        int[] nodes = distinctNodes(members, false);
+        ownLog();
+        for (int x = 0; x < nodes.length; x++) {
+            for (int y = x + 1; y < nodes.length; y++) {
+                if (numRemoved == removed.length)
+                    removed = Arrays.copyOf(removed, numRemoved * 2);
+                removed[numRemoved++] = pair(nodes[x], nodes[y]);
+            }
+        }
+        if (numRemoved >= COMPACT_AT && numRemoved >= neighbours.length / 2)
+            compact();
+    }
+
+    public synchronized int numNodes() {
+        return numNodes;
+    }
+
+    // Number of (undirected) edges
+    public synchronized int numEdges() {
+        compact();
+        return neighbours.length / 2;
+    }
+
+    // Weight of the edge between two IDs, or 0 if there is none
+    public synchronized int getWeight(int a, int b) {
+        compact();
+        int u = index.get(a, -1);
+        int v = index.get(b, -1);
+        if (u < 0 || v < 0 || u >= numRows)
+            return 0;
+        int pos = Arrays.binarySearch(neighbours, offsets[u], offsets[u + 1], v);
+        return pos < 0 ? 0 : weights[pos];
+    }
+
+    // Number of IDs an ID has an edge to
+    public synchronized int degree(int id) {
+        compact();
+        int u = index.get(id, -1);
+        return u < 0 || u >= numRows ? 0 : offsets[u + 1] - offsets[u];
+    }
+
+    // The numResults IDs with the heaviest edges to an ID, heaviest first
+    public synchronized int[] topNeighbours(int id, int numResults) {
+        compact();
+        int u = index.get(id, -1);
+        if (u < 0 || u >= numRows || numResults <= 0)
+            return new int[0];
+
+        TopK top = new TopK(numResults);
+        for (int e = offsets[u]; e < offsets[u + 1]; e++)
+            top.offer(neighbours[e], weights[e]);
+        int[] result = top.toIDs();
+        for (int n = 0; n < result.length; n++)
+            result[n] = ids[result[n]];
+        return result;
+    }
+
+    // A shortest path (fewest edges) between two IDs, both ends included, or an
+    // empty array if they aren't connected. Searches from both ends at once,
+    // always growing the smaller frontier, so it touches far fewer nodes than a
+    // one-sided search on a well-connected graph.
+    public synchronized int[] shortestPath(int from, int to) {
+        compact();
+        int a = index.get(from, -1);
+        int b = index.get(to, -1);
+        if (a < 0 || b < 0)
+            return new int[0];
+        if (a == b)
+            return new int[] {from};
+
+        IntIntMap parentFrom = new IntIntMap(); // Node -> the node it was reached from
+        IntIntMap parentTo = new IntIntMap();
+        parentFrom.put(a, a);
+        parentTo.put(b, b);
+        int[] frontFrom = {a};
+        int[] frontTo = {b};
+        while (frontFrom.length > 0 && frontTo.length > 0) {
+            boolean forward = frontFrom.length <= frontTo.length;
+            IntIntMap mine = forward ? parentFrom : parentTo;
+            IntIntMap other = forward ? parentTo : parentFrom;
+            int[] frontier = forward ? frontFrom : frontTo;
+
+            int[] next = new int[16];
+            int size = 0;
+            for (int u : frontier) {
+                if (u >= numRows)
+                    continue;
+                for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                    int v = neighbours[e];
+                    if (mine.containsKey(v))
+                        continue;
+                    mine.put(v, u);
+                    if (other.containsKey(v))
+                        return joinPath(v, parentFrom, parentTo);
+                    if (size == next.length)
+                        next = Arrays.copyOf(next, size * 2);
+                    next[size++] = v;
+                }
+            }
+            if (forward)
+                frontFrom = Arrays.copyOf(next, size);
+            else
+                frontTo = Arrays.copyOf(next, size);
+        }
+        return new int[0];
+    }
+
+    // The path through the node where the two searches met
+    private int[] joinPath(int meet, IntIntMap parentFrom, IntIntMap parentTo) {
+        int length = 1;
+        for (int u = meet; parentFrom.get(u, u) != u; u = parentFrom.get(u, u))
+            length++;
+        for (int u = meet; parentTo.get(u, u) != u; u = parentTo.get(u, u))
+            length++;
+
+        int[] path = new int[length];
+        int pos = 0;
+        for (int u = meet; ; u = parentFrom.get(u, u)) {
+            path[pos++] = u;
+            if (parentFrom.get(u, u) == u)
+                break;
+        }
+        // The first half was collected meet -> start, so reverse it
+        for (int x = 0, y = pos - 1; x < y; x++, y--) {
+            int t = path[x];
+            path[x] = path[y];
+            path[y] = t;
+        }
+        for (int u = meet; parentTo.get(u, u) != u; ) {
+            u = parentTo.get(u, u);
+            path[pos++] = u;
+        }
+        for (int n = 0; n < length; n++)
+            path[n] = ids[path[n]];
+        return path;
+    }
+
+    // ---------- Helper Methods ----------
+
+    // Node indexes of the distinct members, creating nodes for new IDs if create is set
+    private int[] distinctNodes(int[] members, boolean create) {
+        if (members == null)
+            return new int[0];
+        int[] nodes = new int[members.length];
+        int size = 0;
+        for (int id : members) {
+            int u = create ? node(id) : index.get(id, -1);
+            if (u >= 0)
+                nodes[size++] = u;
+        }
+        Arrays.sort(nodes, 0, size);
+        int unique = 0;
+        for (int k = 0; k < size; k++) {
+            if (unique == 0 || nodes[unique - 1] != nodes[k])
+                nodes[unique++] = nodes[k];
+        }
+        return Arrays.copyOf(nodes, unique);
+    }
+
+    // The node index of an ID, adding a node if it is new
+    private int node(int id) {
+        int u = index.get(id, -1);
+        if (u >= 0)
+            return u;
+        if (numNodes == ids.length)
+            ids = Arrays.copyOf(ids, numNodes * 2);
+        ids[numNodes] = id;
+        index.put(id, numNodes);
+        return numNodes++;
+    }
+
+    private static long pair(int u, int v) {
+        return ((long) u << 32) | v;
+    }
+
+    // Both directions of every pending pair, sorted (so each row's changes are one sorted run)
+    private static long[] directed(long[] pairs, int count) {
+        long[] result = new long[count * 2];
+        for (int k = 0; k < count; k++) {
+            long p = pairs[k];
+            result[2 * k] = p;
+            result[2 * k + 1] = ((p & 0xFFFFFFFFL) << 32) | (p >>> 32);
+        }
+        Arrays.sort(result);
+        return result;
+    }
+
+    // Folds the pending changes into new row arrays
+    // Takes its own copy of the log before adding to it, if a copy shares it
+    private void ownLog() {
+        if (logShared) {
+            added = added.clone();
+            removed = removed.clone();
+            logShared = false;
+        }
+    }
+
+    private void compact() {
+        if (numAdded == 0 && numRemoved == 0 && numRows == numNodes)
+            return;
+
+        long[] adds = directed(added, numAdded);
+        long[] removes = directed(removed, numRemoved);
+        int[] newOffsets = new int[numNodes + 1];
+        int[] newNeighbours = new int[neighbours.length + adds.length];
+        char[] newWeights = new char[newNeighbours.length];
+        int size = 0;
+        int ai = 0, ri = 0;
+        for (int u = 0; u < numNodes; u++) {
+            newOffsets[u] = size;
+            int e = u < numRows ? offsets[u] : 0;
+            int end = u < numRows ? offsets[u + 1] : 0;
+
+            // Merge the old row with this row's additions and removals, all sorted by neighbour
+            while (true) {
+                int v = Integer.MAX_VALUE;
+                if (e < end)
+                    v = neighbours[e];
+                if (ai < adds.length && (int) (adds[ai] >>> 32) == u)
+                    v = Math.min(v, (int) adds[ai]);
+                if (ri < removes.length && (int) (removes[ri] >>> 32) == u)
+                    v = Math.min(v, (int) removes[ri]);
+                if (v == Integer.MAX_VALUE)
+                    break;
+
+                int weight = 0;
+                if (e < end && neighbours[e] == v)
+                    weight = weights[e++];
+                for (; ai < adds.length && adds[ai] == pair(u, v); ai++)
+                    weight++;
+                for (; ri < removes.length && removes[ri] == pair(u, v); ri++)
+                    weight--;
+                if (weight > 0) {
+                    newNeighbours[size] = v;
+                    newWeights[size++] = (char) Math.min(weight, Character.MAX_VALUE);
+                }
+            }
+        }
+        newOffsets[numNodes] = size;
+
+        offsets = newOffsets;
+        neighbours = size == newNeighbours.length ? newNeighbours : Arrays.copyOf(newNeighbours, size);
+        weights = size == newWeights.length ? newWeights : Arrays.copyOf(newWeights, size);
+        numRows = numNodes;
+        numAdded = 0;
+        numRemoved = 0;
+    }
+}
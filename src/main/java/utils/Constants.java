@@ -49,6 +49,10 @@ public final class Constants {
 
     public static final int mostUserRatingCount = 100;
     public static final int topMoviesCount = 100;
+    public static final int trendingDays = 30; // Window of the Trending reel, back from the latest rating
+    public static final int ingestRefreshMillis = 5000; // How often an open Ratings screen picks up ingested ratings
+    public static final int ingestReportSeconds = 10; // How often ingest metrics are printed
+    public static final int reloadPollSeconds = 5; // How often --watch checks the csv files for changes
 
     public static final String defaultCreditsPath       = "data/credits.csv";
     public static final String defaultKeywordsPath      = "data/keywords.csv";
@@ -0,0 +1,279 @@
+package utils;
+
+import org.json.JSONException;
+
+// A pull reader over one json value held in a String, such as a cast, crew or
+// keywords cell of the csv files. The caller walks the value with beginArray /
+// beginObject, hasNext, nextName, nextString / nextInt and skipValue, decoding
+// straight into its own fields: there is no JSONArray or JSONObject, keys are
+// matched in place against the names the caller wants, and values it doesn't
+// want are stepped over without being decoded.
+// It accepts what org.json accepts in these cells: 'single quoted' strings as
+// well as "double quoted" ones, and bare words such as None, which are read as
+// strings. Problems are reported as a JSONException, as org.json does.
+// One reader can be reset and reused for every cell (it isn't thread safe).
+public final class JsonReader {
+    private static final String BARE_WORD_ENDS = ",:]}/\\\"[{;=#";
+
+    private final StringBuilder buffer = new StringBuilder(); // For strings with escapes
+    private String text = "";
+    private int pos;
+    private boolean needComma; // A value has been read since the last comma or bracket
+
+    public JsonReader reset(String text) {
+        this.text = text;
+        pos = 0;
+        needComma = false;
+        return this;
+    }
+
+    public void beginArray() {
+        expect('[');
+        needComma = false;
+    }
+
+    public void endArray() {
+        expect(']');
+        needComma = true;
+    }
+
+    public void beginObject() {
+        expect('{');
+        needComma = false;
+    }
+
+    public void endObject() {
+        expect('}');
+        needComma = true;
+    }
+
+    // Whether the array or object has another element (or key), reading the
+    // comma before it
+    public boolean hasNext() {
+        char c = peek();
+        if (c == ']' || c == '}')
+            return false;
+        if (needComma) {
+            if (c != ',')
+                throw error("Expected a ',' or ']' or '}'");
+            pos++;
+            needComma = false;
+            c = peek();
+            if (c == ']' || c == '}') // org.json allows a trailing comma
+                return false;
+        }
+        return true;
+    }
+
+    // Reads a key and its ':', returning its index in names (-1 if it isn't one
+    // of them, when the value should be skipped). No String is made for the key.
+    public int nextName(String[] names) {
+        char quote = peek();
+        if (quote != '\'' && quote != '"')
+            throw error("Expected a quoted key");
+        int start = ++pos;
+        int end = skipString(quote);
+        int match = -1;
+        if (!hasEscape(start, end)) {
+            for (int i = 0; i < names.length && match < 0; i++) {
+                if (names[i].length() == end - start && text.regionMatches(start, names[i], 0, end - start))
+                    match = i;
+            }
+        } else {
+            pos = start;
+            readString(quote);
+            for (int i = 0; i < names.length && match < 0; i++) {
+                if (names[i].contentEquals(buffer))
+                    match = i;
+            }
+        }
+        pos = end + 1;
+        expect(':');
+        return match;
+    }
+
+    public String nextString() {
+        char c = peek();
+        String value;
+        if (c == '\'' || c == '"') {
+            int start = ++pos;
+            int end = skipString(c);
+            if (!hasEscape(start, end)) {
+                value = text.substring(start, end);
+            } else {
+                pos = start;
+                readString(c);
+                value = buffer.toString();
+            }
+            pos = end + 1;
+        } else {
+            value = bareWord();
+            char first = value.charAt(0);
+            if ((first >= '0' && first <= '9') || first == '-' || value.equalsIgnoreCase("true")
+                    || value.equalsIgnoreCase("false") || value.equalsIgnoreCase("null"))
+                throw error("Expected a string but found " + value);
+        }
+        needComma = true;
+        return value;
+    }
+
+    public int nextInt() {
+        char c = peek();
+        String word = c == '\'' || c == '"' ? nextString() : null;
+        int start = pos;
+        int end;
+        if (word == null) {
+            // Plain integers are read in place
+            boolean negative = c == '-';
+            end = negative ? start + 1 : start;
+            long value = 0;
+            while (end < text.length() && text.charAt(end) >= '0' && text.charAt(end) <= '9' && end - start < 11)
+                value = value * 10 + (text.charAt(end++) - '0');
+            if (end > (negative ? start + 1 : start) && isBareWordEnd(end) && value <= Integer.MAX_VALUE + (negative ? 1L : 0L)) {
+                pos = end;
+                needComma = true;
+                return (int) (negative ? -value : value);
+            }
+            word = bareWord();
+        }
+        // Anything else numeric (such as 2.0) is truncated, as org.json's getInt does
+        try {
+            needComma = true;
+            return (int) Double.parseDouble(word);
+        } catch (NumberFormatException e) {
+            pos = start;
+            throw error("Expected an int but found " + word);
+        }
+    }
+
+    // Steps over a value of any kind, nested arrays and objects included
+    public void skipValue() {
+        int depth = 0;
+        do {
+            char c = peek();
+            if (c == '[' || c == '{') {
+                pos++;
+                depth++;
+            } else if (c == ']' || c == '}') {
+                if (depth == 0)
+                    throw error("Expected a value");
+                pos++;
+                depth--;
+            } else if (c == '\'' || c == '"') {
+                pos++;
+                pos = skipString(c) + 1;
+            } else if (c == ',' || c == ':') {
+                if (depth == 0)
+                    throw error("Expected a value");
+                pos++;
+            } else {
+                bareWord();
+            }
+        } while (depth > 0);
+        needComma = true;
+    }
+
+    // The next character after any whitespace, without reading it
+    private char peek() {
+        while (pos < text.length() && text.charAt(pos) <= ' ')
+            pos++;
+        if (pos == text.length())
+            throw error("Unexpected end of text");
+        return text.charAt(pos);
+    }
+
+    private void expect(char c) {
+        if (peek() != c)
+            throw error("Expected a '" + c + "'");
+        pos++;
+    }
+
+    // The index of the quote closing the string starting at pos
+    private int skipString(char quote) {
+        for (int i = pos; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == quote)
+                return i;
+            if (c == '\\')
+                i++;
+            else if (c == '\n' || c == '\r')
+                break;
+        }
+        throw error("Unterminated string");
+    }
+
+    private boolean hasEscape(int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (text.charAt(i) == '\\')
+                return true;
+        }
+        return false;
+    }
+
+    // Decodes the string starting at pos into buffer (leaving pos at the closing quote)
+    private void readString(char quote) {
+        buffer.setLength(0);
+        for (char c = text.charAt(pos); c != quote; c = text.charAt(++pos)) {
+            if (c != '\\') {
+                buffer.append(c);
+                continue;
+            }
+            c = text.charAt(++pos);
+            switch (c) {
+                case 'b': buffer.append('\b'); break;
+                case 't': buffer.append('\t'); break;
+                case 'n': buffer.append('\n'); break;
+                case 'f': buffer.append('\f'); break;
+                case 'r': buffer.append('\r'); break;
+                case '"': case '\'': case '\\': case '/': buffer.append(c); break;
+                case 'u':
+                    try {
+                        buffer.append((char) Integer.parseInt(text.substring(pos + 1, pos + 5), 16));
+                        pos += 4;
+                    } catch (NumberFormatException | IndexOutOfBoundsException e) {
+                        throw error("Illegal escape");
+                    }
+                    break;
+                default: throw error("Illegal escape");
+            }
+        }
+    }
+
+    // An unquoted value (a number, true, false, null or a word like None)
+    private String bareWord() {
+        int start = pos;
+        while (pos < text.length() && !isBareWordEnd(pos))
+            pos++;
+        String word = text.substring(start, pos).trim();
+        if (word.isEmpty())
+            throw error("Missing value");
+        return word;
+    }
+
+    private boolean isBareWordEnd(int i) {
+        if (i == text.length())
+            return true;
+        char c = text.charAt(i);
+        return c < ' ' || BARE_WORD_ENDS.indexOf(c) >= 0 || (c == ' ' && i > pos && bareWordEndsAfterSpaces(i));
+    }
+
+    // org.json reads a bare word up to the next delimiter, spaces and all, and
+    // trims it. Spaces end one only if a delimiter (or the end) follows them.
+    private boolean bareWordEndsAfterSpaces(int i) {
+        while (i < text.length() && text.charAt(i) == ' ')
+            i++;
+        return i == text.length() || text.charAt(i) < ' ' || BARE_WORD_ENDS.indexOf(text.charAt(i)) >= 0;
+    }
+
+    // Throws if a required key wasn't read: seen has bit i set for each names[i] read
+    public void requireAll(int seen, String[] names) {
+        for (int i = 0; i < names.length; i++) {
+            if ((seen & (1 << i)) == 0)
+                throw new JSONException("JSONObject[\"" + names[i] + "\"] not found.");
+        }
+    }
+
+    private JSONException error(String message) {
+        return new JSONException(message + " at character " + pos);
+    }
+}
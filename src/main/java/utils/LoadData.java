@@ -1,9 +1,11 @@
 package utils;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.nio.charset.Charset;
-import java.nio.file.Files;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDate;
@@ -11,18 +13,22 @@ import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
-
-import javax.swing.JLabel;
-import javax.swing.JProgressBar;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntPredicate;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.zip.CRC32C;
 
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVRecord;
-import org.json.JSONArray;
 import org.json.JSONException;
-import org.json.JSONObject;
 
 import interfaces.*;
 import stores.CastCredit;
@@ -30,6 +36,7 @@ import stores.Company;
 import stores.CrewCredit;
 import stores.Genre;
 import stores.Keyword;
+import structures.LongIntMap;
 import interfaces.AbstractStores;
 
 public class LoadData implements Runnable {
@@ -126,8 +133,8 @@ public class LoadData implements Runnable {
         int userId;
         int movieId;
         float rating;
-        LocalDateTime timestamp;
-        RatingRecord(int userId, int movieId, float rating, LocalDateTime timestamp){
+        long timestamp; // Epoch seconds
+        RatingRecord(int userId, int movieId, float rating, long timestamp){
             this.userId = userId;
             this.movieId = movieId;
             this.rating = rating;
@@ -139,11 +146,7 @@ public class LoadData implements Runnable {
     public enum StoreType {CREDITS, KEYWORDS, METADATA, RATINGS}
 
 
-    private long currentNumber = 0;
-    private long totalNumber = 0;
-    private String loadingString = "";
-    private JProgressBar loadingBar;
-    private JLabel loadingText;
+    public static final long PROGRESS_MILLIS = 50; // Least time between progress events while a file is read
     
     // Datastructures that the csv files are loaded into.
     ArrayList<CreditRecord> backendCredits = new ArrayList<>();
@@ -158,66 +161,85 @@ public class LoadData implements Runnable {
     ArrayList<RatingRecord> backendRatings = new ArrayList<>();
     HashMap<Integer, ArrayList<RatingRecord>> backendRatingsByMovieId = new HashMap<>();
 
-    private class FileLoadUiUpdater {
-        int totalNumLines = 0;
-        int totalNumCurrentlyProcessed = 0;
-        HashMap<StoreType, Long> numLines = new HashMap<>();
-        JProgressBar loadingBar;
-        JLabel loadingText;
-        public FileLoadUiUpdater(JProgressBar loadingBar, JLabel loadingText, File creditsFile, File keywordsFile, File movieFile, File ratingsFile) throws DataLoadException{
-            this.loadingBar = loadingBar;
-            this.loadingText = loadingText;
-            try{
-                // Populate numLines with how many lines each file has
-                numLines.put(StoreType.CREDITS,  (Files.lines(creditsFile.toPath()).count() - 2));
-                numLines.put(StoreType.KEYWORDS, (Files.lines(keywordsFile.toPath()).count() - 2));
-                numLines.put(StoreType.METADATA, (Files.lines(movieFile.toPath()).count() - 2));
-                numLines.put(StoreType.RATINGS,  (Files.lines(ratingsFile.toPath()).count() - 2));
-                for (long fileNumLines : numLines.values()){
-                    totalNumLines += fileNumLines;
-                }
-            }
-            catch(IOException e){
-                throw new DataLoadException(e.getMessage());
+    // Where each record is in its backend list and a hash of its csv line, so reload can tell which
+    // records have changed. Only kept when loaded to be reloaded (null otherwise).
+    private RecordIndex movieIndex;
+    private RecordIndex creditIndex;
+    private RecordIndex keywordIndex;
+    private RecordIndex ratingIndex; // Keyed by ratingKey(userId, movieId), and hashed by hashRating
+
+    // The files the data was last loaded from, and their state (see filesState) then and when a reload of them last failed
+    private String creditsPath;
+    private String keywordsPath;
+    private String movieMetadataPath;
+    private String ratingsPath;
+    private long loadedState;
+    private long failedState;
+
+    // Decodes the json cells (cast, crew, keywords, genres...) one at a time, reusing its buffers
+    private final JsonReader json = new JsonReader();
+    private final ArrayList<Object> jsonElements = new ArrayList<>();
+    private int jsonId;
+    private String jsonName;
+
+    // Progress through the files by bytes read, out of their total size, so no
+    // pass is made over the files to count their lines first. Events go to the
+    // listener no more often than every PROGRESS_MILLIS.
+    private class FileLoadProgress {
+        final LoadProgressListener listener;
+        final long totalBytes;
+        long finishedBytes = 0; // Of the files already read
+        long lastEvent = System.nanoTime();
+        public FileLoadProgress(LoadProgressListener listener, File... files){
+            this.listener = listener;
+            long bytes = 0;
+            for (File file : files){
+                bytes += file.length();
             }
+            totalBytes = Math.max(1, bytes);
         }
-        private void incrementUI(StoreType fileType, int numRecordsProcessed) {
-            if (loadingBar == null || loadingText == null) {
-                return;
-            }
-            totalNumCurrentlyProcessed++;
-            loadingBar.setValue((int) ((totalNumCurrentlyProcessed / (double) totalNumLines)*(double)loadingBar.getMaximum()));
-            loadingString = "[1/2] Loading Data into backend: ";
-            switch (fileType) {
-                case CREDITS: loadingString += "Credits..."; 
-                    break;
-                case KEYWORDS: loadingString += "Keywords..."; 
-                    break;
-                case METADATA: loadingString += "Film Metadata..."; 
-                    break;
-                case RATINGS: loadingString += "Ratings..."; 
-                    break;
-            }
 
-            loadingString += " (" + numRecordsProcessed + "/" + numLines.get(fileType) + ")";
-            loadingText.setText(loadingString);
-    }
+        // Whether an event is due (the clock is only read every 256 records)
+        boolean due(long records){
+            return (records & 255) == 0 && due();
+        }
+
+        // Whether an event is due, by the clock
+        boolean due(){
+            return listener != null && System.nanoTime() - lastEvent >= TimeUnit.MILLISECONDS.toNanos(PROGRESS_MILLIS);
+        }
+
+        // bytesRead: of the file being read
+        void publish(StoreType file, long records, long bytesRead){
+            lastEvent = System.nanoTime();
+            listener.loadProgress(file, records, Math.min(1, (finishedBytes + bytesRead) / (double) totalBytes));
+        }
+
+        void finished(StoreType file, long records, File read){
+            finishedBytes += read.length();
+            if (listener != null){
+                publish(file, records, 0);
+            }
+        }
     }
 
     //Load data into memory from default file locations
     public LoadData() throws DataLoadException{
-        this(null, null, Constants.defaultCreditsPath, 
+        this(null, Constants.defaultCreditsPath, 
                          Constants.defaultKeywordsPath, 
                          Constants.defaultMovieMetadataPath, 
                          Constants.defaultRatingsPath);
     }
     //Loading into memory first method
     public LoadData(String creditsPath, String keywordsPath, String movieMetadataPath, String ratingsPath) throws DataLoadException{
-        this(null, null, creditsPath, keywordsPath, movieMetadataPath, ratingsPath);
+        this(null, creditsPath, keywordsPath, movieMetadataPath, ratingsPath);
+    }
+    //Loading into memory, telling a listener (which may be null) how far it has got
+    public LoadData(LoadProgressListener progressListener, String creditsPath, String keywordsPath, String movieMetadataPath, String ratingsPath) throws DataLoadException{
+        this(progressListener, false, creditsPath, keywordsPath, movieMetadataPath, ratingsPath);
     }
-    public LoadData(JProgressBar loadingBar, JLabel loadingText, String creditsPath, String keywordsPath, String movieMetadataPath, String ratingsPath) throws DataLoadException{
-        this.loadingBar = loadingBar;
-        this.loadingText = loadingText;
+    //Loading into memory, keeping what reload needs if reloadable (which takes memory, so only when watching the files)
+    public LoadData(LoadProgressListener progressListener, boolean reloadable, String creditsPath, String keywordsPath, String movieMetadataPath, String ratingsPath) throws DataLoadException{
         System.out.println("Loading data into record structures (backend)");
 
         //Create File objects for all input files and check if they are normal files
@@ -234,14 +256,27 @@ public class LoadData implements Runnable {
         File ratingsFile = new File(ratingsPath);
         if (!ratingsFile.isFile())  { throw new DataLoadException(String.format(formatString, "ratings", ratingsPath)); }
 
-        // class to set total number of lines and number of lines for each type so that the actual load function can just do updateUI with what type it is and how many it has loaded
-        FileLoadUiUpdater loadingUiUpdater = new FileLoadUiUpdater(loadingBar, loadingText, creditsFile, keywordsFile, moviesFile, ratingsFile);
+        if (reloadable){
+            movieIndex = new RecordIndex(true);
+            creditIndex = new RecordIndex(true);
+            keywordIndex = new RecordIndex(true);
+            ratingIndex = new RecordIndex(false);
+        }
+
+        // Tracks how far through the files loading has got, so the load functions just report their position in the file
+        FileLoadProgress progress = new FileLoadProgress(progressListener, creditsFile, keywordsFile, moviesFile, ratingsFile);
 
         //Load Metadata first to load validMovieIds
-        Set<Integer> validMovies = loadMetadata(moviesFile, loadingUiUpdater);
-        loadCredits(creditsFile, loadingUiUpdater, validMovies);
-        loadKeywords(keywordsFile, loadingUiUpdater, validMovies);
-        loadRatings(ratingsFile, loadingUiUpdater, validMovies);
+        Set<Integer> validMovies = loadMetadata(moviesFile, progress);
+        loadCredits(creditsFile, progress, validMovies);
+        loadKeywords(keywordsFile, progress, validMovies);
+        loadRatings(ratingsFile, progress, validMovies);
+
+        this.creditsPath = creditsPath;
+        this.keywordsPath = keywordsPath;
+        this.movieMetadataPath = movieMetadataPath;
+        this.ratingsPath = ratingsPath;
+        this.loadedState = filesState(creditsPath, keywordsPath, movieMetadataPath, ratingsPath);
     }
 
     public int getNumMovieRecords(){
@@ -417,27 +452,42 @@ public class LoadData implements Runnable {
     private void populateMovies(IMovies movies, ArrayList<MovieRecord> movieRecords){
         System.out.println("Populating Movies Store...");
         for (MovieRecord mr : movieRecords){
-            movies.add(mr.id, mr.title, mr.originalTitle, mr.overview, mr.tagline, mr.status, mr.genres, mr.release, mr.budget, mr.revenue, mr.languages, mr.originalLanguage, mr.runtime, mr.homepage, mr.adult, mr.video, mr.poster);
+            addMovie(movies, mr);
+        }
+    }
 
-            movies.setVote(mr.id, mr.voteAverage, mr.voteCount);
-            movies.setIMDB(mr.id, mr.imdb);
-            movies.setPopularity(mr.id, mr.popularity);
-            movies.addToCollection(mr.id, mr.collectionID, mr.collectionName, mr.collectionPosterPath, mr.collectionBackdropPath);
-            for (Company c : mr.productionCompanies){
-                movies.addProductionCompany(mr.id, c);
-            }
+    private void addMovie(IMovies movies, MovieRecord mr){
+        movies.add(mr.id, mr.title, mr.originalTitle, mr.overview, mr.tagline, mr.status, mr.genres, mr.release, mr.budget, mr.revenue, mr.languages, mr.originalLanguage, mr.runtime, mr.homepage, mr.adult, mr.video, mr.poster);
 
-            for (String country : mr.productionCountries){
-                movies.addProductionCountry(mr.id, country);
-            }
+        movies.setVote(mr.id, mr.voteAverage, mr.voteCount);
+        movies.setIMDB(mr.id, mr.imdb);
+        movies.setPopularity(mr.id, mr.popularity);
+        movies.addToCollection(mr.id, mr.collectionID, mr.collectionName, mr.collectionPosterPath, mr.collectionBackdropPath);
+        for (Company c : mr.productionCompanies){
+            movies.addProductionCompany(mr.id, c);
+        }
+
+        for (String country : mr.productionCountries){
+            movies.addProductionCountry(mr.id, country);
         }
     }
 
     private void populateRatings(IRatings ratings, ArrayList<RatingRecord> ratingRecords){
         System.out.println("Populating Ratings Store...");
-        for (RatingRecord rr : ratingRecords){
-            ratings.add(rr.userId, rr.movieId, rr.rating, rr.timestamp);
+        // Added as one batch, so duplicates are found with a hash set rather than a list scan per rating
+        int n = ratingRecords.size();
+        int[] users = new int[n];
+        int[] movies = new int[n];
+        float[] values = new float[n];
+        long[] times = new long[n];
+        for (int i = 0; i < n; i++){
+            RatingRecord rr = ratingRecords.get(i);
+            users[i] = rr.userId;
+            movies[i] = rr.movieId;
+            values[i] = rr.rating;
+            times[i] = rr.timestamp;
         }
+        ratings.addBatch(users, movies, values, times);
     }
 
 
@@ -456,7 +506,7 @@ public class LoadData implements Runnable {
     /*                                                  */
     /****************************************************/
 
-    private void loadCredits(File creditsCsvFile, FileLoadUiUpdater loadingUiUpdater, Set<Integer> validMovies) throws DataLoadException {
+    private void loadCredits(File creditsCsvFile, FileLoadProgress progress, Set<Integer> validMovies) throws DataLoadException {
         System.out.println("\nLoading credits from \"" + creditsCsvFile.getPath() + "\"...");
 
         CSVFormat csvFormat = CSVFormat.DEFAULT.builder()
@@ -464,51 +514,15 @@ public class LoadData implements Runnable {
                             .setSkipHeaderRecord(true)
                             .build();
         int record_count = 1;
-        try (CSVParser parser = CSVParser.parse(creditsCsvFile, Charset.forName("UTF-8"), csvFormat)){
+        try (FileInputStream in = new FileInputStream(creditsCsvFile);
+             CSVParser parser = CSVParser.parse(new InputStreamReader(in, StandardCharsets.UTF_8), csvFormat)){
             for (CSVRecord csvRecord : parser){
                 if (csvRecord.size() != 3){
                     throw new DataLoadException("[CREDITS] Incorrect number of csv fields in record number: " + record_count + ". Number of fields found: " + csvRecord.size());
                 }
 
-                // Parse cast
-                JSONArray castJsonArray = new JSONArray(csvRecord.get("cast"));
-                CastCredit[] castArray = new CastCredit[castJsonArray.length()];
-                for (int i = 0; i < castJsonArray.length(); i++){
-                    // Each cast member
-                    JSONObject castJsonObject = castJsonArray.getJSONObject(i);
-
-                    int castElementId  = castJsonObject.getInt("cast_id");
-                    String character   = castJsonObject.getString("character");
-                    String creditId    = castJsonObject.getString("credit_id");
-                    int gender         = castJsonObject.getInt("gender"); //Note: ignoring this field
-                    int castId         = castJsonObject.getInt("id");
-                    String name        = castJsonObject.getString("name");
-                    int order          = castJsonObject.getInt("order"); 
-                    String profilePath = castJsonObject.getString("profile_path");
-
-                    castArray[i] = new CastCredit(castElementId, character, creditId, 
-                                            castId, name, order, profilePath);
-                }
-
-                // Parse crew
-                JSONArray crewJsonArray = new JSONArray(csvRecord.get("crew"));
-                CrewCredit[] crewArray = new CrewCredit[crewJsonArray.length()];
-                for (int i = 0; i < crewJsonArray.length(); i++){
-                    // Each crew member
-                    JSONObject crewJsonObject = crewJsonArray.getJSONObject(i);
-                    String crewElementId = crewJsonObject.getString("credit_id");
-                    String department    = crewJsonObject.getString("department");
-                    int gender           = crewJsonObject.getInt("gender"); //Note: ignoring this field
-                    int crewId           = crewJsonObject.getInt("id");
-                    String job           = crewJsonObject.getString("job");
-                    String name          = crewJsonObject.getString("name");
-                    String profilePath   = crewJsonObject.getString("profile_path");
-
-                    crewArray[i] = new CrewCredit(crewElementId, department, crewId, job, name, profilePath);
-                }
-
-                // Parse top level id in csv file (never empty)
-                int movieId = Integer.parseInt(csvRecord.get("tmdb_id"));
+                CreditRecord cr = parseCredits(csvRecord);
+                int movieId = cr.movieId;
 
                 if (!validMovies.contains(movieId)){
                     String message = "Credits file contains a credit for a movie (id:" + movieId + ") that doesn't exist in the movie metadata file!";
@@ -520,13 +534,19 @@ public class LoadData implements Runnable {
                     throw new DataLoadException(message);
                 }
 
-                CreditRecord cr = new CreditRecord(castArray, crewArray, movieId);
                 backendCredits.add(cr);
                 backendCreditsByMovieId.put(movieId, cr);
+                if (creditIndex != null){
+                    creditIndex.put(movieId, backendCredits.size() - 1, hashRecord(csvRecord));
+                }
 
-                loadingUiUpdater.incrementUI(StoreType.CREDITS, record_count++);
+                record_count++;
+                if (progress.due(parser.getRecordNumber())){
+                    progress.publish(StoreType.CREDITS, parser.getRecordNumber(), in.getChannel().position());
+                }
                 
             } //for each csv record
+            progress.finished(StoreType.CREDITS, parser.getRecordNumber(), creditsCsvFile);
         }
         catch (IOException e){
             String message = "[ UNRECOVERABLE I/O ERROR ] Unable to open credits file ('" + creditsCsvFile.getPath() +"') for parsing. Please make sure it is in the 'data' directory.";
@@ -545,7 +565,7 @@ public class LoadData implements Runnable {
 
     }
 
-    private void loadKeywords(File keywordsCsvFile, FileLoadUiUpdater loadingUiUpdater, Set<Integer> validMovies) throws DataLoadException {
+    private void loadKeywords(File keywordsCsvFile, FileLoadProgress progress, Set<Integer> validMovies) throws DataLoadException {
         System.out.println("\nLoading keywords from \"" + keywordsCsvFile.getPath() + "\"...");
 
         CSVFormat csvFormat = CSVFormat.DEFAULT.builder()
@@ -553,7 +573,8 @@ public class LoadData implements Runnable {
                             .setSkipHeaderRecord(true)
                             .build();
         int record_count = 1;
-        try (CSVParser parser = CSVParser.parse(keywordsCsvFile, Charset.forName("UTF-8") , csvFormat)){
+        try (FileInputStream in = new FileInputStream(keywordsCsvFile);
+             CSVParser parser = CSVParser.parse(new InputStreamReader(in, StandardCharsets.UTF_8), csvFormat)){
             for (CSVRecord csvRecord : parser){ // For every csv line, excluding the header
                 if (csvRecord.size() != 2){
                     throw new DataLoadException("[KEYWORDS] Incorrect number of csv fields in record number: " + record_count + ". Number of fields found: " + csvRecord.size());
@@ -574,26 +595,19 @@ public class LoadData implements Runnable {
                     throw new DataLoadException(message);
                 }
 
-                JSONArray jsonKeywordArray = new JSONArray(csvRecord.get("keywords"));
-                
-                Keyword[] keywordArray = new Keyword[jsonKeywordArray.length()];
-                // Read from the json keyword array that looks like "[{'id':100, 'name':'based on the novel'},...]"
-                for (int i = 0; i < jsonKeywordArray.length(); i++){
-                    JSONObject jsonKeyword = jsonKeywordArray.getJSONObject(i); 
-                    // each {'id':100, 'name':'based on the novel'} in the array
-
-                    int keyword_id      = jsonKeyword.getInt("id");
-                    String keyword_name = jsonKeyword.getString("name");
-                    
-                    keywordArray[i] = new Keyword(keyword_id, keyword_name);
-                }
-
-                KeywordRecord kr = new KeywordRecord(movieId, keywordArray);
+                KeywordRecord kr = parseKeywords(csvRecord, movieId);
                 backendKeywords.add(kr);
                 backendKeywordsByMovieId.put(movieId, kr);
+                if (keywordIndex != null){
+                    keywordIndex.put(movieId, backendKeywords.size() - 1, hashRecord(csvRecord));
+                }
                 
-                loadingUiUpdater.incrementUI(StoreType.KEYWORDS, record_count++);
+                record_count++;
+                if (progress.due(parser.getRecordNumber())){
+                    progress.publish(StoreType.KEYWORDS, parser.getRecordNumber(), in.getChannel().position());
+                }
             }
+            progress.finished(StoreType.KEYWORDS, parser.getRecordNumber(), keywordsCsvFile);
         }
         catch (IOException e){
             String message = "[ UNRECOVERABLE I/O ERROR ] Unable to open keyword file ('" + keywordsCsvFile.getPath() +"') for parsing. Please make sure it is in the 'data' directory.";
@@ -621,18 +635,19 @@ public class LoadData implements Runnable {
     /***
      * Load Film data from csv file.
      * @param metadataCsvFile
-     * @param loadingUiUpdater
+     * @param progress
      * @return Set of movie IDs that were loaded
      * @throws DataLoadException
      */
-    private Set<Integer> loadMetadata(File metadataCsvFile, FileLoadUiUpdater loadingUiUpdater) throws DataLoadException {
+    private Set<Integer> loadMetadata(File metadataCsvFile, FileLoadProgress progress) throws DataLoadException {
         System.out.println("\nLoading movies metadata from \"" + metadataCsvFile.getPath() + "\"...");
         CSVFormat csvFormat = CSVFormat.DEFAULT.builder()
                             .setHeader()
                             .setSkipHeaderRecord(true)
                             .build();
         int record_count = 0;
-        try (CSVParser parser = CSVParser.parse(metadataCsvFile, Charset.forName("UTF-8"), csvFormat)){
+        try (FileInputStream in = new FileInputStream(metadataCsvFile);
+             CSVParser parser = CSVParser.parse(new InputStreamReader(in, StandardCharsets.UTF_8), csvFormat)){
             for (CSVRecord csvRecord : parser){ // For each record line in the file
                 if (csvRecord.size() != 24) {
                     throw new DataLoadException("[" + record_count + "] --METADATA-- Incorrect number of fields. Number of fields found: " + csvRecord.size());
@@ -645,109 +660,21 @@ public class LoadData implements Runnable {
                     throw new DataLoadException("[" + record_count + "] --METADATA-- Input file ('" + metadataCsvFile.getPath() +"') contains duplicate Movie! id: " + movieId);
                 }
 
-                // Parse simple fields
-                long budget    = Long.parseLong(csvRecord.get("budget"));
-                long revenue   = Long.parseLong(csvRecord.get("revenue"));
-                String runtime_in_file = csvRecord.get("runtime");
-                double runtime;
-                if (runtime_in_file.equals("")){ 
-                    runtime = -1; 
-                }
-                else{ 
-                    runtime = Double.parseDouble(csvRecord.get("runtime")); 
-                }
-                boolean adult       = Boolean.parseBoolean(csvRecord.get("adult"));
-                boolean video       = Boolean.parseBoolean(csvRecord.get("video"));
-
-                //Imdb
-                double vote_average = Double.parseDouble(csvRecord.get("vote_average"));
-                int vote_count      = Integer.parseInt(csvRecord.get("vote_count"));
-                String imdbId       = csvRecord.get("imdb_id");
-                Double popularity   = Double.parseDouble(csvRecord.get("popularity"));
-
-                String title            = csvRecord.get("title");
-                String originalTitle    = csvRecord.get("original_title");
-                String overview         = csvRecord.get("overview");
-                String tagline          = csvRecord.get("tagline");
-                String status           = csvRecord.get("status");
-                String originalLanguage = csvRecord.get("original_language");
-                String homepage         = csvRecord.get("homepage");
-                String poster_path      = csvRecord.get("poster_path");
-
-                // Parse Genres
-                JSONArray jsonGenreArray = new JSONArray(csvRecord.get("genres"));
-                Genre[] genreArray = new Genre[jsonGenreArray.length()];
-                for (int i = 0; i < jsonGenreArray.length(); i++){
-                    JSONObject gObject = jsonGenreArray.getJSONObject(i);
-                    int genreId = gObject.getInt("id");
-                    String genreName = gObject.getString("name");
-                    genreArray[i] = new Genre(genreId, genreName);
-                }
-
-                // Parse Languages
-                JSONArray jsonLanguageArray = new JSONArray(csvRecord.get("spoken_languages"));
-                String[] languageArray = new String[jsonLanguageArray.length()];
-                for (int i = 0; i < jsonLanguageArray.length(); i++){
-                    JSONObject lObject = jsonLanguageArray.getJSONObject(i);
-                    String lang_short = lObject.getString("iso_639_1");
-                    languageArray[i] = lang_short;
-                }
-
-                // Parse Release Date
-                String release_in_file = csvRecord.get("release_date");
-                LocalDate release;
-                if (!release_in_file.equals("")){
-                    release = LocalDate.parse(csvRecord.get("release_date"));
-                }
-                else{
-                    release = null;
-                }
-
-                // Add Collection
-                String collectionString = csvRecord.get("belongs_to_collection");
-                int collectionId = -1;
-                String collectionName = null;
-                String collectionPoster = null;   //Note: currently unused
-                String collectionBackdrop = null; //Note: currently unused
-                if (!collectionString.equals("")){
-                    JSONObject collectionObject = new JSONObject(csvRecord.get("belongs_to_collection"));
-                    collectionId       = collectionObject.getInt("id");
-                    collectionName     = collectionObject.getString("name");
-                    collectionPoster   = collectionObject.getString("poster_path");
-                    collectionBackdrop = collectionObject.getString("backdrop_path");
-                }
-
-                // Add Companies
-                JSONArray jsonCompanyArray = new JSONArray(csvRecord.get("production_companies"));
-                Company[] companyArray = new Company[jsonCompanyArray.length()];
-                for (int i = 0; i < jsonCompanyArray.length(); i++){
-                    JSONObject jsonCompanyObject = jsonCompanyArray.getJSONObject(i);
-                    String companyName = jsonCompanyObject.getString("name");
-                    int companyId = jsonCompanyObject.getInt("id");
-                    companyArray[i] = new Company(companyId, companyName);
-                }
-
-                // Add Countries
-                JSONArray jsonCountryArray = new JSONArray(csvRecord.get("production_countries"));
-                String[] countryArray = new String[jsonCountryArray.length()];
-                for (int i = 0; i < jsonCountryArray.length(); i++){
-                    JSONObject jsonCountryObject = jsonCountryArray.getJSONObject(i);
-                    String countryIdShort = jsonCountryObject.getString("iso_3166_1");
-
-                    countryArray[i] = countryIdShort;
-                }
-
-                MovieRecord mr = new MovieRecord(movieId, collectionName, title, originalTitle, overview, tagline, 
-                    status, genreArray, release, budget, revenue, languageArray, originalLanguage, 
-                    runtime, homepage, adult, video, poster_path, vote_average, vote_count, collectionId, 
-                    collectionName, collectionPoster, collectionBackdrop, imdbId, popularity, companyArray, countryArray);
+                MovieRecord mr = parseMovie(csvRecord, movieId);
                 
                 backendMovies.add(mr);
                 backendMoviesByMovieId.put(movieId, mr);
+                if (movieIndex != null){
+                    movieIndex.put(movieId, backendMovies.size() - 1, hashRecord(csvRecord));
+                }
                 
-                loadingUiUpdater.incrementUI(StoreType.METADATA, record_count++);
+                record_count++;
+                if (progress.due(parser.getRecordNumber())){
+                    progress.publish(StoreType.METADATA, parser.getRecordNumber(), in.getChannel().position());
+                }
 
             } //for each record
+            progress.finished(StoreType.METADATA, parser.getRecordNumber(), metadataCsvFile);
 
             return backendMoviesByMovieId.keySet();
 
@@ -782,73 +709,780 @@ public class LoadData implements Runnable {
     /***
      * Load the Ratings file into RatingRecord objects in backend datastructures
      * @param ratingsCsvFile The file to load in
-     * @param loadUiUpdater
+     * @param progress
      * @param validMovies The set of movies that have been parsed from the movies file
      * @throws DataLoadException When the file is of the incorrect format
      */
-    private void loadRatings(File ratingsCsvFile, FileLoadUiUpdater loadUiUpdater, Set<Integer> validMovies) throws DataLoadException {
+    private void loadRatings(File ratingsCsvFile, FileLoadProgress progress, Set<Integer> validMovies) throws DataLoadException {
         System.out.println("\nLoading ratings from \"" + ratingsCsvFile.getPath() + "\"...\n\n");
-        CSVFormat csvFormat = CSVFormat.DEFAULT.builder()
-                            .setHeader()
-                            .setSkipHeaderRecord(true)
-                            .build();
-        int record_count = 0;
-        try (CSVParser parser = CSVParser.parse(ratingsCsvFile, Charset.forName("utf-8"), csvFormat)){
-            for (CSVRecord csvRecord : parser){
-                //For each record in csv file
-                if (csvRecord.size() != 5){
-                    String message = "[" + record_count + "] --RATINGS-- Incorrect list of ratings... No. fields found = " + csvRecord.size();
-                    throw new DataLoadException(message);
+        // Progress comes from the reader as it parses the file; adding the records after is quick by comparison
+        RatingsReader.Columns columns = readRatings(ratingsCsvFile, (rows, bytes) -> {
+            if (progress.due()){
+                progress.publish(StoreType.RATINGS, rows, bytes);
+            }
+        });
+        backendRatings.ensureCapacity(columns.size);
+        for (int i = 0; i < columns.size; i++){
+            int movieId = columns.movieIds[i];
+
+            // Check if this line in the ratings file is referring to a movie that actually exists
+            if (!validMovies.contains(movieId)){
+                String message = "Ratings file contains a rating for a movie (id:" + movieId + ") that doesn't exist in the movie metadata file!";
+                throw new DataLoadException(message);
+            }
+
+            if (ratingIndex != null){
+                long key = ratingKey(columns.userIds[i], movieId);
+                if (ratingIndex.slot(key) >= 0){
+                    continue; // The second of a duplicate pair, which populating would skip anyway
                 }
+                ratingIndex.put(key, backendRatings.size(), 0);
+            }
 
-                int movieId  = Integer.parseInt(csvRecord.get("tmdbId"));
+            RatingRecord rr = new RatingRecord(columns.userIds[i], movieId, columns.ratings[i], columns.timestamps[i]);
 
-                // Check if this line in the ratings file is referring to a movie that actually exists
-                if (!validMovies.contains(movieId)){
-                    String message = "Ratings file contains a rating for a movie (id:" + movieId + ") that doesn't exist in the movie metadata file!";
-                    throw new DataLoadException(message);
+            backendRatings.add(rr);
+            if (!backendRatingsByMovieId.containsKey(movieId)){
+                backendRatingsByMovieId.put(movieId, new ArrayList<>());
+            }
+            backendRatingsByMovieId.get(movieId).add(rr);
+        }
+        progress.finished(StoreType.RATINGS, columns.size, ratingsCsvFile);
+    }
+
+    /***
+     * Read the ratings file with RatingsReader, which parses the bytes of the file straight into
+     * primitive columns (in parallel for big files) rather than a CSVRecord and Strings per line
+     * @param progress Told how far the reader has got as it goes (may be null)
+     * @throws DataLoadException When the file can't be read or a line isn't a rating
+     */
+    private RatingsReader.Columns readRatings(File ratingsCsvFile, RatingsReader.Progress progress) throws DataLoadException {
+        try{
+            return RatingsReader.read(ratingsCsvFile.toPath(), progress);
+        }
+        catch (RatingsReader.FormatException e){
+            String message = "[" + e.line + "] --RATINGS-- Unable to read csv. " + e.getMessage();
+            System.err.println(message);
+            throw new DataLoadException(message);
+        }
+        catch (IOException e){
+            String message = "[ UNRECOVERABLE I/O ERROR ] Unable to open ratings file ('" + ratingsCsvFile.getPath() +"') for parsing. Please make sure it is in the 'data' directory.";
+            System.err.println(message);
+            System.err.println(e.getMessage());
+            throw new DataLoadException(message);
+        }
+    }
+
+    // One metadata record's fields (anything unparseable throws)
+    private MovieRecord parseMovie(CSVRecord csvRecord, int movieId){
+        // Parse simple fields
+        long budget    = Long.parseLong(csvRecord.get("budget"));
+        long revenue   = Long.parseLong(csvRecord.get("revenue"));
+        String runtime_in_file = csvRecord.get("runtime");
+        double runtime;
+        if (runtime_in_file.equals("")){ 
+            runtime = -1; 
+        }
+        else{ 
+            runtime = Double.parseDouble(csvRecord.get("runtime")); 
+        }
+        boolean adult       = Boolean.parseBoolean(csvRecord.get("adult"));
+        boolean video       = Boolean.parseBoolean(csvRecord.get("video"));
+
+        //Imdb
+        double vote_average = Double.parseDouble(csvRecord.get("vote_average"));
+        int vote_count      = Integer.parseInt(csvRecord.get("vote_count"));
+        String imdbId       = csvRecord.get("imdb_id");
+        Double popularity   = Double.parseDouble(csvRecord.get("popularity"));
+
+        String title            = csvRecord.get("title");
+        String originalTitle    = csvRecord.get("original_title");
+        String overview         = csvRecord.get("overview");
+        String tagline          = csvRecord.get("tagline");
+        String status           = csvRecord.get("status");
+        String originalLanguage = csvRecord.get("original_language");
+        String homepage         = csvRecord.get("homepage");
+        String poster_path      = csvRecord.get("poster_path");
+
+        // Parse Genres
+        Genre[] genreArray = readJsonArray(csvRecord.get("genres"), new Genre[0], this::readGenre);
+
+        // Parse Languages
+        String[] languageArray = readJsonArray(csvRecord.get("spoken_languages"), new String[0], () -> readCode(LANGUAGE_KEYS));
+
+        // Parse Release Date
+        String release_in_file = csvRecord.get("release_date");
+        LocalDate release;
+        if (!release_in_file.equals("")){
+            release = LocalDate.parse(csvRecord.get("release_date"));
+        }
+        else{
+            release = null;
+        }
+
+        // Add Collection
+        String collectionString = csvRecord.get("belongs_to_collection");
+        int collectionId = -1;
+        String collectionName = null;
+        String collectionPoster = null;   //Note: currently unused
+        String collectionBackdrop = null; //Note: currently unused
+        if (!collectionString.equals("")){
+            json.reset(collectionString).beginObject();
+            int seen = 0;
+            while (json.hasNext()){
+                int key = json.nextName(COLLECTION_KEYS);
+                switch (key){
+                    case 0: collectionId = json.nextInt(); break;
+                    case 1: collectionName = json.nextString(); break;
+                    case 2: collectionPoster = json.nextString(); break;
+                    case 3: collectionBackdrop = json.nextString(); break;
+                    default: json.skipValue(); continue;
                 }
+                seen |= 1 << key;
+            }
+            json.endObject();
+            json.requireAll(seen, COLLECTION_KEYS);
+        }
+
+        // Add Companies
+        Company[] companyArray = readJsonArray(csvRecord.get("production_companies"), new Company[0], this::readCompany);
+
+        // Add Countries
+        String[] countryArray = readJsonArray(csvRecord.get("production_countries"), new String[0], () -> readCode(COUNTRY_KEYS));
+
+        return new MovieRecord(movieId, collectionName, title, originalTitle, overview, tagline, 
+            status, genreArray, release, budget, revenue, languageArray, originalLanguage, 
+            runtime, homepage, adult, video, poster_path, vote_average, vote_count, collectionId, 
+            collectionName, collectionPoster, collectionBackdrop, imdbId, popularity, companyArray, countryArray);
+    }
+
+    // One credits record's cast and crew (anything unparseable throws)
+    private CreditRecord parseCredits(CSVRecord csvRecord){
+        // Parse cast
+        CastCredit[] castArray = readJsonArray(csvRecord.get("cast"), new CastCredit[0], this::readCastCredit);
+
+        // Parse crew
+        CrewCredit[] crewArray = readJsonArray(csvRecord.get("crew"), new CrewCredit[0], this::readCrewCredit);
+
+        // Parse top level id in csv file (never empty)
+        int movieId = Integer.parseInt(csvRecord.get("tmdb_id"));
+        return new CreditRecord(castArray, crewArray, movieId);
+    }
+
+    // One keywords record's keywords (anything unparseable throws)
+    private KeywordRecord parseKeywords(CSVRecord csvRecord, int movieId){
+        // Read from the json keyword array that looks like "[{'id':100, 'name':'based on the novel'},...]"
+        Keyword[] keywordArray = readJsonArray(csvRecord.get("keywords"), new Keyword[0], this::readKeyword);
+
+        return new KeywordRecord(movieId, keywordArray);
+    }
+
+    /****************************************************/
+    /*                                                  */
+    /*                 Json Cell Decoding               */
+    /*                                                  */
+    /****************************************************/
+
+    // The keys read from each kind of json object. Any others (such as gender)
+    // are skipped without being decoded.
+    private static final String[] CAST_KEYS = {"cast_id", "character", "credit_id", "id", "name", "order", "profile_path"};
+    private static final String[] CREW_KEYS = {"credit_id", "department", "id", "job", "name", "profile_path"};
+    private static final String[] ID_NAME_KEYS = {"id", "name"};
+    private static final String[] COLLECTION_KEYS = {"id", "name", "poster_path", "backdrop_path"};
+    private static final String[] LANGUAGE_KEYS = {"iso_639_1"};
+    private static final String[] COUNTRY_KEYS = {"iso_3166_1"};
+
+    // A json array cell, one element at a time (anything unparseable throws)
+    private <T> T[] readJsonArray(String cell, T[] type, Supplier<T> readElement){
+        json.reset(cell).beginArray();
+        jsonElements.clear();
+        while (json.hasNext()){
+            jsonElements.add(readElement.get());
+        }
+        json.endArray();
+        return jsonElements.toArray(type);
+    }
+
+    // Each {'cast_id': 4, 'character': 'Larry Delong', 'credit_id': '52fe...', 'gender': 2, 'id': 1009, ...}
+    private CastCredit readCastCredit(){
+        int castElementId = 0, castId = 0, order = 0;
+        String character = null, creditId = null, name = null, profilePath = null;
+        int seen = 0;
+        json.beginObject();
+        while (json.hasNext()){
+            int key = json.nextName(CAST_KEYS);
+            switch (key){
+                case 0: castElementId = json.nextInt(); break;
+                case 1: character = json.nextString(); break;
+                case 2: creditId = json.nextString(); break;
+                case 3: castId = json.nextInt(); break;
+                case 4: name = json.nextString(); break;
+                case 5: order = json.nextInt(); break;
+                case 6: profilePath = json.nextString(); break;
+                default: json.skipValue(); continue;
+            }
+            seen |= 1 << key;
+        }
+        json.endObject();
+        json.requireAll(seen, CAST_KEYS);
+        return new CastCredit(castElementId, character, creditId, castId, name, order, profilePath);
+    }
+
+    // Each {'credit_id': '52fe...', 'department': 'Directing', 'gender': 2, 'id': 1009, 'job': 'Director', ...}
+    private CrewCredit readCrewCredit(){
+        int crewId = 0;
+        String crewElementId = null, department = null, job = null, name = null, profilePath = null;
+        int seen = 0;
+        json.beginObject();
+        while (json.hasNext()){
+            int key = json.nextName(CREW_KEYS);
+            switch (key){
+                case 0: crewElementId = json.nextString(); break;
+                case 1: department = json.nextString(); break;
+                case 2: crewId = json.nextInt(); break;
+                case 3: job = json.nextString(); break;
+                case 4: name = json.nextString(); break;
+                case 5: profilePath = json.nextString(); break;
+                default: json.skipValue(); continue;
+            }
+            seen |= 1 << key;
+        }
+        json.endObject();
+        json.requireAll(seen, CREW_KEYS);
+        return new CrewCredit(crewElementId, department, crewId, job, name, profilePath);
+    }
+
+    private Keyword readKeyword(){
+        readIdAndName();
+        return new Keyword(jsonId, jsonName);
+    }
+
+    private Genre readGenre(){
+        readIdAndName();
+        return new Genre(jsonId, jsonName);
+    }
+
+    private Company readCompany(){
+        readIdAndName();
+        return new Company(jsonId, jsonName);
+    }
+
+    // The id and name of an {'id': 100, 'name': 'based on the novel'} object, into jsonId and jsonName
+    private void readIdAndName(){
+        int seen = 0;
+        json.beginObject();
+        while (json.hasNext()){
+            int key = json.nextName(ID_NAME_KEYS);
+            switch (key){
+                case 0: jsonId = json.nextInt(); break;
+                case 1: jsonName = json.nextString(); break;
+                default: json.skipValue(); continue;
+            }
+            seen |= 1 << key;
+        }
+        json.endObject();
+        json.requireAll(seen, ID_NAME_KEYS);
+    }
+
+    // The code from an {'iso_639_1': 'en', 'name': 'English'} object (codeKey holds its one key)
+    private String readCode(String[] codeKey){
+        String code = null;
+        json.beginObject();
+        while (json.hasNext()){
+            if (json.nextName(codeKey) == 0){
+                code = json.nextString();
+            }
+            else{
+                json.skipValue();
+            }
+        }
+        json.endObject();
+        json.requireAll(code == null ? 0 : 1, codeKey);
+        return code;
+    }
+
+    /****************************************************/
+    /*                                                  */
+    /*                Incremental Reload                */
+    /*                                                  */
+    /****************************************************/
 
-                int userId   = Integer.parseInt(csvRecord.get("userId"));
-                float rating = Float.parseFloat(csvRecord.get("rating"));
+    public class NumRecordsChanged{
+        public int inserted;
+        public int updated;
+        public int deleted;
 
-                long ts_in_file = Long.parseLong(csvRecord.get("timestamp"));
-                LocalDateTime time = LocalDateTime.ofEpochSecond(ts_in_file, 0 , ZoneOffset.UTC);
+        public int total(){
+            return inserted + updated + deleted;
+        }
 
-                RatingRecord rr = new RatingRecord(userId, movieId, rating, time);
+        @Override
+        public String toString(){
+            return inserted + " inserted, " + updated + " updated, " + deleted + " deleted";
+        }
+    }
+
+    public class ReloadResult{
+        public NumRecordsChanged credits = new NumRecordsChanged();
+        public NumRecordsChanged keywords = new NumRecordsChanged();
+        public NumRecordsChanged movies = new NumRecordsChanged();
+        public NumRecordsChanged ratings = new NumRecordsChanged();
+        public long millis;
+
+        public int total(){
+            return credits.total() + keywords.total() + movies.total() + ratings.total();
+        }
 
-                backendRatings.add(rr);
-                if (!backendRatingsByMovieId.containsKey(movieId)){
-                    backendRatingsByMovieId.put(movieId, new ArrayList<>());
+        @Override
+        public String toString(){
+            return "Movies: " + movies + "\nCredits: " + credits + "\nKeywords: " + keywords + "\nRatings: " + ratings
+                + "\nReloaded in " + millis + "ms";
+        }
+    }
+
+    // The newest modification time of the files the data was loaded from (0 if none can be read)
+    public long getLastModified(){
+        long newest = 0;
+        for (String path : new String[] {creditsPath, keywordsPath, movieMetadataPath, ratingsPath}){
+            newest = Math.max(newest, new File(path).lastModified());
+        }
+        return newest;
+    }
+
+    // Whether any of the files has been modified since it was last loaded. Files that failed to reload
+    // (most likely still being written) don't count until one of them is modified again.
+    public boolean filesModified(){
+        long state = filesState(creditsPath, keywordsPath, movieMetadataPath, ratingsPath);
+        return state != loadedState && state != failedState;
+    }
+
+    // The files' modification times and sizes, folded into one number that changes when any of them does
+    private static long filesState(String... paths){
+        long state = 17;
+        for (String path : paths){
+            File file = new File(path);
+            state = state * 31 + file.lastModified();
+            state = state * 31 + file.length();
+        }
+        return state;
+    }
+
+    // A fingerprint of the files' content as they are now, and of how many films are loaded from them
+    // (null for all), so data kept over the stores (such as a data directory) can tell it was made over
+    // something else
+    public long fingerprint(Integer numMovies) throws DataLoadException{
+        CRC32C crc = new CRC32C();
+        byte[] buffer = new byte[1 << 16];
+        for (String path : new String[] {creditsPath, keywordsPath, movieMetadataPath, ratingsPath}){
+            try (FileInputStream in = new FileInputStream(path)){
+                for (int read; (read = in.read(buffer)) > 0; ){
+                    crc.update(buffer, 0, read);
                 }
-                backendRatingsByMovieId.get(movieId).add(rr);
+            }
+            catch (IOException e){
+                throw new DataLoadException("Unable to read " + path + ": " + e.getMessage());
+            }
+            crc.update(0); // So moving bytes from the end of one file to the start of the next changes it
+        }
+        long n = numMovies == null ? -1 : numMovies;
+        return (crc.getValue() << 32) ^ n;
+    }
+
+    public ReloadResult reload(AbstractStores stores) throws DataLoadException{
+        return reload(stores, creditsPath, keywordsPath, movieMetadataPath, ratingsPath);
+    }
+
+    /***
+     * Bring stores populated from this data up to date with new versions of the csv files, without rebuilding them.
+     * Records are matched by tmdb_id (userId and tmdbId for ratings) and compared by a hash of their content, so
+     * only the records that were inserted, changed or deleted are parsed and applied to the stores. Each file is
+     * still read through once, but the work on the stores and the backend structures is proportional to the size
+     * of the change.
+     * All four files are checked before anything is applied, so a bad file leaves the stores as they were, and the
+     * files aren't counted as modified again until one of them changes.
+     * Assumes the stores were populated with the whole dataset, and this was loaded to be reloaded.
+     * @return How many records of each kind changed
+     * @throws DataLoadException When a file can't be read or is of the incorrect format
+     */
+    public ReloadResult reload(AbstractStores stores, String creditsPath, String keywordsPath, String movieMetadataPath, String ratingsPath) throws DataLoadException{
+        if (movieIndex == null){
+            throw new IllegalStateException("Reloading needs the data loaded to be reloaded");
+        }
+        long state = filesState(creditsPath, keywordsPath, movieMetadataPath, ratingsPath);
+        ReloadResult result;
+        try{
+            result = reloadChanges(stores, creditsPath, keywordsPath, movieMetadataPath, ratingsPath);
+        }
+        catch (DataLoadException e){
+            failedState = state;
+            throw e;
+        }
+        this.creditsPath = creditsPath;
+        this.keywordsPath = keywordsPath;
+        this.movieMetadataPath = movieMetadataPath;
+        this.ratingsPath = ratingsPath;
+        this.loadedState = state;
+        return result;
+    }
+
+    private ReloadResult reloadChanges(AbstractStores stores, String creditsPath, String keywordsPath, String movieMetadataPath, String ratingsPath) throws DataLoadException{
+        Instant start = Instant.now();
+
+        // Work out what has changed, parsing only the records that have. Each record still in the files
+        // is marked at its place in the backend list, so the ones left unmarked have been deleted.
+        BitSet keptMovies = new BitSet(backendMovies.size());
+        HashMap<Integer, Change<MovieRecord>> changedMovies = new HashMap<>();
+        scanCsv(movieMetadataPath, "movies", 24, (csvRecord, record_count) -> {
+            int movieId = Integer.parseInt(csvRecord.get("tmdb_id"));
+            long hash = hashRecord(csvRecord);
+            int slot = movieIndex.slot(movieId);
+            if (slot >= 0 ? keptMovies.get(slot) : changedMovies.containsKey(movieId)){
+                throw new DataLoadException("[" + record_count + "] --METADATA-- Input file ('" + movieMetadataPath +"') contains duplicate Movie! id: " + movieId);
+            }
+            if (slot >= 0){
+                keptMovies.set(slot);
+            }
+            if (slot < 0 || movieIndex.hash(slot) != hash){
+                changedMovies.put(movieId, new Change<>(parseMovie(csvRecord, movieId), hash));
+            }
+        });
+        IntPredicate newMovies = movieId -> {
+            int slot = movieIndex.slot(movieId);
+            return slot >= 0 ? keptMovies.get(slot) : changedMovies.containsKey(movieId);
+        };
+
+        BitSet keptCredits = new BitSet(backendCredits.size());
+        HashMap<Integer, Change<CreditRecord>> changedCredits = new HashMap<>();
+        scanCsv(creditsPath, "credits", 3, (csvRecord, record_count) -> {
+            int movieId = Integer.parseInt(csvRecord.get("tmdb_id"));
+            checkMovie(newMovies, movieId, "credit");
+            long hash = hashRecord(csvRecord);
+            int slot = creditIndex.slot(movieId);
+            if (slot >= 0 ? keptCredits.get(slot) : changedCredits.containsKey(movieId)){
+                throw new DataLoadException("Credits file contains multiple records for movie (id:" + movieId + ")");
+            }
+            if (slot >= 0){
+                keptCredits.set(slot);
+            }
+            if (slot < 0 || creditIndex.hash(slot) != hash){
+                changedCredits.put(movieId, new Change<>(parseCredits(csvRecord), hash));
+            }
+        });
+
+        BitSet keptKeywords = new BitSet(backendKeywords.size());
+        HashMap<Integer, Change<KeywordRecord>> changedKeywords = new HashMap<>();
+        scanCsv(keywordsPath, "keywords", 2, (csvRecord, record_count) -> {
+            int movieId = Integer.parseInt(csvRecord.get("tmdb_id"));
+            checkMovie(newMovies, movieId, "keyword record");
+            long hash = hashRecord(csvRecord);
+            int slot = keywordIndex.slot(movieId);
+            if (slot >= 0 ? keptKeywords.get(slot) : changedKeywords.containsKey(movieId)){
+                throw new DataLoadException("Keywords file contains multiple records for movie (id:" + movieId + ")");
+            }
+            if (slot >= 0){
+                keptKeywords.set(slot);
+            }
+            if (slot < 0 || keywordIndex.hash(slot) != hash){
+                changedKeywords.put(movieId, new Change<>(parseKeywords(csvRecord, movieId), hash));
+            }
+        });
+
+        BitSet keptRatings = new BitSet(backendRatings.size());
+        LinkedHashMap<Long, RatingRecord> changedRatings = new LinkedHashMap<>();
+        File ratingsFile = new File(ratingsPath);
+        if (!ratingsFile.isFile()){
+            throw new DataLoadException(String.format("Cannot open %s file (%s). Does not exist or is not a normal file", "ratings", ratingsPath));
+        }
+        RatingsReader.Columns columns = readRatings(ratingsFile, null);
+        for (int i = 0; i < columns.size; i++){
+            int userId = columns.userIds[i];
+            int movieId = columns.movieIds[i];
+            checkMovie(newMovies, movieId, "rating");
+            long key = ratingKey(userId, movieId);
+            int slot = ratingIndex.slot(key);
+            if (slot >= 0 ? keptRatings.get(slot) : changedRatings.containsKey(key)){
+                continue; // A duplicate pair, which populating would skip too
+            }
+            if (slot >= 0){
+                keptRatings.set(slot);
+            }
+            if (slot < 0 || hashRating(backendRatings.get(slot)) != hashRating(userId, movieId, columns.ratings[i], columns.timestamps[i])){
+                changedRatings.put(key, new RatingRecord(userId, movieId, columns.ratings[i], columns.timestamps[i]));
+            }
+        }
+
+        // Apply it: new and changed movies first so the other stores' records have their movie, deleted movies last
+        ReloadResult result = new ReloadResult();
+        IMovies movies = stores.getMovies();
+        ICredits credits = stores.getCredits();
+        IKeywords keywords = stores.getKeywords();
+        IRatings ratings = stores.getRatings();
+
+        for (Change<MovieRecord> change : changedMovies.values()){
+            MovieRecord mr = change.record;
+            if (movieIndex.slot(mr.id) >= 0){
+                movies.remove(mr.id); // Movies have no update, so it is added again in full
+                result.movies.updated++;
+            }
+            else {
+                result.movies.inserted++;
+            }
+            addMovie(movies, mr);
+        }
+
+        for (Change<CreditRecord> change : changedCredits.values()){
+            CreditRecord cr = change.record;
+            if (creditIndex.slot(cr.movieId) >= 0){
+                credits.remove(cr.movieId);
+                result.credits.updated++;
+            }
+            else {
+                result.credits.inserted++;
+            }
+            credits.add(cr.cast, cr.crew, cr.movieId);
+        }
+        ArrayList<Integer> deletedCredits = new ArrayList<>();
+        for (int slot = keptCredits.nextClearBit(0); slot < backendCredits.size(); slot = keptCredits.nextClearBit(slot + 1)){
+            int movieId = backendCredits.get(slot).movieId;
+            credits.remove(movieId);
+            deletedCredits.add(movieId);
+            result.credits.deleted++;
+        }
+
+        for (Change<KeywordRecord> change : changedKeywords.values()){
+            KeywordRecord kr = change.record;
+            if (keywordIndex.slot(kr.movieId) >= 0){
+                keywords.remove(kr.movieId);
+                result.keywords.updated++;
+            }
+            else {
+                result.keywords.inserted++;
+            }
+            keywords.add(kr.movieId, kr.keywords);
+        }
+        ArrayList<Integer> deletedKeywords = new ArrayList<>();
+        for (int slot = keptKeywords.nextClearBit(0); slot < backendKeywords.size(); slot = keptKeywords.nextClearBit(slot + 1)){
+            int movieId = backendKeywords.get(slot).movieId;
+            keywords.remove(movieId);
+            deletedKeywords.add(movieId);
+            result.keywords.deleted++;
+        }
+
+        ArrayList<Long> deletedRatings = new ArrayList<>();
+        for (int slot = keptRatings.nextClearBit(0); slot < backendRatings.size(); slot = keptRatings.nextClearBit(slot + 1)){
+            RatingRecord rr = backendRatings.get(slot);
+            ratings.remove(rr.userId, rr.movieId);
+            deletedRatings.add(ratingKey(rr.userId, rr.movieId));
+            result.ratings.deleted++;
+        }
+        ArrayList<RatingRecord> insertedRatings = new ArrayList<>();
+        for (RatingRecord rr : changedRatings.values()){
+            if (ratingIndex.slot(ratingKey(rr.userId, rr.movieId)) >= 0){
+                ratings.set(rr.userId, rr.movieId, rr.rating, LocalDateTime.ofEpochSecond(rr.timestamp, 0, ZoneOffset.UTC));
+                result.ratings.updated++;
+            }
+            else {
+                insertedRatings.add(rr);
+            }
+        }
+        if (!insertedRatings.isEmpty()){
+            populateRatings(ratings, insertedRatings);
+            result.ratings.inserted = insertedRatings.size();
+        }
+
+        ArrayList<Integer> deletedMovies = new ArrayList<>();
+        for (int slot = keptMovies.nextClearBit(0); slot < backendMovies.size(); slot = keptMovies.nextClearBit(slot + 1)){
+            int movieId = backendMovies.get(slot).id;
+            movies.remove(movieId);
+            deletedMovies.add(movieId);
+            result.movies.deleted++;
+        }
 
-                loadUiUpdater.incrementUI(StoreType.RATINGS, record_count++);
+        // Bring the backend structures up to date, record by changed record, so the next populate or reload
+        // starts from the new files
+        for (Change<MovieRecord> change : changedMovies.values()){
+            place(backendMovies, movieIndex, change.record.id, change.record, change.hash);
+            backendMoviesByMovieId.put(change.record.id, change.record);
+        }
+        for (int movieId : deletedMovies){
+            displace(backendMovies, movieIndex, movieId, mr -> mr.id);
+            backendMoviesByMovieId.remove(movieId);
+        }
+        for (Change<CreditRecord> change : changedCredits.values()){
+            place(backendCredits, creditIndex, change.record.movieId, change.record, change.hash);
+            backendCreditsByMovieId.put(change.record.movieId, change.record);
+        }
+        for (int movieId : deletedCredits){
+            displace(backendCredits, creditIndex, movieId, cr -> cr.movieId);
+            backendCreditsByMovieId.remove(movieId);
+        }
+        for (Change<KeywordRecord> change : changedKeywords.values()){
+            place(backendKeywords, keywordIndex, change.record.movieId, change.record, change.hash);
+            backendKeywordsByMovieId.put(change.record.movieId, change.record);
+        }
+        for (int movieId : deletedKeywords){
+            displace(backendKeywords, keywordIndex, movieId, kr -> kr.movieId);
+            backendKeywordsByMovieId.remove(movieId);
+        }
+        for (Map.Entry<Long, RatingRecord> change : changedRatings.entrySet()){
+            int slot = ratingIndex.slot(change.getKey());
+            if (slot >= 0){
+                unlistRating(backendRatings.get(slot));
+            }
+            RatingRecord rr = change.getValue();
+            place(backendRatings, ratingIndex, change.getKey(), rr, 0);
+            backendRatingsByMovieId.computeIfAbsent(rr.movieId, id -> new ArrayList<>()).add(rr);
+        }
+        for (long key : deletedRatings){
+            unlistRating(backendRatings.get(ratingIndex.slot(key)));
+            displace(backendRatings, ratingIndex, key, rr -> ratingKey(rr.userId, rr.movieId));
+        }
+
+        result.millis = Duration.between(start, Instant.now()).toMillis();
+        return result;
+    }
+
+    // A record that reload found new or changed, with the hash of its csv line
+    private static final class Change<R> {
+        final R record;
+        final long hash;
+        Change(R record, long hash){
+            this.record = record;
+            this.hash = hash;
+        }
+    }
+
+    // Where each record of a backend list is, by key (a movie ID, or ratingKey for ratings), and the
+    // hash of each one's csv line if kept, in primitive arrays so the whole dataset costs little.
+    // Only kept for data loaded to be reloaded.
+    private static final class RecordIndex {
+        private final LongIntMap slots = new LongIntMap();
+        private long[] hashes; // By place in the list (null if the hashes are of the records instead)
+
+        RecordIndex(boolean hashed){
+            hashes = hashed ? new long[16] : null;
+        }
+
+        // The record's place in the list, or -1 if it isn't in it
+        int slot(long key){
+            return slots.get(key, -1);
+        }
+
+        long hash(int slot){
+            return hashes[slot];
+        }
 
+        void put(long key, int slot, long hash){
+            slots.put(key, slot);
+            if (hashes != null){
+                if (slot >= hashes.length){
+                    hashes = Arrays.copyOf(hashes, Math.max(slot + 1, hashes.length * 2));
+                }
+                hashes[slot] = hash;
             }
+        }
+    }
+
+    // Puts a record in a backend list in place of the one with the same key, or at the end if there isn't one
+    private static <R> void place(ArrayList<R> list, RecordIndex index, long key, R record, long hash){
+        int slot = index.slot(key);
+        if (slot < 0){
+            slot = list.size();
+            list.add(record);
+        }
+        else {
+            list.set(slot, record);
+        }
+        index.put(key, slot, hash);
+    }
+
+    // Takes the record with a key out of a backend list, moving the last record into its place
+    private static <R> void displace(ArrayList<R> list, RecordIndex index, long key, ToLongFunction<R> keyOf){
+        int slot = index.slots.remove(key, -1);
+        int last = list.size() - 1;
+        R moved = list.remove(last);
+        if (slot != last){
+            list.set(slot, moved);
+            index.put(keyOf.applyAsLong(moved), slot, index.hashes == null ? 0 : index.hash(last));
+        }
+    }
+
+    // Takes a rating out of its movie's list of ratings
+    private void unlistRating(RatingRecord rr){
+        ArrayList<RatingRecord> movieRatings = backendRatingsByMovieId.get(rr.movieId);
+        movieRatings.remove(rr);
+        if (movieRatings.isEmpty()){
+            backendRatingsByMovieId.remove(rr.movieId);
+        }
+    }
+
+    private interface RecordScanner {
+        void scan(CSVRecord csvRecord, int record_count) throws DataLoadException;
+    }
 
+    // Reads every record of a csv file with a header, checking each has the right number of fields
+    private void scanCsv(String path, String fileType, int numFields, RecordScanner scanner) throws DataLoadException {
+        File file = new File(path);
+        if (!file.isFile()){
+            throw new DataLoadException(String.format("Cannot open %s file (%s). Does not exist or is not a normal file", fileType, path));
+        }
+        CSVFormat csvFormat = CSVFormat.DEFAULT.builder()
+                            .setHeader()
+                            .setSkipHeaderRecord(true)
+                            .build();
+        int record_count = 0;
+        try (CSVParser parser = CSVParser.parse(file, Charset.forName("UTF-8"), csvFormat)){
+            for (CSVRecord csvRecord : parser){
+                record_count++;
+                if (csvRecord.size() != numFields){
+                    throw new DataLoadException("[" + record_count + "] --" + fileType.toUpperCase() + "-- Incorrect number of fields. Number of fields found: " + csvRecord.size());
+                }
+                scanner.scan(csvRecord, record_count);
+            }
         }
         catch (IOException e){
-            String message = "[ UNRECOVERABLE I/O ERROR ] Unable to open ratings file ('" + ratingsCsvFile.getPath() +"') for parsing. Please make sure it is in the 'data' directory.";
-            System.err.println(message);
-            System.err.println(e.getMessage());
-            System.err.println(e.getStackTrace());
-            throw new DataLoadException(message);
+            throw new DataLoadException("Unable to read " + fileType + " file ('" + path + "'): " + e.getMessage());
         }
-        catch (IllegalArgumentException e){
-            String message = "[" + record_count + "] --RATINGS-- Unable to read csv. Item for specified header not found.";
-            System.err.println(message);
-            System.err.println(e.getMessage());
-            System.err.println(e.getStackTrace());
-            throw new DataLoadException(message);
+        catch (IllegalArgumentException | JSONException | DateTimeParseException e){
+            throw new DataLoadException("[" + record_count + "] --" + fileType.toUpperCase() + "-- Unable to read record: " + e.getMessage());
         }
-        catch (DateTimeParseException e){
-            String message = "[" + record_count + "] --RATINGS-- Unable to read csv. Unable to parse date.";
-            System.err.println(message);
-            System.err.println(e.getMessage());
-            System.err.println(e.getStackTrace());
-            throw new DataLoadException(message);
+    }
+
+    private void checkMovie(IntPredicate validMovies, int movieId, String recordType) throws DataLoadException {
+        if (!validMovies.test(movieId)){
+            throw new DataLoadException("Contains a " + recordType + " for a movie (id:" + movieId + ") that doesn't exist in the movie metadata file!");
+        }
+    }
+
+    // FNV-1a over every field of a record
+    private static long hashRecord(CSVRecord csvRecord){
+        long hash = 0xcbf29ce484222325L;
+        for (String field : csvRecord){
+            for (int i = 0; i < field.length(); i++){
+                hash = (hash ^ field.charAt(i)) * 0x100000001b3L;
+            }
+            hash = (hash ^ 0x1f) * 0x100000001b3L; // So "ab","c" and "a","bc" differ
         }
+        return hash;
+    }
+
+    // Ratings are compared by their values rather than their text (the unused movieLensId
+    // column isn't kept, so a change to it alone doesn't count)
+    private static long hashRating(RatingRecord rr){
+        return hashRating(rr.userId, rr.movieId, rr.rating, rr.timestamp);
+    }
+
+    private static long hashRating(int userId, int movieId, float rating, long timestamp){
+        long hash = 0xcbf29ce484222325L;
+        hash = (hash ^ userId) * 0x100000001b3L;
+        hash = (hash ^ movieId) * 0x100000001b3L;
+        hash = (hash ^ Float.floatToIntBits(rating)) * 0x100000001b3L;
+        hash = (hash ^ timestamp) * 0x100000001b3L;
+        return hash;
+    }
+
+    private static long ratingKey(int userId, int movieId){
+        return ((long) userId << 32) | (movieId & 0xffffffffL);
     }
 
     public class DataLoadException extends Exception {
@@ -0,0 +1,10 @@
+package utils;
+
+// Told how far LoadData has got through the csv files: at most every
+// LoadData.PROGRESS_MILLIS while a file is read, and as each file is finished.
+// Called on the loading thread, so UI code should hand off to the event thread.
+public interface LoadProgressListener {
+    // records: read from this file so far; fraction: of the bytes of all the
+    // files read so far, from 0 to 1
+    void loadProgress(LoadData.StoreType file, long records, double fraction);
+}
@@ -0,0 +1,357 @@
+package utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+// Reads a ratings csv (userId,movieLensId,tmdbId,rating,timestamp) straight from
+// the bytes of the memory-mapped file into primitive columns, without a String
+// or object per row.
+// The file is split into chunks on line boundaries and the chunks are read in
+// parallel, each into its own columns, which are joined in file order.
+// Only plain numeric fields are accepted: no quotes, spaces or exponents, and
+// ratings to at most a few decimal places (as every ratings file has).
+// A Progress is told how far the chunks have got as they are read, from the
+// thread that called read: while it reads the first chunk, and then while it
+// waits for the rest.
+public final class RatingsReader {
+    static final int MIN_CHUNK_BYTES = 1 << 20;   // Smaller files are read on one thread
+    static final int MAX_CHUNK_BYTES = 256 << 20; // Also keeps each mapping well under 2GB
+    static final int REPORT_ROWS = 1024;          // Rows (a power of two) between a chunk's updates of how far it has got
+    static final long REPORT_MILLIS = 50;         // Longest wait for the other chunks between reports
+
+    private static final String[] COLUMNS = {"userId", "movieLensId", "tmdbId", "rating", "timestamp"};
+    private static final double[] POWERS_OF_TEN = {1, 10, 100, 1000, 10000, 100000, 1000000};
+
+    private RatingsReader() {
+    }
+
+    // The ratings read, in file order
+    public static final class Columns {
+        public final int[] userIds;
+        public final int[] movieIds; // tmdbId
+        public final float[] ratings;
+        public final long[] timestamps; // Epoch seconds
+        public final int size;
+
+        Columns(int[] userIds, int[] movieIds, float[] ratings, long[] timestamps, int size) {
+            this.userIds = userIds;
+            this.movieIds = movieIds;
+            this.ratings = ratings;
+            this.timestamps = timestamps;
+            this.size = size;
+        }
+    }
+
+    // A line that isn't a rating. line counts from 1, the header being line 1.
+    public static final class FormatException extends IOException {
+        public final long line;
+
+        FormatException(long line, String message) {
+            super("Line " + line + ": " + message);
+            this.line = line;
+        }
+    }
+
+    public interface Progress {
+        // rows: read so far, out of all the chunks; bytes: of the file they (and the header) take up
+        void read(long rows, long bytes);
+    }
+
+    public static Columns read(Path path) throws IOException {
+        return read(path, null);
+    }
+
+    public static Columns read(Path path, Progress progress) throws IOException {
+        return read(path, Runtime.getRuntime().availableProcessors(), progress);
+    }
+
+    public static Columns read(Path path, int threads) throws IOException {
+        return read(path, threads, null);
+    }
+
+    public static Columns read(Path path, int threads, Progress progress) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long dataStart = readHeader(channel);
+            ArrayList<Long> bounds = chunkBounds(channel, dataStart, size, Math.max(1, threads));
+
+            Chunk[] chunks = new Chunk[bounds.size() - 1];
+            for (int i = 0; i < chunks.length; i++) {
+                long start = bounds.get(i);
+                long end = bounds.get(i + 1);
+                chunks[i] = new Chunk(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start));
+            }
+
+            Runnable report = progress == null ? null : () -> {
+                long rows = 0;
+                long bytes = dataStart;
+                for (Chunk chunk : chunks) {
+                    rows += chunk.readRows;
+                    bytes += chunk.readBytes;
+                }
+                progress.read(rows, bytes);
+            };
+
+            // The calling thread reads the first chunk while the others are read alongside
+            Thread[] workers = new Thread[chunks.length - 1];
+            for (int i = 0; i < workers.length; i++) {
+                workers[i] = new Thread(chunks[i + 1]::parse, "ratings-reader");
+                workers[i].start();
+            }
+            chunks[0].report = report;
+            chunks[0].parse();
+            try {
+                for (Thread worker : workers) {
+                    worker.join(REPORT_MILLIS);
+                    while (worker.isAlive()) {
+                        if (report != null)
+                            report.run();
+                        worker.join(REPORT_MILLIS);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted reading " + path);
+            }
+            if (report != null)
+                report.run();
+
+            int total = 0;
+            long linesBefore = 1; // The header
+            for (Chunk chunk : chunks) {
+                if (chunk.error != null)
+                    throw new FormatException(linesBefore + chunk.lines, chunk.error);
+                linesBefore += chunk.lines;
+                total += chunk.size;
+            }
+            int[] userIds = new int[total];
+            int[] movieIds = new int[total];
+            float[] ratings = new float[total];
+            long[] timestamps = new long[total];
+            int at = 0;
+            for (Chunk chunk : chunks) {
+                System.arraycopy(chunk.userIds, 0, userIds, at, chunk.size);
+                System.arraycopy(chunk.movieIds, 0, movieIds, at, chunk.size);
+                System.arraycopy(chunk.ratings, 0, ratings, at, chunk.size);
+                System.arraycopy(chunk.timestamps, 0, timestamps, at, chunk.size);
+                at += chunk.size;
+            }
+            return new Columns(userIds, movieIds, ratings, timestamps, total);
+        }
+    }
+
+    // Checks the header names the five columns in order and returns where the data starts
+    private static long readHeader(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        channel.read(buffer, 0);
+        buffer.flip();
+        int end = 0;
+        while (end < buffer.limit() && buffer.get(end) != '\n')
+            end++;
+        if (end == buffer.limit() && end == buffer.capacity())
+            throw new FormatException(1, "header too long");
+        String header = new String(buffer.array(), 0, end, StandardCharsets.UTF_8).trim();
+        if (header.startsWith("\uFEFF"))
+            header = header.substring(1);
+        if (!Arrays.equals(header.split(","), COLUMNS))
+            throw new FormatException(1, "expected the header " + String.join(",", COLUMNS) + " but found " + header);
+        return Math.min(end + 1, buffer.limit());
+    }
+
+    // Chunk start offsets (and the end of the file last), each just after a newline
+    private static ArrayList<Long> chunkBounds(FileChannel channel, long start, long size, int threads) throws IOException {
+        long length = size - start;
+        long target = Math.max(MIN_CHUNK_BYTES, Math.min(MAX_CHUNK_BYTES, (length + threads - 1) / threads));
+        ArrayList<Long> bounds = new ArrayList<>();
+        bounds.add(start);
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        long at = start + target;
+        while (at < size) {
+            // Move on to just after the next newline
+            long next = -1;
+            long from = at;
+            while (next < 0 && from < size) {
+                probe.clear();
+                int n = channel.read(probe, from);
+                if (n <= 0)
+                    break;
+                for (int i = 0; i < n; i++) {
+                    if (probe.get(i) == '\n') {
+                        next = from + i + 1;
+                        break;
+                    }
+                }
+                from += n;
+            }
+            if (next < 0 || next >= size)
+                break;
+            bounds.add(next);
+            at = next + target;
+        }
+        bounds.add(size);
+        return bounds;
+    }
+
+    // One chunk's worth of lines, read into growing columns
+    private static final class Chunk {
+        private final MappedByteBuffer bytes;
+        private final int limit;
+        private int pos = 0;
+
+        int[] userIds;
+        int[] movieIds;
+        float[] ratings;
+        long[] timestamps;
+        int size = 0;
+        long lines = 0; // Lines finished (where an error is, if there is one)
+        String error = null;
+        volatile int readRows = 0; // How far it has got, for reports, every REPORT_ROWS rows
+        volatile long readBytes = 0;
+        Runnable report; // Run as those are updated (by the first chunk only, on the calling thread)
+
+        Chunk(MappedByteBuffer bytes) {
+            this.bytes = bytes;
+            this.limit = bytes.limit();
+            int capacity = Math.max(16, limit / 32); // Rows are usually 30-40 bytes
+            userIds = new int[capacity];
+            movieIds = new int[capacity];
+            ratings = new float[capacity];
+            timestamps = new long[capacity];
+        }
+
+        void parse() {
+            try {
+                while (pos < limit) {
+                    byte b = bytes.get(pos);
+                    if (b == '\n' || b == '\r') { // Blank line
+                        endLine();
+                        lines++;
+                        continue;
+                    }
+                    if (size == userIds.length)
+                        grow();
+                    userIds[size] = parseInt();
+                    comma();
+                    parseInt(); // movieLensId, unused
+                    comma();
+                    movieIds[size] = parseInt();
+                    comma();
+                    ratings[size] = parseRating();
+                    comma();
+                    timestamps[size] = parseLong();
+                    endLine();
+                    size++;
+                    lines++;
+                    if ((size & (REPORT_ROWS - 1)) == 0) {
+                        readRows = size;
+                        readBytes = pos;
+                        if (report != null)
+                            report.run();
+                    }
+                }
+            } catch (IllegalStateException e) {
+                lines++; // The line it is on
+                error = e.getMessage();
+            }
+            readRows = size;
+            readBytes = pos;
+        }
+
+        private void grow() {
+            int capacity = userIds.length * 2;
+            userIds = Arrays.copyOf(userIds, capacity);
+            movieIds = Arrays.copyOf(movieIds, capacity);
+            ratings = Arrays.copyOf(ratings, capacity);
+            timestamps = Arrays.copyOf(timestamps, capacity);
+        }
+
+        private void comma() {
+            if (pos >= limit || bytes.get(pos) != ',')
+                throw new IllegalStateException("expected 5 comma separated fields");
+            pos++;
+        }
+
+        // At the end of a field the line must end (\n, \r\n or the end of the file)
+        private void endLine() {
+            if (pos < limit && bytes.get(pos) == '\r')
+                pos++;
+            if (pos < limit) {
+                if (bytes.get(pos) != '\n')
+                    throw new IllegalStateException("expected 5 comma separated fields");
+                pos++;
+            }
+        }
+
+        private int parseInt() {
+            long value = parseLong();
+            if (value != (int) value)
+                throw new IllegalStateException("number out of range");
+            return (int) value;
+        }
+
+        private long parseLong() {
+            boolean negative = pos < limit && bytes.get(pos) == '-';
+            if (negative)
+                pos++;
+            int start = pos;
+            long value = 0;
+            while (pos < limit) {
+                int digit = bytes.get(pos) - '0';
+                if (digit < 0 || digit > 9)
+                    break;
+                value = value * 10 + digit;
+                pos++;
+            }
+            int digits = pos - start;
+            if (digits == 0)
+                throw new IllegalStateException("expected a number");
+            if (digits > 18)
+                throw new IllegalStateException("number out of range");
+            return negative ? -value : value;
+        }
+
+        // Fixed point: whole digits, then optionally a point and up to 6 decimals
+        private float parseRating() {
+            int start = pos;
+            int whole = 0;
+            while (pos < limit) {
+                int digit = bytes.get(pos) - '0';
+                if (digit < 0 || digit > 9)
+                    break;
+                whole = whole * 10 + digit;
+                pos++;
+            }
+            boolean hasWhole = pos > start;
+            if (pos - start > 6)
+                throw new IllegalStateException("rating out of range");
+            if (pos >= limit || bytes.get(pos) != '.') {
+                if (!hasWhole)
+                    throw new IllegalStateException("expected a rating");
+                return whole;
+            }
+            pos++;
+            int fractionStart = pos;
+            int fraction = 0;
+            while (pos < limit) {
+                int digit = bytes.get(pos) - '0';
+                if (digit < 0 || digit > 9)
+                    break;
+                fraction = fraction * 10 + digit;
+                pos++;
+            }
+            int places = pos - fractionStart;
+            if (places >= POWERS_OF_TEN.length)
+                throw new IllegalStateException("rating has too many decimal places");
+            if (!hasWhole && places == 0)
+                throw new IllegalStateException("expected a rating");
+            return (float) (whole + fraction / POWERS_OF_TEN[places]); // Rounded once, as Float.parseFloat would
+        }
+    }
+}
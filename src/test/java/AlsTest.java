@@ -0,0 +1,125 @@
+import interfaces.IRatings;
+import recommend.AlsModel;
+import recommend.AlsTrainer;
+import recommend.FoldInRatings;
+import stores.*;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AlsTest {
+    private static final LocalDateTime TIME = LocalDateTime.of(2024, 1, 1, 1, 0, 0);
+
+    private IRatings ratings;
+
+    @BeforeEach void setup() {
+        // Two groups of users: even users love movies 0-9 and dislike 10-19, odd users the opposite.
+        // Every user leaves a few movies unrated.
+        ratings = new Stores().getRatings();
+        for (int user = 0; user < 40; user++) {
+            for (int movie = 0; movie < 20; movie++) {
+                if ((user + movie) % 7 != 0)
+                    ratings.add(user, movie, score(user, movie), TIME);
+            }
+        }
+    }
+
+    private static float score(int user, int movie) {
+        return (user % 2 == 0) == (movie < 10) ? 5.0f : 1.0f;
+    }
+
+    @Test void testAlsFitsRatings() {
+        AlsModel model = new AlsTrainer(4, 0.05f, 10, 1).train(ratings);
+
+        assertEquals(40, model.getNumUsers());
+        assertEquals(20, model.getNumMovies());
+        double error = 0;
+        int count = 0;
+        for (int user = 0; user < 40; user++) {
+            for (int movie = 0; movie < 20; movie++) {
+                float diff = model.predict(user, movie) - score(user, movie);
+                error += diff * diff;
+                count++;
+            }
+        }
+        assertTrue(Math.sqrt(error / count) < 0.5, "Should predict both seen and unseen ratings closely");
+        assertEquals(-1.0f, model.predict(99, 0), "An unknown user has no prediction");
+        assertEquals(-1.0f, model.predict(0, 99), "An unknown movie has no prediction");
+    }
+
+    @Test void testAlsTopMovies() {
+        AlsModel model = new AlsTrainer(4, 0.05f, 10, 1).train(ratings);
+
+        // User 0 left movies 0, 7 and 14 unrated, and only likes the first two
+        assertArrayEquals(new int[] {0, 7, 14}, sorted(model.topMovies(0, 5, ratings.getUserMovies(0))), "Rated movies should be excluded");
+        assertArrayEquals(new int[] {0, 7}, sorted(model.topMovies(0, 2, ratings.getUserMovies(0))), "User 0 should be recommended movies their group likes");
+        assertEquals(20, model.topMovies(0, 50, null).length, "Can't recommend more movies than the model knows");
+        assertArrayEquals(new int[0], model.topMovies(99, 3, null));
+    }
+
+    private static int[] sorted(int[] ids) {
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    @Test void testAlsParallelMatchesSequential() {
+        AlsModel sequential = new AlsTrainer(4, 0.05f, 5, 1).train(ratings, new ForkJoinPool(1));
+        AlsModel parallel = new AlsTrainer(4, 0.05f, 5, 1).train(ratings, new ForkJoinPool(4));
+
+        for (int user = 0; user < 40; user++) {
+            for (int movie = 0; movie < 20; movie++)
+                assertEquals(sequential.predict(user, movie), parallel.predict(user, movie), "Splitting the work should not change the result");
+        }
+    }
+
+    @Test void testAlsFoldIn() {
+        AlsModel model = new AlsTrainer(4, 0.05f, 10, 1).train(ratings);
+        FoldInRatings folding = new FoldInRatings(ratings, model);
+
+        // A new user who rates like the odd group
+        assertFalse(model.hasUser(100));
+        assertTrue(folding.add(100, 12, 5.0f, TIME));
+        assertTrue(folding.add(100, 13, 5.0f, TIME));
+        assertTrue(folding.add(100, 2, 1.0f, TIME));
+        assertTrue(model.hasUser(100));
+        assertTrue(model.predict(100, 15) > model.predict(100, 5), "The new user should be placed with the odd group");
+
+        // A new movie the even users like
+        for (int user = 0; user < 40; user += 2)
+            folding.add(user, 50, 5.0f, TIME);
+        assertTrue(model.hasMovie(50));
+        assertFalse(folding.add(0, 50, 5.0f, TIME), "Failed adds should still fail");
+        assertTrue(model.predict(0, 50) > 3.0f, "The new movie should be predicted well for its raters");
+        assertTrue(model.predict(1, 50) < model.predict(0, 50), "The other group should be predicted to like it less");
+    }
+
+    @Test void testAlsFoldInBatch() {
+        AlsModel model = new AlsTrainer(4, 0.05f, 10, 1).train(ratings);
+        int[] refolds = new int[1];
+        FoldInRatings folding = new FoldInRatings(new ForwardingRatings(ratings) {
+            @Override public int[] getUserMovies(int userID) {
+                refolds[0]++;
+                return super.getUserMovies(userID);
+            }
+        }, model);
+
+        // User 100 rates three movies (one twice, and one new to the model);
+        // user 1 only re-rates a pair already rated, which is skipped
+        int[] users = {100, 100, 1, 100, 100};
+        int[] movies = {12, 13, 2, 12, 60};
+        float[] values = {5.0f, 5.0f, 3.0f, 4.0f, 5.0f};
+        long[] times = new long[5];
+        assertEquals(3, folding.addBatch(users, movies, values, times));
+        assertEquals(1, refolds[0], "Each user with new ratings should be folded in once, after the batch");
+        assertTrue(model.hasUser(100));
+        assertTrue(model.hasMovie(60), "A movie the model hadn't seen should be folded in");
+
+        assertEquals(0, folding.addBatch(new int[] {100}, new int[] {12}, new float[] {1.0f}, new long[1]));
+        assertEquals(1, refolds[0], "Nothing added, nothing folded in");
+    }
+}
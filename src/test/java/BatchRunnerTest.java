@@ -0,0 +1,155 @@
+import batch.BatchRunner;
+import batch.ChannelSink;
+import batch.ResultWriter;
+import ranking.RankedStores;
+import stores.*;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchRunnerTest {
+    private static final LocalDateTime TIME = LocalDateTime.of(2024, 1, 1, 0, 0, 0);
+
+    private RankedStores stores;
+    private ByteArrayOutputStream bytes;
+
+    @BeforeEach void setup() {
+        stores = new RankedStores(new Stores());
+        bytes = new ByteArrayOutputStream();
+        addFilm(1, "Star Wars");
+        addFilm(2, "Star Trek");
+        addFilm(3, "Heat");
+        stores.getRatings().add(1, 1, 5.0f, TIME);
+        stores.getRatings().add(2, 1, 4.0f, TIME);
+        stores.getRatings().add(1, 3, 3.0f, TIME);
+        stores.getCredits().add(new CastCredit[] {new CastCredit(0, "Luke", "c1", 31, "Mark Hamill", 0, "")}, new CrewCredit[0], 1);
+    }
+
+    private void addFilm(int id, String title) {
+        stores.getMovies().add(id, title, title, "", "", "Released", new Genre[0], LocalDate.of(1977, 5, 25),
+            0, 0, new String[0], "en", 121, "", false, false, "");
+    }
+
+    private BatchRunner runner(String format) {
+        return new BatchRunner(stores, ResultWriter.forFormat(format, new ChannelSink(Channels.newChannel(bytes))));
+    }
+
+    private int run(String format, String input) throws Exception {
+        return runner(format).run(new BufferedReader(new StringReader(input)));
+    }
+
+    private String output() {
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test void testBatchTsv() throws Exception {
+        int errors = run("tsv", "top-rated 2\n\n# A comment\ncast-films 31\nfind-films \"Star W\"\n");
+        assertEquals(0, errors);
+        assertEquals("1\t1\tStar Wars\t4.5\t2\n"
+            + "1\t3\tHeat\t3.0\t1\n"
+            + "4\t1\tStar Wars\n"
+            + "5\t1\tStar Wars\n", output(), "Each row starts with the line of its command");
+    }
+
+    @Test void testBatchJson() throws Exception {
+        int errors = run("json", "movie 1\nmost-rated 5\nmovie 99\n");
+        assertEquals(0, errors);
+        String[] lines = output().split("\n");
+        assertEquals(3, lines.length, "One line per command");
+
+        JSONObject movie = new JSONObject(lines[0]);
+        assertEquals(1, movie.getInt("line"));
+        assertEquals("movie 1", movie.getString("command"));
+        JSONObject row = movie.getJSONArray("results").getJSONObject(0);
+        assertEquals("Star Wars", row.getString("title"));
+        assertEquals("1977-05-25", row.getString("release"));
+        assertEquals(2, row.getInt("count"));
+
+        JSONArray mostRated = new JSONObject(lines[1]).getJSONArray("results");
+        assertEquals(2, mostRated.length());
+        assertEquals(1, mostRated.getJSONObject(0).getInt("id"));
+        assertEquals(0, new JSONObject(lines[2]).getJSONArray("results").length(), "An unknown movie has no rows");
+    }
+
+    @Test void testBatchErrorsDontStopTheRun() throws Exception {
+        int errors = run("json", "bogus 1\nmovie\nmovie one\ntop-rated 5 best\nfind-films \"unclosed\nmovie 3\n");
+        assertEquals(5, errors);
+        String[] lines = output().split("\n");
+        assertEquals(6, lines.length);
+        assertEquals("Unknown command bogus", new JSONObject(lines[0]).getString("error"));
+        assertEquals("movie expects movie ID", new JSONObject(lines[1]).getString("error"));
+        assertEquals("Unclosed quote", new JSONObject(lines[4]).getString("error"));
+        assertEquals("Heat", new JSONObject(lines[5]).getJSONArray("results").getJSONObject(0).getString("title"));
+
+        bytes.reset();
+        assertEquals(1, run("tsv", "bogus\nmovie 3\n"));
+        assertEquals("2\t3\tHeat\t1977-05-25\t121.0\t3.0\t1\n", output(), "TSV reports errors on stderr, leaving only rows");
+    }
+
+    @Test void testBatchEscapesText() throws Exception {
+        addFilm(4, "Tab\tand \"quotes\"\nné");
+        run("tsv", "movie 4\n");
+        assertEquals("1\t4\tTab and \"quotes\" né\t1977-05-25\t121.0\t0.0\t0\n", output());
+
+        bytes.reset();
+        run("json", "movie 4\n");
+        assertEquals("Tab\tand \"quotes\"\nné", new JSONObject(output().trim()).getJSONArray("results").getJSONObject(0).getString("title"));
+    }
+
+    @Test void testBatchLargeOutput() throws Exception {
+        for (int id = 10; id < 3000; id++)
+            addFilm(id, "Électricité " + id);
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 50; i++)
+            input.append("find-films \"é\"\n");
+        run("json", input.toString());
+
+        String[] lines = output().split("\n");
+        assertEquals(50, lines.length, "Output split over many writes should come through whole");
+        for (String line : lines)
+            assertEquals(2990, new JSONObject(line).getJSONArray("results").length());
+    }
+
+    @Test void testBatchFlushesWhenInputWaits() throws Exception {
+        // Hands over one line per read and never has more ready, as a terminal does;
+        // each command's results must be out before the next line is asked for
+        String[] lines = {"movie 1\n", "movie 2\n", "movie 3\n"};
+        int[] outputSizes = new int[lines.length];
+        Reader typed = new Reader() {
+            int next = 0;
+
+            @Override public int read(char[] buf, int off, int len) {
+                if (next == lines.length)
+                    return -1;
+                outputSizes[next] = bytes.size();
+                String line = lines[next++];
+                line.getChars(0, line.length(), buf, off);
+                return line.length();
+            }
+
+            @Override public boolean ready() {
+                return false;
+            }
+
+            @Override public void close() {
+            }
+        };
+        runner("tsv").run(new BufferedReader(typed));
+        assertEquals(0, outputSizes[0]);
+        assertTrue(outputSizes[1] > 0, "The first command's results should be written before the second is read");
+        assertTrue(outputSizes[2] > outputSizes[1]);
+        assertEquals(3, output().split("\n").length);
+    }
+}
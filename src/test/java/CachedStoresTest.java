@@ -0,0 +1,121 @@
+import cache.CachedStores;
+import cache.QueryCache;
+import stores.*;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CachedStoresTest {
+    private CachedStores store;
+
+    @BeforeEach void setup() {
+        store = new CachedStores(new Stores());
+        store.getRatings().add(1, 10, 5.0f, LocalDateTime.of(2024, 1, 1, 1, 0, 0));
+        store.getRatings().add(2, 10, 4.0f, LocalDateTime.of(2024, 1, 1, 1, 0, 0));
+        store.getRatings().add(1, 20, 3.0f, LocalDateTime.of(2024, 1, 1, 1, 0, 0));
+    }
+
+    @Test void testCachedRepeatQueryIsHit() {
+        int[] first = store.getRatings().getTopAverageRatedMovies(10);
+        int[] second = store.getRatings().getTopAverageRatedMovies(10);
+
+        assertArrayEquals(first, second, "A repeated query on an unchanged store should give the same result");
+        assertEquals(1, store.getMisses(), "Only the first query should have been computed");
+        assertEquals(1, store.getHits(), "The second query should have been served from the cache");
+    }
+
+    @Test void testCachedDifferentArgsAreSeparate() {
+        store.getRatings().getMostRatedMovies(1);
+        int[] two = store.getRatings().getMostRatedMovies(2);
+
+        assertEquals(2, two.length, "A query with different arguments should not reuse another result");
+        assertEquals(0, store.getHits(), "Different arguments are different cache entries");
+    }
+
+    @Test void testCachedInvalidatedByAdd() {
+        assertArrayEquals(new int[] {10, 20}, store.getRatings().getTopAverageRatedMovies(10), "Movie 10 averages 4.5, movie 20 averages 3.0");
+        store.getRatings().add(3, 30, 5.0f, LocalDateTime.of(2024, 1, 1, 1, 0, 0));
+
+        assertArrayEquals(new int[] {30, 10, 20}, store.getRatings().getTopAverageRatedMovies(10), "The new 5.0 rating should be reflected after an add");
+        assertEquals(0, store.getHits(), "The add should have invalidated the cached result");
+    }
+
+    @Test void testCachedInvalidatedBySetAndRemove() {
+        store.getRatings().getMostRatedUsers(10);
+        store.getRatings().set(2, 10, 1.0f, LocalDateTime.of(2024, 1, 1, 1, 0, 0));
+        store.getRatings().getMostRatedUsers(10);
+        store.getRatings().remove(1, 20);
+        int[] users = store.getRatings().getMostRatedUsers(10);
+
+        assertEquals(0, store.getHits(), "Both set and remove should invalidate the cached result");
+        assertEquals(2, users.length, "Both users still have a rating");
+    }
+
+    @Test void testCachedFailedMutationKeepsCache() {
+        store.getRatings().getMostRatedMovies(10);
+        assertFalse(store.getRatings().add(1, 10, 1.0f, LocalDateTime.of(2024, 1, 1, 1, 0, 0)), "User 1 has already rated movie 10");
+        store.getRatings().getMostRatedMovies(10);
+
+        assertEquals(1, store.getHits(), "A rejected add did not change the store, so the cached result is still valid");
+    }
+
+    @Test void testCachedResultCannotBeModified() {
+        int[] result = store.getRatings().getMostRatedMovies(10);
+        result[0] = -1;
+
+        assertEquals(10, store.getRatings().getMostRatedMovies(10)[0], "Changing a returned array should not change the cached result");
+    }
+
+    @Test void testCachedOtherStores() {
+        CastCredit[] cast = {new CastCredit(101, "Character", "CreditID", 1001, "Cast name", 1, "Profile path")};
+        store.getCredits().add(cast, new CrewCredit[0], 10);
+        store.getCredits().getMostCastCredits(5);
+        assertEquals(1, store.getCredits().getMostCastCredits(5).length, "The cached credits leaderboard should hold the one cast member");
+
+        store.getKeywords().add(10, new Keyword[] {new Keyword(1, "keyword")});
+        store.getKeywords().getMostKeywordFilms(1);
+        assertEquals(10, store.getKeywords().getMostKeywordFilms(1)[0], "The cached keywords leaderboard should hold film 10");
+
+        assertEquals(2, store.getHits(), "The repeat credits and keywords queries should both be hits");
+    }
+
+    @Test void testCachedTrendingKeyedByWindow() {
+        LocalDateTime now = LocalDateTime.of(2024, 1, 2, 0, 0, 0);
+        store.getRatings().getTrendingMovies(now, 7, 10);
+        assertArrayEquals(new int[] {10, 20}, store.getRatings().getTrendingMovies(now, 7, 10));
+        assertEquals(1, store.getHits(), "The same window should be served from the cache");
+
+        assertArrayEquals(new int[0], store.getRatings().getTrendingMovies(now.minusDays(30), 7, 10), "A different reference time is a different entry");
+        assertEquals(1, store.getHits());
+    }
+
+    @Test void testCachedEntriesDroppedOnChange() {
+        LocalDateTime now = LocalDateTime.of(2024, 1, 2, 0, 0, 0);
+        for (int days = 1; days <= 50; days++)
+            store.getRatings().getTrendingMovies(now.plusSeconds(days), days, 10);
+        assertEquals(50, store.getSize());
+
+        store.getRatings().add(3, 30, 5.0f, LocalDateTime.of(2024, 1, 1, 1, 0, 0));
+        assertEquals(0, store.getSize(), "Results of an older version are dropped, not kept");
+    }
+
+    @Test void testCachedEntriesAreBounded() {
+        QueryCache cache = new QueryCache("Test", 3);
+        for (int i = 0; i < 4; i++)
+            cache.put(QueryCache.key("q", i), cache.getVersion(), i);
+        cache.get(QueryCache.key("q", 1), cache.getVersion());
+        cache.put(QueryCache.key("q", 4), cache.getVersion(), 4);
+
+        assertEquals(3, cache.size());
+        assertNull(cache.get(QueryCache.key("q", 2), cache.getVersion()), "The least recently used goes first");
+        assertEquals(1, cache.get(QueryCache.key("q", 1), cache.getVersion()));
+
+        long old = cache.getVersion();
+        cache.invalidate();
+        cache.put(QueryCache.key("q", 5), old, 5);
+        assertEquals(0, cache.size(), "A result computed before a change isn't kept");
+    }
+}
@@ -0,0 +1,366 @@
+import interfaces.AbstractStores;
+import stores.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrentStoresTest {
+    private static final int THREADS = 8;
+    private static final LocalDateTime TIME = LocalDateTime.of(2024, 1, 1, 1, 0, 0);
+
+    private ConcurrentStores store;
+
+    @BeforeEach void setup() {
+        store = new ConcurrentStores(4);
+    }
+
+    private boolean addFilm(int id, String title) {
+        return store.getMovies().add(id, title, title, "", "", "Released", new Genre[0], LocalDate.of(2000, 1, 1),
+            0, 0, new String[0], "en", 90, "", false, false, "");
+    }
+
+    // Starts every task at the same moment, waits for them all and rethrows the first failure
+    private void race(Runnable... tasks) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread[] threads = new Thread[tasks.length];
+        for (int i = 0; i < tasks.length; i++) {
+            Runnable task = tasks[i];
+            threads[i] = new Thread(() -> {
+                try {
+                    start.await();
+                    task.run();
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                }
+            });
+            threads[i].start();
+        }
+        start.countDown();
+        for (Thread t : threads)
+            t.join();
+        if (failure.get() != null)
+            fail("A thread failed: " + failure.get(), failure.get());
+    }
+
+    @Test void testConcurrentDisjointAddsAllLand() throws InterruptedException {
+        Runnable[] tasks = new Runnable[THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            tasks[t] = () -> {
+                for (int i = 0; i < 200; i++) {
+                    int id = thread * 1000 + i;
+                    assertTrue(addFilm(id, "Film " + id));
+                    assertTrue(store.getRatings().add(thread, id, 3.0f, TIME));
+                }
+            };
+        }
+        race(tasks);
+
+        assertEquals(THREADS * 200, store.getMovies().size(), "Every film added by every thread should be there");
+        assertEquals(THREADS * 200, store.getMovies().getAllIDs().length, "The counter should agree with the stripes");
+        assertEquals(THREADS * 200, store.getRatings().size(), "Every rating added by every thread should be there");
+        assertEquals("Film 7199", store.getMovies().getTitle(7199));
+        assertEquals(200, store.getRatings().getUserRatings(5).length, "A user's ratings span all stripes");
+    }
+
+    @Test void testConcurrentSameKeyAddHasOneWinner() throws InterruptedException {
+        AtomicInteger filmWins = new AtomicInteger();
+        AtomicInteger ratingWins = new AtomicInteger();
+        Runnable[] tasks = new Runnable[THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            tasks[t] = () -> {
+                for (int id = 0; id < 100; id++) {
+                    if (addFilm(id, "Film " + id))
+                        filmWins.incrementAndGet();
+                    if (store.getRatings().add(1, id, 4.0f, TIME))
+                        ratingWins.incrementAndGet();
+                }
+            };
+        }
+        race(tasks);
+
+        assertEquals(100, filmWins.get(), "Exactly one add of each film should succeed");
+        assertEquals(100, ratingWins.get(), "Exactly one add of each rating should succeed");
+        assertEquals(100, store.getMovies().size());
+        assertEquals(100, store.getRatings().size());
+    }
+
+    @Test void testConcurrentReadersDuringChurn() throws InterruptedException {
+        for (int id = 0; id < 50; id++)
+            addFilm(id, "Stable " + id);
+
+        AtomicInteger badReads = new AtomicInteger();
+        Runnable writer = () -> {
+            for (int round = 0; round < 200; round++) {
+                for (int id = 1000; id < 1020; id++) {
+                    addFilm(id, "Churn " + id);
+                    store.getRatings().add(round, id, 2.0f, TIME);
+                }
+                for (int id = 1000; id < 1020; id++) {
+                    store.getMovies().remove(id);
+                    store.getRatings().remove(round, id);
+                }
+            }
+        };
+        Runnable reader = () -> {
+            for (int round = 0; round < 2000; round++) {
+                int id = round % 50;
+                // Films that are never removed must always be readable
+                if (!("Stable " + id).equals(store.getMovies().getTitle(id)))
+                    badReads.incrementAndGet();
+                String title = store.getMovies().getTitle(1000 + round % 20);
+                if (title != null && !title.startsWith("Churn"))
+                    badReads.incrementAndGet();
+                store.getMovies().findFilms("Churn");
+                store.getRatings().getMostRatedMovies(5);
+            }
+        };
+        race(writer, writer, reader, reader, reader);
+
+        assertEquals(0, badReads.get(), "Readers should never see a torn or missing film");
+        assertEquals(50, store.getMovies().size(), "Only the stable films should be left");
+        assertEquals(0, store.getRatings().size(), "Every churned rating was removed");
+    }
+
+    @Test void testConcurrentAddIsVisibleToOtherThreads() throws InterruptedException {
+        CountDownLatch added = new CountDownLatch(1);
+        AtomicReference<String> seen = new AtomicReference<>();
+        Thread writer = new Thread(() -> {
+            addFilm(42, "Published");
+            added.countDown();
+        });
+        Thread reader = new Thread(() -> {
+            try {
+                added.await();
+            } catch (InterruptedException e) {
+                return;
+            }
+            seen.set(store.getMovies().getTitle(42));
+        });
+        reader.start();
+        writer.start();
+        writer.join();
+        reader.join();
+
+        assertEquals("Published", seen.get(), "A completed add should be visible to every other thread");
+    }
+
+    @Test void testConcurrentLeaderboardsMatchSingleThreaded() {
+        Stores plain = new Stores();
+        for (int movie = 0; movie < 40; movie++) {
+            for (int user = 0; user <= movie % 7; user++) {
+                float rating = (movie * 7 + user) % 10 / 2.0f;
+                plain.getRatings().add(user, movie, rating, TIME);
+                store.getRatings().add(user, movie, rating, TIME);
+            }
+        }
+
+        int[] expected = plain.getRatings().getMostRatedUsers(3);
+        assertArrayEquals(expected, store.getRatings().getMostRatedUsers(3), "User totals should be summed over stripes");
+        assertEquals(plain.getRatings().getUserAverageRating(2), store.getRatings().getUserAverageRating(2), 0.0001f);
+        for (int id : store.getRatings().getMostRatedMovies(5))
+            assertEquals(7, store.getRatings().getNumRatings(id), "The most rated movies all have 7 ratings");
+    }
+
+    @Test void testConcurrentCreditsDeduplicatePeople() {
+        CastCredit actor = new CastCredit(1, "Lead", "c1", 1, "Actor", 0, "");
+        CastCredit other = new CastCredit(2, "Support", "c2", 2, "Other", 1, "");
+        for (int film = 0; film < 10; film++)
+            store.getCredits().add(new CastCredit[] { actor, other }, new CrewCredit[0], film);
+        store.getCredits().add(new CastCredit[] { actor }, new CrewCredit[0], 10);
+
+        assertEquals(2, store.getCredits().getNumUniqueCast(), "People in several stripes should only be counted once");
+        assertEquals(11, store.getCredits().getNumCastCredits(1));
+        assertEquals(1, store.getCredits().getMostCastCredits(1)[0].getID());
+        assertEquals(11, store.getCredits().getCastFilms(1).length);
+        assertEquals(3, store.getCredits().getCastFilms(1, 8, 5).length, "The last page should be cut short");
+    }
+
+    @Test void testConcurrentCollaborationsSpanStripes() {
+        CastCredit actor = new CastCredit(1, "Lead", "c1", 1, "Actor", 0, "");
+        CastCredit other = new CastCredit(2, "Support", "c2", 2, "Other", 1, "");
+        CrewCredit director = new CrewCredit("d", "Directing", 3, "Director", "Director", "");
+        for (int film = 0; film < 10; film++)
+            store.getCredits().add(new CastCredit[] { actor, other }, new CrewCredit[0], film);
+        store.getCredits().add(new CastCredit[] { other }, new CrewCredit[] { director }, 10);
+        AbstractStores snapshot = store.snapshot();
+        store.getCredits().remove(10);
+
+        assertEquals(10, store.getCredits().getNumSharedFilms(1, 2), "Films in every stripe should count");
+        assertEquals(-1, store.getCredits().getDegreesOfSeparation(1, 3), "The only link to the director was removed");
+        assertEquals(2, snapshot.getCredits().getDegreesOfSeparation(1, 3), "The snapshot should keep the removed film's links");
+        assertArrayEquals(new int[] { 1, 3 }, snapshot.getCredits().getTopCollaborators(2, 5));
+    }
+
+    @Test void testConcurrentKeywordsRemoveMissingFilm() {
+        Keyword word = new Keyword(5, "heist");
+        store.getKeywords().add(1, new Keyword[] { word });
+        store.getKeywords().add(2, word);
+
+        assertFalse(store.getKeywords().remove(99), "Removing a film without keywords should just fail");
+        assertEquals(2, store.getKeywords().size());
+        assertEquals(1, store.getKeywords().getNumUnique(), "The keyword is shared by films in different stripes");
+        assertTrue(store.getKeywords().remove(1));
+        assertEquals(1, store.getKeywords().size());
+    }
+
+    @Test void testConcurrentAddBatchFromManyProducers() throws InterruptedException {
+        AtomicInteger added = new AtomicInteger();
+        Runnable[] tasks = new Runnable[THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            tasks[t] = () -> {
+                // Every producer sends the same 100 shared pairs plus 400 of its own
+                for (int round = 0; round < 5; round++) {
+                    int[] users = new int[100];
+                    int[] movies = new int[100];
+                    float[] values = new float[100];
+                    long[] times = new long[100];
+                    for (int i = 0; i < 100; i++) {
+                        boolean shared = round == 0;
+                        users[i] = shared ? 0 : thread + 1;
+                        movies[i] = shared ? i : round * 100 + i;
+                        values[i] = 3.0f;
+                    }
+                    added.addAndGet(store.getRatings().addBatch(users, movies, values, times));
+                }
+            };
+        }
+        race(tasks);
+
+        assertEquals(100 + THREADS * 400, added.get(), "Each shared pair should be added by exactly one producer");
+        assertEquals(added.get(), store.getRatings().size());
+        assertEquals(400, store.getRatings().getUserRatings(3).length);
+    }
+
+    @Test void testConcurrentSnapshotIsolation() {
+        for (int id = 0; id < 20; id++) {
+            addFilm(id, "Film " + id);
+            store.getRatings().add(1, id, 4.0f, TIME);
+        }
+        AbstractStores snapshot = store.snapshot();
+
+        store.getMovies().remove(3);
+        store.getRatings().set(1, 5, 1.0f, TIME);
+        addFilm(100, "Later");
+
+        assertEquals("Film 3", snapshot.getMovies().getTitle(3), "A removed film should still be in an earlier snapshot");
+        assertEquals(4.0f, snapshot.getRatings().getMovieAverageRating(5), 0.0001f, "A changed rating should keep its old value in the snapshot");
+        assertNull(snapshot.getMovies().getTitle(100), "A film added later should not be in the snapshot");
+        assertEquals(20, snapshot.getMovies().size());
+        assertFalse(snapshot.getRatings().add(2, 5, 3.0f, TIME), "A snapshot should refuse changes");
+
+        assertNull(store.getMovies().getTitle(3), "The live store should have its own changes");
+        assertEquals(1.0f, store.getRatings().getMovieAverageRating(5), 0.0001f);
+        assertEquals(20, store.getMovies().size());
+    }
+
+    @Test void testConcurrentSnapshotAsksItsOwnMovies() {
+        addFilm(1, "Unrated");
+        AbstractStores snapshot = store.snapshot();
+        store.getMovies().remove(1);
+
+        assertEquals(0, snapshot.getRatings().getNumRatings(1), "The snapshot's ratings should find the film in the snapshot's movies");
+        assertEquals(0.0f, snapshot.getRatings().getMovieAverageRating(1));
+        assertArrayEquals(new int[] {0}, snapshot.getRatings().getNumRatings(new int[] {1}));
+        assertEquals(-1, store.getRatings().getNumRatings(1), "The live store no longer has the film");
+    }
+
+    @Test void testConcurrentSnapshotsAreConsistentDuringWrites() throws InterruptedException {
+        // The writer always adds a film together with its rating, so every snapshot
+        // should hold exactly as many ratings as films
+        AtomicInteger badSnapshots = new AtomicInteger();
+        Runnable writer = () -> {
+            for (int id = 0; id < 2000; id++) {
+                addFilm(id, "Film " + id);
+                store.getRatings().add(7, id, 3.0f, TIME);
+            }
+        };
+        Runnable snapshotter = () -> {
+            for (int i = 0; i < 200; i++) {
+                AbstractStores snapshot = store.snapshot();
+                int films = snapshot.getMovies().size();
+                int ratings = snapshot.getRatings().size();
+                if (ratings != films && ratings != films - 1)
+                    badSnapshots.incrementAndGet();
+                if (snapshot.getMovies().getAllIDs().length != films)
+                    badSnapshots.incrementAndGet();
+            }
+        };
+        race(writer, snapshotter, snapshotter);
+
+        assertEquals(0, badSnapshots.get(), "Every snapshot should show one point in time");
+        assertEquals(2000, store.getRatings().size());
+    }
+
+    @Test void testConcurrentBulkLookupsSpanStripes() {
+        int[] ids = new int[40];
+        for (int movie = 0; movie < 40; movie++) {
+            ids[39 - movie] = movie;
+            addFilm(movie, "Film " + movie);
+            for (int user = 0; user <= movie % 5; user++)
+                store.getRatings().add(user, movie, (movie + user) % 10 / 2.0f, TIME);
+        }
+        ids[0] = 99; // Unknown
+
+        String[] titles = store.getMovies().getTitles(ids);
+        float[] averages = store.getRatings().getMovieAverageRatings(ids);
+        int[] counts = store.getRatings().getNumRatings(ids);
+        CastCredit[][] casts = store.getCredits().getFilmCasts(ids);
+        for (int i = 0; i < ids.length; i++) {
+            assertEquals(store.getMovies().getTitle(ids[i]), titles[i], "Results should keep the order of the IDs");
+            assertEquals(store.getRatings().getMovieAverageRating(ids[i]), averages[i]);
+            assertEquals(store.getRatings().getNumRatings(ids[i]), counts[i]);
+            assertEquals(0, casts[i].length);
+        }
+        assertNull(titles[0]);
+        assertEquals(-1, counts[0]);
+    }
+
+    @Test void testConcurrentTimeQueriesMatchSingleThreaded() {
+        Stores plain = new Stores();
+        LocalDateTime now = LocalDateTime.of(2024, 3, 10, 12, 0, 0);
+        for (int movie = 0; movie < 40; movie++) {
+            for (int user = 0; user <= movie % 6; user++) {
+                LocalDateTime when = now.minusDays((movie * 13 + user * 29) % 90);
+                float rating = (movie + user) % 10 / 2.0f;
+                plain.getRatings().add(user, movie, rating, when);
+                store.getRatings().add(user, movie, rating, when);
+            }
+        }
+
+        for (int days : new int[] {7, 30, 365})
+            assertArrayEquals(plain.getRatings().getTrendingMovies(now, days, 5), store.getRatings().getTrendingMovies(now, days, 5), "Window totals should add up over stripes");
+        assertEquals(plain.getRatings().getUserRatingDrift(2), store.getRatings().getUserRatingDrift(2), 0.0001f, "The fit's sums should add up over stripes");
+        assertEquals(plain.getRatings().getLatestTimestamp(), store.getRatings().getLatestTimestamp());
+        assertArrayEquals(plain.getRatings().getMonthlyRatingCounts(5, YearMonth.of(2023, 12), YearMonth.of(2024, 3)),
+            store.getRatings().getMonthlyRatingCounts(5, YearMonth.of(2023, 12), YearMonth.of(2024, 3)));
+    }
+
+    @Test void testConcurrentDistributionsMatchSingleThreaded() {
+        Stores plain = new Stores();
+        for (int movie = 0; movie < 40; movie++) {
+            for (int user = 0; user <= movie % 7; user++) {
+                float rating = 0.5f + (movie * 3 + user) % 10 / 2.0f;
+                plain.getRatings().add(user, movie, rating, TIME);
+                store.getRatings().add(user, movie, rating, TIME);
+            }
+        }
+
+        assertArrayEquals(plain.getRatings().getUserRatingHistogram(3), store.getRatings().getUserRatingHistogram(3), "User histograms should add up over stripes");
+        assertEquals(plain.getRatings().getUserRatingPercentile(3, 75), store.getRatings().getUserRatingPercentile(3, 75));
+        assertArrayEquals(plain.getRatings().getMovieRatingHistogram(6), store.getRatings().getMovieRatingHistogram(6));
+        assertEquals(plain.getRatings().getMovieMedianRating(6), store.getRatings().getMovieMedianRating(6));
+        for (int p = 0; p <= 100; p += 10)
+            assertEquals(plain.getRatings().getRatingPercentile(p), store.getRatings().getRatingPercentile(p), "The global distribution should merge over stripes");
+    }
+}
@@ -0,0 +1,80 @@
+import recommend.ContentSimilarity;
+import stores.*;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ContentSimilarityTest {
+    private Stores store;
+
+    @BeforeEach void setup() {
+        store = new Stores();
+        Genre action = new Genre(1, "Action");
+        Genre drama = new Genre(2, "Drama");
+
+        // Films 1 and 2 share almost everything, film 3 shares a little, film 4 nothing
+        addFilm(1, new Genre[] {action}, new int[] {10, 11, 12, 13}, new int[] {100, 101});
+        addFilm(2, new Genre[] {action}, new int[] {10, 11, 12, 14}, new int[] {100, 101});
+        addFilm(3, new Genre[] {action}, new int[] {10, 20, 21, 22}, new int[] {102});
+        addFilm(4, new Genre[] {drama}, new int[] {30, 31}, new int[] {103});
+        addFilm(5, new Genre[0], new int[0], new int[0]); // Nothing to compare
+    }
+
+    private void addFilm(int id, Genre[] genres, int[] keywords, int[] cast) {
+        store.getMovies().add(id, "Film " + id, "Film " + id, "", "", "Released", genres, LocalDate.of(2000, 1, 1),
+            0, 0, new String[0], "en", 90, "", false, false, "");
+        Keyword[] words = new Keyword[keywords.length];
+        for (int k = 0; k < keywords.length; k++)
+            words[k] = new Keyword(keywords[k], "keyword " + keywords[k]);
+        store.getKeywords().add(id, words);
+        CastCredit[] credits = new CastCredit[cast.length];
+        for (int c = 0; c < cast.length; c++)
+            credits[c] = new CastCredit(id, "Role", "credit" + id + "-" + c, cast[c], "Actor " + cast[c], c, "");
+        store.getCredits().add(credits, new CrewCredit[0], id);
+    }
+
+    @Test void testContentSimilarityExactJaccard() {
+        ContentSimilarity similarity = new ContentSimilarity(store);
+
+        // Film 1: genre 1, keywords 10-13, cast 100-101 (7 features); film 2 swaps keyword 13 for 14
+        assertEquals(6.0f / 8.0f, similarity.getSimilarity(1, 2), 0.0001f);
+        assertEquals(2.0f / 11.0f, similarity.getSimilarity(1, 3), 0.0001f);
+        assertEquals(0.0f, similarity.getSimilarity(1, 4));
+        assertEquals(0.0f, similarity.getSimilarity(1, 5));
+        assertEquals(-1.0f, similarity.getSimilarity(1, 99), "An unknown film has no similarity");
+    }
+
+    @Test void testContentSimilarityMoreLikeThis() {
+        ContentSimilarity similarity = new ContentSimilarity(store);
+
+        assertArrayEquals(new int[] {2, 3}, similarity.moreLikeThisExact(1, 5), "The scan should rank by Jaccard index and skip unrelated films");
+        assertEquals(2, similarity.moreLikeThis(1, 5)[0], "A near-duplicate should always share a bucket");
+        assertArrayEquals(new int[0], similarity.moreLikeThis(5, 5), "A film with no features has no similar films");
+        assertArrayEquals(new int[0], similarity.moreLikeThis(99, 5));
+    }
+
+    @Test void testContentSimilarityBucketsMatchScan() {
+        // With many bands of one row, anything sharing a feature is very likely to share a bucket
+        ContentSimilarity similarity = new ContentSimilarity(store, 64, 1, 5, 1);
+        for (int film = 1; film <= 5; film++)
+            assertArrayEquals(similarity.moreLikeThisExact(film, 5), similarity.moreLikeThis(film, 5));
+    }
+
+    @Test void testContentSimilarityTopCastOnly() {
+        // Only the first billed actor counts, so films 1 and 2 lose actor 101 from both sets
+        ContentSimilarity similarity = new ContentSimilarity(store, 32, 2, 1, 1);
+        assertEquals(5.0f / 7.0f, similarity.getSimilarity(1, 2), 0.0001f);
+    }
+
+    @Test void testContentSimilarityNegativeIDs() {
+        // A negative keyword ID mustn't be mistaken for a genre with the same ID
+        addFilm(6, new Genre[0], new int[] {-7}, new int[0]);
+        addFilm(7, new Genre[] {new Genre(-7, "Odd")}, new int[0], new int[0]);
+        ContentSimilarity similarity = new ContentSimilarity(store, 64, 1, 5, 1);
+        assertEquals(0.0f, similarity.getSimilarity(6, 7));
+        assertArrayEquals(new int[0], similarity.moreLikeThis(6, 5), "Bucket mates with nothing in common aren't similar");
+    }
+}
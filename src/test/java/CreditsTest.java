@@ -1028,6 +1028,31 @@ public class CreditsTest {
         assertArrayEquals(new int[0], store.getCredits().getCrewFilms(2002), "There are movies and credits in the store, but none that have that crew ID. Therefore, return an empty array");
     }
 
+    @Test void testCreditsGetCastFilmsNegativeFilmID() {
+        CastCredit[] cast = new CastCredit[1];
+        cast[0] = new CastCredit(101, "Test cast character", "Test cast creditID1", 1001, "Test cast name", 1, "Test cast profile path");
+
+        store.getCredits().add(cast, null, -5);
+        assertArrayEquals(new int[] {-5}, store.getCredits().getCastFilms(1001), "A film with a negative ID is still one the cast member was in");
+
+        store.getCredits().add(cast, null, 7);
+        store.getCredits().add(cast, null, -12);
+        assertArrayEquals(new int[] {-12, -5, 7}, store.getCredits().getCastFilms(1001));
+
+        store.getCredits().remove(-5);
+        assertArrayEquals(new int[] {-12, 7}, store.getCredits().getCastFilms(1001));
+    }
+
+    @Test void testCreditsGetCrewFilmsNegativeFilmID() {
+        CrewCredit[] crew = new CrewCredit[1];
+        crew[0] = new CrewCredit("201", "Test crew department", 2001, "Test crew job", "Test crew name", "Test crew profile path");
+
+        store.getCredits().add(null, crew, -5);
+        store.getCredits().add(null, crew, 7);
+        assertArrayEquals(new int[] {-5, 7}, store.getCredits().getCrewFilms(2001), "A film with a negative ID is still one the crew member worked on");
+        assertArrayEquals(new int[] {-5}, store.getCredits().getCrewFilms(2001, 0, 1));
+    }
+
     @Test void testCreditsGetCastStarsInFilmsDefault() {
         assertNotNull(store.getCredits().getCastStarsInFilms(1001), "The function \"getCastStarsInFilms\" should never return null");
         assertArrayEquals(new int[0], store.getCredits().getCastStarsInFilms(1001), "The store is empty, so there are no cast members to search for stars. Therefore, an empty array should be returned");
@@ -1496,4 +1521,93 @@ public class CreditsTest {
         assertEquals(0, store.getCredits().size(), "A film was attempted to be removed, but the store was empty. Therefore, the store is still empty, thus has a size of 0");
     }
 
+
+    @Test void testCreditsPagedQueries() {
+        CastCredit[] cast1 = {new CastCredit(101, "Character", "CreditID1", 1001, "Cast name", 1, "Profile path")};
+        CastCredit[] cast2 = {new CastCredit(102, "Character2", "CreditID2", 1001, "Cast name", 1, "Profile path"),
+                              new CastCredit(103, "Character3", "CreditID3", 1002, "Cast name2", 2, "Profile path2")};
+        CrewCredit[] crew = {new CrewCredit("201", "Department", 2001, "Job", "Crew name", "Profile path")};
+
+        store.getCredits().add(cast1, crew, 1);
+        store.getCredits().add(cast2, crew, 2);
+
+        assertEquals(2, store.getCredits().getNumUniqueCast(), "Two distinct cast members have been added");
+        assertEquals(1, store.getCredits().getNumUniqueCrew(), "One distinct crew member has been added");
+        assertEquals(1002, store.getCredits().getUniqueCast(1, 5)[0].getID(), "The second page of unique cast should start at the second person");
+        assertEquals(1, store.getCredits().getUniqueCast(1, 5).length, "Only one unique cast member is left after skipping one");
+        assertEquals(1, store.getCredits().findCast("Cast name", 0, 1).length, "The page should stop after one match");
+
+        assertTrue(checkContentsOfArray(new int[] {1, 2}, store.getCredits().getCastFilms(1001, 0, 10)), "Cast member 1001 appears in both films");
+        assertEquals(1, store.getCredits().getCastFilms(1001, 1, 10).length, "Skipping one film should leave one");
+        assertEquals(1, store.getCredits().getCrewFilms(2001, 0, 1).length, "The page should stop after one film");
+
+        interfaces.IntIterator films = store.getCredits().iterateCastFilms(1002);
+        assertTrue(films.hasNext(), "Cast member 1002 appears in film 2");
+        assertEquals(2, films.next(), "Cast member 1002 appears in film 2");
+        assertFalse(films.hasNext(), "Cast member 1002 only appears in film 2");
+    }
+
+    // Adds a film whose cast is the given people, in billing order
+    private void addFilm(int filmID, int... people) {
+        CastCredit[] cast = new CastCredit[people.length];
+        for (int i = 0; i < people.length; i++)
+            cast[i] = new CastCredit(filmID, "Role", "c" + filmID + "-" + i, people[i], "Person " + people[i], i, "");
+        store.getCredits().add(cast, new CrewCredit[0], filmID);
+    }
+
+    @Test void testCreditsCollaborators() {
+        addFilm(1, 10, 11, 12);
+        addFilm(2, 10, 11);
+        addFilm(3, 10, 11, 13);
+        store.getCredits().add(new CastCredit[0], new CrewCredit[] {new CrewCredit("c", "Directing", 14, "Director", "Director", "")}, 4);
+        addFilm(4, 10); // Duplicate film ID, so ignored
+        CrewCredit director = new CrewCredit("d", "Directing", 12, "Director", "Person 12", "");
+        store.getCredits().add(new CastCredit[] {new CastCredit(5, "Role", "c5", 12, "Person 12", 0, "")}, new CrewCredit[] {director}, 5);
+
+        assertEquals(3, store.getCredits().getNumSharedFilms(10, 11), "People 10 and 11 were in three films together");
+        assertEquals(3, store.getCredits().getNumSharedFilms(11, 10), "Collaboration goes both ways");
+        assertEquals(1, store.getCredits().getNumSharedFilms(10, 12));
+        assertEquals(0, store.getCredits().getNumSharedFilms(12, 13));
+        assertEquals(0, store.getCredits().getNumSharedFilms(12, 12), "Acting and directing the same film isn't a collaboration with yourself");
+        assertArrayEquals(new int[] {11, 12}, store.getCredits().getTopCollaborators(10, 2));
+        assertArrayEquals(new int[0], store.getCredits().getTopCollaborators(14, 2), "Someone who worked alone has no collaborators");
+
+        store.getCredits().remove(3);
+        assertEquals(2, store.getCredits().getNumSharedFilms(10, 11), "Removing a film removes its collaborations");
+        assertEquals(0, store.getCredits().getNumSharedFilms(10, 13));
+        assertArrayEquals(new int[0], store.getCredits().getTopCollaborators(13, 5));
+    }
+
+    @Test void testCreditsDegreesOfSeparation() {
+        // A chain 1 - 2 - 3 - 4 - 5 with a shortcut 2 - 6 - 5, and 7 - 8 off on their own
+        addFilm(1, 1, 2);
+        addFilm(2, 2, 3);
+        addFilm(3, 3, 4);
+        addFilm(4, 4, 5);
+        addFilm(5, 2, 6);
+        addFilm(6, 6, 5);
+        addFilm(7, 7, 8);
+
+        assertArrayEquals(new int[] {1, 2, 6, 5}, store.getCredits().getCollaborationPath(1, 5), "The shortcut is shorter");
+        assertEquals(3, store.getCredits().getDegreesOfSeparation(1, 5));
+        assertEquals(1, store.getCredits().getDegreesOfSeparation(3, 4));
+        assertEquals(0, store.getCredits().getDegreesOfSeparation(3, 3));
+        assertEquals(-1, store.getCredits().getDegreesOfSeparation(1, 7), "Unconnected people have no path");
+        assertEquals(-1, store.getCredits().getDegreesOfSeparation(1, 99), "Unknown people have no path");
+
+        store.getCredits().remove(6);
+        assertArrayEquals(new int[] {1, 2, 3, 4, 5}, store.getCredits().getCollaborationPath(1, 5), "Without the shortcut the long way is the only way");
+        assertArrayEquals(new int[] {5, 4, 3, 2, 1}, store.getCredits().getCollaborationPath(5, 1));
+    }
+
+    @Test void testCreditsGetFilmCasts() {
+        addFilm(1, 10, 11, 12);
+        addFilm(2, 13);
+
+        CastCredit[][] casts = store.getCredits().getFilmCasts(new int[] {2, 7, 1});
+        assertEquals(3, casts.length, "There should be one cast per film");
+        assertArrayEquals(store.getCredits().getFilmCast(2), casts[0]);
+        assertArrayEquals(new CastCredit[0], casts[1], "An unknown film should have an empty cast");
+        assertArrayEquals(store.getCredits().getFilmCast(1), casts[2], "Casts should be in billing order like getFilmCast");
+    }
 }
@@ -0,0 +1,323 @@
+import durable.Durability;
+import durable.DurableStores;
+import ranking.RankedStores;
+import ranking.Scorers;
+import stores.*;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DurableStoresTest {
+    private static final LocalDateTime TIME = LocalDateTime.of(2024, 1, 1, 12, 30, 15, 500);
+
+    private final ArrayList<DurableStores> opened = new ArrayList<>();
+    private DurableStores durable;
+
+    @TempDir Path dir;
+
+    @AfterEach void teardown() throws Exception {
+        for (DurableStores stores : opened)
+            stores.close();
+    }
+
+    // A fresh stack over the data directory, as WarwickPlus builds it
+    private RankedStores open(Durability durability, long compactBytes) {
+        durable = new DurableStores(new ConcurrentStores(), dir, durability, compactBytes);
+        opened.add(durable);
+        return new RankedStores(durable);
+    }
+
+    private static void addFilm(RankedStores stores, int id, String title) {
+        stores.getMovies().add(id, title, title, "Overview", null, "Released", new Genre[] {new Genre(18, "Drama")},
+            LocalDate.of(2000, 1, 1), 10, 20, new String[] {"en", "fr"}, "en", 90.5, "", false, true, null);
+    }
+
+    @Test void testReplayAfterRestart() throws Exception {
+        RankedStores stores = open(Durability.GROUP_FSYNC, DurableStores.DEFAULT_COMPACT_BYTES);
+        addFilm(stores, 1, "Base"); // Loaded before recover, like the CSVs, so not logged
+        assertEquals(0, durable.recover(stores));
+        long empty = durable.getLogSize();
+
+        addFilm(stores, 2, "Heat");
+        addFilm(stores, 3, "Gone");
+        stores.getMovies().setVote(2, 7.5, 120);
+        stores.getMovies().addToCollection(2, 55, "Heat Collection", "p.jpg", null);
+        stores.getMovies().setIMDB(2, "tt0113277");
+        stores.getMovies().setPopularity(2, 17.25);
+        stores.getMovies().addProductionCompany(2, new Company(9, "Forward Pass"));
+        stores.getMovies().addProductionCountry(2, "US");
+        stores.getMovies().remove(3);
+        stores.getRatings().add(1, 2, 4.0f, TIME);
+        stores.getRatings().add(2, 2, 3.0f, TIME);
+        stores.getRatings().set(1, 2, 5.0f, TIME.plusDays(1));
+        stores.getRatings().remove(2, 2);
+        assertEquals(2, stores.getRatings().addBatch(new int[] {3, 4}, new int[] {1, 1}, new float[] {2.0f, 1.0f}, new long[] {1000, 2000}));
+        stores.getCredits().add(new CastCredit[] {new CastCredit(0, "McCauley", "c1", 100, "Robert De Niro", 0, null)},
+            new CrewCredit[] {new CrewCredit("e1", "Directing", 200, "Director", "Michael Mann", "m.jpg")}, 2);
+        stores.getKeywords().add(2, new Keyword[] {new Keyword(1, "heist"), new Keyword(2, "los angeles")});
+        stores.getKeywords().add(2, new Keyword(3, "cop"));
+        stores.getKeywords().removeKeywordFromFilm(2, 2);
+
+        long size = durable.getLogSize();
+        assertFalse(stores.getMovies().remove(99));
+        assertFalse(stores.getRatings().remove(9, 9));
+        assertEquals(size, durable.getLogSize(), "Mutations that change nothing aren't logged");
+        assertTrue(size > empty);
+        durable.close();
+
+        RankedStores restored = open(Durability.GROUP_FSYNC, DurableStores.DEFAULT_COMPACT_BYTES);
+        addFilm(restored, 1, "Base");
+        assertEquals(18, durable.recover(restored));
+
+        assertArrayEquals(new int[] {1, 2}, sorted(restored.getMovies().getAllIDs()));
+        assertEquals("Heat", restored.getMovies().getTitle(2));
+        assertNull(restored.getMovies().getTagline(2));
+        assertArrayEquals(new String[] {"en", "fr"}, restored.getMovies().getLanguages(2));
+        assertEquals(90.5, restored.getMovies().getRuntime(2));
+        assertTrue(restored.getMovies().getVideo(2));
+        assertEquals(7.5, restored.getMovies().getVoteAverage(2));
+        assertEquals(120, restored.getMovies().getVoteCount(2));
+        assertEquals(55, restored.getMovies().getCollectionID(2));
+        assertEquals("Heat Collection", restored.getMovies().getCollectionName(55));
+        assertEquals("tt0113277", restored.getMovies().getIMDB(2));
+        assertEquals(17.25, restored.getMovies().getPopularity(2));
+        assertEquals("Forward Pass", restored.getMovies().getProductionCompanies(2)[0].getName());
+        assertArrayEquals(new String[] {"US"}, restored.getMovies().getProductionCountries(2));
+
+        assertEquals(5.0f, restored.getRatings().getMovieAverageRating(2));
+        assertEquals(1, restored.getRatings().getNumRatings(2));
+        assertEquals(TIME.plusDays(1).withNano(0), restored.getRatings().getLatestTimestamp());
+        assertEquals(1.5f, restored.getRatings().getMovieAverageRating(1));
+        assertArrayEquals(new int[] {2, 1}, restored.getRanking().getTop(Scorers.MEAN, 10), "The ranking follows the replay");
+
+        assertEquals("Robert De Niro", restored.getCredits().getFilmCast(2)[0].getName());
+        assertEquals("Michael Mann", restored.getCredits().getFilmCrew(2)[0].getName());
+        int[] keywords = new int[restored.getKeywords().getKeywordsForFilm(2).length];
+        for (int i = 0; i < keywords.length; i++)
+            keywords[i] = restored.getKeywords().getKeywordsForFilm(2)[i].getID();
+        assertArrayEquals(new int[] {1, 3}, keywords);
+    }
+
+    @Test void testTornRecordIsDropped() throws Exception {
+        RankedStores stores = open(Durability.FLUSH, DurableStores.DEFAULT_COMPACT_BYTES);
+        durable.recover(stores);
+        for (int user = 1; user <= 3; user++)
+            stores.getRatings().add(user, 10, user, TIME);
+        durable.close();
+
+        // A crash halfway through writing the last record
+        Path log = dir.resolve(DurableStores.LOG_FILE);
+        long length = Files.size(log);
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE)) {
+            channel.truncate(length - 5);
+        }
+
+        stores = open(Durability.FLUSH, DurableStores.DEFAULT_COMPACT_BYTES);
+        assertEquals(2, durable.recover(stores));
+        assertEquals(2, stores.getRatings().getNumRatings(10));
+        assertTrue(Files.size(log) < length - 5, "The torn record is cut off");
+
+        stores.getRatings().add(4, 10, 4.0f, TIME);
+        durable.close();
+        stores = open(Durability.FLUSH, DurableStores.DEFAULT_COMPACT_BYTES);
+        assertEquals(3, durable.recover(stores), "Records written after the cut replay");
+        assertArrayEquals(new int[] {1, 2, 4}, sorted(stores.getRatings().getMovieRaters(10)));
+    }
+
+    @Test void testCompaction() throws Exception {
+        RankedStores stores = open(Durability.GROUP_FSYNC, DurableStores.DEFAULT_COMPACT_BYTES);
+        addFilm(stores, 1, "Base");
+        durable.recover(stores);
+        addFilm(stores, 2, "Heat");
+        stores.getRatings().add(1, 2, 4.0f, TIME);
+        Path log = dir.resolve(DurableStores.LOG_FILE);
+        Path oldLog = dir.resolve("old.wal");
+        Files.copy(log, oldLog);
+
+        assertFalse(durable.hasSnapshot());
+        durable.compact();
+        assertTrue(durable.hasSnapshot());
+        assertEquals(1, durable.getGeneration());
+        long compacted = durable.getLogSize();
+        stores.getRatings().add(2, 2, 2.0f, TIME);
+        stores.getMovies().remove(1);
+        assertTrue(durable.getLogSize() > compacted);
+        durable.close();
+
+        // The snapshot stands in for the CSVs
+        RankedStores restored = open(Durability.GROUP_FSYNC, DurableStores.DEFAULT_COMPACT_BYTES);
+        assertTrue(durable.hasSnapshot());
+        assertEquals(2, durable.recover(restored));
+        assertArrayEquals(new int[] {2}, restored.getMovies().getAllIDs());
+        assertEquals(3.0f, restored.getRatings().getMovieAverageRating(2));
+        assertEquals(TIME.toEpochSecond(ZoneOffset.UTC), restored.getRatings().getMovieRatingTimes(2)[0]);
+        durable.close();
+
+        // A crash after the snapshot was renamed but before the log restarted leaves a log it already covers
+        Files.copy(oldLog, log, StandardCopyOption.REPLACE_EXISTING);
+        restored = open(Durability.GROUP_FSYNC, DurableStores.DEFAULT_COMPACT_BYTES);
+        assertEquals(0, durable.recover(restored));
+        assertArrayEquals(new int[] {1, 2}, sorted(restored.getMovies().getAllIDs()));
+        assertEquals(1, restored.getRatings().getNumRatings(2));
+    }
+
+    @Test void testCompactsOnceTheLogIsBig() throws Exception {
+        RankedStores stores = open(Durability.BUFFERED, 4096);
+        durable.recover(stores);
+        for (int user = 0; user < 1000; user++)
+            stores.getRatings().add(user, 1, 3.0f, TIME);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!durable.hasSnapshot() || durable.getLogSize() > 4096 + 100)
+            assertTrue(System.currentTimeMillis() < deadline, "Timed out waiting for a compaction");
+        durable.close();
+
+        stores = open(Durability.BUFFERED, 4096);
+        durable.recover(stores);
+        assertEquals(1000, stores.getRatings().getNumRatings(1));
+    }
+
+    @Test void testWritesDuringCompactionSurvive() throws Exception {
+        RankedStores stores = open(Durability.FLUSH, DurableStores.DEFAULT_COMPACT_BYTES);
+        durable.recover(stores);
+        Thread[] writers = new Thread[3];
+        for (int t = 0; t < writers.length; t++) {
+            int movie = t;
+            writers[t] = new Thread(() -> {
+                for (int user = 0; user < 300; user++)
+                    stores.getRatings().add(user, movie, 1 + user % 5, TIME);
+            });
+            writers[t].start();
+        }
+        for (int i = 0; i < 5; i++)
+            durable.compact(); // Without holding the writers up while the snapshot is written
+        for (Thread writer : writers)
+            writer.join();
+        assertEquals(5, durable.getGeneration());
+        durable.close();
+
+        RankedStores restored = open(Durability.FLUSH, DurableStores.DEFAULT_COMPACT_BYTES);
+        durable.recover(restored);
+        for (int movie = 0; movie < writers.length; movie++)
+            assertEquals(300, restored.getRatings().getNumRatings(movie));
+    }
+
+    @Test void testCrashBeforeTheLogIsCarriedOver() throws Exception {
+        RankedStores stores = open(Durability.GROUP_FSYNC, DurableStores.DEFAULT_COMPACT_BYTES);
+        durable.recover(stores);
+        addFilm(stores, 1, "Heat");
+        Path log = dir.resolve(DurableStores.LOG_FILE);
+        byte[] covered = Files.readAllBytes(log);
+        durable.compact();
+        stores.getRatings().add(1, 1, 4.0f, TIME);
+        stores.getRatings().add(2, 1, 2.0f, TIME);
+        durable.close();
+
+        // The old log as it would be had the ratings been logged while the snapshot was written
+        byte[] carried = Files.readAllBytes(log);
+        byte[] old = Arrays.copyOf(covered, covered.length + carried.length - 28);
+        System.arraycopy(carried, 28, old, covered.length, carried.length - 28);
+        Files.write(log, old);
+
+        stores = open(Durability.GROUP_FSYNC, DurableStores.DEFAULT_COMPACT_BYTES);
+        assertEquals(2, durable.recover(stores), "Only the records after the covered ones replay");
+        assertEquals(1, durable.getGeneration());
+        assertArrayEquals(new int[] {1}, stores.getMovies().getAllIDs());
+        assertEquals(3.0f, stores.getRatings().getMovieAverageRating(1));
+        durable.close();
+
+        stores = open(Durability.GROUP_FSYNC, DurableStores.DEFAULT_COMPACT_BYTES);
+        assertEquals(2, durable.recover(stores), "The new log holds them");
+        assertEquals(2, stores.getRatings().getNumRatings(1));
+    }
+
+    @Test void testLogOverAnotherBaseIsRefused() throws Exception {
+        RankedStores stores = open(Durability.FLUSH, DurableStores.DEFAULT_COMPACT_BYTES);
+        durable.setBase(1);
+        durable.recover(stores);
+        durable.close();
+
+        // Nothing logged yet, so it starts again over the new base
+        stores = open(Durability.FLUSH, DurableStores.DEFAULT_COMPACT_BYTES);
+        durable.setBase(2);
+        durable.recover(stores);
+        stores.getRatings().add(1, 1, 4.0f, TIME);
+        durable.close();
+
+        RankedStores other = open(Durability.FLUSH, DurableStores.DEFAULT_COMPACT_BYTES);
+        durable.setBase(3);
+        assertThrows(IOException.class, () -> durable.recover(other));
+
+        stores = open(Durability.FLUSH, DurableStores.DEFAULT_COMPACT_BYTES);
+        durable.setBase(2);
+        assertEquals(1, durable.recover(stores));
+    }
+
+    @Test void testRebase() throws Exception {
+        RankedStores stores = open(Durability.FLUSH, DurableStores.DEFAULT_COMPACT_BYTES);
+        durable.setBase(1);
+        durable.recover(stores);
+        addFilm(stores, 1, "Heat"); // As a reload would
+        durable.rebase(2);
+        stores.getRatings().add(1, 1, 4.0f, TIME);
+        durable.close();
+
+        stores = open(Durability.FLUSH, DurableStores.DEFAULT_COMPACT_BYTES);
+        durable.setBase(2);
+        assertEquals(1, durable.recover(stores));
+        assertArrayEquals(new int[] {1}, stores.getMovies().getAllIDs());
+        durable.close();
+
+        // The snapshot stands in for the files, so another base is only warned about
+        stores = open(Durability.FLUSH, DurableStores.DEFAULT_COMPACT_BYTES);
+        durable.setBase(3);
+        assertEquals(1, durable.recover(stores));
+        assertEquals(1, stores.getRatings().getNumRatings(1));
+    }
+
+    @Test void testConcurrentWritersInEveryMode() throws Exception {
+        for (Durability durability : Durability.values()) {
+            Files.deleteIfExists(dir.resolve(DurableStores.LOG_FILE));
+            RankedStores stores = open(durability, DurableStores.DEFAULT_COMPACT_BYTES);
+            durable.recover(stores);
+            Thread[] writers = new Thread[4];
+            for (int t = 0; t < writers.length; t++) {
+                int movie = t;
+                writers[t] = new Thread(() -> {
+                    for (int user = 0; user < 50; user++)
+                        stores.getRatings().add(user, movie, 1 + user % 5, TIME);
+                });
+                writers[t].start();
+            }
+            for (Thread writer : writers)
+                writer.join();
+            durable.close();
+
+            RankedStores restored = open(durability, DurableStores.DEFAULT_COMPACT_BYTES);
+            assertEquals(200, durable.recover(restored), durability.toString());
+            for (int movie = 0; movie < writers.length; movie++)
+                assertEquals(50, restored.getRatings().getNumRatings(movie), durability.toString());
+            durable.close();
+        }
+        assertEquals(Durability.GROUP_FSYNC, Durability.named("group"));
+        assertNull(Durability.named("never"));
+    }
+
+    private static int[] sorted(int[] values) {
+        Arrays.sort(values);
+        return values;
+    }
+}
@@ -0,0 +1,136 @@
+import query.Facet;
+import query.FacetFilter;
+import query.FacetIndex;
+import stores.*;
+import structures.RoaringBitmap;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FacetIndexTest {
+    private static final LocalDateTime TIME = LocalDateTime.of(2024, 1, 1, 1, 0, 0);
+
+    private Stores store;
+
+    @BeforeEach void setup() {
+        store = new Stores();
+        Genre action = new Genre(28, "Action");
+        Genre comedy = new Genre(35, "Comedy");
+        Genre drama = new Genre(18, "Drama");
+
+        addFilm(1, new Genre[] {action}, 1994, 120, "en", false, "US");
+        addFilm(2, new Genre[] {action, comedy}, 1998, 95, "en", false, "US", "GB");
+        addFilm(3, new Genre[] {comedy}, 2004, 88, "fr", false, "FR");
+        addFilm(4, new Genre[] {drama}, 1999, 150, "en", true, "GB");
+        addFilm(70000, new Genre[] {drama, action}, 2010, 0, "ja", false); // Unknown runtime, in a second bitmap chunk
+
+        store.getRatings().add(1, 1, 4.0f, TIME);
+        store.getRatings().add(2, 1, 3.0f, TIME); // Film 1 averages 3.5
+        store.getRatings().add(1, 2, 2.0f, TIME);
+        store.getRatings().add(1, 70000, 5.0f, TIME);
+    }
+
+    private void addFilm(int id, Genre[] genres, int year, double runtime, String language, boolean adult, String... countries) {
+        store.getMovies().add(id, "Film " + id, "Film " + id, "", "", "Released", genres, LocalDate.of(year, 6, 1),
+            0, 0, new String[0], language, runtime, "", adult, false, "");
+        for (String country : countries)
+            store.getMovies().addProductionCountry(id, country);
+    }
+
+    @Test void testFacetFilterCombinesConditions() {
+        FacetIndex index = new FacetIndex(store);
+
+        assertEquals(5, index.size());
+        assertArrayEquals(new int[] {1, 2, 3, 4, 70000}, index.filter(new FacetFilter()), "No conditions match everything");
+        assertArrayEquals(new int[] {1, 2, 70000}, index.filter(new FacetFilter().genres("Action")));
+        assertArrayEquals(new int[] {1, 2, 3, 70000}, index.filter(new FacetFilter().genres("Action", "Comedy")), "Names within a facet are ORed");
+        assertArrayEquals(new int[] {1, 2}, index.filter(new FacetFilter().genres("Action").languages("en")), "Facets are ANDed");
+        assertArrayEquals(new int[] {2, 4}, index.filter(new FacetFilter().countries("GB")));
+        assertArrayEquals(new int[] {1, 2, 4}, index.filter(new FacetFilter().years(1990, 1999)));
+        assertArrayEquals(new int[] {2, 3}, index.filter(new FacetFilter().runtime(80, 100)));
+        assertArrayEquals(new int[] {1, 70000}, index.filter(new FacetFilter().minRating(3.5f)), "Unrated films never meet a minimum rating");
+        assertArrayEquals(new int[] {4}, index.filter(new FacetFilter().adult(true)));
+        assertArrayEquals(new int[] {1}, index.filter(new FacetFilter().genres("Action").years(1990, 1999).minRating(3.0f).adult(false)));
+        assertArrayEquals(new int[0], index.filter(new FacetFilter().genres("Western")), "An unknown name matches nothing");
+        assertEquals(0, index.count(new FacetFilter().years(2020, 2030)));
+        assertArrayEquals(new int[] {70000}, index.filter(new FacetFilter().anyOf(Facet.YEAR, "2010")), "Numeric facets can be matched by value too");
+    }
+
+    @Test void testFacetCounts() {
+        FacetIndex index = new FacetIndex(store);
+
+        assertArrayEquals(new String[] {"Action", "Comedy", "Drama"}, index.getValues(Facet.GENRE));
+        assertArrayEquals(new int[] {3, 2, 2}, index.getCounts(Facet.GENRE, new FacetFilter()));
+        assertArrayEquals(new int[] {2, 1, 1}, index.getCounts(Facet.GENRE, new FacetFilter().languages("en")));
+        assertArrayEquals(new int[] {2, 1, 1}, index.getCounts(Facet.GENRE, new FacetFilter().languages("en").genres("Comedy")),
+            "A facet's own condition shouldn't narrow its counts");
+        assertArrayEquals(new String[] {"en", "fr", "ja"}, index.getValues(Facet.LANGUAGE));
+        assertArrayEquals(new int[] {2, 1, 1}, index.getCounts(Facet.LANGUAGE, new FacetFilter().genres("Action", "Comedy")));
+        assertArrayEquals(new String[] {"1994", "1998", "1999", "2004", "2010"}, index.getValues(Facet.YEAR));
+        assertArrayEquals(new String[] {"20", "35", "50"}, index.getValues(Facet.RATING));
+    }
+
+    @Test void testFacetNegativeFilmIDs() {
+        Genre western = new Genre(37, "Western");
+        addFilm(-7, new Genre[] {western}, 1960, 100, "en", false, "US");
+        addFilm(-3, new Genre[] {western}, 1965, 110, "it", false, "IT");
+        FacetIndex index = new FacetIndex(store);
+
+        assertEquals(7, index.size());
+        assertArrayEquals(new int[] {-7, -3, 1, 2, 3, 4, 70000}, index.filter(new FacetFilter()), "Negative IDs keep their positions");
+        assertArrayEquals(new int[] {-7, -3}, index.filter(new FacetFilter().genres("Western")));
+        assertArrayEquals(new int[] {-7, 1, 2}, index.filter(new FacetFilter().countries("US")));
+        assertArrayEquals(new int[] {1, 2, 70000}, index.filter(new FacetFilter().genres("Action")), "Later films still line up with their facets");
+    }
+
+    @Test void testRoaringBitmapMatchesSets() {
+        // Sparse and dense chunks, so every pairing of chunk kinds is exercised
+        Random random = new Random(126);
+        RoaringBitmap[] bitmaps = new RoaringBitmap[3];
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        TreeSet<Integer>[] sets = new TreeSet[3];
+        int[] densities = {20, 10000, 40000};
+        for (int b = 0; b < 3; b++) {
+            bitmaps[b] = new RoaringBitmap();
+            sets[b] = new TreeSet<>();
+            for (int n = 0; n < densities[b]; n++) {
+                int value = random.nextInt(3 * 65536);
+                assertEquals(sets[b].add(value), bitmaps[b].add(value), "add should report whether the value was new");
+            }
+            assertEquals(sets[b].size(), bitmaps[b].cardinality());
+        }
+
+        for (int x = 0; x < 3; x++) {
+            for (int y = 0; y < 3; y++) {
+                TreeSet<Integer> and = new TreeSet<>(sets[x]);
+                and.retainAll(sets[y]);
+                TreeSet<Integer> or = new TreeSet<>(sets[x]);
+                or.addAll(sets[y]);
+                TreeSet<Integer> andNot = new TreeSet<>(sets[x]);
+                andNot.removeAll(sets[y]);
+
+                assertArrayEquals(toArray(and), RoaringBitmap.and(bitmaps[x], bitmaps[y]).toArray());
+                assertEquals(and.size(), RoaringBitmap.andCardinality(bitmaps[x], bitmaps[y]));
+                assertArrayEquals(toArray(or), RoaringBitmap.or(bitmaps[x], bitmaps[y]).toArray());
+                assertArrayEquals(toArray(andNot), RoaringBitmap.andNot(bitmaps[x], bitmaps[y]).toArray());
+            }
+        }
+        assertTrue(bitmaps[0].contains(sets[0].first()));
+        assertFalse(bitmaps[0].contains(-1));
+        assertTrue(bitmaps[2].sizeInBytes() < sets[2].size() * 4L, "A dense bitmap should be smaller than an int per value");
+    }
+
+    private static int[] toArray(TreeSet<Integer> set) {
+        int[] result = new int[set.size()];
+        int n = 0;
+        for (int v : set)
+            result[n++] = v;
+        return result;
+    }
+}
@@ -0,0 +1,241 @@
+import interfaces.AbstractStores;
+import interfaces.IntIterator;
+import stores.*;
+import structures.IntPostings;
+import structures.PostingsTable;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IntPostingsTest {
+
+    private static int[] toArray(TreeSet<Integer> set) {
+        int[] result = new int[set.size()];
+        int n = 0;
+        for (int v : set)
+            result[n++] = v;
+        return result;
+    }
+
+    @Test void testPostingsMatchSets() {
+        // Small gaps, large gaps and enough values to split blocks
+        Random random = new Random(50);
+        IntPostings[] postings = new IntPostings[3];
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        TreeSet<Integer>[] sets = new TreeSet[3];
+        int[] ranges = {2000, 1 << 20, Integer.MAX_VALUE};
+        for (int p = 0; p < 3; p++) {
+            postings[p] = new IntPostings();
+            sets[p] = new TreeSet<>();
+            for (int n = 0; n < 3000; n++) {
+                int value = random.nextInt(ranges[p]);
+                assertEquals(sets[p].add(value), postings[p].add(value), "add should report whether the value was new");
+            }
+            for (int n = 0; n < 1000; n++) {
+                int value = n % 2 == 0 ? random.nextInt(ranges[p]) : sets[p].ceiling(random.nextInt(ranges[p]) / 2);
+                assertEquals(sets[p].remove(value), postings[p].remove(value), "remove should report whether the value was there");
+            }
+            assertEquals(sets[p].size(), postings[p].size());
+            assertArrayEquals(toArray(sets[p]), postings[p].toArray());
+            for (int n = 0; n < 1000; n++) {
+                int value = random.nextInt(ranges[p]);
+                assertEquals(sets[p].contains(value), postings[p].contains(value));
+            }
+            assertArrayEquals(toArray(sets[p]), IntPostings.of(toArray(sets[p])).toArray(), "of should give the same postings");
+        }
+        assertTrue(postings[0].sizeInBytes() < 2L * postings[0].size(), "Close values should take about a byte each");
+
+        for (int x = 0; x < 3; x++) {
+            for (int y = 0; y < 3; y++) {
+                TreeSet<Integer> and = new TreeSet<>(sets[x]);
+                and.retainAll(sets[y]);
+                TreeSet<Integer> or = new TreeSet<>(sets[x]);
+                or.addAll(sets[y]);
+                assertArrayEquals(toArray(and), IntPostings.and(postings[x], postings[y]).toArray());
+                assertEquals(and.size(), IntPostings.andCardinality(postings[x], postings[y]));
+                assertArrayEquals(toArray(or), IntPostings.or(postings[x], postings[y]).toArray());
+            }
+        }
+
+        int[] values = postings[1].toArray();
+        int[] ranks = {0, 1, 127, 128, 400, values.length - 1};
+        int[] selected = postings[1].select(ranks);
+        for (int k = 0; k < ranks.length; k++)
+            assertEquals(values[ranks[k]], selected[k]);
+
+        IntPostings copy = postings[0].copy();
+        copy.remove(values[0]);
+        copy.add(ranges[0] + 1);
+        assertArrayEquals(toArray(sets[0]), postings[0].toArray(), "Changing a copy should leave the original alone");
+    }
+
+    @Test void testPostingsEmptyAndSmall() {
+        IntPostings postings = new IntPostings();
+        assertTrue(postings.isEmpty());
+        assertArrayEquals(new int[0], postings.toArray());
+        assertFalse(postings.contains(0));
+        assertFalse(postings.remove(0));
+        assertEquals(0, IntPostings.andCardinality(postings, IntPostings.of(1, 2)));
+        assertArrayEquals(new int[] {1, 2}, IntPostings.or(postings, IntPostings.of(2, 1)).toArray());
+
+        assertTrue(postings.add(5));
+        assertTrue(postings.add(3)); // Below the first value of the only block
+        assertArrayEquals(new int[] {3, 5}, postings.toArray());
+        assertTrue(postings.remove(3));
+        assertTrue(postings.remove(5));
+        assertTrue(postings.isEmpty());
+        assertArrayEquals(new int[] {-3, 1, 4, 9}, IntPostings.of(9, 4, 1, 4, -3).toArray());
+    }
+
+    @Test void testPostingsNegativeValues() {
+        // Values over the whole int range, so blocks start negative and gaps overflow an int
+        Random random = new Random(51);
+        IntPostings postings = new IntPostings();
+        TreeSet<Integer> set = new TreeSet<>();
+        int[] edges = {Integer.MIN_VALUE, Integer.MAX_VALUE, -1, 0, 1};
+        for (int value : edges)
+            assertEquals(set.add(value), postings.add(value));
+        for (int n = 0; n < 3000; n++) {
+            int value = n % 3 == 0 ? -random.nextInt(1000) : random.nextInt();
+            assertEquals(set.add(value), postings.add(value), "add should report whether the value was new");
+        }
+        assertArrayEquals(toArray(set), postings.toArray());
+        for (int n = 0; n < 1000; n++) {
+            int value = n % 2 == 0 ? random.nextInt() : -random.nextInt(1000);
+            assertEquals(set.contains(value), postings.contains(value));
+        }
+        assertTrue(postings.remove(Integer.MIN_VALUE));
+        assertFalse(postings.contains(Integer.MIN_VALUE));
+        set.remove(Integer.MIN_VALUE);
+        assertArrayEquals(toArray(set), IntPostings.of(toArray(set)).toArray(), "of should give the same postings");
+
+        IntPostings small = IntPostings.of(-5, 7);
+        TreeSet<Integer> and = new TreeSet<>(set);
+        and.retainAll(Arrays.asList(-5, 7));
+        assertArrayEquals(toArray(and), IntPostings.and(small, postings).toArray());
+        assertArrayEquals(new int[] {-9, -5, 7}, IntPostings.or(small, IntPostings.of(-9)).toArray());
+        assertEquals(IntPostings.of(1, 2).sizeInBytes(), IntPostings.of(-1, 0).sizeInBytes(), "A small negative first value stays one byte");
+    }
+
+    @Test void testPostingsUnsortedAdds() {
+        // Descending and shuffled adds wait in the buffer and are merged in on reads
+        Random random = new Random(7);
+        IntPostings postings = new IntPostings();
+        TreeSet<Integer> set = new TreeSet<>();
+        for (int n = 0; n < 5000; n++) {
+            int value = n < 1000 ? 100000 - n * 3 : random.nextInt(200000);
+            assertEquals(set.add(value), postings.add(value), "add should report whether the value was new");
+            if (n % 997 == 0) {
+                assertEquals(set.size(), postings.size());
+                assertEquals(set.contains(value + 1), postings.contains(value + 1));
+            }
+        }
+        assertArrayEquals(toArray(set), postings.toArray());
+        assertFalse(postings.add(set.first()), "A value already merged in is found");
+        postings.add(1);
+        assertFalse(postings.add(1), "A value still waiting is found");
+        set.add(1);
+        assertArrayEquals(toArray(set), postings.copy().toArray());
+    }
+
+    @Test void testPostingsCursor() {
+        IntPostings postings = IntPostings.of(10, 20, 30);
+        IntPostings.Cursor cursor = postings.cursor();
+        assertEquals(10, cursor.next());
+        postings.add(40);
+        postings.add(5);
+        postings.remove(20);
+        assertEquals(20, cursor.next(), "A cursor sees the list as it was when made");
+        assertEquals(30, cursor.next());
+        assertFalse(cursor.hasNext());
+
+        IntPostings.Cursor after = postings.cursor();
+        int[] read = new int[4];
+        for (int n = 0; after.hasNext(); n++)
+            read[n] = after.next();
+        assertArrayEquals(new int[] {5, 10, 30, 40}, read);
+    }
+
+    @Test void testPostingsTable() {
+        PostingsTable table = new PostingsTable();
+        int a = table.addSlot(), b = table.addSlot();
+        assertEquals(0, table.size(a));
+        assertTrue(table.add(a, 8));
+        assertFalse(table.add(a, 8));
+        assertArrayEquals(new int[] {8}, table.get(a).toArray(), "One value is kept inline");
+        assertTrue(table.add(a, 3));
+        assertArrayEquals(new int[] {3, 8}, table.get(a).toArray());
+        assertArrayEquals(new int[0], table.get(b).toArray());
+
+        PostingsTable copy = table.copy();
+        assertTrue(table.remove(a, 8));
+        assertFalse(table.remove(a, 8));
+        assertArrayEquals(new int[] {3}, table.get(a).toArray(), "Back to one value");
+        assertTrue(table.remove(a, 3));
+        assertEquals(0, table.size(a));
+        assertArrayEquals(new int[] {3, 8}, copy.get(a).toArray(), "Changing the table should leave a copy alone");
+        assertEquals(2, copy.size());
+
+        int c = table.addSlot();
+        assertTrue(table.add(c, -1), "Negative values are kept");
+        assertFalse(table.add(c, -1));
+        assertTrue(table.add(c, -7));
+        assertArrayEquals(new int[] {-7, -1}, table.get(c).toArray());
+        assertTrue(table.remove(c, -7));
+        assertArrayEquals(new int[] {-1}, table.get(c).toArray());
+        assertTrue(table.remove(c, -1));
+        assertFalse(table.remove(c, -1));
+        assertEquals(0, table.size(c));
+    }
+
+    @Test void testKeywordAndCreditPostings() {
+        Stores store = new Stores();
+        Keyword love = new Keyword(1, "love");
+        Keyword war = new Keyword(2, "war");
+        store.getKeywords().add(30, new Keyword[] {love, war});
+        store.getKeywords().add(10, love);
+        store.getKeywords().add(20, new Keyword[] {war, war});
+        store.getKeywords().add(10, war); // Added to a film that already has keywords
+        assertArrayEquals(new int[] {10, 30}, store.getKeywords().getFilmsWithKeyword(1), "Films come back ascending");
+        assertSame(love, store.getKeywords().getKeywordsForFilm(10)[0]);
+        assertSame(war, store.getKeywords().getKeywordsForFilm(10)[1], "Films share the first Keyword seen with an ID");
+        assertArrayEquals(new int[] {10, 20, 30}, store.getKeywords().getFilmsWithKeyword(2));
+        assertArrayEquals(new int[] {20, 30}, store.getKeywords().getFilmsWithKeyword(2, 1, 5));
+
+        AbstractStores snapshot = store.snapshot();
+        store.getKeywords().removeKeywordFromFilm(20, 2);
+        assertArrayEquals(new int[] {10, 20, 30}, store.getKeywords().getFilmsWithKeyword(2), "Film 20 has war twice");
+        store.getKeywords().removeKeywordFromFilm(20, 2);
+        store.getKeywords().remove(30);
+        assertArrayEquals(new int[] {10}, store.getKeywords().getFilmsWithKeyword(2));
+        assertArrayEquals(new int[] {10}, store.getKeywords().getFilmsWithKeyword(1));
+        assertArrayEquals(new int[] {10, 20, 30}, snapshot.getKeywords().getFilmsWithKeyword(2), "The snapshot keeps its own postings");
+
+        CastCredit star = new CastCredit(0, "Lead", "c1", 7, "Star", 0, "");
+        CastCredit extra = new CastCredit(0, "Extra", "c2", 7, "Star", 9, "");
+        CrewCredit director = new CrewCredit("d1", "Directing", 7, "Director", "Star", "");
+        store.getCredits().add(new CastCredit[] {extra}, null, 300);
+        store.getCredits().add(new CastCredit[] {star, extra}, null, 100);
+        store.getCredits().add(null, new CrewCredit[] {director}, 200);
+        assertArrayEquals(new int[] {100, 300}, store.getCredits().getCastFilms(7));
+        assertArrayEquals(new int[] {200}, store.getCredits().getCrewFilms(7));
+        assertArrayEquals(new int[] {100}, store.getCredits().getCastStarsInFilms(7));
+        assertEquals(3, store.getCredits().getNumCastCredits(7), "Both credits in film 100 count");
+        AbstractStores before = store.snapshot();
+        store.getCredits().remove(100);
+        assertArrayEquals(new int[] {300}, store.getCredits().getCastFilms(7));
+        assertArrayEquals(new int[] {100, 300}, before.getCredits().getCastFilms(7), "The snapshot keeps its own credits");
+        assertEquals(3, before.getCredits().getNumCastCredits(7));
+        assertEquals(-1, store.getCredits().getNumCastCredits(8));
+        assertSame(extra, store.getCredits().getCast(7), "The first credit seen stands for the person");
+        assertNull(store.getCredits().getCast(8));
+        IntIterator films = store.getCredits().iterateCastFilms(7);
+        assertTrue(films.hasNext());
+        assertEquals(300, films.next());
+        assertFalse(films.hasNext());
+    }
+}
@@ -0,0 +1,137 @@
+import utils.JsonReader;
+
+import java.io.FileReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JsonReaderTest {
+    private static final String[] KEYS = {"id", "name"};
+
+    private final JsonReader json = new JsonReader();
+
+    @Test void testReadsPythonStyleJson() {
+        json.reset(" [{'id': 1, \"name\": \"D'Artagnan\", 'gender': 2}, {'name': 'None \\'quoted\\' \\u00e9', 'id': -7, 'extra': [{'a': [1, 2]}, 'x']},] ");
+        json.beginArray();
+        assertTrue(json.hasNext());
+        json.beginObject();
+        assertTrue(json.hasNext());
+        assertEquals(0, json.nextName(KEYS));
+        assertEquals(1, json.nextInt());
+        assertTrue(json.hasNext());
+        assertEquals(1, json.nextName(KEYS));
+        assertEquals("D'Artagnan", json.nextString());
+        assertTrue(json.hasNext());
+        assertEquals(-1, json.nextName(KEYS));
+        json.skipValue();
+        assertFalse(json.hasNext());
+        json.endObject();
+
+        assertTrue(json.hasNext());
+        json.beginObject();
+        assertTrue(json.hasNext());
+        assertEquals(1, json.nextName(KEYS));
+        assertEquals("None 'quoted' é", json.nextString());
+        assertTrue(json.hasNext());
+        assertEquals(0, json.nextName(KEYS));
+        assertEquals(-7, json.nextInt());
+        assertTrue(json.hasNext());
+        assertEquals(-1, json.nextName(KEYS));
+        json.skipValue();
+        assertFalse(json.hasNext());
+        json.endObject();
+        assertFalse(json.hasNext(), "A trailing comma is allowed, as in org.json");
+        json.endArray();
+
+        json.reset("{'profile_path': None, 'id': 2.0, 'name': '5'}").beginObject();
+        json.hasNext();
+        json.nextName(KEYS);
+        assertEquals("None", json.nextString(), "Bare words are strings, as in org.json");
+        json.hasNext();
+        json.nextName(KEYS);
+        assertEquals(2, json.nextInt());
+        json.hasNext();
+        json.nextName(KEYS);
+        assertEquals(5, json.nextInt());
+
+        json.reset("[]").beginArray();
+        assertFalse(json.hasNext());
+        json.endArray();
+    }
+
+    @Test void testRejectsMalformedJson() {
+        assertThrows(JSONException.class, () -> json.reset("").beginArray());
+        assertThrows(JSONException.class, () -> json.reset("{'id': 1").beginArray());
+        assertThrows(JSONException.class, () -> {
+            json.reset("[1 2]").beginArray();
+            json.hasNext();
+            json.nextInt();
+            json.hasNext();
+        });
+        assertThrows(JSONException.class, () -> {
+            json.reset("{'name: 1}").beginObject();
+            json.nextName(KEYS);
+        });
+        assertThrows(JSONException.class, () -> {
+            json.reset("{'id': 'x'}").beginObject();
+            json.nextName(KEYS);
+            json.nextInt();
+        });
+        assertThrows(JSONException.class, () -> {
+            json.reset("{'name': 12}").beginObject();
+            json.nextName(KEYS);
+            json.nextString();
+        });
+        assertThrows(JSONException.class, () -> {
+            json.reset("{'name': 'a\\x'}").beginObject();
+            json.nextName(KEYS);
+            json.nextString();
+        });
+        assertThrows(JSONException.class, () -> json.requireAll(1, KEYS), "name is missing");
+        json.requireAll(3, KEYS);
+    }
+
+    // Every cast and crew member in the credits file reads the same as with org.json
+    @Test void testMatchesOrgJsonOnCredits() throws Exception {
+        String[] castKeys = {"cast_id", "character", "credit_id", "id", "name", "order", "profile_path"};
+        String[] crewKeys = {"credit_id", "department", "id", "job", "name", "profile_path"};
+        CSVFormat csvFormat = CSVFormat.DEFAULT.builder().setHeader().setSkipHeaderRecord(true).build();
+        int members = 0;
+        try (Reader reader = new FileReader("data/credits.csv", StandardCharsets.UTF_8); CSVParser parser = csvFormat.parse(reader)) {
+            for (CSVRecord csvRecord : parser) {
+                for (String column : new String[] {"cast", "crew"}) {
+                    String[] keys = column.equals("cast") ? castKeys : crewKeys;
+                    JSONArray array = new JSONArray(csvRecord.get(column));
+                    json.reset(csvRecord.get(column)).beginArray();
+                    for (int i = 0; i < array.length(); i++) {
+                        JSONObject object = array.getJSONObject(i);
+                        assertTrue(json.hasNext());
+                        json.beginObject();
+                        while (json.hasNext()) {
+                            int key = json.nextName(keys);
+                            if (key < 0)
+                                json.skipValue();
+                            else if (object.get(keys[key]) instanceof Number)
+                                assertEquals(object.getInt(keys[key]), json.nextInt());
+                            else
+                                assertEquals(object.getString(keys[key]), json.nextString());
+                        }
+                        json.endObject();
+                        members++;
+                    }
+                    assertFalse(json.hasNext());
+                    json.endArray();
+                }
+            }
+        }
+        assertTrue(members > 10000);
+    }
+}
@@ -0,0 +1,40 @@
+import stores.*;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KeywordsTest {
+
+    private Stores store = new Stores();
+
+    @BeforeEach void setup() {
+        store = new Stores();
+    }
+
+    @Test void testKeywordsGetFilmsWithKeywordNegativeFilmID() {
+        Keyword love = new Keyword(1, "love");
+
+        store.getKeywords().add(-5, love);
+        store.getKeywords().add(7, love);
+        assertArrayEquals(new int[] {-5, 7}, store.getKeywords().getFilmsWithKeyword(1), "A film with a negative ID still has the keyword");
+        assertArrayEquals(new int[] {7}, store.getKeywords().getFilmsWithKeyword(1, 1, 5));
+
+        store.getKeywords().add(-12, new Keyword[] {love});
+        assertArrayEquals(new int[] {-12, -5, 7}, store.getKeywords().getFilmsWithKeyword(1));
+        assertTrue(store.getKeywords().iterateFilmsWithKeyword(1).hasNext());
+    }
+
+    @Test void testKeywordsRemoveNegativeFilmID() {
+        Keyword love = new Keyword(1, "love");
+        Keyword war = new Keyword(2, "war");
+
+        store.getKeywords().add(-5, new Keyword[] {love, war});
+        store.getKeywords().add(7, love);
+        assertTrue(store.getKeywords().removeKeywordFromFilm(-5, 2));
+        assertArrayEquals(new int[0], store.getKeywords().getFilmsWithKeyword(2), "Film -5 no longer has the keyword");
+
+        assertTrue(store.getKeywords().remove(-5));
+        assertArrayEquals(new int[] {7}, store.getKeywords().getFilmsWithKeyword(1));
+    }
+}
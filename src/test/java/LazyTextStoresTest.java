@@ -0,0 +1,166 @@
+import interfaces.AbstractStores;
+import interfaces.IMovies;
+import lazy.LazyTextStores;
+import lazy.TextBlobs;
+import stores.*;
+import utils.LoadData;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LazyTextStoresTest {
+    private static Stores plain;
+    private LazyTextStores lazy;
+
+    @TempDir Path dir;
+
+    @BeforeAll static void loadPlain() throws Exception {
+        plain = new Stores();
+        new LoadData().populate(plain);
+    }
+
+    @BeforeEach void setup() throws Exception {
+        lazy = new LazyTextStores(new Stores(), new TextBlobs(dir.resolve("text.blobs"), 16));
+        new LoadData().populate(lazy);
+    }
+
+    @AfterEach void teardown() throws Exception {
+        lazy.close();
+    }
+
+    @Test void testTextIsOffTheHeap() {
+        IMovies backing = lazy.getBacking().getMovies();
+        int withOverview = 0;
+        for (int id : plain.getMovies().getAllIDs()) {
+            assertNull(backing.getOverview(id));
+            assertNull(backing.getTagline(id));
+            assertNull(backing.getHomepage(id));
+            if (plain.getMovies().getOverview(id) != null)
+                withOverview++;
+        }
+        assertTrue(withOverview > 0);
+        assertTrue(lazy.getBlobs().size() > 0);
+    }
+
+    @Test void testAnswersAsThePlainStore() {
+        IMovies expected = plain.getMovies();
+        IMovies movies = lazy.getMovies();
+        assertArrayEquals(expected.getAllIDs(), movies.getAllIDs());
+        for (int id : expected.getAllIDs()) {
+            assertEquals(expected.getOverview(id), movies.getOverview(id));
+            assertEquals(expected.getTagline(id), movies.getTagline(id));
+            assertEquals(expected.getHomepage(id), movies.getHomepage(id));
+            assertEquals(expected.getTitle(id), movies.getTitle(id));
+            int collection = expected.getCollectionID(id);
+            if (collection >= 0) {
+                assertEquals(expected.getCollectionPoster(collection), movies.getCollectionPoster(collection));
+                assertEquals(expected.getCollectionBackdrop(collection), movies.getCollectionBackdrop(collection));
+            }
+        }
+        assertNull(movies.getOverview(-5));
+        assertNull(movies.getCollectionPoster(-5));
+
+        for (String term : new String[] {"the", "love", "war ", "Q", "é", "한", "", "no such words anywhere"}) {
+            assertArrayEquals(expected.findFilms(term), movies.findFilms(term), term);
+            assertArrayEquals(expected.findFilms(term, 3, 7), movies.findFilms(term, 3, 7), term);
+        }
+        assertTrue(lazy.getBlobs().getHits() > 0, "Collection paths are read again for each film in a collection");
+        assertTrue(lazy.getBlobs().getMisses() > 0);
+    }
+
+    @Test void testChangesAndSnapshots() {
+        IMovies movies = lazy.getMovies();
+        int id = movies.getAllIDs()[0];
+        String overview = movies.getOverview(id);
+        AbstractStores snapshot = lazy.snapshot();
+
+        assertTrue(movies.remove(id));
+        assertNull(movies.getOverview(id));
+        assertFalse(movies.add(movies.getAllIDs()[0], "Dup", "Dup", "o", "t", "Released", new Genre[0], null, 0, 0,
+            new String[0], "en", 90, "h", false, false, "p"), "Already there");
+
+        String longOverview = "x".repeat(1 << 24) + " needle é"; // Too long for its length to fit in the handle
+        assertTrue(movies.add(id, "New", "Nouveau", longOverview, null, "Released", new Genre[0], LocalDate.of(2000, 1, 1),
+            0, 0, new String[0], "fr", 90, "", false, false, "p"));
+        assertEquals(longOverview, movies.getOverview(id));
+        assertNull(movies.getTagline(id));
+        assertEquals("", movies.getHomepage(id));
+        assertArrayEquals(new int[] {id}, movies.findFilms("needle é"));
+        assertTrue(movies.addToCollection(id, 424242, "Saga", "/poster.jpg", null));
+        assertEquals("/poster.jpg", movies.getCollectionPoster(424242));
+        assertNull(movies.getCollectionBackdrop(424242));
+
+        assertEquals(overview, snapshot.getMovies().getOverview(id), "The snapshot keeps the text it was taken with");
+        assertNull(snapshot.getMovies().getCollectionPoster(424242));
+        assertFalse(snapshot.getMovies().remove(id));
+    }
+
+    @Test void testRefusedChangesWriteNothing() {
+        IMovies movies = lazy.getMovies();
+        long size = lazy.getBlobs().size();
+        assertFalse(movies.add(movies.getAllIDs()[0], "Dup", "Dup", "o", "t", "Released", new Genre[0], null, 0, 0,
+            new String[0], "en", 90, "h", false, false, "p"));
+        assertFalse(movies.addToCollection(-5, 424242, "Saga", "/poster.jpg", "/backdrop.jpg"));
+        assertEquals(size, lazy.getBlobs().size());
+    }
+
+    @Test void testCompactDropsUnusedText() throws Exception {
+        IMovies movies = lazy.getMovies();
+        assertFalse(lazy.compact(), "Nothing to drop yet");
+        int[] ids = movies.getAllIDs();
+        String overview = movies.getOverview(ids[0]);
+        long size = lazy.getBlobs().size();
+        AbstractStores snapshot = lazy.snapshot(); // Taken before the films change, so it keeps the old text
+        for (int i = 0; i < 100; i++) { // As a reload replaces the films that changed
+            int id = ids[i];
+            String title = movies.getTitle(id);
+            String tagline = movies.getTagline(id);
+            String homepage = movies.getHomepage(id);
+            assertTrue(movies.remove(id));
+            assertTrue(movies.add(id, title, title, "Overview " + i, tagline, "Released", new Genre[0], null, 0, 0,
+                new String[0], "en", 90, homepage, false, false, "p"));
+            int collection = plain.getMovies().getCollectionID(id);
+            movies.addToCollection(id, collection, plain.getMovies().getCollectionName(collection),
+                plain.getMovies().getCollectionPoster(collection), plain.getMovies().getCollectionBackdrop(collection));
+        }
+        assertTrue(lazy.getBlobs().size() > size);
+        TextBlobs before = lazy.getBlobs();
+
+        assertTrue(lazy.compact());
+        assertNotSame(before, lazy.getBlobs());
+        assertEquals(dir.resolve("text.blobs"), lazy.getBlobs().getPath());
+        assertTrue(lazy.getBlobs().size() < size, "Only the text in use is kept");
+        assertFalse(lazy.compact());
+
+        for (int i = 0; i < ids.length; i++) {
+            int id = ids[i];
+            assertEquals(i < 100 ? "Overview " + i : plain.getMovies().getOverview(id), movies.getOverview(id));
+            assertEquals(plain.getMovies().getTagline(id), movies.getTagline(id));
+            int collection = plain.getMovies().getCollectionID(id);
+            if (collection >= 0)
+                assertEquals(plain.getMovies().getCollectionPoster(collection), movies.getCollectionPoster(collection));
+        }
+        assertArrayEquals(new int[] {ids[42]}, movies.findFilms("Overview 42"));
+        assertEquals(overview, snapshot.getMovies().getOverview(ids[0]), "The snapshot keeps reading the old file");
+    }
+
+    @Test void testTemporaryFileIsDeleted() throws Exception {
+        TextBlobs blobs = new TextBlobs();
+        long handle = blobs.append("overview");
+        assertEquals(TextBlobs.NONE, blobs.append(null));
+        assertEquals("overview", blobs.read(handle));
+        assertTrue(blobs.search("view").in(handle));
+        assertFalse(blobs.search("views").in(handle));
+        assertTrue(Files.exists(blobs.getPath()));
+        blobs.close();
+        assertFalse(Files.exists(blobs.getPath()));
+    }
+}
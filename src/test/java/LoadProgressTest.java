@@ -0,0 +1,43 @@
+import stores.Stores;
+import utils.Constants;
+import utils.LoadData;
+import utils.LoadData.StoreType;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LoadProgressTest {
+    @Test void testProgressByBytes() throws Exception {
+        ArrayList<StoreType> files = new ArrayList<>();
+        ArrayList<Long> records = new ArrayList<>();
+        ArrayList<Double> fractions = new ArrayList<>();
+        ArrayList<Thread> threads = new ArrayList<>();
+        LoadData loading = new LoadData((file, numRecords, fraction) -> {
+            files.add(file);
+            records.add(numRecords);
+            fractions.add(fraction);
+            threads.add(Thread.currentThread());
+        }, Constants.defaultCreditsPath, Constants.defaultKeywordsPath, Constants.defaultMovieMetadataPath, Constants.defaultRatingsPath);
+
+        assertFalse(files.isEmpty());
+        assertEquals(StoreType.METADATA, files.get(0), "The metadata is read first");
+        assertEquals(StoreType.RATINGS, files.get(files.size() - 1), "The ratings are read last");
+        assertEquals(1.0, fractions.get(fractions.size() - 1), 1e-9);
+        for (int i = 1; i < fractions.size(); i++)
+            assertTrue(fractions.get(i) >= fractions.get(i - 1), "Progress only goes forwards");
+        for (Thread thread : threads)
+            assertSame(Thread.currentThread(), thread, "Events come on the loading thread");
+
+        // Each file's last event is when it was finished, with all of its records
+        Stores stores = new Stores();
+        LoadData.NumRecordsAdded added = loading.populate(stores);
+        int lastMetadata = files.lastIndexOf(StoreType.METADATA);
+        int lastRatings = files.lastIndexOf(StoreType.RATINGS);
+        assertEquals(added.movies, (long) records.get(lastMetadata));
+        assertEquals(Files.readAllLines(Paths.get(Constants.defaultRatingsPath)).size() - 1, (long) records.get(lastRatings));
+    }
+}
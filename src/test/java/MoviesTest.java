@@ -1032,5 +1032,57 @@ class MoviesTest {
     @Test void testMoviesSize(){
         assertEquals(2, stores.getMovies().size(), "Size not equal.");
     }
- 
+
+    @Test void testMoviesGetAllIDsPaged(){
+        assertArrayEquals(new int[] {1}, stores.getMovies().getAllIDs(0, 1), "The first page should hold the first movie added.");
+        assertArrayEquals(new int[] {2}, stores.getMovies().getAllIDs(1, 5), "The second page should hold only the remaining movie.");
+        assertArrayEquals(new int[0], stores.getMovies().getAllIDs(2, 5), "A page past the end should be empty.");
+        assertArrayEquals(new int[0], stores.getMovies().getAllIDs(-1, 5), "A negative offset should give an empty page.");
+    }
+
+    @Test void testMoviesIterateAllIDs(){
+        interfaces.IntIterator ids = stores.getMovies().iterateAllIDs();
+        assertTrue(ids.hasNext(), "The iterator should have the first movie.");
+        assertEquals(1, ids.next(), "Movies should be walked in the order they were added.");
+        assertEquals(2, ids.next(), "Movies should be walked in the order they were added.");
+        assertFalse(ids.hasNext(), "The iterator should be exhausted after both movies.");
+    }
+
+    @Test void testMoviesfindFilmsPaged(){
+        assertArrayEquals(new int[] {1}, stores.getMovies().findFilms("t", 0, 1), "The page should stop at the first match.");
+        assertArrayEquals(new int[] {2}, stores.getMovies().findFilms("t", 1, 1), "The second page should start at the second match.");
+        assertArrayEquals(new int[0], stores.getMovies().findFilms("Toy", 1, 1), "There is only one match, so the second page should be empty.");
+    }
+
+    @Test void testMoviesSnapshot(){
+        stores.getMovies().setVote(1, 7.5, 100);
+        interfaces.AbstractStores snapshot = stores.snapshot();
+
+        stores.getMovies().setVote(1, 2.0, 200);
+        stores.getMovies().remove(2);
+
+        assertEquals(7.5, snapshot.getMovies().getVoteAverage(1), 0.0001, "Changes made after the snapshot should not show up in it.");
+        assertEquals(2, snapshot.getMovies().size(), "The removed movie should still be in the snapshot.");
+        assertFalse(snapshot.getMovies().setVote(1, 9.0, 1), "A snapshot should refuse changes.");
+        assertEquals(2.0, stores.getMovies().getVoteAverage(1), 0.0001, "The live store should keep its own changes.");
+
+        stores.getMovies().addProductionCompany(1, new Company(1, "Pixar Animation Studios"));
+        interfaces.AbstractStores second = stores.snapshot();
+        stores.getMovies().addProductionCompany(1, new Company(2, "Walt Disney Pictures"));
+        stores.getMovies().setPopularity(1, 3.0);
+        assertEquals(0, snapshot.getMovies().getProductionCompanies(1).length, "Lists added to later should not change in the snapshot.");
+        assertEquals(1, second.getMovies().getProductionCompanies(1).length);
+        assertEquals(2.0, second.getMovies().getVoteAverage(1), 0.0001, "A later snapshot should see the changes before it.");
+        assertEquals(2, stores.getMovies().getProductionCompanies(1).length);
+    }
+
+    @Test void testMoviesGetTitles(){
+        String[] titles = stores.getMovies().getTitles(new int[] {2, 99, 1, 2});
+        assertEquals(4, titles.length, "There should be one title per ID.");
+        assertEquals("Toy Story", titles[0]);
+        assertNull(titles[1], "An unknown ID should have no title.");
+        assertEquals(stores.getMovies().getTitle(1), titles[2], "Titles should match getTitle.");
+        assertEquals("Toy Story", titles[3], "Repeated IDs should each get their title.");
+        assertEquals(0, stores.getMovies().getTitles(new int[0]).length);
+    }
 }
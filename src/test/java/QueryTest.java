@@ -0,0 +1,107 @@
+import query.FacetFilter;
+import query.FacetIndex;
+import query.Field;
+import query.Plan;
+import query.Query;
+import query.QueryResult;
+import stores.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class QueryTest {
+    private static final LocalDateTime TIME = LocalDateTime.of(2024, 1, 1, 1, 0, 0);
+
+    private Stores store;
+
+    @BeforeEach void setup() {
+        store = new Stores();
+        Genre action = new Genre(28, "Action");
+        Genre comedy = new Genre(35, "Comedy");
+        addFilm(1, "Alpha", action, 1990);
+        addFilm(2, "Bravo", comedy, 1995);
+        addFilm(3, "Charlie", action, 2000);
+        addFilm(4, "Delta", comedy, 2005);
+        store.getMovies().addToCollection(1, 10, "Series", "", "");
+        store.getMovies().addToCollection(3, 10, "Series", "", "");
+
+        // Film 3 has the most ratings, then film 1, then film 2; film 4 has none
+        for (int user = 0; user < 3; user++)
+            store.getRatings().add(user, 3, 2.0f, TIME);
+        store.getRatings().add(0, 1, 5.0f, TIME);
+        store.getRatings().add(1, 1, 4.0f, TIME);
+        store.getRatings().add(0, 2, 3.0f, TIME);
+
+        store.getCredits().add(new CastCredit[] {
+            new CastCredit(1, "Hero", "a", 100, "Ann", 0, ""),
+            new CastCredit(1, "Villain", "b", 101, "Bob", 1, "")
+        }, new CrewCredit[] {new CrewCredit("c", "Directing", 200, "Director", "Cat", "")}, 1);
+        store.getCredits().add(new CastCredit[] {new CastCredit(3, "Sidekick", "d", 100, "Ann", 2, "")}, new CrewCredit[0], 3);
+    }
+
+    private void addFilm(int id, String title, Genre genre, int year) {
+        store.getMovies().add(id, title, title, "", "", "Released", new Genre[] {genre}, LocalDate.of(year, 1, 1),
+            0, 0, new String[0], "en", 100, "", false, false, "");
+    }
+
+    @Test void testQueryOrderAndLimit() {
+        QueryResult result = Query.films().orderBy(Field.TITLE, true).limit(3).select(Field.TITLE).run(store);
+
+        assertArrayEquals(new int[] {4, 3, 2}, result.getFilmIDs());
+        assertEquals("Delta", result.getString(0, Field.TITLE));
+        assertNull(result.get(0, Field.RELEASE), "Only selected fields are fetched");
+        assertEquals(-1, result.getPersonID(0), "Film rows have no person");
+    }
+
+    @Test void testQueryUsesMostRatedIndex() {
+        Plan plan = Query.films().orderBy(Field.NUM_RATINGS, true).limit(2).select(Field.TITLE, Field.CAST).plan(store);
+        assertTrue(plan.explain().startsWith("1. Most-rated index, top 2"), plan.explain());
+        assertFalse(plan.explain().contains("Sort"), "The index already gives the order");
+
+        QueryResult result = plan.execute();
+        assertArrayEquals(new int[] {3, 1}, result.getFilmIDs());
+        assertEquals("Ann", ((CastCredit[]) result.get(1, Field.CAST))[0].getName());
+        assertTrue(plan.explain().contains("Fetch TITLE per distinct film, in one bulk call (2 lookups)  -> 2 rows"), "Fields are only fetched for the rows kept");
+    }
+
+    @Test void testQueryFacetsWithAndWithoutIndex() {
+        FacetFilter comedies = new FacetFilter().genres("Comedy");
+        Plan scan = Query.films().where(comedies).orderBy(Field.RELEASE, false).plan(store);
+        Plan indexed = Query.films().where(comedies).orderBy(Field.RELEASE, false).plan(store, new FacetIndex(store));
+
+        assertTrue(scan.explain().contains("Scan all films"));
+        assertTrue(scan.explain().contains("film by film"));
+        assertTrue(indexed.explain().startsWith("1. Facet index lookup"), indexed.explain());
+        assertArrayEquals(new int[] {2, 4}, scan.execute().getFilmIDs());
+        assertArrayEquals(new int[] {2, 4}, indexed.execute().getFilmIDs());
+    }
+
+    @Test void testQueryFieldFilterAndCollection() {
+        QueryResult rated = Query.collection(10).where(Field.AVERAGE_RATING, r -> (Float) r >= 3.0f)
+            .select(Field.TITLE, Field.AVERAGE_RATING).run(store);
+        assertArrayEquals(new int[] {1}, rated.getFilmIDs(), "Film 3 in the collection averages 2 stars");
+        assertEquals(4.5, rated.getDouble(0, Field.AVERAGE_RATING), 0.0001);
+    }
+
+    @Test void testQueryJoins() {
+        QueryResult cast = Query.films(1, 3).select(Field.TITLE).joinCast().orderBy(Field.BILLING, false).select(Field.TITLE, Field.PERSON_NAME).run(store);
+        assertEquals(3, cast.size());
+        assertArrayEquals(new int[] {100, 101, 100}, cast.getPersonIDs());
+        assertArrayEquals(new int[] {1, 1, 3}, cast.getFilmIDs());
+        assertEquals("Villain", cast.getString(1, Field.CHARACTER));
+        assertEquals("Charlie", cast.getString(2, Field.TITLE), "Film fields carry over to joined rows");
+        assertEquals("Ann", cast.getString(2, Field.PERSON_NAME));
+
+        QueryResult crew = Query.films(1).joinCrew().select(Field.PERSON_NAME).run(store);
+        assertEquals("Director", crew.getString(0, Field.JOB));
+        assertEquals("Cat", crew.getString(0, Field.PERSON_NAME), "Crew names are found too");
+
+        QueryResult films = Query.people(100).joinFilms().orderBy(Field.RELEASE, true).select(Field.TITLE).run(store);
+        assertArrayEquals(new int[] {3, 1}, films.getFilmIDs());
+        assertArrayEquals(new int[] {100, 100}, films.getPersonIDs());
+    }
+}
@@ -0,0 +1,182 @@
+import ranking.RankedStores;
+import ranking.Ranking;
+import ranking.Scorer;
+import ranking.Scorers;
+import stores.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RankingTest {
+    private static final LocalDateTime TIME = LocalDateTime.of(2024, 1, 1, 0, 0, 0);
+
+    private RankedStores store;
+
+    @BeforeEach void setup() {
+        store = new RankedStores(new Stores());
+    }
+
+    private void addFilm(int id) {
+        store.getMovies().add(id, "Film " + id, "Film " + id, "", "", "Released", new Genre[0], LocalDate.of(2000, 1, 1),
+            0, 0, new String[0], "en", 90, "", false, false, "");
+    }
+
+    // Gives a movie count ratings of the given value, from users firstUser onwards
+    private void rate(int movieID, int firstUser, int count, float rating) {
+        for (int user = firstUser; user < firstUser + count; user++)
+            store.getRatings().add(user, movieID, rating, TIME);
+    }
+
+    @Test void testRankingBayesianDistrustsFewRatings() {
+        rate(1, 0, 1, 5.0f); // One perfect rating
+        rate(2, 0, 40, 4.5f);
+        rate(3, 0, 40, 2.0f);
+
+        assertArrayEquals(new int[] {1, 2, 3}, store.getRanking().getTop(Scorers.MEAN, 10), "The raw mean puts the single 5.0 first");
+        assertArrayEquals(new int[] {2, 1, 3}, store.getRanking().getTop(Scorers.BAYESIAN, 10), "One rating is not enough to beat forty good ones");
+
+        double mean = store.getRanking().getGlobalMean();
+        assertEquals((10 * mean + 5.0) / 11, store.getRanking().getScore(Scorers.BAYESIAN, 1), 0.0001);
+        assertEquals(-1, store.getRanking().getScore(Scorers.BAYESIAN, 9), "Unrated movies are not ranked");
+    }
+
+    @Test void testRankingWilsonLowerBound() {
+        rate(1, 0, 1, 5.0f); // 1 of 1 positive
+        rate(2, 0, 90, 4.0f); // 90 of 100 positive
+        rate(2, 90, 10, 1.0f);
+        rate(3, 0, 10, 3.0f); // None positive
+
+        assertArrayEquals(new int[] {2, 1, 3}, store.getRanking().getTop(Scorers.WILSON, 10));
+        assertEquals(0.0, store.getRanking().getScore(Scorers.WILSON, 3), 0.0001);
+        assertTrue(store.getRanking().getScore(Scorers.WILSON, 2) < 0.9, "The bound is below the observed share");
+    }
+
+    @Test void testRankingBlendedUsesVotes() {
+        addFilm(1);
+        addFilm(2);
+        addFilm(3);
+        rate(1, 0, 5, 3.0f);
+        rate(2, 0, 5, 3.0f);
+        store.getMovies().setVote(2, 9.0, 1000); // Loved on TMDB
+        store.getMovies().setVote(3, 8.0, 500); // Only rated on TMDB
+
+        assertArrayEquals(new int[] {2, 3, 1}, store.getRanking().getTop(Scorers.BLENDED, 10));
+        assertArrayEquals(new int[] {1, 2}, store.getRanking().getTop(Scorers.BAYESIAN, 10), "Votes only count for the blended scorer");
+
+        store.getMovies().remove(3);
+        assertArrayEquals(new int[] {2, 1}, store.getRanking().getTop(Scorers.BLENDED, 10), "A removed movie's votes are gone");
+    }
+
+    @Test void testRankingFollowsChanges() {
+        rate(1, 0, 3, 4.0f);
+        rate(2, 0, 3, 3.0f);
+        assertArrayEquals(new int[] {1, 2}, store.getRanking().getTop(Scorers.MEAN, 10));
+
+        store.getRatings().set(0, 2, 5.0f, TIME);
+        store.getRatings().set(1, 2, 5.0f, TIME);
+        assertArrayEquals(new int[] {2, 1}, store.getRanking().getTop(Scorers.MEAN, 10), "Movie 2 now averages 4.33");
+
+        for (int user = 0; user < 3; user++)
+            store.getRatings().remove(user, 2);
+        assertArrayEquals(new int[] {1}, store.getRanking().getTop(Scorers.MEAN, 10), "A movie with no ratings left drops out");
+
+        store.getRatings().addBatch(new int[] {5, 6, 5}, new int[] {3, 3, 4}, new float[] {5.0f, 5.0f, 1.0f}, new long[3]);
+        assertArrayEquals(new int[] {3, 1, 4}, store.getRanking().getTop(Scorers.MEAN, 10), "Batches should be ranked too");
+        assertArrayEquals(new int[] {3}, store.getRanking().getTop(Scorers.MEAN, 1));
+        assertArrayEquals(new int[0], store.getRanking().getTop(Scorers.MEAN, 0));
+    }
+
+    @Test void testRankingRebuildsWhenMeanDrifts() {
+        rate(1, 0, 5, 4.0f);
+        rate(2, 0, 1, 5.0f);
+        assertEquals((10 * 4.1667 + 5.0) / 11, store.getRanking().getScore(Scorers.BAYESIAN, 2), 0.001);
+
+        rate(3, 0, 100, 1.0f); // Pulls the global mean far down
+        double mean = store.getRanking().getGlobalMean();
+        assertEquals((10 * mean + 5.0) / 11, store.getRanking().getScore(Scorers.BAYESIAN, 2), 0.001, "The prior should follow the new mean");
+    }
+
+    @Test void testRankingMatchesFreshBuild() {
+        Random random = new Random(7);
+        for (int i = 0; i < 2000; i++) {
+            int user = random.nextInt(40), movie = random.nextInt(60);
+            float rating = (1 + random.nextInt(10)) / 2.0f;
+            switch (random.nextInt(5)) {
+                case 0: store.getRatings().remove(user, movie); break;
+                case 1: store.getRatings().set(user, movie, rating, TIME); break;
+                case 2: // A batch that may repeat a pair, or hold pairs already rated
+                    int[] users = {user, random.nextInt(40), user};
+                    int[] movies = {movie, random.nextInt(60), movie};
+                    store.getRatings().addBatch(users, movies, new float[] {rating, 1.0f, 5.0f}, new long[3]);
+                    break;
+                default: store.getRatings().add(user, movie, rating, TIME); break;
+            }
+            if (i % 200 == 0) // Build the indexes part way through, so later changes are incremental
+                for (Scorer scorer : new Scorer[] {Scorers.MEAN, Scorers.WILSON, Scorers.BAYESIAN})
+                    store.getRanking().getTop(scorer, 5);
+        }
+
+        Ranking fresh = new Ranking(store.getBacking().getRatings(), store.getBacking().getMovies());
+        assertEquals(fresh.getGlobalMean(), store.getRanking().getGlobalMean(), 1e-9);
+        for (Scorer scorer : new Scorer[] {Scorers.MEAN, Scorers.WILSON})
+            assertArrayEquals(fresh.getTop(scorer, 60), store.getRanking().getTop(scorer, 60), "Incremental updates should give the same order as " + scorer);
+        for (int movie = 0; movie < 60; movie++)
+            assertEquals(fresh.getScore(Scorers.BAYESIAN, movie), store.getRanking().getScore(Scorers.BAYESIAN, movie), 0.01, "Bayesian scores can only be off by the allowed mean drift");
+    }
+
+    @Test void testRankingFollowsConcurrentBatches() throws InterruptedException {
+        store = new RankedStores(new ConcurrentStores(4));
+        Thread[] writers = new Thread[4];
+        for (int t = 0; t < writers.length; t++) {
+            int seed = t;
+            writers[t] = new Thread(() -> {
+                Random random = new Random(seed);
+                for (int i = 0; i < 500; i++) {
+                    int user = random.nextInt(30), movie = random.nextInt(40);
+                    float rating = (1 + random.nextInt(10)) / 2.0f;
+                    if (seed == 0 && i % 3 == 0) { // Sets and removes race the batches
+                        if (i % 2 == 0)
+                            store.getRatings().set(user, movie, rating, TIME);
+                        else
+                            store.getRatings().remove(user, movie);
+                        continue;
+                    }
+                    int[] users = {user, random.nextInt(30), user};
+                    int[] movies = {movie, random.nextInt(40), movie};
+                    store.getRatings().addBatch(users, movies, new float[] {rating, 1.0f, 5.0f}, new long[3]);
+                }
+            });
+            writers[t].start();
+        }
+        for (Thread writer : writers)
+            writer.join();
+
+        Ranking fresh = new Ranking(store.getBacking().getRatings(), store.getBacking().getMovies());
+        assertEquals(fresh.getGlobalMean(), store.getRanking().getGlobalMean(), 1e-9);
+        assertEquals(fresh.size(), store.getRanking().size());
+        assertArrayEquals(fresh.getTop(Scorers.MEAN, 40), store.getRanking().getTop(Scorers.MEAN, 40), "Every batch should reach the ranking once");
+    }
+
+    @Test void testRankingSnapshotHasOwnRanking() {
+        rate(1, 0, 3, 4.0f);
+        interfaces.AbstractStores snapshot = store.snapshot();
+        rate(2, 0, 3, 5.0f);
+
+        assertArrayEquals(new int[] {1}, ((RankedStores) snapshot).getRanking().getTop(Scorers.MEAN, 10));
+        assertArrayEquals(new int[] {2, 1}, store.getRanking().getTop(Scorers.MEAN, 10));
+    }
+
+    @Test void testTopAverageRatedStillByMean() {
+        rate(1, 0, 1, 5.0f);
+        rate(2, 0, 40, 4.5f);
+        rate(3, 0, 2, 4.5f);
+
+        assertArrayEquals(new int[] {1, 2, 3}, store.getRatings().getTopAverageRatedMovies(10), "Ties keep the order the movies are stored in");
+        assertArrayEquals(new int[] {1, 2}, store.getRatings().getTopAverageRatedMovies(2));
+    }
+}
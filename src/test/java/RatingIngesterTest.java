@@ -0,0 +1,183 @@
+import ingest.FileTailSource;
+import ingest.IngestMetrics;
+import ingest.RatingIngester;
+import ingest.RatingSource;
+import ingest.SocketSource;
+import ranking.RankedStores;
+import ranking.Scorers;
+import stores.*;
+
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RatingIngesterTest {
+    private static final LocalDateTime TIME = LocalDateTime.of(2024, 1, 1, 0, 0, 0);
+
+    private RankedStores stores;
+    private RatingIngester ingester;
+    private final ArrayList<int[]> notified = new ArrayList<>();
+
+    @TempDir Path dir;
+
+    @BeforeEach void setup() {
+        stores = new RankedStores(new ConcurrentStores());
+        ingester = new RatingIngester(stores.getRatings(), 100, 5);
+        ingester.addListener(movies -> {
+            synchronized (notified) {
+                notified.add(movies);
+            }
+        });
+        ingester.start();
+    }
+
+    @AfterEach void teardown() throws Exception {
+        ingester.stop();
+    }
+
+    private static String line(int user, int movie, float rating, long time) {
+        return user + ",0," + movie + "," + rating + "," + time;
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Timed out");
+            Thread.sleep(10);
+        }
+    }
+
+    @Test void testIngestAddsAndUpdates() throws Exception {
+        stores.getRatings().add(1, 10, 2.0f, TIME);
+
+        assertFalse(ingester.accept("userId,movieLensId,tmdbId,rating,timestamp"), "The header isn't a rating");
+        assertFalse(ingester.accept("1,0,10,lots,0"));
+        assertTrue(ingester.accept(line(1, 10, 4.0f, 1000))); // Replaces the stored rating
+        assertTrue(ingester.accept(line(2, 10, 3.0f, 1000)));
+        assertTrue(ingester.accept(line(2, 20, 1.0f, 1000)));
+        assertTrue(ingester.accept(line(2, 20, 5.0f, 2000))); // Read later, so it wins
+        assertTrue(ingester.awaitApplied(5000));
+
+        assertEquals(3.5f, stores.getRatings().getMovieAverageRating(10), 0.0001);
+        assertEquals(5.0f, stores.getRatings().getMovieAverageRating(20), 0.0001, "The last rating read for a pair wins");
+        assertEquals(1, stores.getRatings().getNumRatings(20));
+        assertArrayEquals(new int[] {20, 10}, stores.getRanking().getTop(Scorers.MEAN, 10), "The ranking follows ingested ratings");
+
+        IngestMetrics metrics = ingester.getMetrics();
+        assertEquals(6, metrics.getReceived());
+        assertEquals(2, metrics.getMalformed());
+        assertEquals(2, metrics.getAdded());
+        assertEquals(2, metrics.getUpdated());
+        assertEquals(0, metrics.getRefused());
+        assertEquals(0, metrics.getPending());
+        assertTrue(metrics.getBatches() >= 1);
+        assertTrue(metrics.getEventsPerSecond() > 0);
+        assertTrue(metrics.getEventTimeLagSeconds() > 0, "Epoch second 2000 was a long time ago");
+
+        synchronized (notified) {
+            ArrayList<Integer> movies = new ArrayList<>();
+            for (int[] batch : notified)
+                for (int movie : batch)
+                    if (!movies.contains(movie))
+                        movies.add(movie);
+            assertTrue(movies.contains(10) && movies.contains(20), "Listeners hear which movies changed");
+        }
+    }
+
+    @Test void testIngestTailsFile() throws Exception {
+        Path file = dir.resolve("ratings.csv");
+        Files.write(file, ("userId,movieLensId,tmdbId,rating,timestamp\n" + line(1, 10, 4.0f, 1000) + "\n").getBytes(StandardCharsets.UTF_8));
+        ingester.addSource(new FileTailSource(file, true, 10));
+        waitFor(() -> ingester.getMetrics().getReceived() == 2);
+        assertTrue(ingester.awaitApplied(5000));
+        assertEquals(1, stores.getRatings().getNumRatings(10));
+
+        Files.write(file, line(2, 10, 2.0f, 1000).getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        Thread.sleep(100);
+        assertEquals(2, ingester.getMetrics().getReceived(), "A line isn't read until its newline is written");
+
+        Files.write(file, "\r\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        waitFor(() -> ingester.getMetrics().getReceived() == 3);
+        assertTrue(ingester.awaitApplied(5000));
+        assertEquals(3.0f, stores.getRatings().getMovieAverageRating(10), 0.0001);
+
+        Files.write(file, (line(3, 30, 5.0f, 1000) + "\n").getBytes(StandardCharsets.UTF_8)); // Truncated and rewritten
+        waitFor(() -> stores.getRatings().getNumRatings(30) == 1);
+        assertEquals(1, ingester.getMetrics().getMalformed(), "Only the header");
+    }
+
+    @Test void testIngestFromSocket() throws Exception {
+        SocketSource source = new SocketSource(0);
+        ingester.addSource(source);
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), source.getPort())) {
+            OutputStream out = socket.getOutputStream();
+            StringBuilder lines = new StringBuilder();
+            for (int user = 0; user < 500; user++)
+                lines.append(line(user, user % 7, 1 + user % 5, 1000 + user)).append('\n');
+            out.write(lines.toString().getBytes(StandardCharsets.UTF_8));
+            out.flush();
+        }
+        waitFor(() -> ingester.getMetrics().getReceived() == 500);
+        assertTrue(ingester.awaitApplied(5000));
+
+        int total = 0;
+        for (int movie = 0; movie < 7; movie++)
+            total += stores.getRatings().getNumRatings(movie);
+        assertEquals(500, total);
+        assertTrue(ingester.getMetrics().getBatches() < 500, "Ratings should be applied in batches");
+    }
+
+    @Test void testStopAppliesEverythingAccepted() throws Exception {
+        AtomicInteger taken = new AtomicInteger();
+        RatingSource source = new RatingSource() {
+            private volatile boolean closed = false;
+
+            @Override
+            public void run(RatingIngester ingester) throws InterruptedException {
+                for (int user = 0; !closed || user % 50 != 0; user++) { // Keeps going a little after close
+                    if (ingester.accept(line(user, user % 7, 3.0f, 1000 + user)))
+                        taken.incrementAndGet();
+                }
+            }
+
+            @Override
+            public void close() {
+                closed = true;
+            }
+        };
+        ingester.addSource(source);
+        waitFor(() -> taken.get() > 1000);
+        ingester.stop();
+
+        assertTrue(ingester.awaitApplied(0), "Nothing accepted is left in the queue");
+        assertEquals(taken.get(), stores.getRatings().size());
+        assertEquals(taken.get(), ingester.getMetrics().getAdded());
+        assertFalse(ingester.accept(line(1, 1, 3.0f, 1000)), "Lines are refused once stopped");
+    }
+
+    @Test void testIngestSourceFor() throws Exception {
+        Path file = dir.resolve("ratings.csv");
+        Files.write(file, new byte[0]);
+        assertTrue(RatingIngester.sourceFor(file.toString()) instanceof FileTailSource);
+        assertNull(RatingIngester.sourceFor(dir.resolve("missing.csv").toString()));
+        assertNull(RatingIngester.sourceFor("tcp:port"));
+
+        SocketSource socket = (SocketSource) RatingIngester.sourceFor("tcp:0");
+        assertTrue(socket.getPort() > 0);
+        socket.close();
+    }
+}
@@ -0,0 +1,126 @@
+import utils.RatingsReader;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RatingsReaderTest {
+    private static final String HEADER = "userId,movieLensId,tmdbId,rating,timestamp";
+
+    @TempDir Path dir;
+
+    private Path write(String content) throws Exception {
+        Path file = dir.resolve("ratings.csv");
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    @Test void testReadsColumns() throws Exception {
+        Path file = write(HEADER + "\r\n12709,3968,1636,3.5,1446931402\r\n\r\n-3,0,7,5,0\n4,1,8,0.25,99999999999");
+        RatingsReader.Columns columns = RatingsReader.read(file, 1);
+        assertEquals(3, columns.size);
+        assertArrayEquals(new int[] {12709, -3, 4}, columns.userIds);
+        assertArrayEquals(new int[] {1636, 7, 8}, columns.movieIds);
+        assertArrayEquals(new float[] {3.5f, 5.0f, 0.25f}, columns.ratings);
+        assertArrayEquals(new long[] {1446931402L, 0, 99999999999L}, columns.timestamps);
+
+        assertEquals(0, RatingsReader.read(write(HEADER + "\n"), 1).size);
+        assertEquals(0, RatingsReader.read(write(HEADER), 1).size);
+    }
+
+    @Test void testRatingsMatchParseFloat() throws Exception {
+        String[] values = {"0.5", "1", "2.0", "3.3", "4.75", "0.1", "4.999999", "3.14159"};
+        StringBuilder content = new StringBuilder(HEADER).append('\n');
+        for (String value : values)
+            content.append("1,1,1,").append(value).append(",1\n");
+        RatingsReader.Columns columns = RatingsReader.read(write(content.toString()), 1);
+        for (int i = 0; i < values.length; i++)
+            assertEquals(Float.parseFloat(values[i]), columns.ratings[i], values[i]);
+    }
+
+    @Test void testRejectsMalformedLines() throws Exception {
+        String[] bad = {"1,2,3,4", "1,2,3,4,5,6", "1,2,x,4,5", "1,2,3,,5", "1,2,3,.,5", " 1,2,3,4,5", "1,2,3,4,5 ",
+            "1,2,3,\"4\",5", "99999999999,2,3,4,5", "1,2,3,1e3,5", "1,2,3,4.1234567,5"};
+        for (String line : bad) {
+            Path file = write(HEADER + "\n1,2,3,4,5\n" + line + "\n");
+            RatingsReader.FormatException e = assertThrows(RatingsReader.FormatException.class, () -> RatingsReader.read(file, 1), line);
+            assertEquals(3, e.line, line);
+        }
+        assertThrows(RatingsReader.FormatException.class, () -> RatingsReader.read(write("userId,tmdbId,rating\n1,2,3\n"), 1));
+    }
+
+    @Test void testChunksInParallel() throws Exception {
+        // Several MB, so it is split into chunks on line boundaries
+        StringBuilder content = new StringBuilder(HEADER).append('\n');
+        int rows = 200000;
+        for (int i = 0; i < rows; i++)
+            content.append(i).append(",0,").append(i % 1000).append(',').append(i % 10 / 2.0).append(',').append(1000000000L + i).append('\n');
+        Path file = write(content.toString());
+        assertTrue(Files.size(file) > 4 * (1 << 20));
+
+        RatingsReader.Columns one = RatingsReader.read(file, 1);
+        RatingsReader.Columns four = RatingsReader.read(file, 4);
+        assertEquals(rows, one.size);
+        assertEquals(rows, four.size);
+        assertArrayEquals(one.userIds, four.userIds);
+        assertArrayEquals(one.movieIds, four.movieIds);
+        assertArrayEquals(one.ratings, four.ratings);
+        assertArrayEquals(one.timestamps, four.timestamps);
+        for (int i = 0; i < rows; i += 997) {
+            assertEquals(i, four.userIds[i]);
+            assertEquals(1000000000L + i, four.timestamps[i]);
+        }
+
+        // Line numbers count across chunks
+        content.append("1,2,3,4\n");
+        Path bad = write(content.toString());
+        RatingsReader.FormatException e = assertThrows(RatingsReader.FormatException.class, () -> RatingsReader.read(bad, 4));
+        assertEquals(rows + 2, e.line);
+    }
+
+    @Test void testReportsProgressWhileReading() throws Exception {
+        StringBuilder content = new StringBuilder(HEADER).append('\n');
+        int rows = 200000;
+        for (int i = 0; i < rows; i++)
+            content.append(i).append(",0,").append(i % 1000).append(",4.5,").append(1000000000L + i).append('\n');
+        Path file = write(content.toString());
+
+        ArrayList<long[]> reports = new ArrayList<>();
+        Thread caller = Thread.currentThread();
+        RatingsReader.Columns columns = RatingsReader.read(file, 4, (read, bytes) -> {
+            assertSame(caller, Thread.currentThread(), "Reports come on the calling thread");
+            reports.add(new long[] {read, bytes});
+        });
+        assertEquals(rows, columns.size);
+        assertTrue(reports.size() > 1, "Reported from inside the parse, not just at the end");
+        assertTrue(reports.get(0)[0] < rows);
+        for (int i = 1; i < reports.size(); i++) {
+            assertTrue(reports.get(i)[0] >= reports.get(i - 1)[0]);
+            assertTrue(reports.get(i)[1] >= reports.get(i - 1)[1]);
+        }
+        long[] last = reports.get(reports.size() - 1);
+        assertEquals(rows, last[0]);
+        assertEquals(Files.size(file), last[1]);
+    }
+
+    @Test void testMatchesTheDataFile() throws Exception {
+        Path path = Paths.get("data/ratings.csv");
+        List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+        RatingsReader.Columns columns = RatingsReader.read(path);
+        assertEquals(lines.size() - 1, columns.size);
+        for (int i = 1; i < lines.size(); i += 101) {
+            String[] fields = lines.get(i).split(",");
+            assertEquals(Integer.parseInt(fields[0]), columns.userIds[i - 1]);
+            assertEquals(Integer.parseInt(fields[2]), columns.movieIds[i - 1]);
+            assertEquals(Float.parseFloat(fields[3]), columns.ratings[i - 1]);
+            assertEquals(Long.parseLong(fields[4]), columns.timestamps[i - 1]);
+        }
+    }
+}
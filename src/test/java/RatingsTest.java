@@ -2,6 +2,7 @@ import stores.*;
 
 import java.time.LocalDateTime;
 import java.time.LocalDate;
+import java.time.YearMonth;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
@@ -746,9 +747,333 @@ public class RatingsTest {
         assertEquals(2, store.getRatings().size(), "An element was added, then another element was added via the set function. Therefore, there should be 2 elements in the store");
     }
 
+    @Test void testRatingsGetMovieRatingsPaged() {
+        store.getRatings().add(1, 2, 3.0f, LocalDateTime.of(2024, 1, 1, 1, 0, 0));
+        store.getRatings().add(3, 2, 4.0f, LocalDateTime.of(2024, 2, 2, 2, 0, 0));
+        store.getRatings().add(5, 2, 5.0f, LocalDateTime.of(2024, 3, 3, 3, 0, 0));
+
+        assertArrayEquals(new float[] {3.0f, 4.0f}, store.getRatings().getMovieRatings(2, 0, 2), "The first page should hold the first two ratings added");
+        assertArrayEquals(new float[] {5.0f}, store.getRatings().getMovieRatings(2, 2, 2), "The second page should hold only the last rating");
+        assertArrayEquals(new float[0], store.getRatings().getMovieRatings(4, 0, 2), "A movie with no ratings should give an empty page");
+    }
+
+    @Test void testRatingsGetUserRatingsPaged() {
+        store.getRatings().add(1, 2, 3.0f, LocalDateTime.of(2024, 1, 1, 1, 0, 0));
+        store.getRatings().add(1, 4, 4.0f, LocalDateTime.of(2024, 2, 2, 2, 0, 0));
+
+        assertArrayEquals(new float[] {4.0f}, store.getRatings().getUserRatings(1, 1, 10), "The page should skip the first rating");
+        assertArrayEquals(new float[0], store.getRatings().getUserRatings(1, 0, 0), "A page with no room should be empty");
+    }
+
     @Test void testRatingsSizeRemove() {
         store.getRatings().remove(1, 2);
 
         assertEquals(0, store.getRatings().size(), "Removing an element from an empty store will result in an empty store. Therefore, the size should be 0");
     }
+
+    @Test void testRatingsAddBatchSkipsDuplicates() {
+        store.getRatings().add(1, 2, 3.0f, LocalDateTime.of(2024, 1, 1, 1, 0, 0));
+        int added = store.getRatings().addBatch(
+            new int[] {1, 2, 2, 3},
+            new int[] {2, 2, 2, 4},
+            new float[] {5.0f, 4.0f, 1.0f, 2.0f},
+            new long[] {0L, 0L, 0L, 86400L});
+
+        assertEquals(2, added, "The rating already stored and the repeat within the batch should both be skipped");
+        assertArrayEquals(new float[] {3.0f, 4.0f}, store.getRatings().getMovieRatings(2), "The first rating of each pair should win, as with add");
+        assertEquals(3, store.getRatings().size());
+        assertFalse(store.getRatings().add(3, 4, 1.0f, LocalDateTime.of(2024, 1, 1, 1, 0, 0)), "Batched ratings should block later duplicate adds");
+    }
+
+    @Test void testRatingsAddBatchMarksAdded() {
+        for (interfaces.AbstractStores stores : new interfaces.AbstractStores[] {store, new ConcurrentStores(4)}) {
+            stores.getRatings().add(1, 2, 3.0f, LocalDateTime.of(2024, 1, 1, 1, 0, 0));
+            boolean[] added = {true, true, true, true, false};
+            int count = stores.getRatings().addBatch(
+                new int[] {1, 2, 2, 3, 4},
+                new int[] {2, 2, 2, 4, 9},
+                new float[] {5.0f, 4.0f, 1.0f, 2.0f, 3.0f},
+                new long[5], added);
+
+            assertEquals(3, count);
+            assertArrayEquals(new boolean[] {false, true, false, true, true}, added, "Only the records added are marked, in the batch's order");
+            assertEquals(0, stores.getRatings().addBatch(new int[] {5}, new int[] {2}, new float[] {1.0f}, new long[1], new boolean[2]), "A flag array of the wrong length should add nothing");
+        }
+    }
+
+    @Test void testRatingsAddBatchMismatchedLengths() {
+        assertEquals(0, store.getRatings().addBatch(new int[] {1, 2}, new int[] {2}, new float[] {1.0f}, new long[] {0L}), "Arrays of different lengths should add nothing");
+        assertEquals(0, store.getRatings().size());
+    }
+
+    @Test void testRatingsExportMatrix() {
+        store.getRatings().add(1, 2, 3.0f, LocalDateTime.of(2024, 1, 1, 1, 0, 0));
+        store.getRatings().add(5, 2, 4.0f, LocalDateTime.of(2024, 1, 1, 1, 0, 0));
+        store.getRatings().add(1, 7, 2.0f, LocalDateTime.of(2024, 1, 1, 1, 0, 0));
+        store.getRatings().remove(1, 7);
+
+        assertArrayEquals(new int[] {2}, store.getRatings().getRatedMovies(), "A movie whose only rating was removed should not be listed");
+        assertArrayEquals(new int[] {1, 5}, store.getRatings().getMovieRaters(2), "Raters should line up with getMovieRatings");
+        assertArrayEquals(new float[] {3.0f, 4.0f}, store.getRatings().getMovieRatings(2));
+        assertArrayEquals(new int[0], store.getRatings().getMovieRaters(3));
+        assertArrayEquals(new int[] {2}, store.getRatings().getUserMovies(1), "Movies should line up with getUserRatings");
+        assertArrayEquals(new float[] {3.0f}, store.getRatings().getUserRatings(1));
+        assertArrayEquals(new int[0], store.getRatings().getUserMovies(9));
+    }
+
+    @Test void testRatingsPairLookup() {
+        for (int user = 1; user <= 5; user++)
+            store.getRatings().add(user, 2, user, LocalDateTime.of(2024, 1, 1, 1, 0, 0));
+        store.getRatings().add(1, 3, 0.5f, LocalDateTime.of(2024, 1, 1, 1, 0, 0));
+        assertEquals(4.0f, store.getRatings().getRating(4, 2), "Found through the user's shorter list");
+        assertEquals(0.5f, store.getRatings().getRating(1, 3), "Found through the movie's shorter list");
+        assertEquals(-1, store.getRatings().getRating(2, 3));
+        assertEquals(-1, store.getRatings().getRating(9, 2));
+        store.getRatings().set(4, 2, 1.5f, LocalDateTime.of(2024, 1, 2, 1, 0, 0));
+        assertEquals(1.5f, store.getRatings().getRating(4, 2));
+        store.getRatings().remove(4, 2);
+        assertEquals(-1, store.getRatings().getRating(4, 2));
+    }
+
+    @Test void testRatingsBulkLookups() {
+        store.getRatings().add(1, 2, 3.0f, LocalDateTime.of(2024, 1, 1, 1, 0, 0));
+        store.getRatings().add(5, 2, 4.0f, LocalDateTime.of(2024, 1, 1, 1, 0, 0));
+        store.getRatings().add(1, 3, 5.0f, LocalDateTime.of(2024, 1, 1, 1, 0, 0));
+
+        int[] movieIDs = {3, 9, 2};
+        assertArrayEquals(new float[] {5.0f, -1.0f, 3.5f}, store.getRatings().getMovieAverageRatings(movieIDs), "Averages should line up with the IDs");
+        assertArrayEquals(new int[] {1, -1, 2}, store.getRatings().getNumRatings(movieIDs), "Counts should line up with the IDs");
+        for (int i = 0; i < movieIDs.length; i++) {
+            assertEquals(store.getRatings().getMovieAverageRating(movieIDs[i]), store.getRatings().getMovieAverageRatings(movieIDs)[i]);
+            assertEquals(store.getRatings().getNumRatings(movieIDs[i]), store.getRatings().getNumRatings(movieIDs)[i]);
+        }
+    }
+
+    @Test void testRatingsTrendingWindows() {
+        LocalDateTime now = LocalDateTime.of(2024, 3, 10, 12, 0, 0);
+        store.getRatings().add(1, 10, 4.0f, now.minusDays(1)); // Movie 10: 2 this week
+        store.getRatings().add(2, 10, 4.0f, now.minusDays(3));
+        store.getRatings().add(1, 20, 5.0f, now.minusDays(2)); // Movie 20: 1 this week, 3 this month
+        store.getRatings().add(2, 20, 5.0f, now.minusDays(20));
+        store.getRatings().add(3, 20, 5.0f, now.minusDays(25));
+        store.getRatings().add(1, 30, 3.0f, now.minusDays(200)); // Movie 30: only this year
+        store.getRatings().add(2, 30, 3.0f, now.minusDays(300));
+        store.getRatings().add(3, 30, 3.0f, now.minusDays(340));
+        store.getRatings().add(4, 30, 3.0f, now.minusDays(360));
+        store.getRatings().add(5, 40, 5.0f, now.plusDays(1)); // After the reference time
+
+        assertArrayEquals(new int[] {10, 20}, store.getRatings().getTrendingMovies(now, 7, 10));
+        assertArrayEquals(new int[] {20, 10}, store.getRatings().getTrendingMovies(now, 30, 10));
+        assertArrayEquals(new int[] {30, 20, 10}, store.getRatings().getTrendingMovies(now, 365, 10));
+        assertArrayEquals(new int[] {30}, store.getRatings().getTrendingMovies(now, 365, 1));
+        assertArrayEquals(new int[0], store.getRatings().getTrendingMovies(now.minusYears(5), 365, 10), "Nothing was rated back then");
+        assertArrayEquals(new int[0], store.getRatings().getTrendingMovies(now, 0, 10));
+        assertArrayEquals(new int[0], store.getRatings().getTrendingMovies(null, 7, 10));
+    }
+
+    @Test void testRatingsTrendingWindowEdges() {
+        LocalDateTime now = LocalDateTime.of(2024, 3, 1, 0, 0, 0);
+        store.getRatings().add(1, 10, 4.0f, now); // Exactly at the reference time: in
+        store.getRatings().add(1, 20, 4.0f, now.minusDays(7)); // Exactly a week before: out
+        store.getRatings().add(2, 20, 3.0f, now.minusDays(7).plusSeconds(1));
+        store.getRatings().add(1, 30, 2.0f, now.minusDays(1));
+        store.getRatings().add(2, 30, 2.0f, now.minusDays(1));
+
+        assertArrayEquals(new int[] {30, 10, 20}, store.getRatings().getTrendingMovies(now, 7, 10), "Movie 20 only has one rating inside the window, and ties go to the higher average");
+    }
+
+    @Test void testRatingsTrendingFollowsChanges() {
+        LocalDateTime now = LocalDateTime.of(2024, 3, 10, 12, 0, 0);
+        store.getRatings().add(1, 10, 4.0f, now.minusDays(1));
+        store.getRatings().add(2, 10, 4.0f, now.minusDays(1));
+        store.getRatings().add(1, 20, 4.0f, now.minusDays(1));
+        assertArrayEquals(new int[] {10, 20}, store.getRatings().getTrendingMovies(now, 7, 10));
+
+        store.getRatings().remove(2, 10);
+        store.getRatings().set(1, 10, 3.0f, now.minusYears(1)); // Moved out of the window
+        assertArrayEquals(new int[] {20}, store.getRatings().getTrendingMovies(now, 7, 10));
+        assertArrayEquals(new int[] {20, 10}, store.getRatings().getTrendingMovies(now, 400, 10));
+    }
+
+    @Test void testRatingsMonthlyCounts() {
+        store.getRatings().add(1, 10, 4.0f, LocalDateTime.of(2023, 12, 31, 23, 59, 59));
+        store.getRatings().add(2, 10, 4.0f, LocalDateTime.of(2024, 1, 1, 0, 0, 0));
+        store.getRatings().add(3, 10, 4.0f, LocalDateTime.of(2024, 1, 15, 0, 0, 0));
+        store.getRatings().add(4, 10, 4.0f, LocalDateTime.of(2024, 3, 2, 0, 0, 0));
+        store.getRatings().add(1, 20, 4.0f, LocalDateTime.of(2024, 2, 2, 0, 0, 0));
+
+        assertArrayEquals(new int[] {1, 2, 0, 1}, store.getRatings().getMonthlyRatingCounts(10, YearMonth.of(2023, 12), YearMonth.of(2024, 3)));
+        assertArrayEquals(new int[] {2}, store.getRatings().getMonthlyRatingCounts(10, YearMonth.of(2024, 1), YearMonth.of(2024, 1)));
+        assertArrayEquals(new int[] {0, 0}, store.getRatings().getMonthlyRatingCounts(99, YearMonth.of(2024, 1), YearMonth.of(2024, 2)), "An unrated movie has no ratings in any month");
+        assertArrayEquals(new int[0], store.getRatings().getMonthlyRatingCounts(10, YearMonth.of(2024, 3), YearMonth.of(2024, 1)), "The range is backwards");
+    }
+
+    @Test void testRatingsMonthlyCountsAfterManyRemoves() {
+        // Everything in two months, so each bucket's ratings move about as others are taken out
+        java.util.Random random = new java.util.Random(38);
+        LocalDateTime[] months = {LocalDateTime.of(2024, 1, 10, 0, 0, 0), LocalDateTime.of(2024, 2, 10, 0, 0, 0)};
+        int[][] monthOf = new int[30][10]; // Per (user, movie): 1 + the month index, 0 if unrated
+        for (int i = 0; i < 3000; i++) {
+            int user = random.nextInt(30), movie = random.nextInt(10), month = random.nextInt(2);
+            switch (random.nextInt(3)) {
+                case 0:
+                    if (store.getRatings().remove(user, movie))
+                        monthOf[user][movie] = 0;
+                    break;
+                case 1:
+                    store.getRatings().set(user, movie, 3.0f, months[month]);
+                    monthOf[user][movie] = 1 + month;
+                    break;
+                default:
+                    if (store.getRatings().add(user, movie, 3.0f, months[month]))
+                        monthOf[user][movie] = 1 + month;
+                    break;
+            }
+        }
+        for (int movie = 0; movie < 10; movie++) {
+            int[] expected = new int[2];
+            for (int user = 0; user < 30; user++) {
+                if (monthOf[user][movie] > 0)
+                    expected[monthOf[user][movie] - 1]++;
+            }
+            assertArrayEquals(expected, store.getRatings().getMonthlyRatingCounts(movie, YearMonth.of(2024, 1), YearMonth.of(2024, 2)));
+        }
+
+        // A window cutting through both months reads the bucket arrays rating by rating
+        Integer[] order = new Integer[10];
+        int[] totals = new int[10];
+        for (int movie = 0; movie < 10; movie++) {
+            order[movie] = movie;
+            for (int user = 0; user < 30; user++)
+                totals[movie] += monthOf[user][movie] > 0 ? 1 : 0;
+        }
+        java.util.Arrays.sort(order, (a, b) -> totals[a] != totals[b] ? totals[b] - totals[a] : a - b);
+        int[] expectedTop = java.util.Arrays.stream(order).filter(m -> totals[m] > 0).mapToInt(m -> m).toArray();
+        assertArrayEquals(expectedTop, store.getRatings().getTrendingMovies(LocalDateTime.of(2024, 2, 20, 0, 0, 0), 45, 10));
+    }
+
+    @Test void testRatingsUserDrift() {
+        store.getRatings().add(1, 10, 2.0f, LocalDateTime.of(2020, 1, 1, 0, 0, 0));
+        store.getRatings().add(1, 20, 3.0f, LocalDateTime.of(2021, 1, 1, 0, 0, 0));
+        store.getRatings().add(1, 30, 4.0f, LocalDateTime.of(2022, 1, 1, 0, 0, 0));
+        store.getRatings().add(2, 10, 5.0f, LocalDateTime.of(2020, 1, 1, 0, 0, 0));
+        store.getRatings().add(2, 20, 3.0f, LocalDateTime.of(2024, 1, 1, 0, 0, 0));
+
+        assertEquals(1.0f, store.getRatings().getUserRatingDrift(1), 0.01f, "User 1 rates a star higher every year");
+        assertEquals(-0.5f, store.getRatings().getUserRatingDrift(2), 0.01f, "User 2 drops two stars over four years");
+        assertEquals(0.0f, store.getRatings().getUserRatingDrift(9), "An unknown user has no drift");
+
+        store.getRatings().add(3, 10, 5.0f, LocalDateTime.of(2020, 1, 1, 0, 0, 0));
+        assertEquals(0.0f, store.getRatings().getUserRatingDrift(3), "One rating is not enough to tell");
+    }
+
+    @Test void testRatingsLatestTimestamp() {
+        assertNull(store.getRatings().getLatestTimestamp(), "An empty store has no latest rating");
+        store.getRatings().add(1, 10, 4.0f, LocalDateTime.of(2020, 5, 1, 0, 0, 0));
+        store.getRatings().add(1, 20, 4.0f, LocalDateTime.of(2021, 5, 1, 10, 30, 0));
+        assertEquals(LocalDateTime.of(2021, 5, 1, 10, 30, 0), store.getRatings().getLatestTimestamp());
+        store.getRatings().remove(1, 20);
+        assertEquals(LocalDateTime.of(2020, 5, 1, 0, 0, 0), store.getRatings().getLatestTimestamp());
+    }
+
+    @Test void testRatingsTimeQueriesOnSnapshot() {
+        LocalDateTime now = LocalDateTime.of(2024, 3, 10, 12, 0, 0);
+        store.getRatings().add(1, 10, 4.0f, now.minusDays(1));
+        interfaces.AbstractStores snapshot = store.snapshot();
+        store.getRatings().add(1, 20, 4.0f, now.minusDays(1));
+        store.getRatings().add(2, 20, 4.0f, now.minusDays(1));
+
+        assertArrayEquals(new int[] {10}, snapshot.getRatings().getTrendingMovies(now, 7, 10), "Later ratings should not show up in the snapshot");
+        assertArrayEquals(new int[] {20, 10}, store.getRatings().getTrendingMovies(now, 7, 10));
+    }
+
+    @Test void testRatingsSnapshotKeepsItsRatings() {
+        LocalDateTime march = LocalDateTime.of(2024, 3, 10, 12, 0, 0);
+        store.getRatings().add(1, 10, 4.0f, march);
+        store.getRatings().add(2, 10, 3.0f, march);
+        store.getRatings().add(1, 20, 5.0f, march);
+        interfaces.AbstractStores snapshot = store.snapshot();
+
+        store.getRatings().set(1, 10, 1.0f, march);
+        store.getRatings().remove(2, 10);
+        store.getRatings().add(3, 20, 2.0f, march.plusMonths(2));
+        interfaces.AbstractStores second = store.snapshot();
+        store.getRatings().add(4, 20, 2.0f, march.plusMonths(2));
+
+        assertArrayEquals(new float[] {4.0f, 3.0f}, snapshot.getRatings().getMovieRatings(10), "Changes after the snapshot should not show up in it");
+        assertArrayEquals(new float[] {4.0f, 5.0f}, snapshot.getRatings().getUserRatings(1));
+        assertArrayEquals(new int[] {0, 0, 0, 0, 0, 1, 0, 1, 0, 0}, snapshot.getRatings().getMovieRatingHistogram(10));
+        assertEquals(3, snapshot.getRatings().size());
+        assertArrayEquals(new int[] {1, 0, 0}, snapshot.getRatings().getMonthlyRatingCounts(20, YearMonth.of(2024, 3), YearMonth.of(2024, 5)));
+        assertEquals(3.0f, snapshot.getRatings().getRatingPercentile(0), "The snapshot keeps its own distribution");
+
+        assertArrayEquals(new int[] {1, 0, 1}, second.getRatings().getMonthlyRatingCounts(20, YearMonth.of(2024, 3), YearMonth.of(2024, 5)), "Each snapshot sees the ratings up to when it was taken");
+        assertEquals(3, second.getRatings().size());
+
+        assertArrayEquals(new float[] {1.0f}, store.getRatings().getMovieRatings(10), "The live store should keep its own changes");
+        assertArrayEquals(new float[] {1.0f, 5.0f}, store.getRatings().getUserRatings(1));
+        assertArrayEquals(new int[] {0, 1, 0, 0, 0, 0, 0, 0, 0, 0}, store.getRatings().getMovieRatingHistogram(10));
+        assertArrayEquals(new int[] {1, 0, 2}, store.getRatings().getMonthlyRatingCounts(20, YearMonth.of(2024, 3), YearMonth.of(2024, 5)));
+        assertEquals(4, store.getRatings().size());
+    }
+
+    @Test void testRatingsHistograms() {
+        LocalDateTime time = LocalDateTime.of(2024, 1, 1, 1, 0, 0);
+        store.getRatings().add(1, 10, 0.5f, time);
+        store.getRatings().add(2, 10, 4.0f, time);
+        store.getRatings().add(3, 10, 4.0f, time);
+        store.getRatings().add(1, 20, 5.0f, time);
+
+        assertArrayEquals(new int[] {1, 0, 0, 0, 0, 0, 0, 2, 0, 0}, store.getRatings().getMovieRatingHistogram(10));
+        assertArrayEquals(new int[] {1, 0, 0, 0, 0, 0, 0, 0, 0, 1}, store.getRatings().getUserRatingHistogram(1));
+        assertArrayEquals(new int[10], store.getRatings().getMovieRatingHistogram(99), "An unrated movie has an empty histogram");
+
+        store.getRatings().set(2, 10, 2.5f, time);
+        store.getRatings().remove(3, 10);
+        assertArrayEquals(new int[] {1, 0, 0, 0, 1, 0, 0, 0, 0, 0}, store.getRatings().getMovieRatingHistogram(10), "Changes should move ratings between buckets");
+
+        int[] copy = store.getRatings().getMovieRatingHistogram(10);
+        copy[0] = 100;
+        assertEquals(1, store.getRatings().getMovieRatingHistogram(10)[0], "Changing a returned histogram should not change the store");
+    }
+
+    @Test void testRatingsPercentiles() {
+        LocalDateTime time = LocalDateTime.of(2024, 1, 1, 1, 0, 0);
+        float[] values = {1.0f, 2.0f, 3.0f, 3.5f, 5.0f};
+        for (int user = 0; user < values.length; user++)
+            store.getRatings().add(user, 10, values[user], time);
+
+        assertEquals(3.0f, store.getRatings().getMovieMedianRating(10));
+        assertEquals(1.0f, store.getRatings().getMovieRatingPercentile(10, 0), "The 0th percentile is the lowest rating");
+        assertEquals(1.0f, store.getRatings().getMovieRatingPercentile(10, 20));
+        assertEquals(2.0f, store.getRatings().getMovieRatingPercentile(10, 21));
+        assertEquals(5.0f, store.getRatings().getMovieRatingPercentile(10, 100));
+        assertEquals(3.5f, store.getRatings().getUserRatingPercentile(3, 50));
+        assertEquals(-1.0f, store.getRatings().getMovieMedianRating(99), "An unrated movie has no median");
+        assertEquals(-1.0f, store.getRatings().getMovieRatingPercentile(10, 101));
+        assertEquals(-1.0f, store.getRatings().getUserRatingPercentile(99, 50));
+
+        store.getRatings().remove(0, 10);
+        store.getRatings().remove(1, 10);
+        assertEquals(3.5f, store.getRatings().getMovieMedianRating(10), "The median should follow removals");
+    }
+
+    @Test void testRatingsGlobalPercentileIsExact() {
+        LocalDateTime time = LocalDateTime.of(2024, 1, 1, 1, 0, 0);
+        assertEquals(-1.0f, store.getRatings().getRatingPercentile(50), "An empty store has no percentiles");
+
+        store.getRatings().add(1, 10, 3.7f, time); // Not a half star
+        store.getRatings().add(2, 10, 1.0f, time);
+        store.getRatings().add(3, 20, 4.2f, time);
+        store.getRatings().add(4, 20, 3.7f, time);
+
+        assertEquals(3.7f, store.getRatings().getRatingPercentile(50), "Global percentiles keep the exact values");
+        assertEquals(1.0f, store.getRatings().getRatingPercentile(0));
+        assertEquals(4.2f, store.getRatings().getRatingPercentile(100));
+        assertEquals(3.5f, store.getRatings().getMovieRatingPercentile(10, 100), "Per-movie percentiles are rounded to half stars");
+
+        store.getRatings().set(3, 20, 0.5f, time);
+        assertEquals(3.7f, store.getRatings().getRatingPercentile(100));
+        assertEquals(1.0f, store.getRatings().getRatingPercentile(50));
+    }
 }
@@ -0,0 +1,86 @@
+import interfaces.IRatings;
+import recommend.ItemNeighbours;
+import recommend.ItemSimilarity;
+import recommend.Recommender;
+import stores.*;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RecommenderTest {
+    private static final LocalDateTime TIME = LocalDateTime.of(2024, 1, 1, 1, 0, 0);
+
+    private IRatings ratings;
+
+    @BeforeEach void setup() {
+        ratings = new Stores().getRatings();
+        // Movies 1 and 2 are always rated alike, movie 3 the opposite way
+        rate(1, 5, 5, 1);
+        rate(2, 4, 4, 2);
+        rate(3, 1, 1, 5);
+        ratings.add(1, 4, 5.0f, TIME); // Movie 4 only shares one rater with anything
+    }
+
+    private void rate(int user, float movie1, float movie2, float movie3) {
+        ratings.add(user, 1, movie1, TIME);
+        ratings.add(user, 2, movie2, TIME);
+        ratings.add(user, 3, movie3, TIME);
+    }
+
+    @Test void testRecommenderSimilarMoviesFound() {
+        ItemNeighbours table = ItemSimilarity.compute(ratings, 10, 2);
+
+        assertArrayEquals(new int[] {2}, table.getNeighbours(1), "Movie 2 is rated exactly like movie 1");
+        assertEquals(1.0f, table.getScores(1)[0], 0.0001f, "Identical adjusted ratings should have a similarity of 1");
+        assertArrayEquals(new int[] {1}, table.getNeighbours(2));
+    }
+
+    @Test void testRecommenderDissimilarAndSparseExcluded() {
+        ItemNeighbours table = ItemSimilarity.compute(ratings, 10, 2);
+
+        assertArrayEquals(new int[0], table.getNeighbours(3), "Movies rated the opposite way should not be recommended");
+        assertArrayEquals(new int[0], table.getNeighbours(4), "Movies with too few common raters should not be recommended");
+        assertArrayEquals(new int[0], table.getNeighbours(99), "An unknown movie has no neighbours");
+    }
+
+    @Test void testRecommenderParallelMatchesSequential() {
+        IRatings big = new Stores().getRatings();
+        for (int user = 0; user < 50; user++) {
+            for (int movie = 0; movie < 200; movie += 1 + (user % 5))
+                big.add(user, movie, (user * 31 + movie * 17) % 10 / 2.0f, TIME);
+        }
+
+        ItemNeighbours sequential = ItemSimilarity.compute(big, 5, 2, new ForkJoinPool(1));
+        ItemNeighbours parallel = ItemSimilarity.compute(big, 5, 2, new ForkJoinPool(4));
+        for (int movie = 0; movie < 200; movie++)
+            assertArrayEquals(sequential.getNeighbours(movie), parallel.getNeighbours(movie), "Splitting the work should not change the result");
+        assertEquals(5, parallel.getNeighbours(0).length, "Only the top 5 neighbours should be kept");
+    }
+
+    @Test void testRecommenderRefreshesAfterChanges() throws InterruptedException {
+        Stores stores = new Stores();
+        for (int user = 1; user <= 3; user++) {
+            stores.getRatings().add(user, 1, 5.0f, TIME);
+            stores.getRatings().add(user, 2, 1.0f, TIME);
+        }
+        Recommender recommender = Recommender.forStores(stores);
+        CountDownLatch ready = new CountDownLatch(1);
+        recommender.whenReady(ready::countDown);
+        assertTrue(ready.await(30, TimeUnit.SECONDS), "Waiting screens should be told once the model is ready");
+        assertArrayEquals(new int[0], recommender.getModel().getNeighbours(3));
+
+        for (int user = 1; user <= 3; user++)
+            stores.getRatings().add(user, 3, 5.0f, TIME);
+        Recommender.ratingsChanged(stores);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(Recommender.REFRESH_DELAY_SECONDS + 30);
+        while (recommender.getModel().getNeighbours(3).length == 0 && System.nanoTime() < deadline)
+            Thread.sleep(100);
+        assertArrayEquals(new int[] {1}, recommender.getModel().getNeighbours(3), "The model should be computed again with the new ratings");
+    }
+}
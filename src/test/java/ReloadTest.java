@@ -0,0 +1,143 @@
+import stores.*;
+import utils.LoadData;
+import utils.LoadData.DataLoadException;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReloadTest {
+    private static final String MOVIES_HEADER = "adult,belongs_to_collection,budget,genres,homepage,tmdb_id,imdb_id,original_language,original_title,overview,popularity,poster_path,production_companies,production_countries,release_date,revenue,runtime,spoken_languages,status,tagline,title,video,vote_average,vote_count";
+
+    @TempDir Path dir;
+    private Stores stores;
+    private LoadData loading;
+
+    private static String movie(int id, String title) {
+        return "False,,0,\"[{'id': 18, 'name': 'Drama'}]\",," + id + ",tt" + id + ",en," + title + ",Overview,1.5,/p.jpg,"
+            + "\"[{'name': 'Studio', 'id': 3}]\",\"[{'iso_3166_1': 'US', 'name': 'United States'}]\",2000-01-01,0,90.0,"
+            + "\"[{'iso_639_1': 'en', 'name': 'English'}]\",Released,," + title + ",False,7.0,10";
+    }
+
+    private static String credits(int id, String actor) {
+        return "\"[{'cast_id': 1, 'character': 'Lead', 'credit_id': 'c" + id + "', 'gender': 1, 'id': 100, 'name': '" + actor
+            + "', 'order': 0, 'profile_path': ''}]\",[]," + id;
+    }
+
+    private static String keywords(int id, String keyword) {
+        return id + ",\"[{'id': 5, 'name': '" + keyword + "'}]\"";
+    }
+
+    private void write(String file, String header, String... lines) throws Exception {
+        Files.write(dir.resolve(file), (header + "\n" + String.join("\n", lines) + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private LoadData.ReloadResult reload() throws DataLoadException {
+        return loading.reload(stores, dir.resolve("credits.csv").toString(), dir.resolve("keywords.csv").toString(),
+            dir.resolve("movies.csv").toString(), dir.resolve("ratings.csv").toString());
+    }
+
+    @BeforeEach void setup() throws Exception {
+        write("movies.csv", MOVIES_HEADER, movie(1, "One"), movie(2, "Two"), movie(3, "Three"));
+        write("credits.csv", "cast,crew,tmdb_id", credits(1, "Alice"), credits(2, "Bob"));
+        write("keywords.csv", "tmdb_id,keywords", keywords(1, "heist"), keywords(2, "ghost"));
+        write("ratings.csv", "userId,movieLensId,tmdbId,rating,timestamp", "1,0,1,4.0,1000", "2,0,1,2.0,1000", "1,0,2,5.0,1000");
+        loading = new LoadData(null, true, dir.resolve("credits.csv").toString(), dir.resolve("keywords.csv").toString(),
+            dir.resolve("movies.csv").toString(), dir.resolve("ratings.csv").toString());
+        stores = new Stores();
+        loading.populate(stores);
+    }
+
+    @Test void testReloadAppliesOnlyTheChanges() throws Exception {
+        write("movies.csv", MOVIES_HEADER, movie(1, "One"), movie(2, "Two Again"), movie(4, "Four"));
+        write("credits.csv", "cast,crew,tmdb_id", credits(1, "Carol"), credits(2, "Bob"), credits(4, "Dan"));
+        write("keywords.csv", "tmdb_id,keywords", keywords(1, "heist"));
+        write("ratings.csv", "userId,movieLensId,tmdbId,rating,timestamp", "1,0,1,1.0,2000", "1,0,2,5.0,1000", "3,0,4,3.0,1000");
+
+        LoadData.ReloadResult result = reload();
+        assertEquals("1 inserted, 1 updated, 1 deleted", result.movies.toString());
+        assertEquals("1 inserted, 1 updated, 0 deleted", result.credits.toString());
+        assertEquals("0 inserted, 0 updated, 1 deleted", result.keywords.toString());
+        assertEquals("1 inserted, 1 updated, 1 deleted", result.ratings.toString());
+
+        int[] ids = stores.getMovies().getAllIDs();
+        Arrays.sort(ids);
+        assertArrayEquals(new int[] {1, 2, 4}, ids);
+        assertEquals("Two Again", stores.getMovies().getTitle(2));
+        assertEquals(7.0, stores.getMovies().getVoteAverage(2), "An updated movie is added again in full");
+        assertEquals("US", stores.getMovies().getProductionCountries(2)[0]);
+        assertEquals("Carol", stores.getCredits().getFilmCast(1)[0].getName());
+        assertEquals("Dan", stores.getCredits().getFilmCast(4)[0].getName());
+        assertNull(stores.getKeywords().getKeywordsForFilm(2));
+        assertEquals(1.0f, stores.getRatings().getMovieAverageRating(1), 0.0001);
+        assertEquals(1, stores.getRatings().getNumRatings(1));
+        assertEquals(3.0f, stores.getRatings().getMovieAverageRating(4), 0.0001);
+
+        assertEquals(0, reload().total(), "Reloading the same files changes nothing");
+        Stores fresh = new Stores();
+        loading.populate(fresh);
+        assertEquals(3, fresh.getMovies().size(), "Populating after a reload uses the new files");
+        assertEquals("Two Again", fresh.getMovies().getTitle(2));
+    }
+
+    @Test void testBadFilesChangeNothing() throws Exception {
+        write("movies.csv", MOVIES_HEADER, movie(1, "Renamed"), movie(2, "Two"), movie(3, "Three"));
+        write("ratings.csv", "userId,movieLensId,tmdbId,rating,timestamp", "1,0,99,4.0,1000");
+        assertThrows(DataLoadException.class, this::reload);
+        assertEquals("One", stores.getMovies().getTitle(1));
+        assertEquals(2, stores.getRatings().getNumRatings(1));
+
+        write("ratings.csv", "userId,movieLensId,tmdbId,rating,timestamp", "1,0,1,lots,1000");
+        assertThrows(DataLoadException.class, this::reload);
+        assertEquals("One", stores.getMovies().getTitle(1));
+        assertFalse(loading.filesModified(), "A failed reload isn't tried again until a file changes");
+
+        write("ratings.csv", "userId,movieLensId,tmdbId,rating,timestamp", "1,0,1,4.0,1000", "2,0,2,3.0,1000");
+        assertTrue(loading.filesModified());
+        assertEquals(4, reload().total());
+        assertEquals("Renamed", stores.getMovies().getTitle(1));
+    }
+
+    @Test void testDeletionsKeepTheRestInPlace() throws Exception {
+        write("movies.csv", MOVIES_HEADER, movie(2, "Two"), movie(3, "Three"));
+        write("credits.csv", "cast,crew,tmdb_id", credits(2, "Bob"));
+        write("keywords.csv", "tmdb_id,keywords", keywords(2, "ghost"));
+        write("ratings.csv", "userId,movieLensId,tmdbId,rating,timestamp", "1,0,2,5.0,1000", "2,0,3,1.0,1000");
+        assertEquals(6, reload().total());
+        assertEquals(0, reload().total(), "Reloading the same files changes nothing");
+
+        write("movies.csv", MOVIES_HEADER, movie(3, "Three"));
+        write("credits.csv", "cast,crew,tmdb_id");
+        write("keywords.csv", "tmdb_id,keywords");
+        write("ratings.csv", "userId,movieLensId,tmdbId,rating,timestamp", "2,0,3,2.0,1000");
+        assertEquals(5, reload().total());
+
+        Stores fresh = new Stores();
+        loading.populate(fresh);
+        assertArrayEquals(new int[] {3}, fresh.getMovies().getAllIDs());
+        assertEquals(2.0f, fresh.getRatings().getMovieAverageRating(3), 0.0001);
+        assertEquals(0, fresh.getCredits().size());
+    }
+
+    @Test void testOnlyReloadableDataReloads() throws Exception {
+        LoadData once = new LoadData(dir.resolve("credits.csv").toString(), dir.resolve("keywords.csv").toString(),
+            dir.resolve("movies.csv").toString(), dir.resolve("ratings.csv").toString());
+        assertThrows(IllegalStateException.class, () -> once.reload(new Stores()));
+    }
+
+    @Test void testFilesModified() throws Exception {
+        assertFalse(loading.filesModified());
+        Files.setLastModifiedTime(dir.resolve("ratings.csv"),
+            FileTime.fromMillis(loading.getLastModified() + 10000));
+        assertTrue(loading.filesModified());
+        loading.reload(stores);
+        assertFalse(loading.filesModified());
+    }
+}
@@ -0,0 +1,156 @@
+import ranking.RankedStores;
+import ranking.Scorers;
+import server.StoreServer;
+import stores.*;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StoreServerTest {
+    private static final LocalDateTime TIME = LocalDateTime.of(2024, 1, 1, 0, 0, 0);
+
+    private RankedStores stores;
+    private StoreServer server;
+    private HttpClient http;
+
+    @BeforeEach void setup() throws Exception {
+        stores = new RankedStores(new Stores());
+        server = new StoreServer(stores, 0);
+        server.start();
+        http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    @AfterEach void teardown() {
+        server.stop();
+    }
+
+    private void addFilm(int id, String title) {
+        stores.getMovies().add(id, title, title, "Overview", "", "Released", new Genre[] {new Genre(18, "Drama")},
+            LocalDate.of(2000, 1, 1), 0, 0, new String[] {"en"}, "en", 90, "", false, false, "");
+    }
+
+    private HttpResponse<String> get(String path, String... headers) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + path));
+        if (headers.length > 0)
+            request.headers(headers);
+        return http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test void testServerMovie() throws Exception {
+        addFilm(7, "Heat");
+        stores.getCredits().add(new CastCredit[] {new CastCredit(0, "McCauley", "c1", 100, "Robert De Niro", 0, "")}, new CrewCredit[0], 7);
+
+        HttpResponse<String> response = get("/movies/7");
+        assertEquals(200, response.statusCode());
+        assertEquals("application/json; charset=utf-8", response.headers().firstValue("Content-Type").orElse(null));
+        JSONObject movie = new JSONObject(response.body());
+        assertEquals("Heat", movie.getString("title"));
+        assertEquals("2000-01-01", movie.getString("release"));
+        assertEquals("Drama", movie.getJSONArray("genres").getJSONObject(0).getString("name"));
+
+        JSONArray cast = new JSONArray(get("/movies/7/cast").body());
+        assertEquals("McCauley", cast.getJSONObject(0).getString("character"));
+        assertEquals(1, new JSONObject(get("/people/100").body()).getJSONArray("castFilms").length());
+        assertEquals(0, new JSONArray(get("/movies/7/keywords").body()).length(), "A movie without keywords has none, rather than not existing");
+    }
+
+    @Test void testServerErrors() throws Exception {
+        addFilm(7, "Heat");
+
+        assertEquals(404, get("/movies/8").statusCode(), "Unknown movie");
+        assertEquals(404, get("/movies/8/cast").statusCode());
+        assertEquals(404, get("/users/1/ratings").statusCode(), "User without ratings");
+        assertEquals(404, get("/nothing/here").statusCode(), "Unknown route");
+        assertEquals(404, get("/movies/heat").statusCode(), "IDs must be numbers");
+        assertEquals("Not found", new JSONObject(get("/movies/8").body()).getString("error"));
+
+        assertEquals(400, get("/movies?limit=ten").statusCode());
+        assertEquals(400, get("/ratings/top?scorer=best").statusCode());
+        assertEquals(400, get("/ratings/percentile?p=101").statusCode());
+        assertEquals(400, get("/movies/search").statusCode(), "q is required");
+
+        HttpRequest post = HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + "/movies/7"))
+            .POST(HttpRequest.BodyPublishers.ofString("{}")).build();
+        HttpResponse<String> response = http.send(post, HttpResponse.BodyHandlers.ofString());
+        assertEquals(405, response.statusCode());
+        assertEquals("GET", response.headers().firstValue("Allow").orElse(null));
+
+        assertEquals(200, get("/movies/7").statusCode(), "The connection should still work after errors");
+    }
+
+    @Test void testServerETags() throws Exception {
+        addFilm(7, "Heat");
+        stores.getRatings().add(1, 7, 4.0f, TIME);
+
+        HttpResponse<String> first = get("/movies/7/ratings");
+        String etag = first.headers().firstValue("ETag").orElse(null);
+        assertNotNull(etag);
+        assertEquals(etag, get("/movies/7/ratings").headers().firstValue("ETag").orElse(null), "Same body, same ETag");
+
+        HttpResponse<String> revalidated = get("/movies/7/ratings", "If-None-Match", etag);
+        assertEquals(304, revalidated.statusCode());
+        assertEquals("", revalidated.body());
+        assertEquals(304, get("/movies/7/ratings", "If-None-Match", "\"other\", W/" + etag).statusCode());
+
+        stores.getRatings().add(2, 7, 2.0f, TIME);
+        HttpResponse<String> changed = get("/movies/7/ratings", "If-None-Match", etag);
+        assertEquals(200, changed.statusCode(), "A changed body has a new ETag");
+        assertNotEquals(etag, changed.headers().firstValue("ETag").orElse(null));
+        JSONObject stats = new JSONObject(changed.body());
+        assertEquals(2, stats.getInt("count"));
+        assertEquals(3.0, stats.getDouble("average"), 0.0001);
+        assertEquals(10, stats.getJSONArray("histogram").length());
+    }
+
+    @Test void testServerStreamsLargeResults() throws Exception {
+        for (int id = 0; id < 5000; id++)
+            addFilm(id, "A film with a reasonably long title, number " + id);
+
+        HttpResponse<String> small = get("/movies?limit=10");
+        assertTrue(small.headers().firstValue("Content-Length").isPresent());
+
+        HttpResponse<String> large = get("/movies?limit=5000");
+        assertEquals(200, large.statusCode());
+        assertFalse(large.headers().firstValue("ETag").isPresent(), "Streamed responses go without an ETag");
+        assertEquals("chunked", large.headers().firstValue("Transfer-Encoding").orElse(null));
+        JSONObject page = new JSONObject(large.body());
+        assertEquals(5000, page.getJSONArray("results").length());
+        assertEquals(5000, page.getInt("next"));
+        assertEquals("A film with a reasonably long title, number 4999", page.getJSONArray("results").getJSONObject(4999).getString("title"));
+    }
+
+    @Test void testServerRatings() throws Exception {
+        for (int id = 1; id <= 3; id++)
+            addFilm(id, "Film " + id);
+        stores.getRatings().add(1, 1, 5.0f, TIME);
+        for (int user = 1; user <= 20; user++)
+            stores.getRatings().add(user, 2, 4.5f, TIME.minusDays(user));
+        stores.getRatings().add(1, 3, 1.0f, TIME);
+
+        JSONArray top = new JSONArray(get("/ratings/top?n=2").body());
+        assertEquals(1, top.getJSONObject(0).getInt("id"), "The raw mean by default");
+        int[] bayesian = stores.getRanking().getTop(Scorers.BAYESIAN, 3);
+        JSONArray ranked = new JSONArray(get("/ratings/top?scorer=bayesian&n=3").body());
+        for (int i = 0; i < bayesian.length; i++)
+            assertEquals(bayesian[i], ranked.getJSONObject(i).getInt("id"));
+
+        assertEquals(2, new JSONArray(get("/ratings/most-rated?n=1").body()).getJSONObject(0).getInt("id"));
+        assertEquals(2, new JSONArray(get("/ratings/trending?days=30&n=1").body()).getJSONObject(0).getInt("id"));
+
+        JSONObject user = new JSONObject(get("/users/1/ratings").body());
+        assertEquals(3, user.getInt("count"));
+        assertEquals(3, user.getJSONArray("ratings").length());
+        assertEquals(4.5, new JSONObject(get("/ratings/percentile?p=50").body()).getDouble("rating"), 0.0001);
+    }
+}